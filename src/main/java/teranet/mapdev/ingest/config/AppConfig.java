@@ -1,39 +1,46 @@
 package teranet.mapdev.ingest.config;
 
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import java.util.concurrent.Executor;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.List;
 
 /**
- * Application configuration for async processing and file uploads
+ * Application configuration for async processing, scheduled tasks and file uploads
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AppConfig {
     
     /**
-     * Thread pool executor for async CSV processing
+     * Bounded thread pool for async uploads (?async=true)
+     * 
+     * Workers and queue are both capped; when the queue is full submissions
+     * are rejected so the API can answer 429 instead of growing without bound.
      */
     @Bean(name = "csvProcessingExecutor")
-    public Executor csvProcessingExecutor() {
+    public ThreadPoolTaskExecutor csvProcessingExecutor(CsvProcessingConfig csvProcessingConfig) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
-        // Core pool size - number of threads to keep alive
-        executor.setCorePoolSize(2);
-        
-        // Maximum pool size - maximum number of threads
-        executor.setMaxPoolSize(5);
+        // Fixed number of workers - each one holds a DB connection during COPY
+        int workers = Math.max(1, csvProcessingConfig.getMaxConcurrentProcessing());
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
         
-        // Queue capacity - number of tasks to queue when all threads are busy
-        executor.setQueueCapacity(100);
+        // Queue capacity - number of uploads waiting for a worker
+        executor.setQueueCapacity(Math.max(0, csvProcessingConfig.getAsyncQueueCapacity()));
         
         // Thread name prefix
         executor.setThreadNamePrefix("CSV-Processing-");
         
-        // Rejection policy - what to do when queue is full
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        // Rejection policy - reject when queue is full (admission control, surfaces as 429)
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
         
         // Wait for tasks to complete on shutdown
         executor.setWaitForTasksToCompleteOnShutdown(true);
@@ -44,8 +51,19 @@ public class AppConfig {
         return executor;
     }
     
-    // Note: Multipart configuration is handled automatically by Spring Boot
-    // You can configure it in application.properties:
+    /**
+     * Multipart resolver that skips streaming upload endpoints
+     * (they parse the body themselves with commons-fileupload)
+     */
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public StreamingMultipartResolver multipartResolver(MultipartProperties multipartProperties) {
+        StreamingMultipartResolver resolver = new StreamingMultipartResolver(List.of("/upload-stream"));
+        resolver.setResolveLazily(multipartProperties.isResolveLazily());
+        resolver.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return resolver;
+    }
+    
+    // Note: Multipart limits are still configured in application.properties:
     // spring.servlet.multipart.max-file-size=500MB
     // spring.servlet.multipart.max-request-size=500MB
 }
\ No newline at end of file
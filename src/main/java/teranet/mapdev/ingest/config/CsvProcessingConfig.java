@@ -40,12 +40,32 @@ public class CsvProcessingConfig {
     private boolean enableDataValidation = true;
     private boolean skipInvalidRecords = false;
     private int maxValidationErrors = 100;
+    private int batchMaxValidationErrors = 1000;
 
     // Performance settings
     private boolean enableBulkInsert = true;
     private boolean enableParallelProcessing = true;
     private int bufferSize = 8192;
 
+    // Chunked commit settings (batchSize doubles as the row interval)
+    private boolean chunkedCommitEnabled = false;
+    private int commitIntervalMb = 64;
+
+    // Async upload settings (maxConcurrentProcessing is the worker count)
+    private int asyncQueueCapacity = 20;
+
+    // Transformation audit: sampled changed lines per file, optional full log directory
+    private int transformationSampleSize = 100;
+    private String transformationLogDirectory = "";
+
+    // Server-side COPY FROM '<file>' for clean files on a volume the database can read
+    private boolean serverSideCopyEnabled = false;
+    private String serverSideCopyPathMap = ""; // local-prefix=server-prefix,...
+
+    // Loader-assigned row_number from reserved sequence ranges (blocks for streams of unknown length)
+    private boolean rowNumberRangesEnabled = true;
+    private int rowNumberBlockSize = 10000;
+
     // Getters and Setters
     public int getBatchSize() {
         return batchSize;
@@ -183,6 +203,14 @@ public class CsvProcessingConfig {
         this.maxValidationErrors = maxValidationErrors;
     }
 
+    public int getBatchMaxValidationErrors() {
+        return batchMaxValidationErrors;
+    }
+
+    public void setBatchMaxValidationErrors(int batchMaxValidationErrors) {
+        this.batchMaxValidationErrors = batchMaxValidationErrors;
+    }
+
     public boolean isEnableBulkInsert() {
         return enableBulkInsert;
     }
@@ -207,6 +235,85 @@ public class CsvProcessingConfig {
         this.bufferSize = bufferSize;
     }
 
+    public boolean isChunkedCommitEnabled() {
+        return chunkedCommitEnabled;
+    }
+
+    public void setChunkedCommitEnabled(boolean chunkedCommitEnabled) {
+        this.chunkedCommitEnabled = chunkedCommitEnabled;
+    }
+
+    public int getCommitIntervalMb() {
+        return commitIntervalMb;
+    }
+
+    public void setCommitIntervalMb(int commitIntervalMb) {
+        this.commitIntervalMb = commitIntervalMb;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    public int getTransformationSampleSize() {
+        return transformationSampleSize;
+    }
+
+    public void setTransformationSampleSize(int transformationSampleSize) {
+        this.transformationSampleSize = transformationSampleSize;
+    }
+
+    public String getTransformationLogDirectory() {
+        return transformationLogDirectory;
+    }
+
+    public void setTransformationLogDirectory(String transformationLogDirectory) {
+        this.transformationLogDirectory = transformationLogDirectory;
+    }
+
+    public boolean isServerSideCopyEnabled() {
+        return serverSideCopyEnabled;
+    }
+
+    public void setServerSideCopyEnabled(boolean serverSideCopyEnabled) {
+        this.serverSideCopyEnabled = serverSideCopyEnabled;
+    }
+
+    public String getServerSideCopyPathMap() {
+        return serverSideCopyPathMap;
+    }
+
+    public void setServerSideCopyPathMap(String serverSideCopyPathMap) {
+        this.serverSideCopyPathMap = serverSideCopyPathMap;
+    }
+
+    public boolean isRowNumberRangesEnabled() {
+        return rowNumberRangesEnabled;
+    }
+
+    public void setRowNumberRangesEnabled(boolean rowNumberRangesEnabled) {
+        this.rowNumberRangesEnabled = rowNumberRangesEnabled;
+    }
+
+    public int getRowNumberBlockSize() {
+        return rowNumberBlockSize;
+    }
+
+    public void setRowNumberBlockSize(int rowNumberBlockSize) {
+        this.rowNumberBlockSize = rowNumberBlockSize;
+    }
+
+    /**
+     * Get commit interval in bytes (0 disables the size trigger)
+     */
+    public long getCommitIntervalBytes() {
+        return commitIntervalMb <= 0 ? 0 : (long) commitIntervalMb * 1024 * 1024;
+    }
+
     /**
      * Get max file size in bytes
      */
@@ -231,4 +338,4 @@ public class CsvProcessingConfig {
             return 100 * 1024 * 1024; // Default 100MB
         }
     }
-}
\ No newline at end of file
+}
@@ -236,7 +236,7 @@ public class DatabaseInitializer {
             statement.execute(
                     "CREATE INDEX IF NOT EXISTS idx_ingestion_manifest_batch_id ON ingestion_manifest(batch_id)");
             statement.execute(
-                    "CREATE INDEX IF NOT EXISTS idx_ingestion_manifest_file_checksum ON ingestion_manifest(file_checksum)");
+                    "CREATE INDEX IF NOT EXISTS idx_ingestion_manifest_checksum_status ON ingestion_manifest(file_checksum, status, created_at DESC)");
             statement.execute("CREATE INDEX IF NOT EXISTS idx_ingestion_manifest_status ON ingestion_manifest(status)");
             statement.execute(
                     "CREATE INDEX IF NOT EXISTS idx_ingestion_manifest_parent_batch ON ingestion_manifest(parent_batch_id)");
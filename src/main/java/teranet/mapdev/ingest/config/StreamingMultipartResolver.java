@@ -0,0 +1,32 @@
+package teranet.mapdev.ingest.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+import java.util.List;
+
+/**
+ * Multipart resolver that leaves streaming upload endpoints alone.
+ * 
+ * The standard resolver parses (and spools) every multipart request before
+ * the controller runs. Streaming endpoints read the raw body themselves with
+ * the commons-fileupload streaming API, so the request must reach them with
+ * its input stream untouched.
+ */
+public class StreamingMultipartResolver extends StandardServletMultipartResolver {
+
+    private final List<String> streamingPathSuffixes;
+
+    public StreamingMultipartResolver(List<String> streamingPathSuffixes) {
+        this.streamingPathSuffixes = streamingPathSuffixes;
+    }
+
+    @Override
+    public boolean isMultipart(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri != null && streamingPathSuffixes.stream().anyMatch(uri::endsWith)) {
+            return false;
+        }
+        return super.isMultipart(request);
+    }
+}
@@ -36,7 +36,7 @@ public class WatchFolderConfig {
     // Processing settings
     private long pollingInterval = 5000;  // milliseconds
     private int maxConcurrentFiles = 5;
-    private List<String> supportedExtensions = List.of(".csv", ".zip");
+    private List<String> supportedExtensions = List.of(".csv", ".zip", ".gz", ".tgz", ".tar");
     
     // Retention policies
     private ArchiveConfig archiveConfig = new ArchiveConfig();
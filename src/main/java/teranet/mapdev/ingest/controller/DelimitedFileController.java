@@ -2,31 +2,68 @@ package teranet.mapdev.ingest.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.util.Streams;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import teranet.mapdev.ingest.config.IngestConfig;
 import teranet.mapdev.ingest.dto.CsvUploadResponseDto;
 import teranet.mapdev.ingest.dto.ErrorResponseDto;
 import teranet.mapdev.ingest.dto.IngestionStatusDto;
 import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.service.AdaptiveConcurrencyLimiter;
+import teranet.mapdev.ingest.service.AsyncUploadService;
+import teranet.mapdev.ingest.service.BufferPool;
 import teranet.mapdev.ingest.service.DelimitedFileProcessingService;
+import teranet.mapdev.ingest.service.FileChecksumService;
 import teranet.mapdev.ingest.service.FilenameRouterService;
+import teranet.mapdev.ingest.service.JfrRecordingService;
+import teranet.mapdev.ingest.service.RejectedRowService;
+import teranet.mapdev.ingest.service.SchemaCatalogService;
+import teranet.mapdev.ingest.service.TableMaintenanceService;
 import teranet.mapdev.ingest.util.FileValidationUtil;
+import teranet.mapdev.ingest.util.JakartaRequestContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import teranet.mapdev.ingest.service.IngestionManifestService;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller for delimited file operations (CSV/TSV)
  * 
@@ -52,6 +89,30 @@ public class DelimitedFileController {
     @Autowired
     private IngestionManifestService manifestService;
 
+    @Autowired
+    private MultipartProperties multipartProperties;
+
+    @Autowired
+    private AsyncUploadService asyncUploadService;
+
+    @Autowired
+    private RejectedRowService rejectedRowService;
+
+    @Autowired
+    private SchemaCatalogService schemaCatalogService;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private TableMaintenanceService tableMaintenanceService;
+
+    @Autowired
+    private JfrRecordingService jfrRecordingService;
+
+    @Autowired
+    private BufferPool bufferPool;
+
     public DelimitedFileController(
             IngestConfig ingestConfig,
             FilenameRouterService filenameRouterService,
@@ -69,6 +130,7 @@ public class DelimitedFileController {
      * ?format=tsv&hasHeaders=false&routeByFilename=true
      * - Upload CSV to staging: POST
      * ?format=csv&hasHeaders=true&routeByFilename=false
+     * - Queue a large file and poll /status/{batchId}: POST ?async=true
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload delimited file (CSV/TSV)", description = """
@@ -76,12 +138,15 @@ public class DelimitedFileController {
             - format: csv or tsv (default: csv)
             - hasHeaders: true or false (default: from config based on format)
             - routeByFilename: true or false (default: from config)
+            - async: true to queue the file and return 202 with a batch ID to poll (default: false)
 
             Example for TSV with routing:
             POST /api/v1/ingest/delimited/upload?format=tsv&hasHeaders=false&routeByFilename=true
             """)
     @ApiResponse(responseCode = "200", description = "File successfully uploaded and processed")
+    @ApiResponse(responseCode = "202", description = "File accepted and queued (async=true)")
     @ApiResponse(responseCode = "400", description = "Invalid file, format, or routing error")
+    @ApiResponse(responseCode = "429", description = "Upload queue is full (async=true)")
     @ApiResponse(responseCode = "500", description = "Processing error")
     public ResponseEntity<?> uploadDelimitedFile(
             @Parameter(description = "File to upload", required = true) @RequestParam("file") MultipartFile file,
@@ -90,14 +155,16 @@ public class DelimitedFileController {
 
             @Parameter(description = "Does file have headers? (default: true for CSV, false for TSV)") @RequestParam(value = "hasHeaders", required = false) Boolean hasHeaders,
 
-            @Parameter(description = "Route by filename? (default: from config)") @RequestParam(value = "routeByFilename", required = false) Boolean routeByFilename) {
+            @Parameter(description = "Route by filename? (default: from config)") @RequestParam(value = "routeByFilename", required = false) Boolean routeByFilename,
 
-        log.info("Delimited file upload requested: {} (format={}, hasHeaders={}, routeByFilename={})",
-                file.getOriginalFilename(), format, hasHeaders, routeByFilename);
+            @Parameter(description = "Queue the file and return 202 immediately? (default: false)") @RequestParam(value = "async", defaultValue = "false") boolean async) {
+
+        log.info("Delimited file upload requested: {} (format={}, hasHeaders={}, routeByFilename={}, async={})",
+                file.getOriginalFilename(), format, hasHeaders, routeByFilename, async);
 
         try {
             // === STEP 1: Determine format ===
-            String effectiveFormat = determineFormat(file, format);
+            String effectiveFormat = determineFormat(file.getOriginalFilename(), format);
             log.debug("Effective format: {}", effectiveFormat);
 
             // === STEP 2: Determine if file has headers ===
@@ -122,6 +189,13 @@ public class DelimitedFileController {
                 log.info("File {} will be routed to table: {}", file.getOriginalFilename(), targetTable);
             }
 
+            // === STEP 6a: Async mode - queue and return the batch ID to poll ===
+            if (async) {
+                IngestionManifest queued = asyncUploadService.submitDelimitedFile(
+                        file, effectiveFormat, effectiveHasHeaders, effectiveRouting, targetTable);
+                return buildAcceptedResponse(queued, file.getOriginalFilename(), file.getSize());
+            }
+
             // === STEP 6: Process file (API uploads are standalone, no parent batch) ===
             IngestionManifest manifest = delimitedFileProcessingService.processDelimitedFile(
                     file,
@@ -130,46 +204,18 @@ public class DelimitedFileController {
                     effectiveRouting,
                     null); // No parent batch for API uploads
 
-            // Build response
-            String message;
-            String status;
-
-            if (manifest.isAlreadyProcessed()) {
-                // File was already processed (idempotency)
-                message = String.format(
-                        "File already processed previously. Original processing completed on %s. " +
-                                "Batch ID: %s. No duplicate data was inserted.",
-                        manifest.getCompletedAt().toString(),
-                        manifest.getBatchId());
-                status = "ALREADY_PROCESSED";
-            } else {
-                // Newly processed file
-                message = String.format(
-                        "File processed successfully. Format: %s, Headers: %s, Routing: %s. " +
-                                "Loaded %d rows to table: %s",
-                        effectiveFormat.toUpperCase(),
-                        effectiveHasHeaders ? "Yes" : "No",
-                        effectiveRouting ? "Enabled" : "Disabled",
-                        manifest.getTotalRecords(),
-                        manifest.getTableName());
-                status = "COMPLETED";
-            }
-
-            CsvUploadResponseDto response = new CsvUploadResponseDto(
-                    manifest.getBatchId(),
-                    file.getOriginalFilename(),
-                    manifest.getTableName(),
-                    file.getSize(),
-                    status,
-                    message);
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(buildUploadResponse(manifest, file.getOriginalFilename(), file.getSize(),
+                    effectiveFormat, effectiveHasHeaders, effectiveRouting));
 
         } catch (IllegalArgumentException e) {
             log.warn("Validation error: {}", e.getMessage());
             return ResponseEntity.badRequest().body(
                     new ErrorResponseDto("Validation Error", e.getMessage()));
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Async upload rejected for {}: {}", file.getOriginalFilename(), e.getMessage());
+            return QueueFullResponse.of(e);
+
         } catch (Exception e) {
             log.error("Failed to process delimited file: {}", file.getOriginalFilename(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
@@ -177,6 +223,105 @@ public class DelimitedFileController {
         }
     }
 
+    /**
+     * Upload a delimited file as a stream (no spooling)
+     * 
+     * The file part is read with the commons-fileupload streaming API and fed
+     * straight into validation, transformation and COPY, so loading starts
+     * with the first bytes of the upload. Options come from the query string
+     * or from form fields sent BEFORE the file part.
+     * 
+     * Example:
+     * curl -F file=@PM162 ".../upload-stream?format=tsv&hasHeaders=false"
+     */
+    @PostMapping(value = "/upload-stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Stream delimited file (CSV/TSV)", description = """
+            Same options as /upload, but the request body is processed while it arrives:
+            - The file is hashed, validated, transformed and COPYed in a single pass
+            - Duplicate detection and rejection rules are applied before commit (rolled back if they fail)
+            - Options may be query parameters or form fields placed before the 'file' part
+            - With chunked commit enabled the body is spooled to disk first (second pass needed)
+            """)
+    @Parameter(name = "format", in = ParameterIn.QUERY, description = "File format: csv or tsv (default: csv)")
+    @Parameter(name = "hasHeaders", in = ParameterIn.QUERY, description = "Does file have headers?")
+    @Parameter(name = "routeByFilename", in = ParameterIn.QUERY, description = "Route by filename? (default: from config)")
+    @ApiResponse(responseCode = "200", description = "File successfully streamed and processed")
+    @ApiResponse(responseCode = "400", description = "Invalid file, format, or routing error")
+    @ApiResponse(responseCode = "500", description = "Processing error")
+    public ResponseEntity<?> uploadDelimitedFileStream(HttpServletRequest request) {
+
+        String fileName = null;
+
+        try {
+            // Query string only - request.getParameter() would make the container parse the body
+            MultiValueMap<String, String> options = new LinkedMultiValueMap<>(
+                    ServletUriComponentsBuilder.fromRequest(request).build().getQueryParams());
+
+            FileUpload upload = new FileUpload();
+            upload.setFileSizeMax(multipartProperties.getMaxFileSize().toBytes());
+            upload.setSizeMax(multipartProperties.getMaxRequestSize().toBytes());
+
+            FileItemIterator items = upload.getItemIterator(new JakartaRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+
+                if (item.isFormField()) {
+                    try (InputStream value = item.openStream()) {
+                        options.set(item.getFieldName(), Streams.asString(value, "UTF-8"));
+                    }
+                    continue;
+                }
+
+                if (!"file".equals(item.getFieldName())) {
+                    log.debug("Ignoring unexpected file part: {}", item.getFieldName());
+                    continue;
+                }
+
+                fileName = item.getName();
+                log.info("Streaming delimited file upload requested: {} (options={})", fileName, options);
+
+                String effectiveFormat = determineFormat(fileName, options.getFirst("format"));
+                String hasHeaders = options.getFirst("hasHeaders");
+                boolean effectiveHasHeaders = (hasHeaders != null)
+                        ? Boolean.parseBoolean(hasHeaders)
+                        : ingestConfig.hasHeadersForFormat(effectiveFormat);
+                String routeByFilename = options.getFirst("routeByFilename");
+                boolean effectiveRouting = (routeByFilename != null)
+                        ? Boolean.parseBoolean(routeByFilename)
+                        : filenameRouterService.isEnabled();
+
+                FileValidationUtil.validateFileExtension(FileChecksumService.dataFileName(fileName),
+                        getAllowedExtensions(effectiveFormat));
+                if (effectiveRouting) {
+                    String targetTable = validateAndResolveRouting(fileName);
+                    log.info("File {} will be routed to table: {}", fileName, targetTable);
+                }
+
+                IngestionManifest manifest;
+                try (InputStream body = item.openStream()) {
+                    manifest = delimitedFileProcessingService.processDelimitedStream(
+                            body, fileName, item.getContentType(),
+                            effectiveFormat, effectiveHasHeaders, effectiveRouting);
+                }
+
+                return ResponseEntity.ok(buildUploadResponse(manifest, fileName, manifest.getFileSizeBytes(),
+                        effectiveFormat, effectiveHasHeaders, effectiveRouting));
+            }
+
+            throw new IllegalArgumentException("Request does not contain a 'file' part");
+
+        } catch (IllegalArgumentException | FileUploadException e) {
+            log.warn("Validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(
+                    new ErrorResponseDto("Validation Error", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Failed to process streamed delimited file: {}", fileName, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    new ErrorResponseDto("Processing Error", "Failed to process file: " + e.getMessage()));
+        }
+    }
+
     /**
      * Get processing status by batch ID
      */
@@ -209,15 +354,257 @@ public class DelimitedFileController {
         }
     }
 
+    /**
+     * Processing statistics, maintained incrementally (no manifest table scan)
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Get processing statistics", description = """
+            Totals of PROCESSING / COMPLETED / FAILED batches and records, plus files finished in
+            the last hour and day (and in the last windowMinutes, if given, up to 1440).
+            Also the adaptive COPY concurrency limit, per-table load measurements and recent
+            limit changes, rows pending post-load ANALYZE per table, and the memory budget for
+            validated file content (buffers in use, loads waiting, bytes spilled). Served from in-memory
+            counters, so it is cheap to poll.
+            """)
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+    public ResponseEntity<Map<String, Object>> getProcessingStatistics(
+            @RequestParam(required = false) Integer windowMinutes) {
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("totals", manifestService.getProcessingStats());
+        body.put("lastHour", manifestService.getProcessingStats(Duration.ofHours(1)));
+        body.put("lastDay", manifestService.getProcessingStats(Duration.ofDays(1)));
+        if (windowMinutes != null) {
+            body.put("window", manifestService.getProcessingStats(Duration.ofMinutes(windowMinutes)));
+        }
+        body.put("concurrency", concurrencyLimiter.getSnapshot());
+        body.put("maintenance", tableMaintenanceService.getSnapshot());
+        body.put("memory", bufferPool.getSnapshot());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Download the rows quarantined for a batch (csv.processing.skip-invalid-records)
+     */
+    @GetMapping(value = "/rejects/{batchId}", produces = MediaType.TEXT_PLAIN_VALUE)
+    @Operation(summary = "Download quarantined rows", description = """
+            Returns the rows of a batch that were diverted instead of loaded, in line order.
+            - Default: raw lines only - fix them and upload the result as a new file
+            - withReasons=true: line_number<TAB>reason<TAB>raw_line for each reject
+            """)
+    @ApiResponse(responseCode = "200", description = "Quarantined rows (empty if none)")
+    @ApiResponse(responseCode = "400", description = "Invalid batch ID format")
+    @ApiResponse(responseCode = "404", description = "Batch ID not found")
+    public ResponseEntity<StreamingResponseBody> getRejectedRows(
+            @PathVariable String batchId,
+            @Parameter(description = "Prefix each line with its line number and reject reason") @RequestParam(value = "withReasons", defaultValue = "false") boolean withReasons) {
+
+        UUID id;
+        try {
+            id = UUID.fromString(batchId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid batch ID format: {}", batchId);
+            return ResponseEntity.badRequest().build();
+        }
+
+        IngestionManifest manifest = manifestService.findByBatchId(id);
+        if (manifest == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            rejectedRowService.forEachByBatchId(id, row -> {
+                try {
+                    if (withReasons) {
+                        writer.write(row.getLineNumber() + "\t" + row.getReason() + "\t");
+                    }
+                    writer.write(row.getRawLine() != null ? row.getRawLine() : "");
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + manifest.getFileName() + ".rejects\"")
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(body);
+    }
+
+    /**
+     * Reload the in-memory schema catalog (after adding or altering target tables)
+     */
+    @PostMapping("/schema-catalog/refresh")
+    @Operation(summary = "Refresh schema catalog", description = "Reload table and column metadata used for routing, headerless column order and row checks")
+    @ApiResponse(responseCode = "200", description = "Catalog reloaded")
+    @ApiResponse(responseCode = "500", description = "Catalog could not be loaded (previous catalog is kept)")
+    public ResponseEntity<java.util.Map<String, Object>> refreshSchemaCatalog() {
+        try {
+            int tableCount = schemaCatalogService.refresh();
+
+            java.util.Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("table_count", tableCount);
+            response.put("loaded_at", schemaCatalogService.getLoadedAt());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Failed to refresh schema catalog", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Start an on-demand Java Flight Recorder recording of the pipeline
+     */
+    @PostMapping("/jfr/start")
+    @Operation(summary = "Start JFR recording", description = """
+            Starts a flight recording with the JDK's "default" (about 1% overhead) or "profile"
+            settings. The pipeline's own events (category Ingest: checksum, validation and
+            transform chunks, COPY, batch_id update, issue flush, slow loads) are always included.
+            Stop it with /jfr/stop or write its current content with /jfr/dump.
+            """)
+    @ApiResponse(responseCode = "200", description = "Recording started")
+    @ApiResponse(responseCode = "409", description = "A recording is already running")
+    public ResponseEntity<Map<String, Object>> startJfrRecording(
+            @Parameter(description = "JDK settings: default or profile") @RequestParam(defaultValue = "default") String settings,
+            @Parameter(description = "Oldest data kept, 0 = unlimited") @RequestParam(defaultValue = "60") long maxAgeMinutes,
+            @Parameter(description = "Largest recording kept, 0 = unlimited") @RequestParam(defaultValue = "512") long maxSizeMb) {
+        try {
+            return ResponseEntity.ok(jfrRecordingService.start(settings, maxAgeMinutes, maxSizeMb));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to start JFR recording", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to start JFR recording: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Stop the on-demand recording and write it to csv.processing.jfr-directory
+     */
+    @PostMapping("/jfr/stop")
+    @Operation(summary = "Stop JFR recording", description = "Stops the running recording and writes it to csv.processing.jfr-directory")
+    @ApiResponse(responseCode = "200", description = "Recording written; body has its path")
+    @ApiResponse(responseCode = "409", description = "No recording is running")
+    public ResponseEntity<Map<String, Object>> stopJfrRecording() {
+        try {
+            return ResponseEntity.ok(Map.of("file", jfrRecordingService.stop().toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to stop JFR recording", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to stop JFR recording: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Write the running recording to csv.processing.jfr-directory and keep recording
+     */
+    @PostMapping("/jfr/dump")
+    @Operation(summary = "Dump JFR recording", description = "Writes the running recording's content so far to csv.processing.jfr-directory; recording continues")
+    @ApiResponse(responseCode = "200", description = "Dump written; body has its path")
+    @ApiResponse(responseCode = "409", description = "No recording is running")
+    public ResponseEntity<Map<String, Object>> dumpJfrRecording() {
+        try {
+            return ResponseEntity.ok(Map.of("file", jfrRecordingService.dump().toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to dump JFR recording", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to dump JFR recording: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * On-demand recording and slow-load capture state
+     */
+    @GetMapping("/jfr/status")
+    @Operation(summary = "Get JFR status", description = "Whether a recording is running, slow-load capture settings, and the slow loads and snapshots seen")
+    @ApiResponse(responseCode = "200", description = "Status retrieved")
+    public ResponseEntity<Map<String, Object>> getJfrStatus() {
+        return ResponseEntity.ok(jfrRecordingService.getStatus());
+    }
+
     // ========================================
     // HELPER METHODS
     // ========================================
 
+    /**
+     * Build the 202 response for a queued upload (Location points at the status endpoint)
+     */
+    private ResponseEntity<CsvUploadResponseDto> buildAcceptedResponse(
+            IngestionManifest queued, String fileName, long fileSize) {
+
+        String statusPath = "/api/v1/ingest/delimited/status/" + queued.getBatchId();
+        CsvUploadResponseDto response = new CsvUploadResponseDto(
+                queued.getBatchId(),
+                fileName,
+                queued.getTableName(),
+                fileSize,
+                "QUEUED",
+                "File accepted for processing. Poll " + statusPath + " for progress.");
+
+        return ResponseEntity.accepted()
+                .location(URI.create(statusPath))
+                .body(response);
+    }
+
+    /**
+     * Build the upload response for a processed (or already processed) file
+     */
+    private CsvUploadResponseDto buildUploadResponse(
+            IngestionManifest manifest,
+            String fileName,
+            long fileSize,
+            String effectiveFormat,
+            boolean effectiveHasHeaders,
+            boolean effectiveRouting) {
+
+        String message;
+        String status;
+
+        if (manifest.isAlreadyProcessed()) {
+            // File was already processed (idempotency)
+            message = String.format(
+                    "File already processed previously. Original processing completed on %s. " +
+                            "Batch ID: %s. No duplicate data was inserted.",
+                    manifest.getCompletedAt().toString(),
+                    manifest.getBatchId());
+            status = "ALREADY_PROCESSED";
+        } else {
+            // Newly processed file
+            message = String.format(
+                    "File processed successfully. Format: %s, Headers: %s, Routing: %s. " +
+                            "Loaded %d rows to table: %s",
+                    effectiveFormat.toUpperCase(),
+                    effectiveHasHeaders ? "Yes" : "No",
+                    effectiveRouting ? "Enabled" : "Disabled",
+                    manifest.getTotalRecords(),
+                    manifest.getTableName());
+            status = "COMPLETED";
+        }
+
+        return new CsvUploadResponseDto(
+                manifest.getBatchId(),
+                fileName,
+                manifest.getTableName(),
+                fileSize,
+                status,
+                message);
+    }
+
     /**
      * Determine the file format (csv or tsv)
      * Handles files with extensions (.csv, .tsv) and files without extensions
      */
-    private String determineFormat(MultipartFile file, String requestedFormat) {
+    private String determineFormat(String filename, String requestedFormat) {
         // If format explicitly provided, use it
         if (requestedFormat != null && !requestedFormat.isBlank()) {
             String normalized = requestedFormat.toLowerCase().trim();
@@ -228,9 +615,9 @@ public class DelimitedFileController {
             return normalized;
         }
 
-        // If format inference is enabled, infer from extension
+        // If format inference is enabled, infer from extension (of the data inside a .gz)
         if (ingestConfig.getApi().isInferFormatFromExtension()) {
-            String filename = file.getOriginalFilename();
+            filename = FileChecksumService.dataFileName(filename);
             if (filename != null) {
                 if (filename.toLowerCase().endsWith(".tsv")) {
                     return "tsv";
@@ -256,6 +643,23 @@ public class DelimitedFileController {
      * configuration
      */
     private void validateFile(MultipartFile file, String format) {
+        // Validate file (a .gz is checked by the name of the data inside it)
+        FileValidationUtil.validateFileNotEmpty(file);
+        FileValidationUtil.validateFileExtension(FileChecksumService.dataFileName(file.getOriginalFilename()),
+                getAllowedExtensions(format));
+
+        // Additional validation
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Uploaded file is empty");
+        }
+    }
+
+    /**
+     * Build the allowed extension list for a format
+     * Supports files without extensions based on ingest.api.supported-extensions
+     * configuration
+     */
+    private String[] getAllowedExtensions(String format) {
         // Get supported extensions from API config
         String supportedExtensions = ingestConfig.getApi().getSupportedExtensions();
 
@@ -276,13 +680,7 @@ public class DelimitedFileController {
             log.debug("Allowed extensions: {}", String.join(", ", allowedExtensions));
         }
 
-        // Validate file
-        FileValidationUtil.validateFile(file, allowedExtensions);
-
-        // Additional validation
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("Uploaded file is empty");
-        }
+        return allowedExtensions;
     }
 
     /**
@@ -1,14 +1,24 @@
 package teranet.mapdev.ingest.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import teranet.mapdev.ingest.model.FileValidationIssue;
 import teranet.mapdev.ingest.model.FileValidationRule;
 import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
 import teranet.mapdev.ingest.repository.FileValidationRuleRepository;
 import teranet.mapdev.ingest.service.FileValidationService;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,14 +33,17 @@ public class FileValidationController {
     private final FileValidationRuleRepository ruleRepository;
     private final FileValidationIssueRepository issueRepository;
     private final FileValidationService validationService;
+    private final ObjectMapper objectMapper;
 
     public FileValidationController(
             FileValidationRuleRepository ruleRepository,
             FileValidationIssueRepository issueRepository,
-            FileValidationService validationService) {
+            FileValidationService validationService,
+            ObjectMapper objectMapper) {
         this.ruleRepository = ruleRepository;
         this.issueRepository = issueRepository;
         this.validationService = validationService;
+        this.objectMapper = objectMapper;
     }
 
     // ===== Validation Rules Management =====
@@ -92,30 +105,81 @@ public class FileValidationController {
     }
 
     // ===== Validation Issues & Reports =====
+    // Issues are stored compacted (line ranges); batch endpoints return one issue per line.
+    // Lists are keyset-paginated: pass nextAfterLine / nextAfterId of a page to get the next one.
 
     /**
-     * Get all validation issues for a batch
+     * Get a page of validation issues for a batch
      */
     @GetMapping("/issues/batch/{batchId}")
-    public ResponseEntity<List<FileValidationIssue>> getIssuesByBatch(@PathVariable UUID batchId) {
-        List<FileValidationIssue> issues = issueRepository.findByBatchIdOrderByLineNumber(batchId);
-        return ResponseEntity.ok(issues);
+    public ResponseEntity<FileValidationService.IssuePage> getIssuesByBatch(
+            @PathVariable UUID batchId,
+            @RequestParam(defaultValue = "0") long afterLine,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(validationService.getIssuePage(batchId, null, afterLine, afterId, limit));
     }
 
     /**
-     * Get validation issues by batch and severity
+     * Get a page of validation issues by batch and severity
      */
     @GetMapping("/issues/batch/{batchId}/severity/{severity}")
-    public ResponseEntity<List<FileValidationIssue>> getIssuesBySeverity(
+    public ResponseEntity<FileValidationService.IssuePage> getIssuesBySeverity(
             @PathVariable UUID batchId,
-            @PathVariable FileValidationIssue.Severity severity) {
+            @PathVariable FileValidationIssue.Severity severity,
+            @RequestParam(defaultValue = "0") long afterLine,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(validationService.getIssuePage(batchId, severity, afterLine, afterId, limit));
+    }
 
-        List<FileValidationIssue> issues = issueRepository.findByBatchIdAndSeverity(batchId, severity);
-        return ResponseEntity.ok(issues);
+    /**
+     * Export all validation issues of a batch (one per line, in line order)
+     * as NDJSON (one JSON issue per line) or TSV with a header row
+     */
+    @GetMapping("/issues/batch/{batchId}/export")
+    public ResponseEntity<StreamingResponseBody> exportIssues(
+            @PathVariable UUID batchId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        StreamingResponseBody body;
+        MediaType contentType;
+        if ("tsv".equalsIgnoreCase(format)) {
+            contentType = MediaType.TEXT_PLAIN;
+            body = out -> {
+                try {
+                    validationService.copyIssuesAsTsv(batchId, out);
+                } catch (java.sql.SQLException e) {
+                    throw new IOException("Issue export failed for batch " + batchId, e);
+                }
+            };
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            contentType = MediaType.parseMediaType("application/x-ndjson");
+            body = out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                validationService.forEachIssue(batchId, issue -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(issue));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            };
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + batchId + "_issues." + format.toLowerCase() + "\"")
+                .contentType(contentType)
+                .body(body);
     }
 
     /**
-     * Get validation report for a batch
+     * Get validation report for a batch (counts plus the first page of issues)
      */
     @GetMapping("/report/batch/{batchId}")
     public ResponseEntity<FileValidationService.ValidationReport> getValidationReport(
@@ -135,11 +199,13 @@ public class FileValidationController {
     }
 
     /**
-     * Get all critical issues across all batches
+     * Get a page of critical issues across all batches (stored issues, by id)
      */
     @GetMapping("/issues/critical")
-    public ResponseEntity<List<FileValidationIssue>> getCriticalIssues() {
-        List<FileValidationIssue> issues = issueRepository.findBySeverity(FileValidationIssue.Severity.CRITICAL);
-        return ResponseEntity.ok(issues);
+    public ResponseEntity<FileValidationService.IssuePage> getCriticalIssues(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(
+                validationService.getIssuePage(FileValidationIssue.Severity.CRITICAL, afterId, limit));
     }
 }
@@ -0,0 +1,27 @@
+package teranet.mapdev.ingest.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import teranet.mapdev.ingest.dto.ErrorResponseDto;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The 429 response returned by the async upload endpoints when the upload
+ * queue is full
+ */
+final class QueueFullResponse {
+
+    /** Retry-After hint sent with 429 when the async queue is full */
+    static final int RETRY_AFTER_SECONDS = 30;
+
+    private QueueFullResponse() {
+    }
+
+    static ResponseEntity<ErrorResponseDto> of(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                .body(new ErrorResponseDto("Too Many Requests", e.getMessage()));
+    }
+}
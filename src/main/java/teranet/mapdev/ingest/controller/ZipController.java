@@ -3,6 +3,8 @@ package teranet.mapdev.ingest.controller;
 import teranet.mapdev.ingest.dto.BatchProcessingResultDto;
 import teranet.mapdev.ingest.dto.ErrorResponseDto;
 import teranet.mapdev.ingest.dto.ZipAnalysisDto;
+import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.service.AsyncUploadService;
 import teranet.mapdev.ingest.service.BatchProcessingService;
 import teranet.mapdev.ingest.service.ZipProcessingService;
 import teranet.mapdev.ingest.util.FileValidationUtil;
@@ -20,6 +22,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller for ZIP file operations
  * Handles ZIP file analysis and processing containing multiple CSV files
@@ -37,13 +42,16 @@ public class ZipController {
     
     @Autowired
     private BatchProcessingService batchProcessingService;
+    
+    @Autowired
+    private AsyncUploadService asyncUploadService;
 
     /**
      * Analyze ZIP file contents
      */
     @Operation(
         summary = "Analyze ZIP file",
-        description = "Extract and analyze contents of a ZIP file containing CSV files"
+        description = "Analyze contents of a ZIP file containing CSV files from its central directory (no extraction)"
     )
     @ApiResponse(responseCode = "200", description = "ZIP file analyzed successfully")
     @ApiResponse(responseCode = "400", description = "Invalid ZIP file")
@@ -91,10 +99,14 @@ public class ZipController {
     @PostMapping(value = "/process", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
         summary = "Process ZIP file to staging",
-        description = "Upload a ZIP file containing multiple CSV files and process them all to staging tables"
+        description = "Upload a ZIP file containing multiple CSV files and process them all to staging tables. "
+                + "With async=true the ZIP is queued and 202 is returned with the batch ID to poll at "
+                + "/api/v1/ingest/delimited/status/{batchId}"
     )
     @ApiResponse(responseCode = "200", description = "ZIP file successfully processed")
+    @ApiResponse(responseCode = "202", description = "ZIP file accepted and queued (async=true)")
     @ApiResponse(responseCode = "400", description = "Invalid ZIP file")
+    @ApiResponse(responseCode = "429", description = "Upload queue is full (async=true)")
     @ApiResponse(responseCode = "500", description = "Processing error")
     public ResponseEntity<?> processZipToStaging(
             @Parameter(
@@ -102,14 +114,29 @@ public class ZipController {
                 required = true,
                 content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
             )
-            @RequestParam("file") MultipartFile zipFile) {
+            @RequestParam("file") MultipartFile zipFile,
+            @Parameter(description = "Queue the ZIP and return 202 immediately? (default: false)")
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
         
-        logger.info("Processing ZIP file to staging area: {}", zipFile.getOriginalFilename());
+        logger.info("Processing ZIP file to staging area: {} (async={})", zipFile.getOriginalFilename(), async);
         
         try {
             // Validate file using utility
             FileValidationUtil.validateFile(zipFile, "zip");
             
+            // Async mode - queue and return the parent batch ID to poll
+            if (async) {
+                IngestionManifest queued = asyncUploadService.submitZipFile(zipFile);
+                
+                BatchProcessingResultDto accepted = new BatchProcessingResultDto();
+                accepted.setBatchId(queued.getBatchId().toString());
+                accepted.setProcessingStatus("QUEUED");
+                
+                return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/ingest/delimited/status/" + queued.getBatchId()))
+                    .body(accepted);
+            }
+            
             // Process ZIP to staging
             BatchProcessingResultDto result = batchProcessingService.processBatchFromZip(zipFile);
             
@@ -125,6 +152,10 @@ public class ZipController {
             );
             return ResponseEntity.badRequest().body(errorResponse);
             
+        } catch (RejectedExecutionException e) {
+            logger.warn("Async ZIP upload rejected for {}: {}", zipFile.getOriginalFilename(), e.getMessage());
+            return QueueFullResponse.of(e);
+            
         } catch (Exception e) {
             logger.error("Failed to process ZIP file to staging: {}", zipFile.getOriginalFilename(), e);
             ErrorResponseDto errorResponse = new ErrorResponseDto(
@@ -62,5 +62,8 @@ public class ZipAnalysisDto {
 
         @JsonProperty("staging_table_exists")
         private Boolean stagingTableExists;
+
+        @JsonProperty("crc32")
+        private Long crc32; // From the ZIP central directory
     }
 }
\ No newline at end of file
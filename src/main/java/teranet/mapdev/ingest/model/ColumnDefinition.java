@@ -0,0 +1,57 @@
+package teranet.mapdev.ingest.model;
+
+/**
+ * Type information for one column of a target table
+ *
+ * Loaded by SchemaCatalogService from information_schema; used to
+ * pre-check values before COPY so rows that PostgreSQL would reject can be
+ * quarantined instead of aborting the whole load.
+ */
+public class ColumnDefinition {
+
+    private final String name;
+    private final int jdbcType; // java.sql.Types
+    private final String typeName; // PostgreSQL type name (varchar, int4, timestamp, ...)
+    private final int precision; // Max length for character types, digits for numeric
+    private final int scale;
+    private final boolean nullable;
+
+    public ColumnDefinition(String name, int jdbcType, String typeName, int precision, int scale,
+            boolean nullable) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+        this.typeName = typeName;
+        this.precision = precision;
+        this.scale = scale;
+        this.nullable = nullable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + typeName + (precision > 0 && precision < Integer.MAX_VALUE ? "(" + precision + ")" : "");
+    }
+}
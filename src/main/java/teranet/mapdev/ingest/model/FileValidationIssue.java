@@ -20,6 +20,13 @@ import lombok.Setter;
 /**
  * Tracks validation issues found during file processing
  * Used for reporting back to the sender
+ * 
+ * A stored issue covers every line with the same finding: lineNumber is the
+ * first line, lineCount the number of lines and lineRanges the lines
+ * themselves (see LineRanges; null when the issue covers a single line).
+ * Line text lives in file_validation_lines (FileValidationLine) for a
+ * sample of lines; FileValidationService expands both back to one issue
+ * per line for reports.
  */
 @Entity
 @Table(name = "file_validation_issues", indexes = {
@@ -65,6 +72,12 @@ public class FileValidationIssue {
     @Column(name = "line_number", nullable = false)
     private Long lineNumber;
 
+    @Column(name = "line_count", nullable = false)
+    private Long lineCount = 1L;
+
+    @Column(name = "line_ranges", columnDefinition = "TEXT")
+    private String lineRanges;
+
     @Column(name = "issue_type", nullable = false, length = 50)
     @Enumerated(EnumType.STRING)
     private IssueType issueType;
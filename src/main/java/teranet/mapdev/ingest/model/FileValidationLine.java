@@ -0,0 +1,49 @@
+package teranet.mapdev.ingest.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Text of a line that has validation issues, stored once per line
+ * (however many issues the line has) and only for a bounded sample of lines
+ */
+@Entity
+@Table(name = "file_validation_lines", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_validation_lines_batch_line", columnNames = { "batch_id", "line_number" })
+})
+@Getter
+@Setter
+public class FileValidationLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false, columnDefinition = "UUID")
+    private UUID batchId;
+
+    @Column(name = "line_number", nullable = false)
+    private Long lineNumber;
+
+    @Column(name = "original_line", columnDefinition = "TEXT")
+    private String originalLine;
+
+    @Column(name = "corrected_line", columnDefinition = "TEXT")
+    private String correctedLine;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -46,6 +46,9 @@ public class FileValidationRule {
     @Column(name = "reject_on_violation", nullable = false)
     private Boolean rejectOnViolation = false; // Whether to reject the entire file
 
+    @Column(name = "max_errors")
+    private Integer maxErrors; // Unfixed violations before the file is rejected (null = csv.processing.max-validation-errors, -1 = no limit)
+
     @Column(name = "replace_control_chars", nullable = false)
     private Boolean replaceControlChars = false; // Replace control characters with asterisk
 
@@ -0,0 +1,68 @@
+package teranet.mapdev.ingest.model;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A row of the ingest_job work queue (see IngestJobQueue)
+ */
+@Getter
+@Setter
+public class IngestJob {
+
+    public enum Type {
+        WATCH_FILE, // a file in the watch folder upload directory (by name)
+        DELIMITED_UPLOAD, // an async delimited upload, spooled to filePath
+        ZIP_UPLOAD // an async ZIP upload, spooled to filePath
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private Long id;
+    private String jobKey;
+    private Type jobType;
+    private String fileName;
+    private String filePath;
+    private UUID batchId; // PENDING manifest of an upload
+
+    // Delimited upload options
+    private String fileFormat;
+    private Boolean hasHeaders;
+    private Boolean routeByFilename;
+    private String tableName;
+
+    private Status status;
+    private int attempts;
+    private String owner;
+    private OffsetDateTime leaseExpiresAt;
+    private String errorMessage;
+
+    /**
+     * Job for a file detected in the watch folder
+     */
+    public static IngestJob watchFile(String fileName) {
+        IngestJob job = new IngestJob();
+        job.setJobType(Type.WATCH_FILE);
+        job.setJobKey("watch:" + fileName);
+        job.setFileName(fileName);
+        return job;
+    }
+
+    /**
+     * Job for an async upload spooled to shared storage
+     */
+    public static IngestJob upload(Type type, String fileName, String spoolPath, UUID batchId) {
+        IngestJob job = new IngestJob();
+        job.setJobType(type);
+        job.setJobKey("upload:" + batchId);
+        job.setFileName(fileName);
+        job.setFilePath(spoolPath);
+        job.setBatchId(batchId);
+        return job;
+    }
+}
@@ -81,6 +81,22 @@ public class IngestionManifest {
     @Column(name = "data_quality_status", length = 20)
     private String dataQualityStatus; // CLEAN, CORRECTED, WITH_WARNINGS, WITH_ERRORS, REJECTED
 
+    // Chunked commit checkpoint (positions in the loaded stream, header included).
+    // The stream is the validated/transformed one fed to COPY, so the byte offset
+    // is not a source file offset; resume goes by committed_line_number only.
+    @Column(name = "committed_line_number")
+    private Long committedLineNumber;
+
+    @Column(name = "committed_stream_offset")
+    private Long committedStreamOffset;
+
+    @Column(name = "last_checkpoint_at")
+    private LocalDateTime lastCheckpointAt;
+
+    // CRC32 from the ZIP central directory (files loaded from a ZIP) - duplicate pre-check fingerprint
+    @Column(name = "content_crc32")
+    private Long contentCrc32;
+
     // Timing information
     @Column(name = "started_at")
     private LocalDateTime startedAt;
@@ -185,6 +201,26 @@ public class IngestionManifest {
         }
     }
 
+    /**
+     * Record a committed chunk so an interrupted load can resume after it
+     * 
+     * @param committedRows Total rows committed for this batch so far
+     * @param lineNumber    Lines consumed from the loaded stream
+     * @param streamOffset  Bytes consumed from the loaded stream (after validation and transformation)
+     */
+    public void recordCheckpoint(long committedRows, long lineNumber, long streamOffset) {
+        // total_records must stay >= processed_records (chk_records_non_negative)
+        this.totalRecords = committedRows;
+        this.processedRecords = committedRows;
+        this.committedLineNumber = lineNumber;
+        this.committedStreamOffset = streamOffset;
+        this.lastCheckpointAt = LocalDateTime.now();
+    }
+
+    public boolean hasCheckpoint() {
+        return committedLineNumber != null && committedLineNumber > 0;
+    }
+
     public double getCompletionPercentage() {
         if (totalRecords == null || totalRecords == 0) {
             return 0.0;
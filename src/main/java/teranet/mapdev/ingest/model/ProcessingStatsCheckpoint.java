@@ -0,0 +1,45 @@
+package teranet.mapdev.ingest.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Last checkpoint of the in-memory processing statistics (single row, id 1;
+ * not used with the shared job queue, see IngestionManifestService)
+ */
+@Entity
+@Table(name = "processing_stats_checkpoint")
+@Getter
+@Setter
+public class ProcessingStatsCheckpoint {
+
+    public static final short SINGLETON_ID = 1;
+
+    @Id
+    private Short id = SINGLETON_ID;
+
+    @Column(name = "completed_batches", nullable = false)
+    private long completedBatches;
+
+    @Column(name = "failed_batches", nullable = false)
+    private long failedBatches;
+
+    @Column(name = "processing_batches", nullable = false)
+    private long processingBatches;
+
+    @Column(name = "total_records", nullable = false)
+    private long totalRecords;
+
+    // True only when written on shutdown - otherwise the counts may have missed transitions
+    @Column(name = "clean_shutdown", nullable = false)
+    private boolean cleanShutdown;
+
+    @Column(name = "checkpoint_at", nullable = false)
+    private LocalDateTime checkpointAt;
+}
@@ -1,9 +1,12 @@
 package teranet.mapdev.ingest.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import teranet.mapdev.ingest.model.FileValidationIssue;
 
 import java.util.List;
@@ -23,13 +26,38 @@ public interface FileValidationIssueRepository extends JpaRepository<FileValidat
     List<FileValidationIssue> findByBatchIdAndSeverity(UUID batchId, FileValidationIssue.Severity severity);
 
     /**
-     * Count validation issues by batch and severity
+     * Count validation issues by batch and severity (lines covered, not rows)
      */
-    @Query("SELECT v.severity, COUNT(v) FROM FileValidationIssue v WHERE v.batchId = :batchId GROUP BY v.severity")
+    @Query("SELECT v.severity, SUM(v.lineCount) FROM FileValidationIssue v WHERE v.batchId = :batchId GROUP BY v.severity")
     List<Object[]> countIssuesBySeverity(@Param("batchId") UUID batchId);
 
     /**
-     * Find all critical issues that caused file rejection
+     * Sum lines covered by severity for a batch: [severity, lines, auto-fixed lines]
      */
-    List<FileValidationIssue> findBySeverity(FileValidationIssue.Severity severity);
+    @Query("SELECT v.severity, SUM(v.lineCount), SUM(CASE WHEN v.autoFixed = true THEN v.lineCount ELSE 0 END) "
+            + "FROM FileValidationIssue v WHERE v.batchId = :batchId GROUP BY v.severity")
+    List<Object[]> summarizeByBatchId(@Param("batchId") UUID batchId);
+
+    /**
+     * Next page of issues of a severity across all batches (keyset on id)
+     */
+    List<FileValidationIssue> findBySeverityAndIdGreaterThanOrderById(FileValidationIssue.Severity severity,
+            Long afterId, Pageable pageable);
+
+    /**
+     * Delete all issues for a batch (used before re-validating a resumed load)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileValidationIssue v WHERE v.batchId = :batchId")
+    int deleteByBatchId(@Param("batchId") UUID batchId);
+
+    /**
+     * Delete a batch's issues of one type (e.g. transformation issues of a rolled-back load)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileValidationIssue v WHERE v.batchId = :batchId AND v.issueType = :issueType")
+    int deleteByBatchIdAndIssueType(@Param("batchId") UUID batchId,
+            @Param("issueType") FileValidationIssue.IssueType issueType);
 }
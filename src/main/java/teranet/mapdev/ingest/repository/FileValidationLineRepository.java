@@ -0,0 +1,30 @@
+package teranet.mapdev.ingest.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import teranet.mapdev.ingest.model.FileValidationLine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FileValidationLineRepository extends JpaRepository<FileValidationLine, Long> {
+
+    /**
+     * Find the sampled text of some lines of a batch
+     */
+    List<FileValidationLine> findByBatchIdAndLineNumberIn(UUID batchId, Collection<Long> lineNumbers);
+
+    /**
+     * Delete all sampled lines for a batch (used before re-validating a resumed load)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileValidationLine l WHERE l.batchId = :batchId")
+    int deleteByBatchId(@Param("batchId") UUID batchId);
+}
@@ -3,8 +3,11 @@ package teranet.mapdev.ingest.repository;
 import teranet.mapdev.ingest.model.IngestionManifest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,6 +37,26 @@ public interface IngestionManifestRepository extends JpaRepository<IngestionMani
      */
     Optional<IngestionManifest> findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(String fileChecksum, IngestionManifest.Status status);
     
+    /**
+     * Find the latest manifest with this ZIP entry fingerprint (CRC32 + uncompressed size) and status
+     * Candidates only - the content hash must still be compared
+     */
+    Optional<IngestionManifest> findFirstByContentCrc32AndFileSizeBytesAndStatusOrderByCreatedAtDesc(
+            Long contentCrc32, Long fileSizeBytes, IngestionManifest.Status status);
+    
+    /**
+     * Page through COMPLETED manifests by ID (keyset) returning [id, fileChecksum]
+     * Used to warm the duplicate-check Bloom filter without loading entities
+     */
+    @Query("SELECT m.id, m.fileChecksum FROM IngestionManifest m WHERE m.status = teranet.mapdev.ingest.model.IngestionManifest$Status.COMPLETED AND m.id > :afterId ORDER BY m.id")
+    List<Object[]> findCompletedChecksumsAfterId(@Param("afterId") long afterId, Pageable pageable);
+    
+    /**
+     * Checksums of manifests that became COMPLETED since the given time (filter warm-up catch-up)
+     */
+    @Query("SELECT m.fileChecksum FROM IngestionManifest m WHERE m.status = teranet.mapdev.ingest.model.IngestionManifest$Status.COMPLETED AND m.updatedAt >= :since")
+    List<String> findCompletedChecksumsUpdatedSince(@Param("since") LocalDateTime since);
+    
     /**
      * Find all child manifests by parent batch ID (for ZIP processing)
      */
@@ -65,6 +88,13 @@ public interface IngestionManifestRepository extends JpaRepository<IngestionMani
     """)
     Object[] getProcessingStatistics();
     
+    /**
+     * [status, completedAt, totalRecords] of manifests that finished since the given time
+     * Also bounded on created_at, so only the latest monthly partitions are read
+     */
+    @Query("SELECT m.status, m.completedAt, m.totalRecords FROM IngestionManifest m WHERE m.createdAt >= :since AND m.completedAt >= :since AND m.status IN (teranet.mapdev.ingest.model.IngestionManifest$Status.COMPLETED, teranet.mapdev.ingest.model.IngestionManifest$Status.FAILED)")
+    List<Object[]> findFinishedSince(@Param("since") LocalDateTime since);
+    
     /**
      * Count manifests by status
      */
@@ -0,0 +1,9 @@
+package teranet.mapdev.ingest.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import teranet.mapdev.ingest.model.ProcessingStatsCheckpoint;
+
+@Repository
+public interface ProcessingStatsCheckpointRepository extends JpaRepository<ProcessingStatsCheckpoint, Short> {
+}
@@ -0,0 +1,395 @@
+package teranet.mapdev.ingest.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the number of COPY loads in flight
+ *
+ * Every load holds a permit from before it takes a pooled connection until it
+ * commits or rolls back, and reports its rows, COPY latency and connection pool
+ * wait. Time the COPY spent waiting on its source (a slow upload client, the
+ * validation / transformation pipeline) is reported separately and left out
+ * of the latency, so only database time drives the gradient. The limit follows AIMD:
+ * - decrease (limit x decrease-factor) when a load hit an overload error
+ * (pool timeout, lock / statement timeout, deadlock, out of resources), waited
+ * longer than pool-wait-threshold-ms for a connection, or when its table's
+ * recent per-row latency rose more than latency-tolerance above its long-run
+ * average (latency gradient)
+ * - increase by one permit per limit's worth of healthy loads finished while
+ * the limit was fully used
+ * Pool wait and latency only decrease the limit again once a limit's worth of
+ * loads has finished since the last decrease.
+ *
+ * The thread pools (watch.folder.max-concurrent-files,
+ * csv.processing.max-concurrent-processing) stay as they are; loads beyond the
+ * limit wait here for a permit, and max-concurrency caps the limit.
+ *
+ * Published to /actuator/metrics as ingest.copy.concurrency.limit / .inflight /
+ * .waiting, ingest.copy.concurrency.decisions (tags action, reason) and the
+ * per-table ingest.copy.rows-per-second / .latency-ms-per-1k-rows / .pool-wait-ms.
+ */
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** Smoothing of the recent (short) and long-run per-table averages */
+    static final double SHORT_ALPHA = 0.3;
+    static final double LONG_ALPHA = 0.05;
+
+    /** Loads a table needs before its latency gradient is trusted */
+    static final int WARMUP_LOADS = 5;
+
+    private static final int DECISION_HISTORY = 50;
+
+    @Value("${csv.processing.adaptive-concurrency-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${csv.processing.adaptive-concurrency-min:1}")
+    private int minLimit = 1;
+
+    @Value("${csv.processing.adaptive-concurrency-max:8}")
+    private int maxLimit = 8;
+
+    @Value("${csv.processing.adaptive-concurrency-initial:3}")
+    private int initialLimit = 3;
+
+    @Value("${csv.processing.adaptive-pool-wait-threshold-ms:200}")
+    private long poolWaitThresholdMs = 200;
+
+    @Value("${csv.processing.adaptive-latency-tolerance:0.5}")
+    private double latencyTolerance = 0.5;
+
+    @Value("${csv.processing.adaptive-decrease-factor:0.75}")
+    private double decreaseFactor = 0.75;
+
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitFreed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit = -1;
+    private int inFlight;
+    private int waiting;
+    private boolean saturated; // limit fully used since the last change
+    private double healthyCredit; // healthy loads towards the next increase
+    private int finishedSinceDecrease;
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    private final Map<String, TableStats> tables = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        Gauge.builder("ingest.copy.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Adaptive limit on COPY loads in flight").register(meterRegistry);
+        Gauge.builder("ingest.copy.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("COPY loads holding a permit").register(meterRegistry);
+        Gauge.builder("ingest.copy.concurrency.waiting", this, AdaptiveConcurrencyLimiter::getWaiting)
+                .description("COPY loads waiting for a permit").register(meterRegistry);
+    }
+
+    /**
+     * Wait for a permit to load into the given table
+     */
+    public Permit acquire(String table) throws InterruptedException {
+        if (!enabled) {
+            return new Permit(table, clock.getAsLong(), false);
+        }
+        lock.lockInterruptibly();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= currentLimit()) {
+                    permitFreed.await();
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            if (inFlight >= currentLimit()) {
+                saturated = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Permit(table, clock.getAsLong(), true);
+    }
+
+    private void finish(Permit permit, long rows, Throwable failure) {
+        long now = clock.getAsLong();
+        long poolWaitMs = permit.connectedAt >= 0 ? permit.connectedAt - permit.acquiredAt : 0;
+        long copyMs = Math.max(0,
+                now - (permit.connectedAt >= 0 ? permit.connectedAt : permit.acquiredAt) - permit.upstreamWaitMs);
+
+        TableStats stats = tables.computeIfAbsent(permit.table, this::registerTable);
+        boolean latencyRising = stats.record(rows, copyMs, poolWaitMs, latencyTolerance);
+
+        if (!permit.counted) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            finishedSinceDecrease++;
+            // Soft signals lag a decrease by up to one window of loads - wait for it to take effect
+            boolean settled = finishedSinceDecrease >= currentLimit();
+            if (failure != null && isOverload(failure)) {
+                decrease(permit.table, "overload-error");
+            } else if (settled && poolWaitMs > poolWaitThresholdMs) {
+                decrease(permit.table, "pool-wait");
+            } else if (settled && latencyRising) {
+                decrease(permit.table, "latency-gradient");
+            } else if (failure == null && saturated) {
+                // Additive increase: one permit per limit's worth of healthy loads
+                healthyCredit += 1.0 / currentLimit();
+                if (healthyCredit >= 1.0 - 1e-9) {
+                    increase(permit.table);
+                }
+            }
+            permitFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(String table, String reason) {
+        int before = currentLimit();
+        limit = Math.max(minLimit, limit * decreaseFactor);
+        if (currentLimit() < before) {
+            decided("decrease", reason, table, before);
+        }
+        saturated = false;
+        healthyCredit = 0;
+        finishedSinceDecrease = 0;
+    }
+
+    private void increase(String table) {
+        int before = currentLimit();
+        limit = Math.min(maxLimit, Math.floor(limit) + 1);
+        if (currentLimit() > before) {
+            decided("increase", "saturated", table, before);
+        }
+        saturated = inFlight >= currentLimit();
+        healthyCredit = 0;
+    }
+
+    private void decided(String action, String reason, String table, int before) {
+        Decision decision = new Decision(clock.getAsLong(), action, reason, table, before, currentLimit());
+        decisions.addLast(decision);
+        if (decisions.size() > DECISION_HISTORY) {
+            decisions.removeFirst();
+        }
+        Counter.builder("ingest.copy.concurrency.decisions")
+                .tag("action", action).tag("reason", reason)
+                .register(meterRegistry).increment();
+        log.info("COPY concurrency {} {} -> {} ({}, table {})", action, before, currentLimit(), reason, table);
+    }
+
+    private int currentLimit() {
+        if (limit < 0) {
+            limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        }
+        return (int) Math.floor(limit);
+    }
+
+    /**
+     * Whether a failure points at database / pool overload rather than bad data
+     */
+    static boolean isOverload(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException) {
+                return true; // includes the pool's SQLTransientConnectionException on timeout
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") // connection exception
+                        || state.startsWith("53") // insufficient resources
+                        || state.startsWith("40") // deadlock / serialization failure
+                        || state.equals("55P03") // lock not available
+                        || state.equals("57014")) { // statement timeout
+                    return true;
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private TableStats registerTable(String table) {
+        TableStats stats = new TableStats();
+        Gauge.builder("ingest.copy.rows-per-second", stats, s -> s.rowsPerSecond)
+                .tag("table", table).register(meterRegistry);
+        Gauge.builder("ingest.copy.latency-ms-per-1k-rows", stats, s -> s.shortLatency)
+                .tag("table", table).register(meterRegistry);
+        Gauge.builder("ingest.copy.pool-wait-ms", stats, s -> s.poolWaitMs)
+                .tag("table", table).register(meterRegistry);
+        return stats;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current limit, per-table measurements and recent decisions (newest last)
+     */
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            snapshot.put("enabled", enabled);
+            snapshot.put("limit", currentLimit());
+            snapshot.put("inFlight", inFlight);
+            snapshot.put("waiting", waiting);
+            snapshot.put("decisions", new ArrayList<>(decisions));
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Object> perTable = new LinkedHashMap<>();
+        tables.forEach((table, stats) -> perTable.put(table, stats.toMap()));
+        snapshot.put("tables", perTable);
+        return snapshot;
+    }
+
+    /**
+     * A load's hold on the limit; call connected() once it has its connection
+     * and release() exactly once when it ends
+     */
+    public class Permit {
+        private final String table;
+        private final long acquiredAt;
+        private final boolean counted;
+        private long connectedAt = -1;
+        private long upstreamWaitMs;
+        private boolean released;
+
+        Permit(String table, long acquiredAt, boolean counted) {
+            this.table = table;
+            this.acquiredAt = acquiredAt;
+            this.counted = counted;
+        }
+
+        public void connected() {
+            connectedAt = clock.getAsLong();
+        }
+
+        /**
+         * Report time the load spent waiting on its source rather than the
+         * database (call before release())
+         */
+        public void waitedUpstream(long millis) {
+            upstreamWaitMs += Math.max(0, millis);
+        }
+
+        /**
+         * @param rows    Rows loaded (0 on failure)
+         * @param failure What ended the load, or null if it committed / rolled back cleanly
+         */
+        public void release(long rows, Throwable failure) {
+            if (!released) {
+                released = true;
+                finish(this, rows, failure);
+            }
+        }
+    }
+
+    /**
+     * One change of the limit
+     */
+    public record Decision(long timeMillis, String action, String reason, String table,
+            int fromLimit, int toLimit) {
+    }
+
+    /**
+     * Smoothed measurements of the loads into one table
+     */
+    static class TableStats {
+        private long loads;
+        private volatile double rowsPerSecond;
+        private volatile double shortLatency = -1; // ms per 1000 rows
+        private volatile double longLatency = -1;
+        private volatile double poolWaitMs;
+
+        /**
+         * @return Whether the recent latency is more than tolerance above the long-run average
+         */
+        synchronized boolean record(long rows, long copyMs, long poolWait, double tolerance) {
+            poolWaitMs = ewma(poolWaitMs, poolWait, SHORT_ALPHA, loads == 0);
+            if (rows <= 0) {
+                loads++;
+                return false;
+            }
+            double latency = copyMs * 1000.0 / rows;
+            double throughput = rows * 1000.0 / Math.max(1, copyMs);
+            boolean first = shortLatency < 0;
+            rowsPerSecond = ewma(rowsPerSecond, throughput, SHORT_ALPHA, first);
+            shortLatency = ewma(shortLatency, latency, SHORT_ALPHA, first);
+            longLatency = ewma(longLatency, latency, LONG_ALPHA, first);
+            loads++;
+            return loads > WARMUP_LOADS && shortLatency > longLatency * (1 + tolerance);
+        }
+
+        private static double ewma(double current, double sample, double alpha, boolean first) {
+            return first ? sample : current + alpha * (sample - current);
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("loads", loads);
+            map.put("rowsPerSecond", Math.round(rowsPerSecond));
+            map.put("latencyMsPer1kRows", Math.round(Math.max(0, shortLatency) * 100) / 100.0);
+            map.put("poolWaitMs", Math.round(poolWaitMs));
+            return map;
+        }
+    }
+}
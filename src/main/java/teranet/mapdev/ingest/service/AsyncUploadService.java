@@ -0,0 +1,296 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.model.IngestJob;
+import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.util.PathMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Async upload API support (202 Accepted + status polling)
+ *
+ * Flow:
+ * 1. Admission check - reject right away (429) if the worker queue is full
+ * 2. Spool the upload to the temp directory (the container deletes its own
+ * copy when the request ends)
+ * 3. Create a PENDING manifest - its batch ID is returned to the client and
+ * polled through /status/{batchId}
+ * 4. Queue the job on the bounded csvProcessingExecutor; the worker reuses
+ * the PENDING manifest and deletes the spool file when done
+ *
+ * With csv.processing.job-queue-enabled the job goes to the shared ingest_job
+ * table instead of the local executor and may be run by any instance, so
+ * csv.processing.temp-directory must be shared storage. Step 1 then counts
+ * the QUEUED uploads of all instances against csv.processing.async-queue-capacity.
+ */
+@Service
+public class AsyncUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadService.class);
+
+    @Autowired
+    @Qualifier("csvProcessingExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private DelimitedFileProcessingService delimitedFileProcessingService;
+
+    @Autowired
+    private BatchProcessingService batchProcessingService;
+
+    @Autowired
+    private IngestionManifestService manifestService;
+
+    @Autowired
+    private CsvProcessingConfig csvProcessingConfig;
+
+    @Autowired
+    private IngestJobQueue jobQueue;
+
+    /**
+     * Queue a delimited file for processing
+     *
+     * @param file            The uploaded file
+     * @param format          File format (csv or tsv)
+     * @param hasHeaders      Whether file has a header row
+     * @param routeByFilename Whether to route to table by filename
+     * @param targetTable     Target table resolved during validation (may be null)
+     * @return The PENDING manifest (batch ID to poll)
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public IngestionManifest submitDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            String targetTable) throws IOException {
+
+        if (useJobQueue()) {
+            return enqueue(file, targetTable, IngestJob.Type.DELIMITED_UPLOAD, job -> {
+                job.setFileFormat(format);
+                job.setHasHeaders(hasHeaders);
+                job.setRouteByFilename(routeByFilename);
+                job.setTableName(targetTable);
+            });
+        }
+        return submit(file, targetTable, (spooled, queued) -> delimitedFileProcessingService
+                .processQueuedDelimitedFile(spooled, format, hasHeaders, routeByFilename, queued));
+    }
+
+    /**
+     * Queue a ZIP file for batch processing
+     *
+     * @param zipFile The uploaded ZIP file
+     * @return The PENDING parent manifest (batch ID to poll)
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public IngestionManifest submitZipFile(MultipartFile zipFile) throws IOException {
+        if (useJobQueue()) {
+            return enqueue(zipFile, null, IngestJob.Type.ZIP_UPLOAD, job -> {
+            });
+        }
+        return submit(zipFile, null, (spooled, queued) -> {
+            batchProcessingService.processBatchFromZip(spooled, queued);
+            return queued;
+        });
+    }
+
+    /**
+     * Run an upload claimed from the shared job queue (see IngestJobWorker)
+     *
+     * @return Whether the upload was processed without failing
+     */
+    public boolean runJob(IngestJob job) {
+        IngestionManifest queued = manifestService.findByBatchId(job.getBatchId());
+        Path spoolFile = Paths.get(job.getFilePath());
+        if (queued == null) {
+            logger.warn("No manifest for queued upload {} (batch {})", job.getFileName(), job.getBatchId());
+            deleteSpool(spoolFile);
+            return false;
+        }
+        if (queued.getStatus() != IngestionManifest.Status.PENDING) {
+            // Retry after the instance running it stopped part way - a partial load is not resumed
+            if (queued.getStatus() == IngestionManifest.Status.PROCESSING) {
+                queued.markAsFailed("Interrupted: the instance processing this upload stopped", null);
+                manifestService.update(queued);
+            }
+            deleteSpool(spoolFile);
+            return false;
+        }
+        if (!Files.exists(spoolFile)) {
+            queued.markAsFailed("Spool file not found: " + spoolFile, null);
+            manifestService.update(queued);
+            return false;
+        }
+
+        PathMultipartFile spooled = new PathMultipartFile(spoolFile, job.getFileName(), queued.getContentType());
+        IngestionManifest result;
+        if (job.getJobType() == IngestJob.Type.ZIP_UPLOAD) {
+            result = runJob(spooled, spoolFile, queued, (file, manifest) -> {
+                batchProcessingService.processBatchFromZip(file, manifest);
+                return manifest;
+            });
+        } else {
+            result = runJob(spooled, spoolFile, queued, (file, manifest) -> delimitedFileProcessingService
+                    .processQueuedDelimitedFile(file, job.getFileFormat(), Boolean.TRUE.equals(job.getHasHeaders()),
+                            Boolean.TRUE.equals(job.getRouteByFilename()), manifest));
+        }
+        return result != null && result.getStatus() != IngestionManifest.Status.FAILED;
+    }
+
+    /**
+     * Check whether the worker queue can take another job
+     */
+    public boolean hasCapacity() {
+        return executor.getThreadPoolExecutor().getQueue().remainingCapacity() > 0
+                || executor.getActiveCount() < executor.getMaxPoolSize();
+    }
+
+    /**
+     * Number of uploads waiting for a worker
+     */
+    public int getQueuedCount() {
+        return executor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * Number of uploads being processed
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    // ========================================
+    // HELPER METHODS
+    // ========================================
+
+    @FunctionalInterface
+    private interface QueuedJob {
+        IngestionManifest run(MultipartFile spooled, IngestionManifest queued) throws Exception;
+    }
+
+    private IngestionManifest submit(MultipartFile file, String targetTable, QueuedJob job) throws IOException {
+        String fileName = file.getOriginalFilename();
+
+        // Cheap check first so a full queue does not cost a spool copy
+        if (!hasCapacity()) {
+            throw new RejectedExecutionException("Upload queue is full (" + getQueuedCount() + " waiting)");
+        }
+
+        Path spoolFile = spool(file);
+        PathMultipartFile spooled = new PathMultipartFile(spoolFile, fileName, file.getContentType());
+        IngestionManifest queued = createPendingManifest(file, targetTable);
+
+        try {
+            executor.execute(() -> runJob(spooled, spoolFile, queued, job));
+        } catch (TaskRejectedException e) {
+            // Lost the race for the last queue slot
+            deleteSpool(spoolFile);
+            queued.setStatus(IngestionManifest.Status.CANCELLED);
+            queued.setErrorMessage("Rejected: upload queue is full");
+            queued.setCompletedAt(LocalDateTime.now());
+            manifestService.update(queued);
+            throw new RejectedExecutionException("Upload queue is full", e);
+        }
+
+        logger.info("Queued async upload {} as batch {} ({} waiting, {} active)",
+                fileName, queued.getBatchId(), getQueuedCount(), getActiveCount());
+        return queued;
+    }
+
+    private boolean useJobQueue() {
+        return jobQueue != null && jobQueue.isEnabled();
+    }
+
+    private IngestionManifest enqueue(MultipartFile file, String targetTable, IngestJob.Type type,
+            Consumer<IngestJob> options) throws IOException {
+        // Same admission check as the local queue, before the spool copy
+        int waiting = jobQueue.countQueuedUploads();
+        if (waiting >= csvProcessingConfig.getAsyncQueueCapacity()) {
+            throw new RejectedExecutionException("Upload queue is full (" + waiting + " waiting)");
+        }
+
+        Path spoolFile = spool(file);
+        IngestionManifest queued = createPendingManifest(file, targetTable);
+
+        IngestJob job = IngestJob.upload(type, file.getOriginalFilename(), spoolFile.toString(), queued.getBatchId());
+        options.accept(job);
+        try {
+            jobQueue.enqueue(job);
+        } catch (RuntimeException e) {
+            deleteSpool(spoolFile);
+            queued.markAsFailed("Could not queue upload: " + e.getMessage(), null);
+            manifestService.update(queued);
+            throw e;
+        }
+
+        logger.info("Queued async upload {} as batch {} on the shared job queue",
+                file.getOriginalFilename(), queued.getBatchId());
+        return queued;
+    }
+
+    private IngestionManifest runJob(MultipartFile spooled, Path spoolFile, IngestionManifest queued, QueuedJob job) {
+        logger.info("Starting async upload {} (batch {})", spooled.getOriginalFilename(), queued.getBatchId());
+        try {
+            return job.run(spooled, queued);
+        } catch (Exception e) {
+            logger.error("Async upload failed: {} (batch {})", spooled.getOriginalFilename(),
+                    queued.getBatchId(), e);
+
+            // Failures before the manifest was taken over leave it PENDING
+            if (queued.getStatus() == IngestionManifest.Status.PENDING) {
+                queued.markAsFailed(e.getMessage(), null);
+                manifestService.update(queued);
+            }
+            return null;
+        } finally {
+            deleteSpool(spoolFile);
+        }
+    }
+
+    private IngestionManifest createPendingManifest(MultipartFile file, String targetTable) {
+        // Checksum is computed by the worker (file_checksum is NOT NULL, filled in later)
+        IngestionManifest manifest = new IngestionManifest(file.getOriginalFilename(), file.getSize(), "");
+        manifest.setContentType(file.getContentType());
+        manifest.setFilePath("upload://" + file.getOriginalFilename());
+        manifest.setTableName(targetTable);
+        return manifestService.save(manifest);
+    }
+
+    private Path spool(MultipartFile file) throws IOException {
+        Path tempDir = Paths.get(csvProcessingConfig.getTempDirectory());
+        Files.createDirectories(tempDir);
+        Path spoolFile = Files.createTempFile(tempDir, "async-", ".spool");
+        try {
+            file.transferTo(spoolFile);
+        } catch (IOException | RuntimeException e) {
+            deleteSpool(spoolFile);
+            throw e;
+        }
+        return spoolFile;
+    }
+
+    private void deleteSpool(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete spool file {}: {}", spoolFile, e.getMessage());
+        }
+    }
+}
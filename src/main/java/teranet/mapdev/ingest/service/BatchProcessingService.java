@@ -11,15 +11,19 @@ import teranet.mapdev.ingest.dto.BatchProcessingResultDto.ValidationSummary;
 import teranet.mapdev.ingest.dto.ZipAnalysisDto;
 import teranet.mapdev.ingest.dto.ZipAnalysisDto.ExtractedFileInfo;
 import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.stream.ArchiveWalker;
+import teranet.mapdev.ingest.stream.HashingInputStream;
+import teranet.mapdev.ingest.util.PathMultipartFile;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Batch processing service for handling multiple CSV files
@@ -42,6 +46,12 @@ public class BatchProcessingService {
     @Autowired
     private FilenameRouterService filenameRouterService;
 
+    @Autowired
+    private StagedPipeline pipeline;
+
+    @Autowired
+    private FileValidationService fileValidationService;
+
     private static final String TEMP_BATCH_DIR = "temp_batch_processing";
 
     /**
@@ -51,9 +61,22 @@ public class BatchProcessingService {
      * @return BatchProcessingResultDto with comprehensive results
      */
     public BatchProcessingResultDto processBatchFromZip(MultipartFile zipFile) {
+        return processBatchFromZip(zipFile, null);
+    }
+
+    /**
+     * Process ZIP file containing multiple CSV files to staging area
+     * 
+     * @param zipFile the ZIP file containing CSV files
+     * @param queued  PENDING parent manifest created by the async upload API
+     *                (reused so the returned batch ID stays valid) - can be null
+     * @return BatchProcessingResultDto with comprehensive results
+     */
+    public BatchProcessingResultDto processBatchFromZip(MultipartFile zipFile, IngestionManifest queued) {
         LocalDateTime startTime = LocalDateTime.now();
         UUID parentBatchId = null; // Initialize for scope
         String batchId = null; // Initialize for scope
+        Path spooledZip = null; // Temporary copy of an in-memory upload
 
         logger.info("Starting batch processing for ZIP file: {}", zipFile.getOriginalFilename());
 
@@ -70,28 +93,55 @@ public class BatchProcessingService {
                         checksum,
                         existingManifest.getBatchId());
 
-                logger.info("Creating manifest entry to track duplicate attempt");
-                createDuplicateManifestEntry(zipFile, checksum, existingManifest, startTime);
+                if (queued != null) {
+                    // The client polls the queued batch ID - record the duplicate there
+                    queued.setFileChecksum(checksum);
+                    queued.setStatus(IngestionManifest.Status.DUPLICATE);
+                    queued.setCompletedAt(LocalDateTime.now());
+                    queued.setErrorMessage("Duplicate of batch " + existingManifest.getBatchId());
+                    manifestService.update(queued);
+                } else {
+                    logger.info("Creating manifest entry to track duplicate attempt");
+                    createDuplicateManifestEntry(zipFile, checksum, existingManifest, startTime);
+                }
 
                 // Return existing processing result - don't reprocess
                 return createDuplicateBatchResult(existingManifest, startTime);
             }
 
             // No duplicate found, proceed with new processing
-            parentBatchId = UUID.randomUUID();
+            parentBatchId = queued != null ? queued.getBatchId() : UUID.randomUUID();
             batchId = parentBatchId.toString();
 
             logger.info("Processing new ZIP file with batch ID: {}", batchId);
 
             // No schema creation needed - using default schema
 
-            // Create parent manifest for the ZIP file
-            IngestionManifest zipManifest = createParentZipManifest(zipFile, parentBatchId, startTime, checksum);
-            manifestService.save(zipManifest);
+            // Create parent manifest for the ZIP file (or take over the queued one)
+            IngestionManifest zipManifest;
+            if (queued != null) {
+                zipManifest = queued;
+                zipManifest.setFileChecksum(checksum);
+                zipManifest.setStatus(IngestionManifest.Status.PROCESSING);
+                zipManifest.setStartedAt(startTime);
+                manifestService.update(zipManifest);
+            } else {
+                zipManifest = createParentZipManifest(zipFile, parentBatchId, startTime, checksum);
+                manifestService.save(zipManifest);
+            }
             logger.info("Created parent ZIP manifest with batch ID: {}", parentBatchId);
 
-            // Extract and analyze ZIP file
-            ZipAnalysisDto analysis = zipProcessingService.analyzeZipFile(zipFile);
+            // Put the archive on disk once: the central directory is read for the
+            // analysis and entries are extracted selectively (async uploads are already spooled)
+            MultipartFile zipOnDisk = zipFile;
+            if (!(zipFile instanceof PathMultipartFile)) {
+                spooledZip = spoolZip(zipFile, batchId);
+                zipOnDisk = new PathMultipartFile(spooledZip, zipFile.getOriginalFilename(), zipFile.getContentType());
+            }
+            Path zipPath = ((PathMultipartFile) zipOnDisk).getPath();
+
+            // Analyze ZIP file from its central directory
+            ZipAnalysisDto analysis = zipProcessingService.analyzeZipFile(zipOnDisk);
 
             if (!"SUCCESS".equals(analysis.getExtractionStatus())) {
                 // Update parent manifest to FAILED
@@ -103,12 +153,21 @@ public class BatchProcessingService {
                         "ZIP extraction failed: " + analysis.getExtractionStatus());
             }
 
-            // Extract CSV files to temporary directory for processing
-            Path batchDir = extractZipForBatch(zipFile, batchId);
+            // Entries whose fingerprint and hash match a completed file are not extracted or loaded
+            // (.tar / .gz drops have no central directory - their files are deduplicated by checksum)
+            String archiveName = zipFile.getOriginalFilename() != null ? zipFile.getOriginalFilename()
+                    : zipPath.getFileName().toString();
+            Map<String, FileProcessingResult> knownDuplicates = ZipProcessingService.isZipName(archiveName)
+                    ? precheckDuplicates(zipPath, analysis.getExtractedFiles())
+                    : new HashMap<>();
+
+            // Extract the remaining CSV files to temporary directory for processing
+            Path batchDir = extractZipForBatch(zipPath, archiveName, batchId, analysis.getExtractedFiles(),
+                    knownDuplicates.keySet());
 
             // Process each CSV file to staging (with parent batch ID linking)
             List<FileProcessingResult> fileResults = processCsvFilesToStaging(batchDir, analysis.getExtractedFiles(),
-                    batchId, parentBatchId);
+                    knownDuplicates, batchId, parentBatchId);
 
             // Calculate totals from all child CSV manifests
             long totalRecords = fileResults.stream().mapToLong(FileProcessingResult::getRowsLoaded).sum();
@@ -158,80 +217,203 @@ public class BatchProcessingService {
             }
 
             return createFailedBatchResult(batchId, startTime, "Batch processing failed: " + e.getMessage());
+
+        } finally {
+            if (spooledZip != null) {
+                try {
+                    Files.deleteIfExists(spooledZip);
+                } catch (IOException e) {
+                    logger.warn("Could not delete spooled ZIP: {}", spooledZip, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy an in-memory/servlet upload to disk (compressed, nothing is inflated)
+     */
+    private Path spoolZip(MultipartFile zipFile, String batchId) throws IOException {
+        Path spoolDir = Paths.get(System.getProperty("java.io.tmpdir"), TEMP_BATCH_DIR);
+        Files.createDirectories(spoolDir);
+        Path spooled = spoolDir.resolve("batch_" + batchId + ".zip");
+        try (InputStream in = zipFile.getInputStream()) {
+            Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return spooled;
+    }
+
+    /**
+     * Find entries that are certainly duplicates of completed files, without extracting them
+     * 
+     * The (CRC32, size) fingerprint from the central directory is looked up
+     * first; only on a match is the entry inflated and hashed, and it counts
+     * as a duplicate only if the SHA-256 equals the completed file's checksum.
+     * 
+     * @param zipPath ZIP file on disk
+     * @param files   analyzed entries (with CRC32)
+     * @return duplicate results keyed by entry relative path
+     */
+    private Map<String, FileProcessingResult> precheckDuplicates(Path zipPath, List<ExtractedFileInfo> files) {
+        Map<String, FileProcessingResult> duplicates = new HashMap<>();
+
+        List<ExtractedFileInfo> candidates = files.stream()
+                .filter(f -> "CSV".equals(f.getFileType()) && f.getCrc32() != null && f.getFileSize() != null)
+                .toList();
+        if (candidates.isEmpty()) {
+            return duplicates;
         }
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            for (ExtractedFileInfo fileInfo : candidates) {
+                long start = System.currentTimeMillis();
+
+                IngestionManifest existing = manifestService.findCompletedByFingerprint(
+                        fileInfo.getCrc32(), fileInfo.getFileSize());
+                if (existing == null) {
+                    continue; // No completed file with this fingerprint
+                }
+
+                ZipEntry entry = zip.getEntry(fileInfo.getRelativePath());
+                if (entry == null) {
+                    continue;
+                }
+
+                // Fingerprint match - confirm with the full content hash
+                String checksum;
+                try (HashingInputStream in = new HashingInputStream(zip.getInputStream(entry))) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                    checksum = in.getHexDigest();
+                }
+
+                if (checksum.equals(existing.getFileChecksum())) {
+                    logger.info("DUPLICATE (pre-check): {} matches completed batch {} - not extracted",
+                            fileInfo.getRelativePath(), existing.getBatchId());
+                    duplicates.put(fileInfo.getRelativePath(), createDuplicateFileResult(
+                            fileInfo.getFilename(), existing, System.currentTimeMillis() - start));
+                }
+            }
+        } catch (Exception e) {
+            // Not fatal - unconfirmed entries are extracted and deduplicated by checksum as usual
+            logger.warn("ZIP duplicate pre-check failed after {} duplicates: {}", duplicates.size(), e.getMessage());
+        }
+
+        logger.info("Duplicate pre-check: {} of {} entries already loaded", duplicates.size(), files.size());
+        return duplicates;
     }
 
     /**
-     * Extract ZIP file to temporary directory for batch processing
-     * Preserves directory structure and extracts files matching CSV or PM/IM
-     * pattern
+     * Extract CSV entries to temporary directory for batch processing
+     * Preserves directory structure; only the analyzed CSV entries are
+     * inflated, and entries already known to be duplicates are skipped.
+     * Data files inside nested archives (and in .tar / .gz drops) are streamed
+     * straight to their leaf path - the archives themselves are never written out.
      * 
-     * @param zipFile the ZIP file to extract
-     * @param batchId the batch ID for organization
+     * @param zipPath     the archive to extract
+     * @param archiveName original archive name (selects the format)
+     * @param batchId     the batch ID for organization
+     * @param files       analyzed entries
+     * @param skip        relative paths not to extract
      * @return path to extracted directory
      */
-    private Path extractZipForBatch(MultipartFile zipFile, String batchId) throws IOException {
+    private Path extractZipForBatch(Path zipPath, String archiveName, String batchId, List<ExtractedFileInfo> files,
+            Set<String> skip) throws IOException {
         Path batchDir = createBatchDirectory(batchId);
 
-        try (ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
-            ZipEntry entry;
-
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                if (!entry.isDirectory()) {
-                    String entryName = entry.getName();
-                    String fileName = new File(entryName).getName();
+        Set<String> wanted = new HashSet<>();
+        for (ExtractedFileInfo fileInfo : files) {
+            if ("CSV".equals(fileInfo.getFileType()) && !skip.contains(fileInfo.getRelativePath())) {
+                wanted.add(fileInfo.getRelativePath());
+            }
+        }
 
-                    // Check if file is CSV or matches PM/IM pattern
-                    boolean isCsv = fileName.toLowerCase().endsWith(".csv") ||
-                            fileName.toLowerCase().endsWith(".tsv");
-                    boolean isDataFile = fileName.matches("^([A-Z]{2})(\\d+)$");
+        ArchiveWalker.Visitor writer = (path, content) -> {
+            if (wanted.contains(path)) {
+                extractTo(batchDir, path, content);
+            }
+        };
 
-                    if (isCsv || isDataFile) {
-                        // Preserve directory structure
-                        Path targetPath = batchDir.resolve(entryName);
+        if (!ZipProcessingService.isZipName(archiveName)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(zipPath), 65536)) {
+                ArchiveWalker.defaults().walk(archiveName, in, ZipProcessingService::isDataFile, writer);
+            }
+            return batchDir;
+        }
 
-                        // Create parent directories if needed
-                        Files.createDirectories(targetPath.getParent());
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName().replace('\\', '/');
+                if (entry.isDirectory()) {
+                    continue;
+                }
 
-                        try (FileOutputStream fileOutputStream = new FileOutputStream(targetPath.toFile())) {
-                            byte[] buffer = new byte[8192];
-                            int length;
-                            while ((length = zipInputStream.read(buffer)) != -1) {
-                                fileOutputStream.write(buffer, 0, length);
-                            }
+                if (ArchiveWalker.isArchive(name)) {
+                    if (wanted.stream().anyMatch(path -> path.startsWith(name + "/"))) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            ArchiveWalker.defaults().walkNested(name, in, ZipProcessingService::isDataFile, writer);
                         }
-
-                        logger.debug("Extracted file for batch processing: {}", entryName);
+                    }
+                } else if (wanted.contains(name)) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        extractTo(batchDir, name, in);
                     }
                 }
-
-                zipInputStream.closeEntry();
             }
         }
 
         return batchDir;
     }
 
+    private void extractTo(Path batchDir, String relativePath, InputStream content) throws IOException {
+        // Preserve directory structure (never outside the batch directory)
+        Path targetPath = batchDir.resolve(relativePath).normalize();
+        if (!targetPath.startsWith(batchDir)) {
+            logger.warn("Skipping ZIP entry outside extraction directory: {}", relativePath);
+            return;
+        }
+
+        // Create parent directories if needed
+        Files.createDirectories(targetPath.getParent());
+        Files.copy(content, targetPath, StandardCopyOption.REPLACE_EXISTING);
+
+        logger.debug("Extracted file for batch processing: {}", relativePath);
+    }
+
     /**
      * Process CSV files to staging area
      * 
-     * @param batchDir       directory containing extracted CSV files
-     * @param extractedFiles file analysis information
-     * @param batchId        batch identifier
-     * @param parentBatchId  parent batch identifier for ZIP processing
+     * Files share one validation error budget: once it is used up, the files
+     * not yet started are skipped (reported as FAILED) instead of loaded.
+     * 
+     * @param batchDir        directory containing extracted CSV files
+     * @param extractedFiles  file analysis information
+     * @param knownDuplicates results for entries found to be duplicates before extraction
+     * @param batchId         batch identifier
+     * @param parentBatchId   parent batch identifier for ZIP processing
      * @return list of file processing results
      */
     private List<FileProcessingResult> processCsvFilesToStaging(Path batchDir,
             List<ExtractedFileInfo> extractedFiles,
+            Map<String, FileProcessingResult> knownDuplicates,
             String batchId,
             UUID parentBatchId) {
         List<FileProcessingResult> results = new ArrayList<>();
+        // Files still to load, by their slot in results
+        List<Integer> pendingSlots = new ArrayList<>();
+        List<StagingFile> pending = new ArrayList<>();
 
         for (ExtractedFileInfo fileInfo : extractedFiles) {
             if (!"CSV".equals(fileInfo.getFileType())) {
                 continue; // Skip non-CSV files
             }
 
+            FileProcessingResult duplicate = knownDuplicates.get(fileInfo.getRelativePath());
+            if (duplicate != null) {
+                results.add(duplicate);
+                continue;
+            }
+
             try {
                 // Use relativePath to locate the file (includes subdirectory structure like
                 // 62.2023_05_24.08_46_06/IM162)
@@ -247,8 +429,9 @@ public class BatchProcessingService {
                 // Convert Path to MultipartFile for processing
                 MultipartFile csvFile = createMultipartFileFromPath(csvPath);
 
-                FileProcessingResult result = processSingleCsvToStaging(csvFile, batchId, parentBatchId);
-                results.add(result);
+                pendingSlots.add(results.size());
+                results.add(null);
+                pending.add(new StagingFile(csvFile, fileInfo.getCrc32()));
 
             } catch (Exception e) {
                 logger.error("Failed to process CSV file from batch: {}", fileInfo.getFilename(), e);
@@ -256,6 +439,48 @@ public class BatchProcessingService {
             }
         }
 
+        FileValidationService.ErrorBudget budget = fileValidationService != null
+                ? fileValidationService.openBatchBudget(parentBatchId)
+                : null;
+        List<FileProcessingResult> loaded;
+        try {
+            if (pipeline != null && pipeline.isEnabled() && pending.size() > 1) {
+                // Validate the next files while the current one is COPYed
+                loaded = pipeline.run(pending,
+                        file -> {
+                            file.startTime = System.currentTimeMillis();
+                            checkErrorBudget(budget, file.csvFile.getOriginalFilename());
+                            logger.info("Processing CSV file to staging: {}", file.csvFile.getOriginalFilename());
+                            file.prepared = delimitedFileProcessingService.prepareDelimitedFile(
+                                    file.csvFile, "tsv", false, true, parentBatchId);
+                            return file;
+                        },
+                        file -> createStagingResult(file.csvFile.getOriginalFilename(),
+                                delimitedFileProcessingService.loadPrepared(file.prepared), file.crc32,
+                                file.startTime),
+                        (file, e) -> createFailedStagingResult(file.csvFile.getOriginalFilename(), file.startTime, e));
+            } else {
+                loaded = new ArrayList<>();
+                for (StagingFile file : pending) {
+                    try {
+                        checkErrorBudget(budget, file.csvFile.getOriginalFilename());
+                    } catch (IllegalStateException e) {
+                        loaded.add(createFailedStagingResult(file.csvFile.getOriginalFilename(),
+                                System.currentTimeMillis(), e));
+                        continue;
+                    }
+                    loaded.add(processSingleCsvToStaging(file.csvFile, batchId, parentBatchId, file.crc32));
+                }
+            }
+        } finally {
+            if (fileValidationService != null) {
+                fileValidationService.closeBatchBudget(parentBatchId);
+            }
+        }
+
+        for (int i = 0; i < pendingSlots.size(); i++) {
+            results.set(pendingSlots.get(i), loaded.get(i));
+        }
         return results;
     }
 
@@ -267,10 +492,11 @@ public class BatchProcessingService {
      * @param csvFile       the CSV file to process
      * @param batchId       the batch identifier
      * @param parentBatchId the parent batch identifier (for ZIP processing)
+     * @param crc32         CRC32 of the ZIP entry (recorded as fingerprint) - can be null
      * @return FileProcessingResult with processing details
      */
-    private FileProcessingResult processSingleCsvToStaging(MultipartFile csvFile, String batchId, UUID parentBatchId)
-            throws Exception {
+    private FileProcessingResult processSingleCsvToStaging(MultipartFile csvFile, String batchId, UUID parentBatchId,
+            Long crc32) {
         long startTime = System.currentTimeMillis();
         String filename = csvFile.getOriginalFilename();
 
@@ -290,57 +516,100 @@ public class BatchProcessingService {
                     parentBatchId // Link to parent ZIP batch
             );
 
-            long processingTime = System.currentTimeMillis() - startTime;
-            // Get table name from manifest (which now includes batch_id suffix)
-            String tableName = manifest.getTableName();
-
-            // Check if file was already processed (idempotency)
-            if (manifest.isAlreadyProcessed()) {
-                logger.info("DUPLICATE: File {} was already processed as batch {} in table {}",
-                        filename, manifest.getBatchId(), tableName);
-
-                return new FileProcessingResult(
-                        filename,
-                        tableName,
-                        "DUPLICATE", // Mark as duplicate
-                        manifest.getTotalRecords(),
-                        0,
-                        processingTime,
-                        String.format("File already processed in batch %s. Original upload completed on %s.",
-                                manifest.getBatchId().toString(),
-                                manifest.getCompletedAt() != null ? manifest.getCompletedAt().toString() : "unknown"));
-            }
+            return createStagingResult(filename, manifest, crc32, startTime);
 
-            FileProcessingResult result = new FileProcessingResult(
-                    filename,
-                    tableName,
-                    "SUCCESS",
-                    manifest.getTotalRecords(),
-                    0, // columns created (would need to track this)
-                    processingTime,
-                    null);
+        } catch (Exception e) {
+            return createFailedStagingResult(filename, startTime, e);
+        }
+    }
 
-            logger.info("Successfully processed {} to staging table {} with {} records",
-                    filename, tableName, manifest.getTotalRecords());
+    /**
+     * Skip a file once the batch has used up its validation error budget
+     *
+     * @throws IllegalStateException if the budget is exhausted
+     */
+    private void checkErrorBudget(FileValidationService.ErrorBudget budget, String filename) {
+        if (budget != null && budget.isExhausted()) {
+            throw new IllegalStateException(String.format(
+                    "Skipped %s: batch exceeded %d validation errors", filename, budget.getLimit()));
+        }
+    }
 
-            return result;
+    /**
+     * Build the result of a file loaded to staging
+     */
+    private FileProcessingResult createStagingResult(String filename, IngestionManifest manifest, Long crc32,
+            long startTime) {
+        long processingTime = System.currentTimeMillis() - startTime;
+        // Get table name from manifest (which now includes batch_id suffix)
+        String tableName = manifest.getTableName();
 
-        } catch (Exception e) {
-            long processingTime = System.currentTimeMillis() - startTime;
-            logger.error("Failed to process CSV file: {}", filename, e);
-
-            // For failed processing, resolve table name estimate (won't actually be
-            // created)
-            String estimatedTableName = filenameRouterService.resolveTableName(filename);
-
-            return new FileProcessingResult(
-                    filename,
-                    estimatedTableName,
-                    "FAILED",
-                    0L,
-                    0,
-                    processingTime,
-                    e.getMessage());
+        // Record the entry fingerprint so a re-sent ZIP can skip this file unextracted
+        recordFingerprint(manifest, crc32);
+
+        // Check if file was already processed (idempotency)
+        if (manifest.isAlreadyProcessed()) {
+            logger.info("DUPLICATE: File {} was already processed as batch {} in table {}",
+                    filename, manifest.getBatchId(), tableName);
+
+            return createDuplicateFileResult(filename, manifest, processingTime);
+        }
+
+        // Quarantined rows are counted in total_records but were not loaded
+        long quarantined = manifest.getFailedRecords() != null ? manifest.getFailedRecords() : 0;
+        long rowsLoaded = manifest.getTotalRecords() - quarantined;
+
+        FileProcessingResult result = new FileProcessingResult(
+                filename,
+                tableName,
+                "SUCCESS",
+                rowsLoaded,
+                0, // columns created (would need to track this)
+                processingTime,
+                quarantined > 0
+                        ? String.format("%d rows quarantined (see ingestion_rejected_rows for batch %s)",
+                                quarantined, manifest.getBatchId())
+                        : null);
+
+        logger.info("Successfully processed {} to staging table {} with {} records ({} quarantined)",
+                filename, tableName, rowsLoaded, quarantined);
+
+        return result;
+    }
+
+    /**
+     * Build the result of a file that failed to load to staging
+     */
+    private FileProcessingResult createFailedStagingResult(String filename, long startTime, Exception e) {
+        long processingTime = System.currentTimeMillis() - startTime;
+        logger.error("Failed to process CSV file: {}", filename, e);
+
+        // For failed processing, resolve table name estimate (won't actually be
+        // created)
+        String estimatedTableName = filenameRouterService.resolveTableName(filename);
+
+        return new FileProcessingResult(
+                filename,
+                estimatedTableName,
+                "FAILED",
+                0L,
+                0,
+                processingTime,
+                e.getMessage());
+    }
+
+    /**
+     * A CSV entry on its way through the staged pipeline
+     */
+    private static class StagingFile {
+        private final MultipartFile csvFile;
+        private final Long crc32;
+        private long startTime = System.currentTimeMillis();
+        private DelimitedFileProcessingService.PreparedLoad prepared;
+
+        StagingFile(MultipartFile csvFile, Long crc32) {
+            this.csvFile = csvFile;
+            this.crc32 = crc32;
         }
     }
 
@@ -403,51 +672,34 @@ public class BatchProcessingService {
         }
     }
 
-    private MultipartFile createMultipartFileFromPath(Path csvPath) throws IOException {
-        byte[] content = Files.readAllBytes(csvPath);
-        String filename = csvPath.getFileName().toString();
-
-        return new MultipartFile() {
-            @Override
-            public String getName() {
-                return "file";
-            }
-
-            @Override
-            public String getOriginalFilename() {
-                return filename;
-            }
-
-            @Override
-            public String getContentType() {
-                return "text/csv";
-            }
-
-            @Override
-            public boolean isEmpty() {
-                return content.length == 0;
-            }
-
-            @Override
-            public long getSize() {
-                return content.length;
-            }
-
-            @Override
-            public byte[] getBytes() {
-                return content;
-            }
+    private MultipartFile createMultipartFileFromPath(Path csvPath) {
+        // Read from disk when loaded - the extracted files stay until the batch directory is cleaned up
+        return new PathMultipartFile(csvPath, csvPath.getFileName().toString(), "text/csv");
+    }
 
-            @Override
-            public InputStream getInputStream() {
-                return new ByteArrayInputStream(content);
-            }
+    /**
+     * Store the ZIP entry CRC32 on a completed file's manifest (if not recorded yet)
+     */
+    private void recordFingerprint(IngestionManifest manifest, Long crc32) {
+        if (crc32 == null || manifest.getContentCrc32() != null || !manifest.isCompleted()) {
+            return;
+        }
+        manifest.setContentCrc32(crc32);
+        manifestService.update(manifest);
+    }
 
-            @Override
-            public void transferTo(File dest) throws IOException {
-                Files.write(dest.toPath(), content);
-            }
-        };
+    private FileProcessingResult createDuplicateFileResult(String filename, IngestionManifest existing,
+            long processingTime) {
+        return new FileProcessingResult(
+                filename,
+                existing.getTableName(),
+                "DUPLICATE", // Mark as duplicate
+                existing.getTotalRecords(),
+                0,
+                processingTime,
+                String.format("File already processed in batch %s. Original upload completed on %s.",
+                        existing.getBatchId().toString(),
+                        existing.getCompletedAt() != null ? existing.getCompletedAt().toString() : "unknown"));
     }
 
     private FileProcessingResult createFailedFileResult(String filename, String errorMessage) {
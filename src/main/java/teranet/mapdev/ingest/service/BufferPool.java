@@ -0,0 +1,204 @@
+package teranet.mapdev.ingest.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.stream.SpillingBuffer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide memory budget for file content held between pipeline stages
+ *
+ * The budget (csv.processing.buffer-pool-budget-mb) is split into fixed-size
+ * buffers (buffer-pool-buffer-kb). Buffers are allocated on first use and
+ * then recycled, so the heap they take never exceeds the budget however many
+ * files are in flight or however large they are.
+ *
+ * Stages hold file content in a {@link SpillingBuffer}:
+ * - its first buffer is an admission ticket - a new load waits up to
+ * buffer-pool-wait-ms for one while the budget is used up
+ * - further buffers are only taken if one is free right away (or nobody is
+ * waiting); otherwise the rest of the file spills to
+ * csv.processing.temp-directory
+ * Loads never wait while holding buffers, so they cannot deadlock each other.
+ *
+ * Published to /actuator/metrics as ingest.buffers.in-use / .pooled /
+ * .waiting and ingest.buffers.spilled-bytes.
+ */
+@Service
+public class BufferPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferPool.class);
+
+    @Value("${csv.processing.buffer-pool-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${csv.processing.buffer-pool-budget-mb:256}")
+    private long budgetMb = 256;
+
+    @Value("${csv.processing.buffer-pool-buffer-kb:1024}")
+    private int bufferKb = 1024;
+
+    @Value("${csv.processing.buffer-pool-wait-ms:30000}")
+    private long waitMs = 30000;
+
+    private final CsvProcessingConfig csvProcessingConfig;
+
+    private final ConcurrentLinkedDeque<byte[]> free = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong admissionTimeouts = new AtomicLong();
+    private volatile Semaphore permits;
+    private volatile int totalBuffers;
+
+    public BufferPool(MeterRegistry meterRegistry, CsvProcessingConfig csvProcessingConfig) {
+        this.csvProcessingConfig = csvProcessingConfig;
+        Gauge.builder("ingest.buffers.in-use", this, BufferPool::getInUse)
+                .description("Pooled file buffers held by loads").register(meterRegistry);
+        Gauge.builder("ingest.buffers.pooled", this, pool -> pool.free.size())
+                .description("Allocated file buffers free for reuse").register(meterRegistry);
+        Gauge.builder("ingest.buffers.waiting", this, pool -> pool.waiting.get())
+                .description("Loads waiting for memory budget").register(meterRegistry);
+        Gauge.builder("ingest.buffers.spilled-bytes", this, pool -> pool.spilledBytes.get())
+                .description("File bytes written to disk because the memory budget was used up")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getBufferSize() {
+        return bufferKb * 1024;
+    }
+
+    /**
+     * Directory that content beyond the budget spills to
+     */
+    public Path getSpillDirectory() {
+        return Paths.get(csvProcessingConfig.getTempDirectory());
+    }
+
+    /**
+     * A new buffer for one file's content (waits for admission while the
+     * budget is used up; plain heap when the pool is disabled)
+     */
+    public SpillingBuffer newBuffer() {
+        return new SpillingBuffer(enabled ? this : null);
+    }
+
+    /**
+     * Wait up to buffer-pool-wait-ms for a buffer (a load's first)
+     *
+     * @return The buffer, or null if the wait timed out (the caller spills)
+     */
+    public byte[] acquire() throws InterruptedException {
+        if (!enabled) {
+            return null;
+        }
+        Semaphore semaphore = permits();
+        waiting.incrementAndGet();
+        try {
+            if (!semaphore.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                admissionTimeouts.incrementAndGet();
+                log.warn("No memory budget free after {} ms ({} buffers in use) - spilling to disk",
+                        waitMs, getInUse());
+                return null;
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        return take();
+    }
+
+    /**
+     * A buffer if one is free and no new load is waiting for one, else null
+     */
+    public byte[] tryAcquire() {
+        if (!enabled) {
+            return null;
+        }
+        // Timed (not barging) tryAcquire so waiting loads are served first
+        try {
+            return permits().tryAcquire(0, TimeUnit.MILLISECONDS) ? take() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Return a buffer taken with {@link #acquire()} or {@link #tryAcquire()}
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (buffer.length != getBufferSize()) {
+            throw new IllegalArgumentException("Not a buffer of this pool: " + buffer.length + " bytes");
+        }
+        free.push(buffer);
+        permits().release();
+    }
+
+    /**
+     * Count content written to disk instead of held in buffers
+     */
+    public void recordSpill(long bytes) {
+        spills.incrementAndGet();
+        spilledBytes.addAndGet(bytes);
+    }
+
+    private byte[] take() {
+        byte[] buffer = free.poll();
+        return buffer != null ? buffer : new byte[getBufferSize()];
+    }
+
+    private Semaphore permits() {
+        if (permits == null) {
+            synchronized (this) {
+                if (permits == null) {
+                    totalBuffers = (int) Math.max(1, budgetMb * 1024 / bufferKb);
+                    permits = new Semaphore(totalBuffers, true);
+                    log.info("Buffer pool: {} MB budget in {} buffers of {} KB", budgetMb, totalBuffers, bufferKb);
+                }
+            }
+        }
+        return permits;
+    }
+
+    int getInUse() {
+        return permits == null ? 0 : totalBuffers - permits.availablePermits();
+    }
+
+    /**
+     * Budget, buffers in use and spills for the stats endpoint
+     */
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("budgetBytes", budgetMb * 1024 * 1024);
+        snapshot.put("bufferBytes", getBufferSize());
+        snapshot.put("inUse", getInUse());
+        snapshot.put("pooled", free.size());
+        snapshot.put("waiting", waiting.get());
+        snapshot.put("admissionTimeouts", admissionTimeouts.get());
+        snapshot.put("spills", spills.get());
+        snapshot.put("spilledBytes", spilledBytes.get());
+        return snapshot;
+    }
+}
@@ -36,6 +36,9 @@ public class DatabaseConnectionService {
     @Autowired
     private CsvProcessingConfig csvConfig;
 
+    @Autowired(required = false)
+    private SchemaCatalogService schemaCatalogService;
+
     @Value("${spring.datasource.url:Unknown}")
     private String databaseUrl;
 
@@ -127,10 +130,20 @@ public class DatabaseConnectionService {
     /**
      * Checks if a table exists in the default schema
      * 
+     * Uses the in-memory schema catalog; database metadata is only queried
+     * until the catalog has been loaded.
+     * 
      * @param tableName the table name to check
      * @return true if table exists, false otherwise
      */
     public boolean doesStagingTableExist(String tableName) {
+        // Answer from the in-memory schema catalog once it is loaded
+        if (schemaCatalogService != null && schemaCatalogService.isLoaded()) {
+            boolean exists = schemaCatalogService.tableExists(tableName);
+            logger.debug("Table '{}' exists in schema catalog: {}", tableName, exists);
+            return exists;
+        }
+
         try (Connection connection = dataSource.getConnection()) {
             DatabaseMetaData metaData = connection.getMetaData();
 
@@ -7,23 +7,47 @@ import org.springframework.web.multipart.MultipartFile;
 
 import teranet.mapdev.ingest.config.CsvProcessingConfig;
 import teranet.mapdev.ingest.config.IngestConfig;
+import teranet.mapdev.ingest.model.ColumnDefinition;
 import teranet.mapdev.ingest.model.IngestionManifest;
 import teranet.mapdev.ingest.model.FileValidationIssue;
 import teranet.mapdev.ingest.model.FileValidationRule;
 import teranet.mapdev.ingest.transformer.DataTransformer;
+import teranet.mapdev.ingest.stream.HashingInputStream;
+import teranet.mapdev.ingest.stream.LineChunkReader;
+import teranet.mapdev.ingest.stream.IngestEvents;
+import teranet.mapdev.ingest.stream.LineMappingInputStream;
+import teranet.mapdev.ingest.stream.ReadTimingInputStream;
+import teranet.mapdev.ingest.stream.RowNumberAssigner;
+import teranet.mapdev.ingest.stream.RowQuarantine;
+import teranet.mapdev.ingest.stream.RowTypeChecker;
+import teranet.mapdev.ingest.stream.TransformationAudit;
 import teranet.mapdev.ingest.stream.TransformingInputStream;
+import teranet.mapdev.ingest.util.PathMultipartFile;
+import teranet.mapdev.ingest.util.ServerPathMap;
 import teranet.mapdev.ingest.repository.FileValidationRuleRepository;
 import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
 
 import javax.sql.DataSource;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
 
 /**
@@ -48,41 +72,65 @@ public class DelimitedFileProcessingService {
 
     private static final Logger log = LoggerFactory.getLogger(DelimitedFileProcessingService.class);
 
+    // Mark limit for peeking the first line of a streamed upload
+    private static final int FIRST_LINE_PEEK_LIMIT = 65536;
+
+    // COPY source for rows streamed by the loader
+    private static final String COPY_FROM_STDIN = "STDIN";
+
     private final DataSource dataSource;
     private final IngestConfig ingestConfig;
     private final CsvProcessingConfig csvProcessingConfig;
     private final FileChecksumService fileChecksumService;
     private final IngestionManifestService manifestService;
-    private final ColumnOrderResolverService columnOrderResolverService;
+    private final SchemaCatalogService schemaCatalogService;
     private final FilenameRouterService filenameRouterService;
     private final FileValidationService fileValidationService;
     private final DataTransformerFactory dataTransformerFactory;
     private final FileValidationRuleRepository validationRuleRepository;
     private final FileValidationIssueRepository validationIssueRepository;
+    private final RejectedRowService rejectedRowService;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RowNumberAllocator rowNumberAllocator;
+    private final TableMaintenanceService tableMaintenanceService;
+    private final JfrRecordingService jfrRecordingService;
+
+    // Cached pg_read_server_files check for server-side COPY (null = not checked yet)
+    private volatile Boolean serverFileReadAllowed;
 
     public DelimitedFileProcessingService(
             DataSource dataSource,
             IngestConfig ingestConfig,
             FileChecksumService fileChecksumService,
             IngestionManifestService manifestService,
-            ColumnOrderResolverService columnOrderResolverService,
+            SchemaCatalogService schemaCatalogService,
             FilenameRouterService filenameRouterService,
             CsvProcessingConfig csvProcessingConfig,
             FileValidationService fileValidationService,
             DataTransformerFactory dataTransformerFactory,
             FileValidationRuleRepository validationRuleRepository,
-            FileValidationIssueRepository validationIssueRepository) {
+            FileValidationIssueRepository validationIssueRepository,
+            RejectedRowService rejectedRowService,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            RowNumberAllocator rowNumberAllocator,
+            TableMaintenanceService tableMaintenanceService,
+            JfrRecordingService jfrRecordingService) {
         this.dataSource = dataSource;
         this.ingestConfig = ingestConfig;
         this.fileChecksumService = fileChecksumService;
         this.manifestService = manifestService;
-        this.columnOrderResolverService = columnOrderResolverService;
+        this.schemaCatalogService = schemaCatalogService;
         this.filenameRouterService = filenameRouterService;
         this.csvProcessingConfig = csvProcessingConfig;
         this.fileValidationService = fileValidationService;
         this.dataTransformerFactory = dataTransformerFactory;
         this.validationRuleRepository = validationRuleRepository;
         this.validationIssueRepository = validationIssueRepository;
+        this.rejectedRowService = rejectedRowService;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rowNumberAllocator = rowNumberAllocator;
+        this.tableMaintenanceService = tableMaintenanceService;
+        this.jfrRecordingService = jfrRecordingService;
     }
 
     /**
@@ -101,20 +149,412 @@ public class DelimitedFileProcessingService {
             boolean hasHeaders,
             boolean routeByFilename,
             UUID parentBatchId) throws Exception {
+        return processDelimitedFile(file, format, hasHeaders, routeByFilename, parentBatchId, null);
+    }
+
+    /**
+     * Resume an interrupted load from the checkpoint recorded on its manifest
+     * 
+     * Rows up to the committed line number are already in the target table
+     * (stamped with the manifest's batch_id), so only the remainder is loaded.
+     * 
+     * @param file            The same file that was being loaded
+     * @param format          File format (csv or tsv)
+     * @param hasHeaders      Whether file has a header row
+     * @param routeByFilename Whether to route to table by filename
+     * @param interrupted     The PROCESSING manifest left behind by the interrupted load
+     * @return Ingestion manifest with processing results
+     */
+    public IngestionManifest resumeDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            IngestionManifest interrupted) throws Exception {
+        return processDelimitedFile(file, format, hasHeaders, routeByFilename,
+                interrupted.getParentBatchId(), interrupted);
+    }
+
+    /**
+     * Process a file that was accepted by the async upload API
+     * 
+     * The PENDING manifest was created when the upload was queued (its batch
+     * ID was returned to the client), so it is reused instead of creating a
+     * second one. Duplicates are detected here, on the worker thread.
+     * 
+     * @param file            The spooled upload
+     * @param format          File format (csv or tsv)
+     * @param hasHeaders      Whether file has a header row
+     * @param routeByFilename Whether to route to table by filename
+     * @param queued          The PENDING manifest created at submission
+     * @return Ingestion manifest with processing results
+     */
+    public IngestionManifest processQueuedDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            IngestionManifest queued) throws Exception {
+        return processDelimitedFile(file, format, hasHeaders, routeByFilename,
+                queued.getParentBatchId(), queued);
+    }
+
+    /**
+     * Find the PROCESSING manifest of an interrupted load of this file, if any
+     * 
+     * @param file The file to look up (matched by checksum)
+     * @return The interrupted manifest or null
+     */
+    public IngestionManifest findInterruptedLoad(MultipartFile file) throws Exception {
+        String checksum = fileChecksumService.calculateFileChecksum(decompressed(file));
+        return manifestService.findInterruptedByChecksum(checksum);
+    }
+
+    /**
+     * Process a delimited file straight from a request body stream
+     * 
+     * Single pass: the body is hashed, validated, transformed and COPYed as
+     * it arrives, so rows reach the table while the upload is still running.
+     * Checks that need the whole file are moved to just before commit:
+     * - Duplicate detection uses the in-flight checksum; a duplicate rolls back
+     * - Validation rejection (rejectOnViolation, error limits) stops the
+     * stream at the rejecting line and rolls back
+     * 
+     * The body goes through the same load stage as a file ({@link #loadPrepared}:
+     * transformation, quarantine, row numbers, COPY); only preparation differs.
+     * 
+     * Chunked-commit mode commits before the checksum is known and resumes
+     * from a file, so in that mode the body is spooled to disk and processed
+     * with {@link #processDelimitedFile}.
+     * 
+     * @param body            Request body stream for the file part
+     * @param fileName        Original filename (drives routing)
+     * @param contentType     Content type of the file part
+     * @param format          File format (csv or tsv)
+     * @param hasHeaders      Whether file has a header row
+     * @param routeByFilename Whether to route to table by filename
+     * @return Ingestion manifest with processing results
+     */
+    public IngestionManifest processDelimitedStream(
+            InputStream body,
+            String fileName,
+            String contentType,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename) throws Exception {
+
+        if (csvProcessingConfig.isChunkedCommitEnabled()) {
+            return processSpooledStream(body, fileName, contentType, format, hasHeaders, routeByFilename);
+        }
+
+        InputStream inflated = null;
+        if (FileChecksumService.isGzip(fileName)) {
+            // Checksum, size, routing and validation all describe the delimited data
+            inflated = fileChecksumService.decompressGzip(body);
+            body = inflated;
+            fileName = FileChecksumService.dataFileName(fileName);
+        }
+
+        try {
+            return loadPrepared(prepareDelimitedStream(body, fileName, contentType, format, hasHeaders,
+                    routeByFilename));
+        } finally {
+            // Stops the read-ahead thread if the load ended early
+            closeQuietly(inflated);
+        }
+    }
+
+    /**
+     * First pipeline stage for a streamed body: routing, column layout from
+     * the first line, manifest and the streaming validator - the checksum,
+     * size and validation outcome are only known once loadPrepared has
+     * consumed the body
+     */
+    private PreparedLoad prepareDelimitedStream(
+            InputStream body,
+            String fileName,
+            String contentType,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename) throws Exception {
+
+        log.info("Processing streamed delimited file: {} (format={}, hasHeaders={}, routing={})",
+                fileName, format, hasHeaders, routeByFilename);
+
+        PreparedLoad prepared = new PreparedLoad(null, fileName, format, hasHeaders, System.currentTimeMillis());
+        IngestionManifest manifest = null;
+
+        try {
+            // Step 1: Determine target table
+            String targetTable = routeByFilename
+                    ? filenameRouterService.resolveTableName(fileName)
+                    : sanitizeTableName(fileName);
+            log.info("Routing {} to {}", fileName, targetTable);
+
+            // Step 2: Hash in flight, peek the first line for the column layout
+            HashingInputStream hashingStream = new HashingInputStream(body);
+            BufferedInputStream bufferedStream = new BufferedInputStream(hashingStream, FIRST_LINE_PEEK_LIMIT);
+            String firstLine = peekFirstLine(bufferedStream);
+
+            List<String> columnOrder = hasHeaders
+                    ? parseHeaderLine(firstLine)
+                    : resolveDataColumns(targetTable, countFields(firstLine, format));
+
+            // Step 3: Create manifest - size and checksum are filled in once the body is consumed
+            manifest = createManifest(fileName, 0L, "", contentType, targetTable, null);
+
+            // Step 4: Streaming validation in front of the load stage
+            String filePattern = extractFilePattern(fileName);
+            FileValidationService.LineValidator validator =
+                    fileValidationService.createLineValidator(fileName, filePattern, manifest.getBatchId());
+
+            prepared.manifest = manifest;
+            prepared.targetTable = targetTable;
+            prepared.columnOrder = columnOrder;
+            prepared.filePattern = filePattern;
+            prepared.hashingStream = hashingStream;
+            prepared.validator = validator;
+            prepared.stream = validator != null
+                    ? new LineMappingInputStream(bufferedStream, validator::validateOrReject)
+                    : bufferedStream;
+            if (assignsRowNumbers(targetTable, columnOrder)) {
+                prepared.rowNumberLines = 0; // line count unknown - ranges are reserved block by block
+            }
+            return prepared;
+
+        } catch (Exception e) {
+            failManifest(manifest, fileName, e);
+            throw e;
+        }
+    }
+
+    /**
+     * COPY a streamed body, deciding at commit time whether to keep the rows:
+     * - Validation rejection (rejectOnViolation, error limits) stops the
+     * stream at the rejecting line and rolls back
+     * - A duplicate of a completed file (by the in-flight checksum) rolls back;
+     * the prepared load is then finished with the original's manifest
+     * 
+     * @return Rows loaded (-1 if rolled back as a duplicate)
+     */
+    private long loadStreamed(
+            PreparedLoad prepared,
+            InputStream streamToLoad,
+            List<String> copyColumns,
+            RowQuarantine quarantine) throws Exception {
+
+        IngestionManifest manifest = prepared.manifest;
+        UUID batchId = manifest.getBatchId();
+        FileValidationService.LineValidator validator = prepared.validator;
+        HashingInputStream hashingStream = prepared.hashingStream;
+
+        AtomicReference<IngestionManifest> duplicateOf = new AtomicReference<>();
+        long rowCount;
+        try {
+            rowCount = loadDataToCopy(streamToLoad, prepared.targetTable, copyColumns, prepared.format,
+                    prepared.hasHeaders, batchId, quarantine, () -> {
+                        if (validator != null && validator.isRejected()) {
+                            return false;
+                        }
+                        duplicateOf.set(checkForDuplicate(hashingStream.getHexDigest()));
+                        return duplicateOf.get() == null;
+                    });
+        } catch (Exception e) {
+            if (validator == null || !validator.isRejected()) {
+                throw e;
+            }
+            // Validation stopped the stream at the rejecting line - COPY was rolled back
+            rowCount = -1;
+        }
+
+        if (validator == null || !validator.isRejected()) {
+            manifest.setFileSizeBytes(hashingStream.getByteCount());
+            manifest.setFileChecksum(hashingStream.getHexDigest());
+        }
+
+        // Persist validation issues and apply the rejection rule
+        FileValidationService.ValidationResult validationResult =
+                validator != null ? fileValidationService.completeValidation(validator) : null;
+
+        if (validationResult != null && validationResult.isRejected()) {
+            String errorMsg = String.format(
+                    "File rejected: %s (%d validation issues recorded)",
+                    validationResult.getRejectionReason(), validationResult.getIssueCount());
+            log.error(errorMsg);
+
+            updateDataQualityMetrics(manifest, validationResult);
+            manifest.markAsFailed(errorMsg,
+                    "See file_validation_issues table for details (batch_id: " + batchId + ")");
+            manifestService.update(manifest);
+
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (duplicateOf.get() != null) {
+            log.info("File already processed: {} (original batch {})", prepared.fileName,
+                    duplicateOf.get().getBatchId());
+            // None of the transformed lines were kept
+            closeQuietly(streamToLoad); // waits for the transformer to save its issues
+            deleteTransformationIssues(batchId);
+
+            manifest.setStatus(IngestionManifest.Status.DUPLICATE);
+            manifest.setCompletedAt(java.time.LocalDateTime.now());
+            manifestService.update(manifest);
+            prepared.manifest = duplicateOf.get();
+            prepared.finished = true;
+            return -1;
+        }
+
+        updateDataQualityMetrics(manifest, validationResult);
+        return rowCount;
+    }
+
+    /**
+     * Drop the transformation issues (and change log) of a batch whose rows were rolled back
+     */
+    private void deleteTransformationIssues(UUID batchId) {
+        try {
+            int deleted = validationIssueRepository.deleteByBatchIdAndIssueType(batchId,
+                    FileValidationIssue.IssueType.DATA_TRANSFORMATION);
+            Path logFile = transformationLogFile(batchId);
+            if (logFile != null) {
+                Files.deleteIfExists(logFile);
+            }
+            if (deleted > 0) {
+                log.info("Deleted {} transformation issues of rolled-back batch {}", deleted, batchId);
+            }
+        } catch (Exception e) {
+            log.warn("Could not delete transformation issues of batch {}: {}", batchId, e.getMessage());
+        }
+    }
+
+    /**
+     * Spool a request body to the temp directory and process it as a file
+     * (used when a feature needs more than one pass over the content)
+     */
+    private IngestionManifest processSpooledStream(
+            InputStream body,
+            String fileName,
+            String contentType,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename) throws Exception {
+
+        Path tempDir = Paths.get(csvProcessingConfig.getTempDirectory());
+        Files.createDirectories(tempDir);
+        Path spoolFile = Files.createTempFile(tempDir, "upload-", ".spool");
+
+        try {
+            Files.copy(body, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Spooled streamed upload {} to {} ({} bytes) - chunked commit needs a second pass",
+                    fileName, spoolFile, Files.size(spoolFile));
+
+            return processDelimitedFile(new PathMultipartFile(spoolFile, fileName, contentType),
+                    format, hasHeaders, routeByFilename, null);
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    /**
+     * Read the first line without consuming it
+     */
+    private String peekFirstLine(BufferedInputStream stream) throws IOException {
+        stream.mark(FIRST_LINE_PEEK_LIMIT);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = stream.read()) != -1 && b != '\n') {
+            if (line.size() >= FIRST_LINE_PEEK_LIMIT - 1) {
+                throw new IllegalArgumentException(
+                        "First line exceeds " + FIRST_LINE_PEEK_LIMIT + " bytes - cannot determine column layout");
+            }
+            line.write(b);
+        }
+        stream.reset();
+
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private IngestionManifest processDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            UUID parentBatchId,
+            IngestionManifest reserved) throws Exception {
+        return loadPrepared(prepareDelimitedFile(file, format, hasHeaders, routeByFilename, parentBatchId, reserved));
+    }
+
+    /**
+     * First pipeline stage: checksum, duplicate check, routing, manifest and
+     * validation - everything up to COPY, without holding a database connection
+     * for long. Followed by {@link #loadPrepared} (see StagedPipeline).
+     * 
+     * @param file            The file to process
+     * @param format          File format (csv or tsv)
+     * @param hasHeaders      Whether file has a header row
+     * @param routeByFilename Whether to route to table by filename
+     * @param parentBatchId   Optional parent batch ID (for ZIP file processing) - can be null
+     * @return The prepared load, or a finished one (duplicate) that loadPrepared just returns
+     */
+    public PreparedLoad prepareDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            UUID parentBatchId) throws Exception {
+        return prepareDelimitedFile(file, format, hasHeaders, routeByFilename, parentBatchId, null);
+    }
+
+    private PreparedLoad prepareDelimitedFile(
+            MultipartFile file,
+            String format,
+            boolean hasHeaders,
+            boolean routeByFilename,
+            UUID parentBatchId,
+            IngestionManifest reserved) throws Exception {
+
+        // A .gz upload is read through its decompressed view from here on
+        file = decompressed(file);
 
         log.info("Processing delimited file: {} (format={}, hasHeaders={}, routing={})",
                 file.getOriginalFilename(), format, hasHeaders, routeByFilename);
 
-        long startTime = System.currentTimeMillis();
+        PreparedLoad prepared = new PreparedLoad(file, file.getOriginalFilename(), format, hasHeaders,
+                System.currentTimeMillis());
         IngestionManifest manifest = null;
 
+        // A reserved manifest is either an interrupted load (PROCESSING) or a queued async upload (PENDING)
+        IngestionManifest interrupted = (reserved != null && reserved.isProcessing()) ? reserved : null;
+        IngestionManifest queued = (reserved != null && interrupted == null) ? reserved : null;
+
         try {
-            // Step 1: Check for duplicate (idempotency)
-            String checksum = fileChecksumService.calculateFileChecksum(file);
-            IngestionManifest existingManifest = checkForDuplicate(checksum);
-            if (existingManifest != null) {
-                log.info("File already processed: {}", file.getOriginalFilename());
-                return existingManifest;
+            // Step 1: Check for duplicate (idempotency) - a resumed load is its own batch
+            String checksum;
+            if (interrupted != null) {
+                checksum = interrupted.getFileChecksum();
+            } else {
+                IngestEvents.Checksum checksumEvent = new IngestEvents.Checksum();
+                checksumEvent.start(null, extractFilePattern(file.getOriginalFilename()));
+                checksum = fileChecksumService.calculateFileChecksum(file);
+                checksumEvent.add(file.getSize(), 0);
+                checksumEvent.commit();
+                IngestionManifest existingManifest = checkForDuplicate(checksum);
+                if (existingManifest != null) {
+                    log.info("File already processed: {}", file.getOriginalFilename());
+                    if (queued != null) {
+                        // The client polls the queued batch ID - record the outcome there
+                        queued.setFileChecksum(checksum);
+                        queued.setStatus(IngestionManifest.Status.DUPLICATE);
+                        queued.setCompletedAt(java.time.LocalDateTime.now());
+                        queued.setErrorMessage("Duplicate of batch " + existingManifest.getBatchId());
+                        manifestService.update(queued);
+                    }
+                    prepared.manifest = existingManifest;
+                    prepared.finished = true;
+                    return prepared;
+                }
             }
 
             // Step 2: Determine target table
@@ -140,39 +580,29 @@ public class DelimitedFileProcessingService {
                 columnOrder = extractHeadersFromFile(file);
                 log.debug("Extracted {} columns from file headers", columnOrder.size());
             } else {
-                // Get columns from database table schema (excluding metadata columns)
-                List<String> allColumns = columnOrderResolverService.getColumnOrder(targetTable);
-
-                // Filter out metadata columns that are auto-generated (not in source file)
-                List<String> dataColumns = allColumns.stream()
-                        .filter(col -> !col.equals("batch_id") &&
-                                !col.equals("row_number") &&
-                                !col.equals("loaded_at"))
-                        .toList();
-
                 // Count actual fields in the file to match column count
-                int fieldCount = countFieldsInFile(file, format);
-                log.debug("File contains {} fields, table has {} data columns", fieldCount, dataColumns.size());
-
-                // Use only the columns that exist in the file (first N columns)
-                if (fieldCount < dataColumns.size()) {
-                    columnOrder = dataColumns.subList(0, fieldCount);
-                    log.info("Using first {} columns from table {} (file has fewer fields than table columns)",
-                            fieldCount, targetTable);
-                } else if (fieldCount > dataColumns.size()) {
-                    throw new IllegalArgumentException(
-                            String.format("File has %d fields but table %s only has %d data columns",
-                                    fieldCount, targetTable, dataColumns.size()));
-                } else {
-                    columnOrder = dataColumns;
-                }
-
-                log.debug("Retrieved {} data columns from table {} (excluded metadata columns)",
-                        columnOrder.size(), targetTable);
+                columnOrder = resolveDataColumns(targetTable, countFieldsInFile(file, format));
             }
 
-            // Step 4: Create manifest (with optional parent batch ID)
-            manifest = createManifest(file, checksum, targetTable, parentBatchId);
+            // Step 4: Create manifest (with optional parent batch ID), or reuse the interrupted one
+            if (interrupted != null) {
+                manifest = interrupted;
+                log.info("Resuming batch {} for {} from line {} ({} rows already committed)",
+                        manifest.getBatchId(), file.getOriginalFilename(), manifest.getCommittedLineNumber(),
+                        manifest.getProcessedRecords());
+
+                // Validation runs again over the whole file - drop the issues from the first attempt
+                fileValidationService.deleteIssues(manifest.getBatchId());
+                rejectedRowService.deleteByBatchId(manifest.getBatchId());
+            } else if (queued != null) {
+                manifest = queued;
+                manifest.setFileChecksum(checksum);
+                manifest.setTableName(targetTable);
+                manifest.markAsProcessing();
+                manifestService.update(manifest);
+            } else {
+                manifest = createManifest(file, checksum, targetTable, parentBatchId);
+            }
 
             // Step 5: Validate and fix file BEFORE loading (if validation is enabled)
             InputStream fileStreamToLoad;
@@ -184,13 +614,14 @@ public class DelimitedFileProcessingService {
                         file.getInputStream(),
                         file.getOriginalFilename(),
                         filePattern,
-                        manifest.getBatchId());
+                        manifest.getBatchId(),
+                        manifest.getParentBatchId());
 
-                // Check if file was rejected due to critical validation issues
+                // Check if file was rejected - validation stopped at the rejecting line
                 if (validationResult.isRejected()) {
                     String errorMsg = String.format(
-                            "File rejected: %d critical validation issues found",
-                            validationResult.getIssues().size());
+                            "File rejected: %s (%d validation issues recorded)",
+                            validationResult.getRejectionReason(), validationResult.getIssueCount());
                     log.error(errorMsg);
 
                     // Update data quality metrics before marking as failed
@@ -207,14 +638,12 @@ public class DelimitedFileProcessingService {
                 if (validationResult.hasIssues()) {
                     updateDataQualityMetrics(manifest, validationResult);
 
-                    long autoFixedCount = validationResult.getIssues().stream()
-                            .filter(FileValidationIssue::getAutoFixed)
-                            .count();
+                    long autoFixedCount = validationResult.getAutoFixedCount();
 
                     log.warn("File {} processed with {} validation issues ({} auto-fixed). " +
                             "See file_validation_issues table for details (batch_id: {})",
                             file.getOriginalFilename(),
-                            validationResult.getIssues().size(),
+                            validationResult.getIssueCount(),
                             autoFixedCount,
                             manifest.getBatchId());
                 } else {
@@ -230,65 +659,274 @@ public class DelimitedFileProcessingService {
                 throw new RuntimeException("File validation error: " + ioEx.getMessage(), ioEx);
             }
 
-            // Step 5.5: Apply data transformation if configured (AFTER validation, BEFORE COPY)
-            try {
-                java.util.Optional<FileValidationRule> ruleOpt = validationRuleRepository.findByFilePattern(filePattern);
-                if (ruleOpt.isPresent()) {
-                    FileValidationRule rule = ruleOpt.get();
-                    DataTransformer transformer = dataTransformerFactory.getTransformer(rule);
-                    
-                    // Apply transformation if needed
-                    if (transformer.requiresTransformation()) {
-                        log.info("Applying data transformation for file pattern: {} using transformer: {}", 
-                                filePattern, transformer.getClass().getSimpleName());
-                        fileStreamToLoad = new TransformingInputStream(fileStreamToLoad, transformer, filePattern,
-                                manifest.getBatchId(), validationIssueRepository);
-                    } else {
-                        log.debug("No transformation required for file pattern: {}", filePattern);
-                    }
-                } else {
-                    log.debug("No validation rule found for pattern: {}, skipping transformation", filePattern);
+            prepared.manifest = manifest;
+            prepared.clean = !validationResult.hasIssues();
+            prepared.targetTable = targetTable;
+            prepared.columnOrder = columnOrder;
+            prepared.filePattern = filePattern;
+            prepared.stream = fileStreamToLoad;
+            if (assignsRowNumbers(targetTable, columnOrder)) {
+                // Sizes the row_number range reserved for the whole file from the lines validation
+                // saw (0 = not validated, ranges are reserved block by block while loading)
+                long lines = validationResult.getLineCount();
+                prepared.rowNumberLines = lines < 0 ? 0 : Math.max(0, hasHeaders ? lines - 1 : lines);
+            }
+            return prepared;
+
+        } catch (Exception e) {
+            closeQuietly(prepared.stream);
+            failManifest(manifest, file.getOriginalFilename(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Second pipeline stage: transformation, quarantine and COPY of a prepared file
+     * 
+     * @param prepared Result of {@link #prepareDelimitedFile}
+     * @return Ingestion manifest with processing results
+     */
+    public IngestionManifest loadPrepared(PreparedLoad prepared) throws Exception {
+        if (prepared.finished) {
+            return prepared.manifest;
+        }
+
+        IngestionManifest manifest = prepared.manifest;
+        String targetTable = prepared.targetTable;
+
+        try {
+            // Clean files the database can read itself skip the trip through the JVM
+            String serverPath = serverSideCopyPath(prepared);
+            if (serverPath != null) {
+                Long serverRows = tryServerSideCopy(prepared, serverPath);
+                if (serverRows != null) {
+                    completeManifest(manifest, serverRows, 0, System.currentTimeMillis() - prepared.startTime);
+                    log.info("Successfully processed {} rows from {} to {} with server-side COPY in {} ms",
+                            serverRows, prepared.fileName, targetTable,
+                            System.currentTimeMillis() - prepared.startTime);
+                    return manifest;
                 }
-            } catch (Exception transEx) {
-                log.error("Error applying transformation for file: {}. Proceeding without transformation.", 
-                        file.getOriginalFilename(), transEx);
-                // Continue with unmodified stream if transformation fails
             }
 
+            // Step 5.5: Apply data transformation if configured (AFTER validation, BEFORE COPY)
+            InputStream fileStreamToLoad = applyTransformation(prepared.stream, prepared.filePattern,
+                    manifest.getBatchId(), prepared.fileName);
+
+            // Step 5.6: Quarantine rows COPY would reject (if skip-invalid-records is enabled)
+            RowQuarantine quarantine = createQuarantine(targetTable, prepared.columnOrder, prepared.format,
+                    prepared.hasHeaders);
+
+            // Step 5.7: Number rows from a range reserved for the file (if row-number-ranges is enabled)
+            RowNumberAssigner rowNumbers = prepared.rowNumberLines >= 0
+                    ? createRowNumberAssigner(targetTable, prepared.format, prepared.hasHeaders, quarantine,
+                            prepared.rowNumberLines)
+                    : null;
+            fileStreamToLoad = applyLineFilters(fileStreamToLoad, quarantine, rowNumbers);
+            List<String> copyColumns = rowNumbers != null ? withRowNumber(prepared.columnOrder)
+                    : prepared.columnOrder;
+
             // Step 6: Load data using PostgreSQL COPY (with validated+transformed file stream)
-            long rowCount = loadDataToCopy(fileStreamToLoad, targetTable, columnOrder, format, hasHeaders,
-                    manifest.getBatchId());
+            long rowCount;
+            if (prepared.hashingStream != null) {
+                // Streamed body - duplicate and rejection checks run at commit time
+                rowCount = loadStreamed(prepared, fileStreamToLoad, copyColumns, quarantine);
+                if (prepared.finished) {
+                    return prepared.manifest;
+                }
+            } else if (csvProcessingConfig.isChunkedCommitEnabled() || manifest.hasCheckpoint()) {
+                rowCount = loadDataInChunks(fileStreamToLoad, targetTable, copyColumns, prepared.format,
+                        prepared.hasHeaders, manifest, quarantine);
+            } else {
+                rowCount = loadDataToCopy(fileStreamToLoad, targetTable, copyColumns, prepared.format,
+                        prepared.hasHeaders, manifest.getBatchId(), quarantine, null);
+            }
+            if (rowNumbers != null && rowNumbers.getReserved() > 0) {
+                log.info("Numbered rows of {} from {} ({} numbers reserved)", prepared.fileName,
+                        rowNumbers.getFirstNumber(), rowNumbers.getReserved());
+            }
 
             // Step 7: Update manifest with success (data quality already set in Step 5)
-            completeManifest(manifest, rowCount, System.currentTimeMillis() - startTime);
+            completeManifest(manifest, rowCount, quarantine != null ? quarantine.getRejectedCount() : 0,
+                    System.currentTimeMillis() - prepared.startTime);
 
             log.info("Successfully processed {} rows from {} to {} in {} ms",
-                    rowCount, file.getOriginalFilename(), targetTable,
-                    System.currentTimeMillis() - startTime);
+                    rowCount, prepared.fileName, targetTable,
+                    System.currentTimeMillis() - prepared.startTime);
 
             return manifest;
 
         } catch (Exception e) {
-            log.error("Failed to process delimited file: {}", file.getOriginalFilename(), e);
+            failManifest(manifest, prepared.fileName, e);
+            throw e;
+        } finally {
+            closeQuietly(prepared.stream); // hand the validated copy's buffers back to the pool
+            prepared.stream = null;
+        }
+    }
 
-            // CRITICAL: Update manifest status to FAILED to prevent stuck PROCESSING
-            // records
-            if (manifest != null) {
-                try {
-                    // Use helper method to set status, error details, and duration
-                    manifest.markAsFailed(e.getMessage(), getStackTraceAsString(e));
+    /**
+     * Path under which the database server can read a prepared file for a
+     * server-side COPY, or null if the file must be streamed: server-side COPY
+     * disabled, the file not on disk, validation fixed something, a transformer
+     * or row quarantine applies, row numbers are assigned by the loader,
+     * chunked commit is on, or the role may not read server files
+     * 
+     * A .gz upload is never loaded server-side: it is prepared as its
+     * decompressed view (FileChecksumService.DecompressedFile, not a
+     * PathMultipartFile), and COPY FROM a file cannot inflate it - that would
+     * need COPY FROM PROGRAM and pg_execute_server_program.
+     */
+    private String serverSideCopyPath(PreparedLoad prepared) {
+        if (!csvProcessingConfig.isServerSideCopyEnabled()
+                || !(prepared.file instanceof PathMultipartFile pathFile)
+                || !prepared.clean
+                || csvProcessingConfig.isSkipInvalidRecords()
+                || prepared.rowNumberLines >= 0
+                || csvProcessingConfig.isChunkedCommitEnabled()
+                || prepared.manifest.hasCheckpoint()
+                || requiresTransformation(prepared.filePattern)) {
+            return null;
+        }
+        String serverPath = new ServerPathMap(csvProcessingConfig.getServerSideCopyPathMap())
+                .toServerPath(pathFile.getPath());
+        if (serverPath == null) {
+            log.debug("No server-side COPY mapping for {} - streaming it", pathFile.getPath());
+            return null;
+        }
+        return serverFileReadAllowed() ? serverPath : null;
+    }
 
-                    // Force update to ensure status change is persisted
-                    manifestService.update(manifest);
-                    log.info("Updated manifest with FAILED status for batch: {}", manifest.getBatchId());
-                } catch (Exception updateError) {
-                    log.error("CRITICAL ERROR: Failed to update manifest with FAILED status. " +
-                            "Record will remain stuck in PROCESSING state: {}", updateError.getMessage(), updateError);
-                }
+    /**
+     * Run a server-side COPY, falling back to streaming (null) if the server
+     * cannot read the file or the role lacks the privilege
+     */
+    private Long tryServerSideCopy(PreparedLoad prepared, String serverPath) throws Exception {
+        try {
+            long rows = loadServerSideCopy(serverPath, prepared.targetTable, prepared.columnOrder,
+                    prepared.format, prepared.hasHeaders, prepared.manifest.getBatchId());
+            if (prepared.stream != null) {
+                prepared.stream.close(); // validated copy (or unread file stream) not needed
+            }
+            return rows;
+        } catch (SQLException e) {
+            String state = e.getSQLState();
+            if ("42501".equals(state)) {
+                // insufficient_privilege - stop trying until restart
+                serverFileReadAllowed = Boolean.FALSE;
+            } else if (!"58P01".equals(state) && !"58030".equals(state)) {
+                throw e; // not a file access problem (undefined_file / io_error)
+            }
+            log.warn("Server-side COPY of {} failed ({}) - streaming it instead", serverPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the database role may COPY from server files (superuser or
+     * pg_read_server_files), checked once - a check that fails (e.g. the
+     * database is briefly unreachable) is not cached and is retried next time
+     */
+    private boolean serverFileReadAllowed() {
+        Boolean allowed = serverFileReadAllowed;
+        if (allowed == null) {
+            try (Connection conn = dataSource.getConnection();
+                    java.sql.Statement statement = conn.createStatement();
+                    java.sql.ResultSet rs = statement.executeQuery(
+                            "SELECT rolsuper OR pg_has_role(current_user, 'pg_read_server_files', 'MEMBER') "
+                                    + "FROM pg_roles WHERE rolname = current_user")) {
+                allowed = rs.next() && rs.getBoolean(1);
+            } catch (SQLException e) {
+                log.warn("Could not check pg_read_server_files membership - streaming for now: {}",
+                        e.getMessage());
+                return false;
+            }
+            if (!allowed) {
+                log.warn("Server-side COPY is enabled but the database role lacks pg_read_server_files - "
+                        + "files will be streamed");
             }
+            serverFileReadAllowed = allowed;
+        }
+        return allowed;
+    }
 
-            // Re-throw to propagate error to caller
-            throw e;
+    /**
+     * Whether the transformer for a file pattern rewrites lines
+     */
+    private boolean requiresTransformation(String filePattern) {
+        try {
+            java.util.Optional<FileValidationRule> ruleOpt = validationRuleRepository.findByFilePattern(filePattern);
+            return ruleOpt.isPresent() && dataTransformerFactory.getTransformer(ruleOpt.get()).requiresTransformation();
+        } catch (Exception e) {
+            return true; // unknown - stream it
+        }
+    }
+
+    /**
+     * Mark a manifest FAILED after an exception (no-op before the manifest
+     * exists, or if it was already failed with a more specific reason)
+     */
+    private void failManifest(IngestionManifest manifest, String fileName, Exception e) {
+        log.error("Failed to process delimited file: {}", fileName, e);
+
+        // An aborted job's manifest is left PROCESSING for the instance that re-claimed the job
+        if (Thread.currentThread().isInterrupted()) {
+            log.warn("Load of {} was aborted - leaving batch {} as it is", fileName,
+                    manifest != null ? manifest.getBatchId() : null);
+            return;
+        }
+
+        // CRITICAL: Update manifest status to FAILED to prevent stuck PROCESSING
+        // records
+        if (manifest != null && !manifest.isFailed()) {
+            try {
+                // Use helper method to set status, error details, and duration
+                manifest.markAsFailed(e.getMessage(), getStackTraceAsString(e));
+
+                // Force update to ensure status change is persisted
+                manifestService.update(manifest);
+                log.info("Updated manifest with FAILED status for batch: {}", manifest.getBatchId());
+            } catch (Exception updateError) {
+                log.error("CRITICAL ERROR: Failed to update manifest with FAILED status. " +
+                        "Record will remain stuck in PROCESSING state: {}", updateError.getMessage(), updateError);
+            }
+        }
+    }
+
+    /**
+     * A file between the prepare (validate) and load (COPY) stages
+     */
+    public static class PreparedLoad {
+        private final MultipartFile file; // null for a streamed body
+        private final String fileName;
+        private final String format;
+        private final boolean hasHeaders;
+        private final long startTime;
+        private IngestionManifest manifest;
+        private boolean finished;
+        private boolean clean; // validation found nothing to fix
+        private String targetTable;
+        private List<String> columnOrder;
+        private String filePattern;
+        private InputStream stream;
+        private long rowNumberLines = -1; // data lines to number (-1 = row_number left to the sequence)
+        private HashingInputStream hashingStream; // streamed body: checksum known once consumed
+        private FileValidationService.LineValidator validator; // streamed body: validation in flight
+
+        PreparedLoad(MultipartFile file, String fileName, String format, boolean hasHeaders, long startTime) {
+            this.file = file;
+            this.fileName = fileName;
+            this.format = format;
+            this.hasHeaders = hasHeaders;
+            this.startTime = startTime;
+        }
+
+        public IngestionManifest getManifest() {
+            return manifest;
+        }
+
+        /** Whether there is nothing to load (duplicate of a completed file) */
+        public boolean isFinished() {
+            return finished;
         }
     }
 
@@ -322,13 +960,21 @@ public class DelimitedFileProcessingService {
             String checksum,
             String tableName,
             UUID parentBatchId) throws Exception {
+        return createManifest(file.getOriginalFilename(), file.getSize(), checksum, file.getContentType(),
+                tableName, parentBatchId);
+    }
+
+    private IngestionManifest createManifest(
+            String fileName,
+            long fileSize,
+            String checksum,
+            String contentType,
+            String tableName,
+            UUID parentBatchId) {
 
-        IngestionManifest manifest = new IngestionManifest(
-                file.getOriginalFilename(),
-                file.getSize(),
-                checksum);
+        IngestionManifest manifest = new IngestionManifest(fileName, fileSize, checksum);
 
-        manifest.setContentType(file.getContentType());
+        manifest.setContentType(contentType);
         manifest.setBatchId(UUID.randomUUID());
         manifest.setParentBatchId(parentBatchId); // Set parent batch ID if provided (for ZIP processing)
         manifest.setTableName(tableName); // Store fully qualified table name
@@ -346,11 +992,21 @@ public class DelimitedFileProcessingService {
 
     /**
      * Complete manifest with success status
+     * 
+     * @param rowCount      Rows loaded by COPY
+     * @param rejectedCount Rows quarantined (counted as failed records)
      */
-    private void completeManifest(IngestionManifest manifest, long rowCount, long durationMs) {
-        manifest.setTotalRecords(rowCount);
+    private void completeManifest(IngestionManifest manifest, long rowCount, long rejectedCount, long durationMs) {
+        manifest.setTotalRecords(rowCount + rejectedCount);
         manifest.setProcessedRecords(rowCount);
+        manifest.setFailedRecords(rejectedCount);
+        if (rejectedCount > 0) {
+            log.warn("{} rows of batch {} were quarantined - see ingestion_rejected_rows",
+                    rejectedCount, manifest.getBatchId());
+        }
         manifest.markAsCompleted(); // Sets status to COMPLETED and completedAt timestamp
+        tableMaintenanceService.recordLoad(manifest.getTableName(), rowCount);
+        jfrRecordingService.recordLoad(manifest.getFileName(), manifest.getBatchId(), rowCount, durationMs);
 
         try {
             manifestService.save(manifest);
@@ -379,7 +1035,9 @@ public class DelimitedFileProcessingService {
      * @param format     File format (csv or tsv)
      * @param hasHeaders Whether file has header row
      * @param batchId    The batch UUID to track this load
-     * @return Number of rows loaded
+     * @param quarantine Optional row quarantine feeding the stream; its rejects are saved before commit
+     * @param commitCheck Optional check run after the stream is consumed; false rolls back
+     * @return Number of rows loaded, or -1 if the commit check rolled the load back
      */
     private long loadDataToCopy(
             InputStream inputStream,
@@ -387,45 +1045,119 @@ public class DelimitedFileProcessingService {
             List<String> columns,
             String format,
             boolean hasHeaders,
-            UUID batchId) throws Exception {
+            UUID batchId,
+            RowQuarantine quarantine,
+            BooleanSupplier commitCheck) throws Exception {
 
         // Build column list for COPY command (exclude tracking columns)
         String columnList = String.join(", ", columns);
 
         // Build COPY command
-        String copyCommand = buildCopyCommand(tableName, columnList, format, hasHeaders);
+        String copyCommand = buildCopyCommand(tableName, columnList, COPY_FROM_STDIN, format, hasHeaders);
 
         log.info("Executing COPY with batch tracking: {}", copyCommand);
         log.info("Batch ID: {}", batchId);
 
+        // Time blocked on the source is not database latency
+        ReadTimingInputStream timedStream = new ReadTimingInputStream(inputStream);
+
+        return loadInTransaction(tableName, batchId, quarantine, commitCheck, timedStream::getReadMillis, conn -> {
+            // Step 1: Execute COPY to load data (batch_id will be NULL)
+            org.postgresql.core.BaseConnection pgConn = conn.unwrap(org.postgresql.core.BaseConnection.class);
+            org.postgresql.copy.CopyManager copyManager = new org.postgresql.copy.CopyManager(pgConn);
+
+            // Use the provided input stream (which may be validated/fixed stream)
+            try (java.io.Reader reader = new java.io.InputStreamReader(timedStream,
+                    java.nio.charset.StandardCharsets.UTF_8)) {
+                return copyManager.copyIn(copyCommand, reader);
+            }
+        });
+    }
+
+    /**
+     * COPY into a table from a file the database server reads itself
+     * (csv.processing.server-side-copy-enabled) - the rows never pass through
+     * the JVM. Same transaction and batch_id stamping as loadDataToCopy.
+     * 
+     * @param serverPath Path of the file as the database server sees it
+     * @return Number of rows loaded
+     */
+    private long loadServerSideCopy(
+            String serverPath,
+            String tableName,
+            List<String> columns,
+            String format,
+            boolean hasHeaders,
+            UUID batchId) throws Exception {
+
+        String copyCommand = buildCopyCommand(tableName, String.join(", ", columns),
+                "'" + serverPath.replace("'", "''") + "'", format, hasHeaders);
+
+        log.info("Executing server-side COPY: {}", copyCommand);
+        log.info("Batch ID: {}", batchId);
+
+        return loadInTransaction(tableName, batchId, null, null, null, conn -> {
+            try (java.sql.Statement statement = conn.createStatement()) {
+                return statement.executeUpdate(copyCommand);
+            }
+        });
+    }
+
+    /**
+     * The COPY itself, run on the load's connection inside its transaction
+     */
+    @FunctionalInterface
+    private interface CopyStep {
+        long copy(Connection conn) throws Exception;
+    }
+
+    /**
+     * Run a COPY and stamp its rows with the batch ID in one transaction
+     * (within the adaptive concurrency limit)
+     * 
+     * @param upstreamWaitMs Time the COPY spent reading its client-side source, or
+     *                       null for a server-side COPY (recorded on its JFR event)
+     */
+    private long loadInTransaction(
+            String tableName,
+            UUID batchId,
+            RowQuarantine quarantine,
+            BooleanSupplier commitCheck,
+            LongSupplier upstreamWaitMs,
+            CopyStep copyStep) throws Exception {
+
+        boolean serverSide = upstreamWaitMs == null;
+
         long rowCount = 0;
 
-        // Execute COPY within a transaction for atomicity
+        // Execute COPY within a transaction for atomicity, within the adaptive concurrency limit
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(tableName);
+        Throwable failure = null;
         try (Connection conn = dataSource.getConnection()) {
+            permit.connected();
             // Disable auto-commit for transaction control
             conn.setAutoCommit(false);
 
             try {
                 // Step 1: Execute COPY to load data (batch_id will be NULL)
-                org.postgresql.core.BaseConnection pgConn = conn.unwrap(org.postgresql.core.BaseConnection.class);
-                org.postgresql.copy.CopyManager copyManager = new org.postgresql.copy.CopyManager(pgConn);
-
-                // Use the provided input stream (which may be validated/fixed stream)
-                try (java.io.Reader reader = new java.io.InputStreamReader(inputStream,
-                        java.nio.charset.StandardCharsets.UTF_8)) {
-
-                    rowCount = copyManager.copyIn(copyCommand, reader);
-                    log.info("COPY loaded {} rows", rowCount);
-                }
+                checkNotAborted(batchId);
+                IngestEvents.Copy copyEvent = newCopyEvent(batchId, tableName, serverSide);
+                rowCount = copyStep.copy(conn);
+                copyEvent.add(0, rowCount);
+                copyEvent.commit();
+                log.info("COPY loaded {} rows", rowCount);
 
                 // Step 2: Update all rows with NULL batch_id to current batch UUID
                 String updateSQL = String.format(
                         "UPDATE %s SET batch_id = ? WHERE batch_id IS NULL",
                         tableName);
 
+                IngestEvents.BatchIdUpdate updateEvent = newBatchIdUpdateEvent(batchId, tableName);
                 try (java.sql.PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
                     pstmt.setObject(1, batchId);
                     int updatedRows = pstmt.executeUpdate();
+                    updateEvent.add(0, updatedRows);
+                    updateEvent.commit();
                     log.info("Updated {} rows with batch_id: {}", updatedRows, batchId);
 
                     // Verify row count matches
@@ -435,7 +1167,20 @@ public class DelimitedFileProcessingService {
                     }
                 }
 
+                // Quarantined rows commit (or roll back) with the load
+                if (quarantine != null) {
+                    rejectedRowService.saveAll(conn, batchId, tableName, quarantine.drainPending());
+                }
+
+                // Streaming loads only know the checksum / validation outcome at this point
+                if (commitCheck != null && !commitCheck.getAsBoolean()) {
+                    conn.rollback();
+                    log.info("COPY of {} rows rolled back by pre-commit check", rowCount);
+                    return -1;
+                }
+
                 // Step 3: Commit transaction
+                checkNotAborted(batchId);
                 conn.commit();
                 log.info("Transaction committed successfully");
 
@@ -448,11 +1193,208 @@ public class DelimitedFileProcessingService {
                 // Restore auto-commit
                 conn.setAutoCommit(true);
             }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (upstreamWaitMs != null) {
+                permit.waitedUpstream(upstreamWaitMs.getAsLong());
+            }
+            permit.release(failure == null ? rowCount : 0, failure);
         }
 
         return rowCount;
     }
 
+    /**
+     * Stop a load whose thread was interrupted: IngestJobWorker aborts a job
+     * that lost its lease, so another instance may be loading the same file
+     */
+    private static void checkNotAborted(UUID batchId) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Load of batch " + batchId + " was aborted");
+        }
+    }
+
+    private static IngestEvents.Copy newCopyEvent(UUID batchId, String tableName, boolean serverSide) {
+        IngestEvents.Copy event = new IngestEvents.Copy();
+        event.table = tableName;
+        event.serverSide = serverSide;
+        event.start(batchId, null);
+        return event;
+    }
+
+    private static IngestEvents.BatchIdUpdate newBatchIdUpdateEvent(UUID batchId, String tableName) {
+        IngestEvents.BatchIdUpdate event = new IngestEvents.BatchIdUpdate();
+        event.table = tableName;
+        event.start(batchId, null);
+        return event;
+    }
+
+    /**
+     * Load data to PostgreSQL using COPY, committing every chunk
+     * 
+     * Chunked-commit mode (csv.processing.chunked-commit-enabled):
+     * 1. Splits the stream into chunks of batch-size rows or commit-interval-mb
+     * 2. Per chunk: COPY, stamp batch_id, write the checkpoint to the manifest
+     * 3. Commits the chunk and checkpoint together in one transaction
+     * 
+     * Because the checkpoint commits with the data, a crash never leaves
+     * rows that the checkpoint does not account for. A resumed load skips the
+     * first committed_line_number lines of the stream and continues.
+     * 
+     * The checkpoint counts lines and bytes of this stream, which has already
+     * been validated, fixed and transformed (and has LF line endings when a
+     * line filter ran), so committed_stream_offset is not an offset into the
+     * source file and is only recorded for diagnostics.
+     * 
+     * The header line (if any) is skipped here rather than by COPY, since
+     * every chunk is a separate COPY.
+     * 
+     * @param inputStream Validated/transformed stream to load
+     * @param tableName   Target table name
+     * @param columns     Column list for COPY
+     * @param format      File format (csv or tsv)
+     * @param hasHeaders  Whether stream starts with a header row
+     * @param manifest    Manifest carrying the batch ID and any prior checkpoint
+     * @param quarantine  Optional row quarantine feeding the stream; rejects commit with each chunk
+     * @return Total rows loaded for the batch (including previously committed rows)
+     */
+    private long loadDataInChunks(
+            InputStream inputStream,
+            String tableName,
+            List<String> columns,
+            String format,
+            boolean hasHeaders,
+            IngestionManifest manifest,
+            RowQuarantine quarantine) throws Exception {
+
+        String copyCommand = buildCopyCommand(tableName, String.join(", ", columns), COPY_FROM_STDIN, format,
+                false);
+        UUID batchId = manifest.getBatchId();
+
+        // Time blocked on the source is not database latency
+        ReadTimingInputStream timedStream = new ReadTimingInputStream(inputStream);
+        LineChunkReader chunkReader = new LineChunkReader(timedStream,
+                csvProcessingConfig.getBatchSize(), csvProcessingConfig.getCommitIntervalBytes());
+
+        long committedRows = 0;
+        if (manifest.hasCheckpoint()) {
+            long skipped = chunkReader.skipLines(manifest.getCommittedLineNumber());
+            if (skipped < manifest.getCommittedLineNumber()) {
+                throw new IllegalStateException(String.format(
+                        "Cannot resume batch %s: checkpoint is at line %d but the file only has %d lines",
+                        batchId, manifest.getCommittedLineNumber(), skipped));
+            }
+            committedRows = manifest.getProcessedRecords() != null ? manifest.getProcessedRecords() : 0;
+        } else if (hasHeaders) {
+            chunkReader.skipLines(1);
+        }
+
+        log.info("Executing chunked COPY (every {} rows / {} MB): {}",
+                csvProcessingConfig.getBatchSize(), csvProcessingConfig.getCommitIntervalMb(), copyCommand);
+        log.info("Batch ID: {}", batchId);
+
+        String updateSQL = String.format("UPDATE %s SET batch_id = ? WHERE batch_id IS NULL", tableName);
+        String checkpointSQL = "UPDATE ingestion_manifest SET total_records = ?, processed_records = ?, "
+                + "failed_records = ?, committed_line_number = ?, committed_stream_offset = ?, "
+                + "last_checkpoint_at = CURRENT_TIMESTAMP WHERE batch_id = ?";
+        // Rejects are re-detected from the start of the stream on resume (old ones were deleted)
+        long rejectedRows = 0;
+
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(tableName);
+        long readMsBeforeLoad = timedStream.getReadMillis(); // the resume skip happened outside the permit
+        long loadedRows = 0;
+        Throwable failure = null;
+        try (Connection conn = dataSource.getConnection()) {
+            permit.connected();
+            conn.setAutoCommit(false);
+
+            try {
+                org.postgresql.core.BaseConnection pgConn = conn.unwrap(org.postgresql.core.BaseConnection.class);
+                org.postgresql.copy.CopyManager copyManager = new org.postgresql.copy.CopyManager(pgConn);
+
+                byte[] chunk;
+                int chunkCount = 0;
+                while ((chunk = chunkReader.nextChunk()) != null) {
+                    checkNotAborted(batchId);
+                    IngestEvents.Copy copyEvent = newCopyEvent(batchId, tableName, false);
+                    long chunkRows = copyManager.copyIn(copyCommand, new ByteArrayInputStream(chunk));
+                    copyEvent.add(chunk.length, chunkRows);
+                    copyEvent.commit();
+
+                    IngestEvents.BatchIdUpdate updateEvent = newBatchIdUpdateEvent(batchId, tableName);
+                    try (java.sql.PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
+                        pstmt.setObject(1, batchId);
+                        updateEvent.add(0, pstmt.executeUpdate());
+                    }
+                    updateEvent.commit();
+
+                    committedRows += chunkRows;
+                    loadedRows += chunkRows;
+                    if (quarantine != null) {
+                        rejectedRows += rejectedRowService.saveAll(conn, batchId, tableName,
+                                quarantine.drainPending());
+                    }
+                    try (java.sql.PreparedStatement pstmt = conn.prepareStatement(checkpointSQL)) {
+                        pstmt.setLong(1, committedRows + rejectedRows);
+                        pstmt.setLong(2, committedRows);
+                        pstmt.setLong(3, rejectedRows);
+                        pstmt.setLong(4, chunkReader.getLinesRead());
+                        pstmt.setLong(5, chunkReader.getBytesRead());
+                        pstmt.setObject(6, batchId);
+                        pstmt.executeUpdate();
+                    }
+
+                    checkNotAborted(batchId);
+                    conn.commit();
+                    manifest.recordCheckpoint(committedRows, chunkReader.getLinesRead(),
+                            chunkReader.getBytesRead());
+                    chunkCount++;
+
+                    log.debug("Committed chunk {} ({} rows) - checkpoint line {}, stream offset {}",
+                            chunkCount, chunkRows, chunkReader.getLinesRead(), chunkReader.getBytesRead());
+                }
+
+                // Rejects found while reading past the last chunk (trailing invalid lines)
+                if (quarantine != null) {
+                    int trailing = rejectedRowService.saveAll(conn, batchId, tableName, quarantine.drainPending());
+                    if (trailing > 0) {
+                        rejectedRows += trailing;
+                        try (java.sql.PreparedStatement pstmt = conn.prepareStatement(
+                                "UPDATE ingestion_manifest SET total_records = ?, failed_records = ? WHERE batch_id = ?")) {
+                            pstmt.setLong(1, committedRows + rejectedRows);
+                            pstmt.setLong(2, rejectedRows);
+                            pstmt.setObject(3, batchId);
+                            pstmt.executeUpdate();
+                        }
+                        conn.commit();
+                    }
+                }
+
+                log.info("Chunked COPY loaded {} rows in {} committed chunks", committedRows, chunkCount);
+
+            } catch (Exception e) {
+                // Only the current chunk is lost - earlier chunks stay committed
+                conn.rollback();
+                log.error("Chunk rolled back; last checkpoint for batch {} is line {}",
+                        batchId, manifest.getCommittedLineNumber(), e);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Chunks committed before a failure still count towards the measured throughput
+            permit.waitedUpstream(timedStream.getReadMillis() - readMsBeforeLoad);
+            permit.release(loadedRows, failure);
+        }
+
+        return committedRows;
+    }
+
     /**
      * Build PostgreSQL COPY command
      * 
@@ -461,17 +1403,20 @@ public class DelimitedFileProcessingService {
      * DELIMITER ',', HEADER true)
      * - TSV no headers: COPY table (col1, col2) FROM STDIN WITH (FORMAT csv,
      * DELIMITER E'\t', HEADER false, QUOTE E'\\b')
+     * 
+     * @param source {@link #COPY_FROM_STDIN}, or a quoted server file path for server-side COPY
      */
     private String buildCopyCommand(
             String tableName,
             String columnList,
+            String source,
             String format,
             boolean hasHeaders) {
 
         StringBuilder sql = new StringBuilder();
         sql.append("COPY ").append(tableName);
         sql.append(" (").append(columnList).append(")");
-        sql.append(" FROM STDIN WITH (");
+        sql.append(" FROM ").append(source).append(" WITH (");
         sql.append("FORMAT csv");
 
         if ("tsv".equals(format)) {
@@ -509,20 +1454,26 @@ public class DelimitedFileProcessingService {
                 java.io.BufferedReader reader = new java.io.BufferedReader(
                         new java.io.InputStreamReader(is, java.nio.charset.StandardCharsets.UTF_8))) {
 
-            String headerLine = reader.readLine();
-            if (headerLine == null || headerLine.trim().isEmpty()) {
-                throw new IllegalArgumentException("File is empty or has no header");
-            }
+            return parseHeaderLine(reader.readLine());
+        }
+    }
 
-            // Simple CSV parsing (for more complex cases, use a CSV library)
-            String[] headers = headerLine.split(",");
-            List<String> columnNames = new java.util.ArrayList<>();
-            for (String header : headers) {
-                columnNames.add(header.trim().toLowerCase());
-            }
+    /**
+     * Parse column names from a header line
+     */
+    private List<String> parseHeaderLine(String headerLine) {
+        if (headerLine == null || headerLine.trim().isEmpty()) {
+            throw new IllegalArgumentException("File is empty or has no header");
+        }
 
-            return columnNames;
+        // Simple CSV parsing (for more complex cases, use a CSV library)
+        String[] headers = headerLine.split(",");
+        List<String> columnNames = new java.util.ArrayList<>();
+        for (String header : headers) {
+            columnNames.add(header.trim().toLowerCase());
         }
+
+        return columnNames;
     }
 
     /**
@@ -534,20 +1485,191 @@ public class DelimitedFileProcessingService {
      * @return Number of tab-delimited fields in first line
      */
     private int countFieldsInFile(MultipartFile file, String format) throws IOException {
-        char delimiter = getDelimiter(format);
-
         try (InputStream is = file.getInputStream();
                 BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
 
-            String firstLine = reader.readLine();
-            if (firstLine == null || firstLine.isEmpty()) {
-                return 0;
+            return countFields(reader.readLine(), format);
+        }
+    }
+
+    /**
+     * Count the delimited fields in a single line
+     */
+    private int countFields(String line, String format) {
+        if (line == null || line.isEmpty()) {
+            return 0;
+        }
+
+        // Split by delimiter and count fields
+        String[] fields = line.split(Pattern.quote(String.valueOf(getDelimiter(format))), -1);
+        return fields.length;
+    }
+
+    /**
+     * Resolve the table's data columns to load for a headerless file
+     * 
+     * @param targetTable Target table name
+     * @param fieldCount  Number of fields in the file's first line
+     * @return First fieldCount data columns (metadata columns excluded)
+     */
+    private List<String> resolveDataColumns(String targetTable, int fieldCount) throws SQLException {
+        // Get columns from database table schema (excluding metadata columns)
+        List<String> allColumns = schemaCatalogService.getColumnNames(targetTable);
+
+        // Filter out metadata columns that are auto-generated (not in source file)
+        List<String> dataColumns = allColumns.stream()
+                .filter(col -> !col.equals("batch_id") &&
+                        !col.equals("row_number") &&
+                        !col.equals("loaded_at"))
+                .toList();
+
+        log.debug("File contains {} fields, table has {} data columns", fieldCount, dataColumns.size());
+
+        // Use only the columns that exist in the file (first N columns)
+        List<String> columnOrder;
+        if (fieldCount < dataColumns.size()) {
+            columnOrder = dataColumns.subList(0, fieldCount);
+            log.info("Using first {} columns from table {} (file has fewer fields than table columns)",
+                    fieldCount, targetTable);
+        } else if (fieldCount > dataColumns.size()) {
+            throw new IllegalArgumentException(
+                    String.format("File has %d fields but table %s only has %d data columns",
+                            fieldCount, targetTable, dataColumns.size()));
+        } else {
+            columnOrder = dataColumns;
+        }
+
+        log.debug("Retrieved {} data columns from table {} (excluded metadata columns)",
+                columnOrder.size(), targetTable);
+        return columnOrder;
+    }
+
+    /**
+     * Build the row quarantine for a load (csv.processing.skip-invalid-records)
+     * 
+     * Values are checked against the target column types so rows that would
+     * abort COPY are diverted to ingestion_rejected_rows instead. More than
+     * csv.processing.max-validation-errors rejects still fails the file.
+     * 
+     * @return The quarantine, or null when skipping invalid records is disabled
+     */
+    private RowQuarantine createQuarantine(String targetTable, List<String> columnOrder, String format,
+            boolean hasHeaders) throws SQLException {
+        if (!csvProcessingConfig.isSkipInvalidRecords()) {
+            return null;
+        }
+
+        java.util.Map<String, ColumnDefinition> definitions = new java.util.HashMap<>();
+        for (ColumnDefinition definition : schemaCatalogService.getColumns(targetTable)) {
+            definitions.put(definition.getName().toLowerCase(), definition);
+        }
+
+        // Same order as the COPY column list (unknown header names are left to COPY)
+        List<ColumnDefinition> copyColumns = new java.util.ArrayList<>();
+        for (String column : columnOrder) {
+            copyColumns.add(definitions.get(column.toLowerCase()));
+        }
+
+        RowTypeChecker checker = new RowTypeChecker(copyColumns, getDelimiter(format), !"tsv".equals(format));
+        log.info("Row quarantine enabled for {} (max {} rejects)", targetTable,
+                csvProcessingConfig.getMaxValidationErrors());
+        return new RowQuarantine(checker, hasHeaders, csvProcessingConfig.getMaxValidationErrors());
+    }
+
+    /**
+     * Whether the loader writes row_number itself from reserved ranges
+     * (csv.processing.row-number-ranges-enabled, the table's row_number is a
+     * serial column and the file does not supply it)
+     */
+    private boolean assignsRowNumbers(String targetTable, List<String> columnOrder) {
+        if (!csvProcessingConfig.isRowNumberRangesEnabled()) {
+            return false;
+        }
+        for (String column : columnOrder) {
+            if ("row_number".equalsIgnoreCase(column)) {
+                return false;
             }
+        }
+        return rowNumberAllocator.getSequence(targetTable) != null;
+    }
 
-            // Split by delimiter and count fields
-            String[] fields = firstLine.split(Pattern.quote(String.valueOf(delimiter)), -1);
-            return fields.length;
+    /**
+     * Row numbering for a load, run after the quarantine so rejected lines keep their number as a gap
+     * 
+     * @param expectedLines Data lines in the file (0 = unknown, reserve row-number-block-size at a time)
+     */
+    private RowNumberAssigner createRowNumberAssigner(String targetTable, String format, boolean hasHeaders,
+            RowQuarantine quarantine, long expectedLines) {
+        return new RowNumberAssigner(quarantine,
+                count -> rowNumberAllocator.reserve(targetTable, count),
+                "tsv".equals(format) ? '\t' : ',', // same delimiter as buildCopyCommand
+                hasHeaders, expectedLines, csvProcessingConfig.getRowNumberBlockSize());
+    }
+
+    /**
+     * Put the row quarantine and row numbering (either may be null) in front of COPY
+     */
+    private InputStream applyLineFilters(InputStream stream, RowQuarantine quarantine,
+            RowNumberAssigner rowNumbers) {
+        java.util.function.UnaryOperator<String> mapper = rowNumbers != null ? rowNumbers : quarantine;
+        return mapper != null ? new LineMappingInputStream(stream, mapper) : stream;
+    }
+
+    /**
+     * COPY column list with the loader-assigned row_number first
+     */
+    private static List<String> withRowNumber(List<String> columnOrder) {
+        List<String> columns = new java.util.ArrayList<>(columnOrder.size() + 1);
+        columns.add("row_number");
+        columns.addAll(columnOrder);
+        return columns;
+    }
+
+    /**
+     * Wrap the stream with the configured DataTransformer for this file pattern (if any)
+     */
+    private InputStream applyTransformation(InputStream stream, String filePattern, UUID batchId,
+            String fileName) {
+        try {
+            java.util.Optional<FileValidationRule> ruleOpt = validationRuleRepository.findByFilePattern(filePattern);
+            if (ruleOpt.isPresent()) {
+                FileValidationRule rule = ruleOpt.get();
+                DataTransformer transformer = dataTransformerFactory.getTransformer(rule);
+                
+                // Apply transformation if needed
+                if (transformer.requiresTransformation()) {
+                    log.info("Applying data transformation for file pattern: {} using transformer: {}", 
+                            filePattern, transformer.getClass().getSimpleName());
+                    return new TransformingInputStream(stream, transformer, filePattern,
+                            batchId, validationIssueRepository, createTransformationAudit(batchId));
+                } else {
+                    log.debug("No transformation required for file pattern: {}", filePattern);
+                }
+            } else {
+                log.debug("No validation rule found for pattern: {}, skipping transformation", filePattern);
+            }
+        } catch (Exception transEx) {
+            log.error("Error applying transformation for file: {}. Proceeding without transformation.", 
+                    fileName, transEx);
+            // Continue with unmodified stream if transformation fails
         }
+        return stream;
+    }
+
+    /**
+     * Counts, sample and optional on-disk log for the lines a transformer changes
+     * (csv.processing.transformation-sample-size / transformation-log-directory)
+     */
+    private TransformationAudit createTransformationAudit(UUID batchId) {
+        return new TransformationAudit(csvProcessingConfig.getTransformationSampleSize(),
+                transformationLogFile(batchId));
+    }
+
+    private Path transformationLogFile(UUID batchId) {
+        String logDirectory = csvProcessingConfig.getTransformationLogDirectory();
+        return logDirectory == null || logDirectory.isBlank()
+                ? null
+                : Paths.get(logDirectory, batchId + "_transformations.tsv.gz");
     }
 
     /**
@@ -580,6 +1702,29 @@ public class DelimitedFileProcessingService {
         return name.toLowerCase();
     }
 
+    /**
+     * The decompressed view of a .gz file (inflated in parallel where the file allows)
+     */
+    private MultipartFile decompressed(MultipartFile file) {
+        return FileChecksumService.isGzip(file.getOriginalFilename())
+                ? fileChecksumService.decompressed(file)
+                : file;
+    }
+
+    /**
+     * Close a prepared stream (releasing its pooled buffers), ignoring errors
+     */
+    private static void closeQuietly(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Could not close prepared stream: {}", e.getMessage());
+        }
+    }
+
     /**
      * Convert exception stack trace to string for error details
      */
@@ -641,24 +1786,25 @@ public class DelimitedFileProcessingService {
             return;
         }
 
-        // Count issues by severity
+        // Count issues by severity (each stored issue covers lineCount lines)
         long autoFixedCount = 0;
         int warningCount = 0;
         int errorCount = 0;
 
         for (FileValidationIssue issue : validationResult.getIssues()) {
+            int lines = issue.getLineCount() != null ? issue.getLineCount().intValue() : 1;
             if (issue.getAutoFixed() != null && issue.getAutoFixed()) {
-                autoFixedCount++;
+                autoFixedCount += lines;
             }
 
             if (issue.getSeverity() != null) {
                 switch (issue.getSeverity()) {
                     case WARNING:
-                        warningCount++;
+                        warningCount += lines;
                         break;
                     case FileValidationIssue.Severity.ERROR:
                     case CRITICAL:
-                        errorCount++;
+                        errorCount += lines;
                         break;
                     default:
                         // INFO or others - no action
@@ -1,14 +1,24 @@
 package teranet.mapdev.ingest.service;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import teranet.mapdev.ingest.stream.ParallelGzipInputStream;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -20,14 +30,27 @@ import java.util.zip.ZipInputStream;
  * - SHA-256 checksum calculation for idempotency
  * - Support for compressed files (.gz, .zip)
  * - Automatic decompression stream wrapping
+ * - Parallel gzip inflation (BGZF members on a shared pool, read-ahead
+ *   thread otherwise - see {@link ParallelGzipInputStream})
  * 
- * This service is stateless and can be safely used concurrently.
+ * This service is stateless apart from the inflation pool and can be safely used concurrently.
  */
 @Service
 public class FileChecksumService {
     
     private static final Logger logger = LoggerFactory.getLogger(FileChecksumService.class);
     
+    @Value("${csv.processing.gzip-parallel-enabled:true}")
+    private boolean gzipParallelEnabled = true;
+    
+    @Value("${csv.processing.gzip-threads:0}")
+    private int gzipThreads = 0; // 0 = one per available processor
+    
+    @Value("${csv.processing.gzip-read-ahead-chunks:8}")
+    private int gzipReadAheadChunks = 8;
+    
+    private volatile ExecutorService gzipPool;
+    
     /**
      * Calculate SHA-256 checksum for file idempotency.
      * Automatically handles compressed files (.gz, .zip).
@@ -77,7 +100,7 @@ public class FileChecksumService {
         if (filename != null) {
             if (filename.endsWith(".gz")) {
                 logger.debug("Decompressing GZIP file: {}", filename);
-                return new GZIPInputStream(inputStream);
+                return decompressGzip(inputStream);
             } else if (filename.endsWith(".zip")) {
                 logger.debug("Decompressing ZIP file: {}", filename);
                 ZipInputStream zipStream = new ZipInputStream(inputStream);
@@ -113,4 +136,139 @@ public class FileChecksumService {
         
         return hexString.toString();
     }
+
+    /**
+     * Inflate gzip content - in parallel for BGZF, with a read-ahead thread otherwise
+     * (plain GZIPInputStream when csv.processing.gzip-parallel-enabled=false)
+     * 
+     * @param compressed gzip stream
+     * @return decompressed stream (closing it closes the compressed one)
+     * @throws IOException if the gzip header cannot be read
+     */
+    public InputStream decompressGzip(InputStream compressed) throws IOException {
+        if (!gzipParallelEnabled) {
+            return new GZIPInputStream(compressed, 65536);
+        }
+        return new ParallelGzipInputStream(compressed, gzipPool(), gzipParallelism(), gzipReadAheadChunks);
+    }
+    
+    /**
+     * Whether a filename is a gzip-compressed data file (PM162.gz, data.tsv.gz)
+     */
+    public static boolean isGzip(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".gz");
+    }
+    
+    /**
+     * Name of the data inside a compressed file (PM162.gz -> PM162), which
+     * drives routing, format and extension checks; other names are unchanged
+     */
+    public static String dataFileName(String filename) {
+        return isGzip(filename) ? filename.substring(0, filename.length() - 3) : filename;
+    }
+    
+    /**
+     * The decompressed view of a .gz upload: reads inflate on the fly and the
+     * name drops ".gz"; other files are returned unchanged
+     * 
+     * @param file the uploaded file
+     * @return file whose content is the delimited data
+     */
+    public MultipartFile decompressed(MultipartFile file) {
+        if (file instanceof DecompressedFile || !isGzip(file.getOriginalFilename())) {
+            return file;
+        }
+        return new DecompressedFile(file);
+    }
+    
+    private int gzipParallelism() {
+        return gzipThreads > 0 ? gzipThreads : Runtime.getRuntime().availableProcessors();
+    }
+    
+    private ExecutorService gzipPool() {
+        if (gzipPool == null) {
+            synchronized (this) {
+                if (gzipPool == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    gzipPool = Executors.newFixedThreadPool(gzipParallelism(), runnable -> {
+                        Thread thread = new Thread(runnable, "gzip-inflate-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    logger.info("Gzip inflation pool started: {} threads", gzipParallelism());
+                }
+            }
+        }
+        return gzipPool;
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (gzipPool != null) {
+            gzipPool.shutdown();
+            try {
+                if (!gzipPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                    gzipPool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                gzipPool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Decompressed view of a .gz upload (size is the compressed upload's)
+     */
+    private class DecompressedFile implements MultipartFile {
+        private final MultipartFile compressed;
+        
+        DecompressedFile(MultipartFile compressed) {
+            this.compressed = compressed;
+        }
+        
+        @Override
+        public String getName() {
+            return compressed.getName();
+        }
+        
+        @Override
+        public String getOriginalFilename() {
+            return dataFileName(compressed.getOriginalFilename());
+        }
+        
+        @Override
+        public String getContentType() {
+            return "text/plain";
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return compressed.isEmpty();
+        }
+        
+        @Override
+        public long getSize() {
+            return compressed.getSize();
+        }
+        
+        @Override
+        public byte[] getBytes() throws IOException {
+            try (InputStream in = getInputStream()) {
+                return in.readAllBytes();
+            }
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return decompressGzip(compressed.getInputStream());
+        }
+        
+        @Override
+        public void transferTo(File dest) throws IOException {
+            try (InputStream in = getInputStream()) {
+                Files.copy(in, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
 }
@@ -1,16 +1,35 @@
 package teranet.mapdev.ingest.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
 import teranet.mapdev.ingest.model.FileValidationIssue;
+import teranet.mapdev.ingest.model.FileValidationLine;
 import teranet.mapdev.ingest.model.FileValidationRule;
 import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
+import teranet.mapdev.ingest.repository.FileValidationLineRepository;
 import teranet.mapdev.ingest.repository.FileValidationRuleRepository;
+import teranet.mapdev.ingest.stream.FieldIndex;
+import teranet.mapdev.ingest.stream.IngestEvents;
+import teranet.mapdev.ingest.stream.SpillingBuffer;
+import teranet.mapdev.ingest.util.LineRanges;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,6 +44,17 @@ import java.util.regex.Pattern;
  * - Collapses consecutive replaced characters to single asterisk
  * - Tracks all validation issues for reporting
  * - Generates validation reports for senders
+ * 
+ * Issues are stored compacted: identical findings on many lines are one
+ * row with the affected line ranges, and line text is kept once per line
+ * for a bounded sample of lines. The read methods expand them back to one
+ * issue per line.
+ * 
+ * Validation stops at the first line that rejects the file: a critical
+ * violation (rejectOnViolation), more unfixed violations than the rule's
+ * max_errors (default csv.processing.max-validation-errors), or the ZIP
+ * batch's shared error budget running out. Only the issues found up to
+ * that line are recorded and the rest of the file is not read.
  */
 @Service
 @Slf4j
@@ -32,6 +62,41 @@ public class FileValidationService {
 
     private final FileValidationRuleRepository ruleRepository;
     private final FileValidationIssueRepository issueRepository;
+    private final FileValidationLineRepository lineRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BufferPool bufferPool;
+    private final CsvProcessingConfig csvProcessingConfig;
+    private final TransactionTemplate transactionTemplate;
+
+    // Issues embedded in a report, and the largest page the issue API returns
+    private static final int REPORT_ISSUE_LIMIT = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Compacted issues expanded to one row per line (line_ranges -> generate_series),
+    // with the sampled line text; %s is the batch id (bind parameter or literal)
+    private static final String EXPANDED_ISSUES_SQL = """
+            SELECT i.id, i.file_name, r.line AS line_number, i.issue_type, i.severity,
+                   i.expected_value, i.actual_value, i.description, i.auto_fixed, i.fix_description,
+                   COALESCE(i.original_line, l.original_line) AS original_line,
+                   CASE WHEN i.original_line IS NOT NULL THEN i.corrected_line ELSE l.corrected_line END
+                       AS corrected_line,
+                   i.created_at
+            FROM file_validation_issues i
+            CROSS JOIN LATERAL (
+                SELECT generate_series(split_part(part, '-', 1)::bigint,
+                        COALESCE(NULLIF(split_part(part, '-', 2), ''), split_part(part, '-', 1))::bigint) AS line
+                FROM unnest(string_to_array(COALESCE(i.line_ranges, i.line_number::text), ',')) AS part
+            ) r
+            LEFT JOIN file_validation_lines l ON l.batch_id = i.batch_id AND l.line_number = r.line
+            WHERE i.batch_id = %s
+            ORDER BY r.line, i.id""";
+
+    // Lines whose text is kept per file (plus the first line of each distinct finding)
+    @Value("${csv.processing.validation-sample-lines:100}")
+    private int sampleLineLimit = 100;
+
+    // Error budgets of the ZIP batches being loaded, by parent batch ID
+    private final Map<UUID, ErrorBudget> batchBudgets = new ConcurrentHashMap<>();
 
     // Regex patterns for efficient character replacement
     // Control characters: 0x00-0x1F (except \t, \n, \r) and 0x7F (DEL)
@@ -45,26 +110,64 @@ public class FileValidationService {
 
     public FileValidationService(
             FileValidationRuleRepository ruleRepository,
-            FileValidationIssueRepository issueRepository) {
+            FileValidationIssueRepository issueRepository,
+            FileValidationLineRepository lineRepository,
+            JdbcTemplate jdbcTemplate,
+            BufferPool bufferPool,
+            CsvProcessingConfig csvProcessingConfig,
+            PlatformTransactionManager transactionManager) {
         this.ruleRepository = ruleRepository;
         this.issueRepository = issueRepository;
+        this.lineRepository = lineRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.bufferPool = bufferPool;
+        this.csvProcessingConfig = csvProcessingConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Validate and optionally fix a file based on configured rules
      * 
+     * The fixed copy is held in a {@link SpillingBuffer} within the
+     * {@link BufferPool} memory budget (waiting for admission while it is used
+     * up); the returned stream releases it as it is read or when closed.
+     * 
+     * Not transactional: no connection is held while waiting for the buffer
+     * or reading the file. Only saving the issues runs in a transaction.
+     * 
      * @param inputStream Input file stream
      * @param fileName    Name of the file being validated
      * @param filePattern File pattern (e.g., "PM3", "IM2")
      * @param batchId     Batch ID for tracking
      * @return ValidationResult with fixed content and issues found
      */
-    @Transactional
     public ValidationResult validateAndFix(
             InputStream inputStream,
             String fileName,
             String filePattern,
             UUID batchId) throws IOException {
+        return validateAndFix(inputStream, fileName, filePattern, batchId, null);
+    }
+
+    /**
+     * Validate and optionally fix a file of a ZIP batch
+     * 
+     * Unfixed violations also count against the error budget opened for the
+     * batch with {@link #openBatchBudget(UUID)}, if any.
+     * 
+     * @param inputStream   Input file stream
+     * @param fileName      Name of the file being validated
+     * @param filePattern   File pattern (e.g., "PM3", "IM2")
+     * @param batchId       Batch ID for tracking
+     * @param parentBatchId Batch ID of the ZIP the file came from - can be null
+     * @return ValidationResult with fixed content and issues found
+     */
+    public ValidationResult validateAndFix(
+            InputStream inputStream,
+            String fileName,
+            String filePattern,
+            UUID batchId,
+            UUID parentBatchId) throws IOException {
 
         log.info("Starting validation for file: {} (pattern: {})", fileName, filePattern);
 
@@ -79,171 +182,413 @@ public class FileValidationService {
         log.info("Applying validation rule: expected {} tabs per row", rule.getExpectedTabCount());
 
         // Process file line by line
-        List<FileValidationIssue> issues = new ArrayList<>();
-        ByteArrayOutputStream fixedOutput = new ByteArrayOutputStream();
+        LineValidator validator = new LineValidator(rule, fileName, batchId,
+                parentBatchId != null ? batchBudgets.get(parentBatchId) : null);
+        SpillingBuffer fixedOutput = bufferPool != null ? bufferPool.newBuffer() : new SpillingBuffer(null);
         BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fixedOutput, StandardCharsets.UTF_8));
 
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
             String line;
-            long lineNumber = 0;
-            boolean hasCriticalIssues = false;
-
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-
-                // Store original line for reporting
-                String originalLine = line;
-                String processedLine = line;
-                List<FileValidationIssue> lineIssues = new ArrayList<>();
-
-                // Step 1: Apply data cleaning rules first
-                if (rule.getReplaceControlChars() || rule.getReplaceNonLatinChars()
-                        || rule.getCollapseConsecutiveReplaced()) {
-                    DataCleaningResult cleaningResult = cleanLineData(
-                            processedLine,
-                            rule.getReplaceControlChars(),
-                            rule.getReplaceNonLatinChars(),
-                            rule.getCollapseConsecutiveReplaced());
-
-                    processedLine = cleaningResult.cleanedLine;
-
-                    // Record data cleaning issues
-                    if (cleaningResult.controlCharsReplaced > 0) {
-                        FileValidationIssue issue = createDataCleaningIssue(
-                                batchId, fileName, lineNumber, originalLine, processedLine,
-                                FileValidationIssue.IssueType.CONTROL_CHARACTERS,
-                                cleaningResult.controlCharsReplaced,
-                                "control character(s)");
-                        lineIssues.add(issue);
-                    }
-
-                    if (cleaningResult.nonLatinCharsReplaced > 0) {
-                        FileValidationIssue issue = createDataCleaningIssue(
-                                batchId, fileName, lineNumber, originalLine, processedLine,
-                                FileValidationIssue.IssueType.NON_LATIN_CHARACTERS,
-                                cleaningResult.nonLatinCharsReplaced,
-                                "non-BASIC_LATIN character(s)");
-                        lineIssues.add(issue);
-                    }
-
-                    if (cleaningResult.consecutiveCollapsed > 0) {
-                        FileValidationIssue issue = createDataCleaningIssue(
-                                batchId, fileName, lineNumber, originalLine, processedLine,
-                                FileValidationIssue.IssueType.CONSECUTIVE_REPLACED_CHARS,
-                                cleaningResult.consecutiveCollapsed,
-                                "consecutive replaced character(s) collapsed");
-                        lineIssues.add(issue);
-                    }
+
+            // Stop reading at the line that rejects the file
+            while (!validator.isRejected() && (line = reader.readLine()) != null) {
+                writer.write(validator.validate(line));
+                writer.newLine();
+            }
+
+            writer.close();
+
+            // Called on this instance, so @Transactional on completeValidation does not apply
+            ValidationResult result = transactionTemplate.execute(status -> completeValidation(validator));
+            if (result.isRejected()) {
+                return result;
+            }
+
+            return ValidationResult.success(fixedOutput.toInputStream(), result.getIssues(),
+                    validator.getLineCount());
+
+        } finally {
+            fixedOutput.discard(); // no-op once handed off
+        }
+    }
+
+    /**
+     * Create a line-by-line validator for streaming use
+     * 
+     * The caller feeds every line through {@link LineValidator#validate(String)}
+     * (e.g. via LineMappingInputStream, with {@link LineValidator#validateOrReject(String)}
+     * to stop at a rejection) and calls {@link #completeValidation(LineValidator)}
+     * once the stream is consumed or stopped.
+     * 
+     * @param fileName    Name of the file being validated
+     * @param filePattern File pattern (e.g., "PM3", "IM2")
+     * @param batchId     Batch ID for tracking
+     * @return Validator, or null if no rule applies to this pattern
+     */
+    public LineValidator createLineValidator(String fileName, String filePattern, UUID batchId) {
+        Optional<FileValidationRule> ruleOpt = ruleRepository.findByFilePattern(filePattern);
+        if (ruleOpt.isEmpty() || !ruleOpt.get().getValidationEnabled()) {
+            log.info("No validation rule found or validation disabled for pattern: {}", filePattern);
+            return null;
+        }
+
+        log.info("Applying validation rule: expected {} tabs per row", ruleOpt.get().getExpectedTabCount());
+        return new LineValidator(ruleOpt.get(), fileName, batchId, null);
+    }
+
+    /**
+     * Start the shared error budget of a ZIP batch
+     * 
+     * Files validated with this parent batch ID count their unfixed
+     * violations against it until {@link #closeBatchBudget(UUID)}.
+     * 
+     * @param parentBatchId Batch ID of the ZIP
+     * @return The budget (to check between files)
+     */
+    public ErrorBudget openBatchBudget(UUID parentBatchId) {
+        ErrorBudget budget = new ErrorBudget(csvProcessingConfig.getBatchMaxValidationErrors());
+        batchBudgets.put(parentBatchId, budget);
+        return budget;
+    }
+
+    public void closeBatchBudget(UUID parentBatchId) {
+        batchBudgets.remove(parentBatchId);
+    }
+
+    /**
+     * Save the issues collected by a validator and build the result
+     * 
+     * @param validator Validator that has seen every line of the file
+     * @return Rejected result, or success without a stream (the caller already has it)
+     */
+    @Transactional
+    public ValidationResult completeValidation(LineValidator validator) {
+        validator.finishChunk();
+        List<FileValidationIssue> issues = validator.getIssues();
+
+        // Save all issues to database
+        if (!issues.isEmpty()) {
+            IngestEvents.IssueFlush flush = new IngestEvents.IssueFlush();
+            flush.start(validator.batchId, validator.rule.getFilePattern());
+            flush.source = "validation";
+            issueRepository.saveAll(issues);
+            lineRepository.saveAll(validator.getSampleLines());
+            flush.add(0, issues.size() + validator.getSampleLines().size());
+            flush.commit();
+            log.info("Recorded {} validation issues as {} rows ({} sample lines) for batch {}",
+                    countLines(issues), issues.size(), validator.getSampleLines().size(), validator.batchId);
+        }
+
+        ValidationResult result = validator.isRejected()
+                ? ValidationResult.rejected(issues, validator.getRejectionReason())
+                : ValidationResult.success(null, issues, validator.getLineCount());
+
+        // Determine result
+        if (result.isRejected()) {
+            log.error("File {} rejected after {} lines: {}", validator.fileName, validator.getLineCount(),
+                    validator.getRejectionReason());
+            return result;
+        }
+
+        log.info("Validation completed: {} issues found, {} auto-fixed",
+                result.getIssueCount(), result.getAutoFixedCount());
+
+        return result;
+    }
+
+    /**
+     * Validates and fixes one line at a time, collecting issues as it goes
+     * 
+     * Memory is bounded by the number of distinct findings (plus their line
+     * ranges) and the line sample, not by the number of lines with issues.
+     * 
+     * Counts unfixed violations against the file's error limit and the
+     * batch budget; once {@link #isRejected()} the file is rejected and no
+     * further lines need to be validated.
+     */
+    public class LineValidator {
+        private final FileValidationRule rule;
+        private final String fileName;
+        private final UUID batchId;
+        private final int errorLimit;
+        private final ErrorBudget batchBudget;
+        // (type, severity, autoFixed, expected, actual, fix) -> issue covering those lines
+        private final Map<List<Object>, IssueGroup> groups = new LinkedHashMap<>();
+        private final List<FileValidationLine> sampleLines = new ArrayList<>();
+        private final FieldIndex fields = new FieldIndex();
+        private long lineNumber = 0;
+        private long errorLines = 0;
+        private String rejectionReason;
+        private IngestEvents.ValidationChunk chunkEvent;
+
+        private LineValidator(FileValidationRule rule, String fileName, UUID batchId, ErrorBudget batchBudget) {
+            this.rule = rule;
+            this.fileName = fileName;
+            this.batchId = batchId;
+            this.errorLimit = rule.getMaxErrors() != null
+                    ? rule.getMaxErrors()
+                    : csvProcessingConfig.getMaxValidationErrors();
+            this.batchBudget = batchBudget;
+        }
+
+        /**
+         * Validate the next line of the file
+         * 
+         * @param line Line without terminator
+         * @return The cleaned/fixed line to load
+         */
+        public String validate(String line) {
+            if (chunkEvent == null) {
+                chunkEvent = new IngestEvents.ValidationChunk();
+                chunkEvent.start(batchId, rule.getFilePattern());
+            }
+            long started = chunkEvent.lineStart();
+            lineNumber++;
+
+            // Store original line for reporting
+            String originalLine = line;
+            String processedLine = line;
+            List<FileValidationIssue> findings = new ArrayList<>(2);
+            FileValidationIssue unfixed = null;
+
+            // Step 1: Apply data cleaning rules first
+            if (rule.getReplaceControlChars() || rule.getReplaceNonLatinChars()
+                    || rule.getCollapseConsecutiveReplaced()) {
+                DataCleaningResult cleaningResult = cleanLineData(
+                        processedLine,
+                        rule.getReplaceControlChars(),
+                        rule.getReplaceNonLatinChars(),
+                        rule.getCollapseConsecutiveReplaced());
+
+                processedLine = cleaningResult.cleanedLine;
+
+                // Record data cleaning issues
+                if (cleaningResult.controlCharsReplaced > 0) {
+                    findings.add(createDataCleaningIssue(
+                            batchId, fileName, lineNumber,
+                            FileValidationIssue.IssueType.CONTROL_CHARACTERS,
+                            cleaningResult.controlCharsReplaced,
+                            "control character(s)"));
                 }
 
-                // Step 2: Count tabs in the (possibly cleaned) line
-                int tabCount = countTabs(processedLine);
-
-                if (tabCount != rule.getExpectedTabCount()) {
-                    // Create tab validation issue
-                    FileValidationIssue issue = createIssue(
-                            batchId, fileName, lineNumber, tabCount,
-                            rule.getExpectedTabCount(), processedLine);
-
-                    if (tabCount > rule.getExpectedTabCount() && rule.getAutoFixEnabled()) {
-                        // Fix excess tabs by converting extra tabs to spaces
-                        processedLine = fixExcessTabs(processedLine, rule.getExpectedTabCount());
-                        issue.setAutoFixed(true);
-                        issue.setCorrectedLine(processedLine);
-                        issue.setFixDescription(
-                                String.format("Converted %d excess tabs to spaces",
-                                        tabCount - rule.getExpectedTabCount()));
-                        issue.setSeverity(FileValidationIssue.Severity.WARNING);
-
-                        writer.write(processedLine);
-                        writer.newLine();
-                    } else {
-                        // Cannot auto-fix or insufficient tabs
-                        issue.setSeverity(rule.getRejectOnViolation()
-                                ? FileValidationIssue.Severity.CRITICAL
-                                : FileValidationIssue.Severity.ERROR);
-                        issue.setAutoFixed(false);
-
-                        if (rule.getRejectOnViolation()) {
-                            hasCriticalIssues = true;
-                        }
-
-                        writer.write(processedLine);
-                        writer.newLine();
-                    }
-
-                    lineIssues.add(issue);
+                if (cleaningResult.nonLatinCharsReplaced > 0) {
+                    findings.add(createDataCleaningIssue(
+                            batchId, fileName, lineNumber,
+                            FileValidationIssue.IssueType.NON_LATIN_CHARACTERS,
+                            cleaningResult.nonLatinCharsReplaced,
+                            "non-BASIC_LATIN character(s)"));
+                }
+
+                if (cleaningResult.consecutiveCollapsed > 0) {
+                    findings.add(createDataCleaningIssue(
+                            batchId, fileName, lineNumber,
+                            FileValidationIssue.IssueType.CONSECUTIVE_REPLACED_CHARS,
+                            cleaningResult.consecutiveCollapsed,
+                            "consecutive replaced character(s) collapsed"));
+                }
+            }
+
+            // Step 2: Count tabs in the (possibly cleaned) line - one scan, reused by the fix
+            int tabCount = fields.reset(processedLine).delimiterCount();
+
+            if (tabCount != rule.getExpectedTabCount()) {
+                // Create tab validation issue
+                FileValidationIssue issue = createIssue(
+                        batchId, fileName, lineNumber, tabCount,
+                        rule.getExpectedTabCount());
+
+                if (tabCount > rule.getExpectedTabCount() && rule.getAutoFixEnabled()) {
+                    // Fix excess tabs by converting extra tabs to spaces
+                    processedLine = fields.keepDelimiters(rule.getExpectedTabCount(), ' ');
+                    issue.setAutoFixed(true);
+                    issue.setFixDescription(
+                            String.format("Converted %d excess tabs to spaces",
+                                    tabCount - rule.getExpectedTabCount()));
+                    issue.setSeverity(FileValidationIssue.Severity.WARNING);
                 } else {
-                    // Line tab count is valid, write the processed line
-                    writer.write(processedLine);
-                    writer.newLine();
+                    // Cannot auto-fix or insufficient tabs
+                    issue.setSeverity(rule.getRejectOnViolation()
+                            ? FileValidationIssue.Severity.CRITICAL
+                            : FileValidationIssue.Severity.ERROR);
+                    issue.setAutoFixed(false);
+                    unfixed = issue;
                 }
 
-                // Add all issues for this line
-                issues.addAll(lineIssues);
+                findings.add(issue);
+            }
+
+            if (!findings.isEmpty()) {
+                record(findings, originalLine, processedLine);
+            }
+            if (unfixed != null) {
+                countError(unfixed);
+            }
+
+            chunkEvent.addLine(line.length(), started);
+            if (chunkEvent.isChunkFull()) {
+                chunkEvent.commit();
+                chunkEvent = null;
+            }
+            return processedLine;
+        }
+
+        /**
+         * Validate the next line of a streamed load, failing the stream (and
+         * with it COPY) at the line that rejects the file
+         * 
+         * @param line Line without terminator
+         * @return The cleaned/fixed line to load
+         * @throws IllegalArgumentException once the file is rejected
+         */
+        public String validateOrReject(String line) {
+            String processedLine = validate(line);
+            if (isRejected()) {
+                throw new IllegalArgumentException("File rejected: " + rejectionReason);
             }
+            return processedLine;
+        }
+
+        /**
+         * Count an unfixed violation and reject the file once a limit is hit
+         */
+        private void countError(FileValidationIssue issue) {
+            errorLines++;
+            boolean batchBudgetLeft = batchBudget == null || batchBudget.spend();
+            if (rejectionReason != null) {
+                return;
+            }
+
+            if (issue.getSeverity() == FileValidationIssue.Severity.CRITICAL) {
+                rejectionReason = String.format("critical violation on line %d (%s)",
+                        lineNumber, issue.getDescription());
+            } else if (errorLimit >= 0 && errorLines > errorLimit) {
+                rejectionReason = String.format("more than %d validation errors (stopped at line %d)",
+                        errorLimit, lineNumber);
+            } else if (!batchBudgetLeft) {
+                rejectionReason = String.format("ZIP batch exceeded %d validation errors (stopped at line %d)",
+                        batchBudget.getLimit(), lineNumber);
+            }
+        }
 
-            writer.flush();
+        /**
+         * Commit the JFR event for the last, partial chunk of lines
+         */
+        void finishChunk() {
+            if (chunkEvent != null) {
+                chunkEvent.commitIfAny();
+                chunkEvent = null;
+            }
+        }
 
-            // Save all issues to database
-            if (!issues.isEmpty()) {
-                issueRepository.saveAll(issues);
-                log.info("Recorded {} validation issues for batch {}", issues.size(), batchId);
+        /**
+         * Add this line's findings to their groups and sample the line text
+         */
+        private void record(List<FileValidationIssue> findings, String originalLine, String processedLine) {
+            boolean newFinding = false;
+            for (FileValidationIssue finding : findings) {
+                List<Object> key = Arrays.asList(finding.getIssueType(), finding.getSeverity(),
+                        finding.getAutoFixed(), finding.getExpectedValue(), finding.getActualValue(),
+                        finding.getFixDescription());
+                IssueGroup group = groups.get(key);
+                if (group == null) {
+                    group = new IssueGroup(finding);
+                    groups.put(key, group);
+                    newFinding = true;
+                }
+                group.lines.add(lineNumber);
             }
 
-            // Determine result
-            if (hasCriticalIssues && rule.getRejectOnViolation()) {
-                log.error("File {} has critical validation issues - rejecting", fileName);
-                return ValidationResult.rejected(issues);
+            // Always keep an example of each distinct finding
+            if (sampleLines.size() < sampleLineLimit || (newFinding && sampleLines.size() < 2 * sampleLineLimit)) {
+                FileValidationLine sample = new FileValidationLine();
+                sample.setBatchId(batchId);
+                sample.setLineNumber(lineNumber);
+                sample.setOriginalLine(truncate(sanitizeForPostgres(originalLine), 500));
+                if (!processedLine.equals(originalLine)) {
+                    sample.setCorrectedLine(truncate(sanitizeForPostgres(processedLine), 500));
+                }
+                sampleLines.add(sample);
             }
+        }
 
-            log.info("Validation completed: {} issues found, {} auto-fixed",
-                    issues.size(),
-                    issues.stream().filter(FileValidationIssue::getAutoFixed).count());
+        public boolean isRejected() {
+            return rejectionReason != null;
+        }
+
+        /**
+         * Why the file was rejected, or null
+         */
+        public String getRejectionReason() {
+            return rejectionReason;
+        }
+
+        /**
+         * One issue per distinct finding, covering all of its lines
+         */
+        public List<FileValidationIssue> getIssues() {
+            List<FileValidationIssue> issues = new ArrayList<>(groups.size());
+            for (IssueGroup group : groups.values()) {
+                FileValidationIssue issue = group.issue;
+                issue.setLineNumber(group.lines.getFirstLine());
+                issue.setLineCount(group.lines.getCount());
+                issue.setLineRanges(group.lines.encode());
+                issues.add(issue);
+            }
+            return issues;
+        }
 
-            return ValidationResult.success(
-                    new ByteArrayInputStream(fixedOutput.toByteArray()),
-                    issues);
+        public List<FileValidationLine> getSampleLines() {
+            return sampleLines;
+        }
 
+        public long getLineCount() {
+            return lineNumber;
         }
     }
 
     /**
-     * Count the number of tabs in a line
+     * Unfixed validation errors allowed across the files of a ZIP batch
+     * (validated concurrently by the staged pipeline)
      */
-    private int countTabs(String line) {
-        int count = 0;
-        for (char c : line.toCharArray()) {
-            if (c == '\t') {
-                count++;
-            }
+    public static class ErrorBudget {
+        private final int limit;
+        private final AtomicLong spent = new AtomicLong();
+
+        /**
+         * @param limit Errors allowed (negative = no limit)
+         */
+        public ErrorBudget(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Take one error
+         * 
+         * @return false once more than the limit have been taken
+         */
+        boolean spend() {
+            return spent.incrementAndGet() <= limit || limit < 0;
+        }
+
+        public boolean isExhausted() {
+            return limit >= 0 && spent.get() > limit;
+        }
+
+        public int getLimit() {
+            return limit;
         }
-        return count;
     }
 
     /**
-     * Fix excess tabs by converting extras to spaces
-     * Keeps only the expected number of tabs
+     * A finding and the lines it was found on
      */
-    private String fixExcessTabs(String line, int expectedTabs) {
-        StringBuilder result = new StringBuilder();
-        int tabsSoFar = 0;
-
-        for (char c : line.toCharArray()) {
-            if (c == '\t') {
-                if (tabsSoFar < expectedTabs) {
-                    result.append('\t');
-                    tabsSoFar++;
-                } else {
-                    // Convert excess tabs to single space
-                    result.append(' ');
-                }
-            } else {
-                result.append(c);
-            }
-        }
+    private static class IssueGroup {
+        final FileValidationIssue issue;
+        final LineRanges lines = new LineRanges();
 
-        return result.toString();
+        IssueGroup(FileValidationIssue issue) {
+            this.issue = issue;
+        }
     }
 
     /**
@@ -254,8 +599,7 @@ public class FileValidationService {
             String fileName,
             long lineNumber,
             int actualTabs,
-            int expectedTabs,
-            String originalLine) {
+            int expectedTabs) {
 
         FileValidationIssue issue = new FileValidationIssue();
         issue.setBatchId(batchId);
@@ -267,10 +611,7 @@ public class FileValidationService {
         issue.setExpectedValue(expectedTabs + " tabs");
         issue.setActualValue(actualTabs + " tabs");
         issue.setDescription(String.format(
-                "Line %d: Expected %d tabs but found %d tabs",
-                lineNumber, expectedTabs, actualTabs));
-        // Sanitize to remove NULL bytes before storing in PostgreSQL
-        issue.setOriginalLine(truncate(sanitizeForPostgres(originalLine), 500));
+                "Expected %d tabs but found %d tabs", expectedTabs, actualTabs));
 
         return issue;
     }
@@ -400,8 +741,6 @@ public class FileValidationService {
             UUID batchId,
             String fileName,
             long lineNumber,
-            String originalLine,
-            String correctedLine,
             FileValidationIssue.IssueType issueType,
             int replacementCount,
             String replacementDescription) {
@@ -413,14 +752,10 @@ public class FileValidationService {
         issue.setIssueType(issueType);
         issue.setSeverity(FileValidationIssue.Severity.WARNING);
         issue.setAutoFixed(true);
-        // Sanitize strings to remove NULL bytes before storing in PostgreSQL
-        issue.setOriginalLine(truncate(sanitizeForPostgres(originalLine), 500));
-        issue.setCorrectedLine(truncate(sanitizeForPostgres(correctedLine), 500));
         issue.setFixDescription(String.format("Replaced %d %s with asterisk (*)",
                 replacementCount, replacementDescription));
         issue.setDescription(String.format(
-                "Line %d: Found %d %s, replaced with asterisk",
-                lineNumber, replacementCount, replacementDescription));
+                "Found %d %s, replaced with asterisk", replacementCount, replacementDescription));
 
         return issue;
     }
@@ -437,54 +772,231 @@ public class FileValidationService {
 
     /**
      * Generate a validation report for a batch
+     * 
+     * Counts come from SQL aggregates; the report embeds only the first
+     * page of issues (use the paginated issue API or the export for the rest).
      */
     public ValidationReport generateReport(UUID batchId) {
-        List<FileValidationIssue> issues = issueRepository.findByBatchIdOrderByLineNumber(batchId);
-
         ValidationReport report = new ValidationReport();
         report.setBatchId(batchId);
-        report.setTotalIssues(issues.size());
-        report.setAutoFixedCount((int) issues.stream().filter(FileValidationIssue::getAutoFixed).count());
-        report.setIssues(issues);
 
-        // Count by severity
+        long totalIssues = 0;
+        long autoFixedCount = 0;
         Map<FileValidationIssue.Severity, Long> severityCounts = new HashMap<>();
-        for (FileValidationIssue issue : issues) {
-            severityCounts.merge(issue.getSeverity(), 1L, Long::sum);
+        for (Object[] row : issueRepository.summarizeByBatchId(batchId)) {
+            long lines = ((Number) row[1]).longValue();
+            severityCounts.put((FileValidationIssue.Severity) row[0], lines);
+            totalIssues += lines;
+            autoFixedCount += ((Number) row[2]).longValue();
         }
+        report.setTotalIssues((int) totalIssues);
+        report.setAutoFixedCount((int) autoFixedCount);
         report.setSeverityCounts(severityCounts);
 
+        IssuePage firstPage = getIssuePage(batchId, null, 0, 0, REPORT_ISSUE_LIMIT);
+        report.setIssues(firstPage.getIssues());
+        report.setMoreIssues(firstPage.isHasMore());
+
         return report;
     }
 
+    /**
+     * One page of a batch's issues, one issue per line, ordered by (line, issue id)
+     * 
+     * Keyset pagination: pass the last line number and issue id of the
+     * previous page (0, 0 for the first page). Only the compacted issue rows
+     * of the batch and the sampled text of the page's lines are loaded.
+     * 
+     * @param severity  Optional severity filter (null = all)
+     * @param afterLine Line number of the last issue already returned
+     * @param afterId   Issue id of the last issue already returned
+     * @param limit     Page size (capped at MAX_PAGE_SIZE)
+     */
+    public IssuePage getIssuePage(UUID batchId, FileValidationIssue.Severity severity,
+            long afterLine, long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<FileValidationIssue> groups = severity != null
+                ? issueRepository.findByBatchIdAndSeverity(batchId, severity)
+                : issueRepository.findByBatchIdOrderByLineNumber(batchId);
+
+        // Candidates: the next pageSize + 1 lines of each group after the cursor
+        List<long[]> candidates = new ArrayList<>();
+        for (int g = 0; g < groups.size(); g++) {
+            FileValidationIssue group = groups.get(g);
+            long fromLine = group.getId() != null && group.getId() > afterId ? afterLine : afterLine + 1;
+            for (long line : LineRanges.linesFrom(group.getLineRanges(), group.getLineNumber(), fromLine,
+                    pageSize + 1)) {
+                candidates.add(new long[] { line, group.getId() != null ? group.getId() : 0, g });
+            }
+        }
+        candidates.sort(Comparator.<long[]>comparingLong(c -> c[0]).thenComparingLong(c -> c[1]));
+
+        boolean hasMore = candidates.size() > pageSize;
+        List<long[]> page = hasMore ? candidates.subList(0, pageSize) : candidates;
+
+        Set<Long> lineNumbers = new HashSet<>();
+        for (long[] c : page) {
+            lineNumbers.add(c[0]);
+        }
+        Map<Long, FileValidationLine> text = new HashMap<>();
+        if (!lineNumbers.isEmpty()) {
+            for (FileValidationLine line : lineRepository.findByBatchIdAndLineNumberIn(batchId, lineNumbers)) {
+                text.put(line.getLineNumber(), line);
+            }
+        }
+
+        List<FileValidationIssue> issues = new ArrayList<>(page.size());
+        for (long[] c : page) {
+            issues.add(forLine(groups.get((int) c[2]), c[0], text.get(c[0])));
+        }
+        return new IssuePage(issues, hasMore);
+    }
+
+    /**
+     * One page of stored (compacted) issues of a severity across all batches, by id
+     */
+    public IssuePage getIssuePage(FileValidationIssue.Severity severity, long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<FileValidationIssue> issues = issueRepository.findBySeverityAndIdGreaterThanOrderById(
+                severity, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = issues.size() > pageSize;
+        return new IssuePage(hasMore ? issues.subList(0, pageSize) : issues, hasMore);
+    }
+
+    /**
+     * Stream every issue of a batch, one per line, in line order
+     * 
+     * Compacted issues are expanded by PostgreSQL and read through a cursor
+     * (JdbcTemplate fetch size), so memory use does not depend on the batch.
+     */
+    @Transactional(readOnly = true)
+    public void forEachIssue(UUID batchId, Consumer<FileValidationIssue> consumer) {
+        jdbcTemplate.query(EXPANDED_ISSUES_SQL.formatted("?"), rs -> {
+            FileValidationIssue issue = new FileValidationIssue();
+            issue.setId(rs.getLong("id"));
+            issue.setBatchId(batchId);
+            issue.setFileName(rs.getString("file_name"));
+            issue.setLineNumber(rs.getLong("line_number"));
+            issue.setIssueType(FileValidationIssue.IssueType.valueOf(rs.getString("issue_type")));
+            issue.setSeverity(FileValidationIssue.Severity.valueOf(rs.getString("severity")));
+            issue.setExpectedValue(rs.getString("expected_value"));
+            issue.setActualValue(rs.getString("actual_value"));
+            issue.setDescription(rs.getString("description"));
+            issue.setAutoFixed(rs.getBoolean("auto_fixed"));
+            issue.setFixDescription(rs.getString("fix_description"));
+            issue.setOriginalLine(rs.getString("original_line"));
+            issue.setCorrectedLine(rs.getString("corrected_line"));
+            java.sql.Timestamp createdAt = rs.getTimestamp("created_at");
+            issue.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            consumer.accept(issue);
+        }, batchId);
+    }
+
+    /**
+     * Write every issue of a batch as TSV (with header), one per line, in line order
+     * 
+     * Runs COPY ... TO STDOUT, so rows go from PostgreSQL to the output
+     * without being materialized as objects.
+     * 
+     * @return Number of issues written
+     */
+    public long copyIssuesAsTsv(UUID batchId, OutputStream out) throws SQLException, IOException {
+        // batchId is a UUID, so inlining it (COPY takes no bind parameters) is safe
+        String sql = "COPY (" + EXPANDED_ISSUES_SQL.formatted("'" + batchId + "'::uuid")
+                + ") TO STDOUT WITH (FORMAT text, HEADER)";
+        try (Connection conn = jdbcTemplate.getDataSource().getConnection()) {
+            CopyManager copyManager = new CopyManager(conn.unwrap(BaseConnection.class));
+            return copyManager.copyOut(sql, out);
+        }
+    }
+
+    /**
+     * Delete the issues and sampled lines of a batch (before re-validating a resumed load)
+     */
+    @Transactional
+    public void deleteIssues(UUID batchId) {
+        issueRepository.deleteByBatchId(batchId);
+        lineRepository.deleteByBatchId(batchId);
+    }
+
+    /**
+     * A stored issue as it applies to one of its lines, with the line text if it was sampled
+     * 
+     * Issues stored with their own text (e.g. transformation samples) keep it.
+     */
+    private static FileValidationIssue forLine(FileValidationIssue group, long lineNumber, FileValidationLine text) {
+        FileValidationIssue issue = new FileValidationIssue();
+        issue.setId(group.getId());
+        issue.setBatchId(group.getBatchId());
+        issue.setFileName(group.getFileName());
+        issue.setLineNumber(lineNumber);
+        issue.setIssueType(group.getIssueType());
+        issue.setSeverity(group.getSeverity());
+        issue.setExpectedValue(group.getExpectedValue());
+        issue.setActualValue(group.getActualValue());
+        issue.setDescription(group.getDescription());
+        issue.setAutoFixed(group.getAutoFixed());
+        issue.setFixDescription(group.getFixDescription());
+        issue.setCreatedAt(group.getCreatedAt());
+        if (group.getOriginalLine() != null || text == null) {
+            issue.setOriginalLine(group.getOriginalLine());
+            issue.setCorrectedLine(group.getCorrectedLine());
+        } else {
+            issue.setOriginalLine(text.getOriginalLine());
+            issue.setCorrectedLine(text.getCorrectedLine());
+        }
+        return issue;
+    }
+
+    private static long lineCount(FileValidationIssue issue) {
+        return issue.getLineCount() != null ? issue.getLineCount() : 1;
+    }
+
+    /**
+     * Number of lines covered by a list of (compacted) issues
+     */
+    static long countLines(List<FileValidationIssue> issues) {
+        long total = 0;
+        for (FileValidationIssue issue : issues) {
+            total += lineCount(issue);
+        }
+        return total;
+    }
+
     /**
      * Result of validation operation
      */
     public static class ValidationResult {
         private final boolean validated;
         private final boolean rejected;
+        private final String rejectionReason;
         private final InputStream fixedInputStream;
         private final List<FileValidationIssue> issues;
+        private final long lineCount;
 
-        private ValidationResult(boolean validated, boolean rejected,
+        private ValidationResult(boolean validated, boolean rejected, String rejectionReason,
                 InputStream fixedInputStream,
-                List<FileValidationIssue> issues) {
+                List<FileValidationIssue> issues,
+                long lineCount) {
             this.validated = validated;
             this.rejected = rejected;
+            this.rejectionReason = rejectionReason;
             this.fixedInputStream = fixedInputStream;
             this.issues = issues != null ? issues : Collections.emptyList();
+            this.lineCount = lineCount;
         }
 
         public static ValidationResult noValidation(InputStream originalStream) {
-            return new ValidationResult(false, false, originalStream, null);
+            return new ValidationResult(false, false, null, originalStream, null, -1);
         }
 
-        public static ValidationResult success(InputStream fixedStream, List<FileValidationIssue> issues) {
-            return new ValidationResult(true, false, fixedStream, issues);
+        public static ValidationResult success(InputStream fixedStream, List<FileValidationIssue> issues,
+                long lineCount) {
+            return new ValidationResult(true, false, null, fixedStream, issues, lineCount);
         }
 
-        public static ValidationResult rejected(List<FileValidationIssue> issues) {
-            return new ValidationResult(true, true, null, issues);
+        public static ValidationResult rejected(List<FileValidationIssue> issues, String reason) {
+            return new ValidationResult(true, true, reason, null, issues, -1);
         }
 
         public boolean isValidated() {
@@ -495,14 +1007,39 @@ public class FileValidationService {
             return rejected;
         }
 
+        /**
+         * Why the file was rejected (e.g. "critical violation on line 12 (...)"), or null
+         */
+        public String getRejectionReason() {
+            return rejectionReason;
+        }
+
         public boolean hasIssues() {
             return !issues.isEmpty();
         }
 
+        /**
+         * Number of issues (lines x findings) - getIssues() holds one entry per distinct finding
+         */
+        public long getIssueCount() {
+            return countLines(issues);
+        }
+
+        public long getAutoFixedCount() {
+            return countLines(issues.stream().filter(FileValidationIssue::getAutoFixed).toList());
+        }
+
         public InputStream getFixedInputStream() {
             return fixedInputStream;
         }
 
+        /**
+         * Lines validated (header included), or -1 if the file was not validated
+         */
+        public long getLineCount() {
+            return lineCount;
+        }
+
         public List<FileValidationIssue> getIssues() {
             return issues;
         }
@@ -517,6 +1054,7 @@ public class FileValidationService {
         private int autoFixedCount;
         private Map<FileValidationIssue.Severity, Long> severityCounts;
         private List<FileValidationIssue> issues;
+        private boolean moreIssues;
 
         // Getters and setters
         public UUID getBatchId() {
@@ -558,5 +1096,48 @@ public class FileValidationService {
         public void setIssues(List<FileValidationIssue> issues) {
             this.issues = issues;
         }
+
+        /**
+         * Whether the batch has more issues than the report embeds
+         */
+        public boolean isMoreIssues() {
+            return moreIssues;
+        }
+
+        public void setMoreIssues(boolean moreIssues) {
+            this.moreIssues = moreIssues;
+        }
+    }
+
+    /**
+     * A page of issues and whether there is another one
+     */
+    public static class IssuePage {
+        private final List<FileValidationIssue> issues;
+        private final boolean hasMore;
+
+        public IssuePage(List<FileValidationIssue> issues, boolean hasMore) {
+            this.issues = issues;
+            this.hasMore = hasMore;
+        }
+
+        public List<FileValidationIssue> getIssues() {
+            return issues;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        /**
+         * Cursor for the next page (null on the last page)
+         */
+        public Long getNextAfterLine() {
+            return hasMore ? issues.get(issues.size() - 1).getLineNumber() : null;
+        }
+
+        public Long getNextAfterId() {
+            return hasMore ? issues.get(issues.size() - 1).getId() : null;
+        }
     }
 }
@@ -0,0 +1,209 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import teranet.mapdev.ingest.model.IngestJob;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Durable ingest work queue shared by every loader instance (table ingest_job)
+ *
+ * - enqueue: INSERT ... ON CONFLICT DO NOTHING on the job key, so the same
+ * file seen by several instances becomes one job
+ * - claim: QUEUED jobs (and RUNNING jobs whose lease expired) are locked
+ * with FOR UPDATE SKIP LOCKED and marked RUNNING under this instance's
+ * owner ID in one statement; concurrent claimers skip each other's rows
+ * instead of waiting or double-claiming
+ * - heartbeat: extends the leases of this instance's RUNNING jobs
+ * - complete: DONE / FAILED, only while this instance still owns the job
+ *
+ * A job whose lease expired more than maxAttempts times is marked FAILED
+ * instead of being claimed again.
+ *
+ * Enabled with csv.processing.job-queue-enabled; the jobs are run by
+ * IngestJobWorker.
+ */
+@Service
+public class IngestJobQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJobQueue.class);
+
+    private static final String ENQUEUE_SQL = """
+            INSERT INTO ingest_job (job_key, job_type, file_name, file_path, batch_id,
+                                    file_format, has_headers, route_by_filename, table_name)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (job_key) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String CLAIM_SQL = """
+            UPDATE ingest_job j
+            SET status = 'RUNNING', owner = ?, attempts = j.attempts + 1,
+                lease_expires_at = now() + make_interval(secs => ?),
+                heartbeat_at = now(), updated_at = now()
+            WHERE j.id IN (
+                SELECT id FROM ingest_job
+                WHERE (status = 'QUEUED' OR (status = 'RUNNING' AND lease_expires_at < now()))
+                  AND attempts < ?
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING j.*
+            """;
+
+    private static final String FAIL_EXHAUSTED_SQL = """
+            UPDATE ingest_job
+            SET status = 'FAILED', error_message = 'Lease expired after ' || attempts || ' attempt(s)',
+                lease_expires_at = NULL, updated_at = now()
+            WHERE status = 'RUNNING' AND lease_expires_at < now() AND attempts >= ?
+            """;
+
+    private static final String HEARTBEAT_SQL = """
+            UPDATE ingest_job
+            SET lease_expires_at = now() + make_interval(secs => ?), heartbeat_at = now(), updated_at = now()
+            WHERE owner = ? AND status = 'RUNNING'
+            RETURNING id
+            """;
+
+    private static final String COMPLETE_SQL = """
+            UPDATE ingest_job
+            SET status = ?, error_message = ?, lease_expires_at = NULL, updated_at = now()
+            WHERE id = ? AND owner = ? AND status = 'RUNNING'
+            """;
+
+    private static final String COUNT_QUEUED_UPLOADS_SQL = """
+            SELECT count(*) FROM ingest_job
+            WHERE status = 'QUEUED' AND job_type IN ('DELIMITED_UPLOAD', 'ZIP_UPLOAD')
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // host:pid:random - unique per running instance, stable for its lifetime
+    private final String owner;
+
+    @Value("${csv.processing.job-queue-enabled:false}")
+    private boolean enabled;
+
+    @Value("${csv.processing.job-lease-seconds:300}")
+    private int leaseSeconds = 300;
+
+    @Value("${csv.processing.job-max-attempts:3}")
+    private int maxAttempts = 3;
+
+    public IngestJobQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = instanceName() + ":" + ProcessHandle.current().pid() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Add a job unless a QUEUED / RUNNING job with the same key exists
+     *
+     * @return The new job's ID, or null if the work was already queued
+     */
+    public Long enqueue(IngestJob job) {
+        List<Long> ids = jdbcTemplate.queryForList(ENQUEUE_SQL, Long.class,
+                job.getJobKey(), job.getJobType().name(), job.getFileName(), job.getFilePath(),
+                job.getBatchId(), job.getFileFormat(), job.getHasHeaders(), job.getRouteByFilename(),
+                job.getTableName());
+        if (ids.isEmpty()) {
+            log.debug("Job {} is already queued or running", job.getJobKey());
+            return null;
+        }
+        log.info("Queued job {} ({})", ids.get(0), job.getJobKey());
+        return ids.get(0);
+    }
+
+    /**
+     * Number of uploads waiting to be claimed, across all instances
+     */
+    public int countQueuedUploads() {
+        Integer count = jdbcTemplate.queryForObject(COUNT_QUEUED_UPLOADS_SQL, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Claim up to max jobs for this instance (oldest first)
+     */
+    public List<IngestJob> claim(int max) {
+        if (max <= 0) {
+            return List.of();
+        }
+        int exhausted = jdbcTemplate.update(FAIL_EXHAUSTED_SQL, maxAttempts);
+        if (exhausted > 0) {
+            log.warn("{} job(s) failed: lease expired {} time(s)", exhausted, maxAttempts);
+        }
+        return jdbcTemplate.query(CLAIM_SQL, JOB_ROW_MAPPER, owner, leaseSeconds, maxAttempts, max);
+    }
+
+    /**
+     * Extend the leases of every job this instance is running
+     *
+     * @return IDs of the jobs this instance still owns
+     */
+    public Set<Long> heartbeat() {
+        return new HashSet<>(jdbcTemplate.queryForList(HEARTBEAT_SQL, Long.class, leaseSeconds, owner));
+    }
+
+    /**
+     * Finish a job
+     *
+     * @return false if the lease had been lost (the job was claimed by another instance)
+     */
+    public boolean complete(long jobId, boolean success, String errorMessage) {
+        int updated = jdbcTemplate.update(COMPLETE_SQL,
+                (success ? IngestJob.Status.DONE : IngestJob.Status.FAILED).name(), errorMessage, jobId, owner);
+        if (updated == 0) {
+            log.warn("Job {} was no longer owned by {} when it finished", jobId, owner);
+        }
+        return updated > 0;
+    }
+
+    private static String instanceName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    private static final RowMapper<IngestJob> JOB_ROW_MAPPER = (rs, rowNum) -> {
+        IngestJob job = new IngestJob();
+        job.setId(rs.getLong("id"));
+        job.setJobKey(rs.getString("job_key"));
+        job.setJobType(IngestJob.Type.valueOf(rs.getString("job_type")));
+        job.setFileName(rs.getString("file_name"));
+        job.setFilePath(rs.getString("file_path"));
+        job.setBatchId(rs.getObject("batch_id", UUID.class));
+        job.setFileFormat(rs.getString("file_format"));
+        job.setHasHeaders((Boolean) rs.getObject("has_headers"));
+        job.setRouteByFilename((Boolean) rs.getObject("route_by_filename"));
+        job.setTableName(rs.getString("table_name"));
+        job.setStatus(IngestJob.Status.valueOf(rs.getString("status")));
+        job.setAttempts(rs.getInt("attempts"));
+        job.setOwner(rs.getString("owner"));
+        job.setLeaseExpiresAt(rs.getObject("lease_expires_at", OffsetDateTime.class));
+        job.setErrorMessage(rs.getString("error_message"));
+        return job;
+    };
+}
@@ -0,0 +1,160 @@
+package teranet.mapdev.ingest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import teranet.mapdev.ingest.model.IngestJob;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs claimed from the shared ingest_job queue on this instance
+ *
+ * Every csv.processing.job-poll-interval-ms it claims as many jobs as it has
+ * free worker threads (csv.processing.job-worker-threads), and every
+ * csv.processing.job-heartbeat-interval-ms it extends the leases of the
+ * jobs it is running. Nothing runs unless csv.processing.job-queue-enabled.
+ *
+ * A job whose lease was lost (heartbeats too late, so another instance may
+ * have re-claimed it) is aborted: its thread is interrupted (StagedPipeline
+ * passes that on to the stage threads), and the load stops before its next
+ * COPY or commit (see DelimitedFileProcessingService).
+ */
+@Service
+public class IngestJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJobWorker.class);
+
+    private final IngestJobQueue queue;
+    private final WatchFolderService watchFolderService;
+    private final AsyncUploadService asyncUploadService;
+
+    @Value("${csv.processing.job-worker-threads:3}")
+    private int workerThreads = 3;
+
+    // Job ID -> its task, so a job that lost its lease can be aborted
+    private final Map<Long, Future<?>> running = new ConcurrentHashMap<>();
+    private volatile ExecutorService executor;
+
+    public IngestJobWorker(IngestJobQueue queue, WatchFolderService watchFolderService,
+            AsyncUploadService asyncUploadService) {
+        this.queue = queue;
+        this.watchFolderService = watchFolderService;
+        this.asyncUploadService = asyncUploadService;
+    }
+
+    /**
+     * Claim jobs for the free worker threads
+     */
+    @Scheduled(fixedDelayString = "${csv.processing.job-poll-interval-ms:2000}")
+    public void poll() {
+        if (!queue.isEnabled()) {
+            return;
+        }
+        int free = workerThreads - running.size();
+        if (free <= 0) {
+            return;
+        }
+        try {
+            for (IngestJob job : queue.claim(free)) {
+                FutureTask<Void> task = new FutureTask<>(() -> run(job), null);
+                running.put(job.getId(), task);
+                executor().execute(task);
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim jobs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Extend the leases of the running jobs; abort any whose lease was lost
+     */
+    @Scheduled(fixedDelayString = "${csv.processing.job-heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            // Only jobs claimed before the heartbeat can be missing from its result
+            Set<Long> jobIds = Set.copyOf(running.keySet());
+            Set<Long> owned = queue.heartbeat();
+            for (Long jobId : jobIds) {
+                if (!owned.contains(jobId)) {
+                    // Heartbeats were late enough for the lease to expire and the job to be re-claimed
+                    Future<?> task = running.remove(jobId);
+                    if (task != null) {
+                        log.warn("Lost the lease of job {} - aborting it, another instance may be running it",
+                                jobId);
+                        task.cancel(true);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    void run(IngestJob job) {
+        log.info("Running job {} ({}, attempt {})", job.getId(), job.getJobKey(), job.getAttempts());
+        try {
+            boolean success = switch (job.getJobType()) {
+                case WATCH_FILE -> watchFolderService.runJob(job);
+                case DELIMITED_UPLOAD, ZIP_UPLOAD -> asyncUploadService.runJob(job);
+            };
+            queue.complete(job.getId(), success, null);
+        } catch (Exception e) {
+            log.error("Job {} failed: {}", job.getId(), e.getMessage(), e);
+            queue.complete(job.getId(), false, e.getMessage());
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    /**
+     * Number of jobs this instance is running
+     */
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(workerThreads);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Let running jobs finish; any still running after the grace period are
+     * picked up by another instance once their lease expires
+     */
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,19 +1,60 @@
 package teranet.mapdev.ingest.service;
 
 import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.model.ProcessingStatsCheckpoint;
 import teranet.mapdev.ingest.repository.IngestionManifestRepository;
+import teranet.mapdev.ingest.repository.ProcessingStatsCheckpointRepository;
+import teranet.mapdev.ingest.util.BloomFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jakarta.annotation.PreDestroy;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing ingestion manifest records using Spring Data JPA
  * Database vendor-independent implementation
+ * 
+ * Duplicate detection (findByChecksum) is fronted by an in-memory Bloom
+ * filter of COMPLETED checksums, warmed from the manifest table at startup
+ * and updated whenever a manifest is saved as COMPLETED. A definite miss
+ * (the common case - a new file) returns without a database query; a
+ * possible match is confirmed against the database. With the shared job
+ * queue (csv.processing.job-queue-enabled) other instances complete files
+ * this filter never sees, so every lookup is confirmed in the database.
+ * 
+ * Processing statistics are kept in memory (ProcessingStatsAggregator) and
+ * updated by every save/update once its transaction commits, so
+ * getProcessingStats never aggregates the manifest table. They are
+ * checkpointed to processing_stats_checkpoint periodically and on shutdown;
+ * a start after a clean shutdown reads the checkpoint, any other start
+ * aggregates the manifest once. A reconcile re-aggregates to correct any
+ * drift: scheduled (csv.processing.stats-reconcile-cron) and after
+ * PartitionMaintenanceService drops manifest partitions.
+ * 
+ * With the shared job queue this instance's counters would miss the other
+ * instances' transitions, and their checkpoints would overwrite each other:
+ * the totals are instead re-aggregated from the manifest table when older
+ * than csv.processing.stats-shared-refresh-ms, and no checkpoint is used.
+ * Windowed statistics then count this instance's files since it started,
+ * plus everything finished in the window before that.
  */
 @Service
 @Transactional
@@ -21,16 +62,107 @@ public class IngestionManifestService {
     
     private static final Logger logger = LoggerFactory.getLogger(IngestionManifestService.class);
     
+    /** Target false positive rate of the checksum filter (share of new files that still query the database) */
+    private static final double CHECKSUM_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    
+    /** Completions this recent are re-read after the warm-up scan */
+    private static final long WARM_CATCH_UP_MINUTES = 5;
+    
+    /** Checksums read per query while warming */
+    private static final int WARM_PAGE_SIZE = 10000;
+    
     @Autowired
     private IngestionManifestRepository repository;
     
+    @Autowired
+    private ProcessingStatsCheckpointRepository checkpointRepository;
+    
+    @Value("${csv.processing.checksum-filter-expected-entries:1000000}")
+    private long checksumFilterExpectedEntries;
+    
+    // Several instances complete files into the same manifest table - a filter miss is not definite
+    @Value("${csv.processing.job-queue-enabled:false}")
+    private boolean sharedManifest;
+    
+    @Value("${csv.processing.stats-shared-refresh-ms:10000}")
+    private long sharedStatsRefreshMs;
+    
+    // Filter that completions are recorded into; null until warming starts
+    private volatile BloomFilter completedChecksums;
+    // Set once the filter holds every COMPLETED checksum - until then all lookups go to the database
+    private volatile boolean checksumFilterReady;
+    
+    private final AtomicLong checksumLookups = new AtomicLong();
+    private final AtomicLong checksumLookupsSkipped = new AtomicLong();
+    
+    private final ProcessingStatsAggregator processingStats = new ProcessingStatsAggregator();
+    // Set once the counters hold the totals from the database or a checkpoint
+    private volatile boolean processingStatsLoaded;
+    // When the counters were last aggregated from the manifest table
+    private final AtomicLong processingStatsAggregatedAt = new AtomicLong();
+    
+    /**
+     * Warm the checksum filter from the manifest table
+     * 
+     * Runs outside a transaction; checksums are read in ID-ordered pages.
+     * The filter is published for writes before the scan so checksums
+     * completed while warming are not missed; a catch-up query picks up
+     * completions whose transaction was still open when the scan started.
+     * If warming fails, lookups keep going to the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void warmChecksumFilter() {
+        long start = System.currentTimeMillis();
+        LocalDateTime warmStart = LocalDateTime.now();
+        try {
+            long completed = repository.countByStatus(IngestionManifest.Status.COMPLETED);
+            // Leave headroom for files completed after startup
+            BloomFilter filter = new BloomFilter(
+                    Math.max(checksumFilterExpectedEntries, completed * 2), CHECKSUM_FILTER_FALSE_POSITIVE_RATE);
+            completedChecksums = filter;
+            
+            long loaded = 0;
+            long lastId = 0;
+            List<Object[]> page;
+            do {
+                page = repository.findCompletedChecksumsAfterId(lastId, PageRequest.of(0, WARM_PAGE_SIZE));
+                for (Object[] row : page) {
+                    lastId = ((Number) row[0]).longValue();
+                    String checksum = (String) row[1];
+                    if (checksum != null && !checksum.isEmpty()) {
+                        filter.put(checksum);
+                        loaded++;
+                    }
+                }
+            } while (page.size() == WARM_PAGE_SIZE);
+            for (String checksum : repository.findCompletedChecksumsUpdatedSince(
+                    warmStart.minusMinutes(WARM_CATCH_UP_MINUTES))) {
+                if (checksum != null && !checksum.isEmpty()) {
+                    filter.put(checksum);
+                }
+            }
+            checksumFilterReady = true;
+            
+            logger.info("Checksum filter warmed with {} COMPLETED checksums ({} KB, {} hashes) in {} ms",
+                    loaded, filter.getBitCount() / 8 / 1024, filter.getHashCount(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            completedChecksums = null;
+            logger.warn("Could not warm checksum filter, duplicate checks will query the database: {}", e.getMessage());
+        }
+    }
+    
     /**
      * Save a new ingestion manifest
      */
     public IngestionManifest save(IngestionManifest manifest) {
         try {
+            boolean isNew = manifest.getId() == null;
             IngestionManifest saved = repository.save(manifest);
             logger.info("Saved ingestion manifest with ID {} for batch {}", saved.getId(), saved.getBatchId());
+            recordIfCompleted(saved);
+            recordSavedAfterCommit(saved, isNew);
             return saved;
         } catch (Exception e) {
             logger.error("Error saving ingestion manifest: {}", e.getMessage(), e);
@@ -49,6 +181,8 @@ public class IngestionManifestService {
         try {
             IngestionManifest updated = repository.save(manifest);
             logger.debug("Updated ingestion manifest {} with status {}", updated.getId(), updated.getStatus());
+            recordIfCompleted(updated);
+            recordSavedAfterCommit(updated, false);
             return updated;
         } catch (Exception e) {
             logger.warn("Could not update manifest in database: {}", e.getMessage());
@@ -57,12 +191,29 @@ public class IngestionManifestService {
         }
     }
     
+    /**
+     * Apply a save to the processing statistics once its transaction commits
+     * (right away outside a transaction), so a rollback leaves them unchanged
+     */
+    private void recordSavedAfterCommit(IngestionManifest manifest, boolean isNew) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            processingStats.recordSaved(manifest, isNew);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                processingStats.recordSaved(manifest, isNew);
+            }
+        });
+    }
+    
     /**
      * Find manifest by batch ID
      */
     public IngestionManifest findByBatchId(UUID batchId) {
         try {
-            return repository.findByBatchId(batchId).orElse(null);
+            return tracked(repository.findByBatchId(batchId).orElse(null));
         } catch (Exception e) {
             logger.error("Error finding manifest by batch ID {}: {}", batchId, e.getMessage(), e);
             return null;
@@ -73,22 +224,87 @@ public class IngestionManifestService {
      * Find manifest by file checksum (for idempotency)
      */
     public IngestionManifest findByChecksum(String checksum) {
+        checksumLookups.incrementAndGet();
+        BloomFilter filter = completedChecksums;
+        if (!sharedManifest && checksumFilterReady && filter != null && checksum != null
+                && !filter.mightContain(checksum)) {
+            // Definitely never completed - no need to ask the database
+            checksumLookupsSkipped.incrementAndGet();
+            return null;
+        }
+        
         try {
             return repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(
                     checksum,
                     IngestionManifest.Status.COMPLETED).orElse(null);
-                } catch (Exception e) {
+        } catch (Exception e) {
             logger.warn("Could not search for existing manifest by checksum: {}", e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Find a COMPLETED file with this ZIP entry fingerprint (CRC32 + uncompressed size)
+     * 
+     * A match is only a candidate: the caller confirms it by comparing the SHA-256 checksum.
+     */
+    public IngestionManifest findCompletedByFingerprint(long crc32, long sizeBytes) {
+        try {
+            return repository.findFirstByContentCrc32AndFileSizeBytesAndStatusOrderByCreatedAtDesc(
+                    crc32, sizeBytes, IngestionManifest.Status.COMPLETED).orElse(null);
+        } catch (Exception e) {
+            logger.warn("Could not search for manifest by fingerprint: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Checksum lookups answered by the in-memory filter without a database query
+     */
+    public long getChecksumLookupsSkipped() {
+        return checksumLookupsSkipped.get();
+    }
+    
+    /**
+     * All checksum lookups (duplicate checks) since startup
+     */
+    public long getChecksumLookups() {
+        return checksumLookups.get();
+    }
+    
+    /**
+     * Record a COMPLETED manifest's checksum in the duplicate-check filter
+     */
+    private void recordIfCompleted(IngestionManifest manifest) {
+        BloomFilter filter = completedChecksums;
+        if (filter != null && manifest != null
+                && manifest.getStatus() == IngestionManifest.Status.COMPLETED
+                && manifest.getFileChecksum() != null && !manifest.getFileChecksum().isEmpty()) {
+            filter.put(manifest.getFileChecksum());
+        }
+    }
+    
+    /**
+     * Find the PROCESSING manifest left behind by an interrupted load of this file
+     */
+    public IngestionManifest findInterruptedByChecksum(String checksum) {
+        try {
+            return tracked(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(
+                    checksum,
+                    IngestionManifest.Status.PROCESSING).orElse(null));
+        } catch (Exception e) {
+            logger.warn("Could not search for interrupted manifest by checksum: {}", e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Find all child manifests by parent batch ID (for ZIP processing)
      */
     public List<IngestionManifest> findByParentBatchId(UUID parentBatchId) {
         try {
             List<IngestionManifest> manifests = repository.findByParentBatchIdOrderByCreatedAt(parentBatchId);
+            manifests.forEach(processingStats::recordLoaded);
             logger.debug("Found {} child manifests for parent batch {}", manifests.size(), parentBatchId);
             return manifests;
         } catch (Exception e) {
@@ -135,26 +351,166 @@ public class IngestionManifestService {
     
     /**
      * Get processing statistics
+     * 
+     * Answered from the in-memory counters; only the first call before the
+     * startup load has completed aggregates the manifest table (and, with the
+     * shared job queue, a call finding the totals older than the refresh interval).
      */
     public ProcessingStats getProcessingStats() {
+        if (!processingStatsLoaded || (sharedManifest && claimSharedStatsRefresh())) {
+            try {
+                loadProcessingStatsFromManifest();
+            } catch (Exception e) {
+                logger.error("Error retrieving processing statistics: {}", e.getMessage(), e);
+                if (!processingStatsLoaded) {
+                    return new ProcessingStats(0, 0, 0, 0, 0);
+                }
+            }
+        }
+        return processingStats.getStats();
+    }
+    
+    /**
+     * Whether the shared totals are due for re-aggregation; only one caller
+     * per interval gets true, the others answer from the current counters
+     */
+    private boolean claimSharedStatsRefresh() {
+        long now = System.currentTimeMillis();
+        long last = processingStatsAggregatedAt.get();
+        return now - last >= sharedStatsRefreshMs && processingStatsAggregatedAt.compareAndSet(last, now);
+    }
+    
+    /**
+     * Files finished in the last window (e.g. 1 hour, 1 day; at most 24 hours)
+     */
+    public ProcessingStatsAggregator.WindowStats getProcessingStats(Duration window) {
+        return processingStats.getWindow(window);
+    }
+    
+    /**
+     * Load the statistics at startup: from the checkpoint after a clean
+     * shutdown, otherwise by aggregating the manifest once. Files finished in
+     * the last 24 hours are read back into the windowed statistics.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void loadProcessingStats() {
+        try {
+            // Another instance's checkpoint says nothing about the shared totals
+            ProcessingStatsCheckpoint checkpoint = sharedManifest ? null : checkpointRepository
+                    .findById(ProcessingStatsCheckpoint.SINGLETON_ID).orElse(null);
+            if (checkpoint != null && checkpoint.isCleanShutdown()) {
+                synchronized (processingStats) {
+                    processingStats.reset();
+                    processingStats.seed(checkpoint.getCompletedBatches(), checkpoint.getFailedBatches(),
+                            checkpoint.getProcessingBatches(), checkpoint.getTotalRecords());
+                    processingStatsLoaded = true;
+                }
+                logger.info("Processing statistics loaded from checkpoint of {}", checkpoint.getCheckpointAt());
+            } else {
+                loadProcessingStatsFromManifest();
+                logger.info("Processing statistics aggregated from ingestion_manifest ({})",
+                        sharedManifest ? "shared job queue" : "no clean checkpoint");
+            }
+            
+            LocalDateTime since = LocalDateTime.now().minus(ProcessingStatsAggregator.MAX_WINDOW);
+            for (Object[] row : repository.findFinishedSince(since)) {
+                LocalDateTime completedAt = (LocalDateTime) row[1];
+                processingStats.recordFinished((IngestionManifest.Status) row[0],
+                        row[2] != null ? ((Number) row[2]).longValue() : 0,
+                        Timestamp.valueOf(completedAt).getTime());
+            }
+            
+            // Mark the checkpoint as in use, so a crash from here on is detected at the next start
+            saveProcessingStatsCheckpoint(false);
+        } catch (Exception e) {
+            logger.warn("Could not load processing statistics (will aggregate on first use): {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Re-aggregate the manifest table to correct any drift of the counters
+     */
+    @Scheduled(cron = "${csv.processing.stats-reconcile-cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconcileProcessingStats() {
         try {
-            Object[] stats = repository.getProcessingStatistics();
+            loadProcessingStatsFromManifest();
+        } catch (Exception e) {
+            logger.warn("Processing statistics reconcile failed, keeping counters: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Periodic checkpoint of the counters; also forgets finished manifests
+     */
+    @Scheduled(fixedDelayString = "${csv.processing.stats-checkpoint-interval-ms:60000}",
+            initialDelayString = "${csv.processing.stats-checkpoint-interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void checkpointProcessingStats() {
+        processingStats.evictStale();
+        try {
+            saveProcessingStatsCheckpoint(false);
+        } catch (Exception e) {
+            logger.warn("Could not checkpoint processing statistics: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void checkpointProcessingStatsOnShutdown() {
+        try {
+            saveProcessingStatsCheckpoint(true);
+        } catch (Exception e) {
+            logger.warn("Could not checkpoint processing statistics on shutdown: {}", e.getMessage());
+        }
+    }
+    
+    private void saveProcessingStatsCheckpoint(boolean cleanShutdown) {
+        if (!processingStatsLoaded) {
+            return; // never overwrite a checkpoint with counts that were not loaded
+        }
+        if (sharedManifest) {
+            return; // one instance's counters are not the shared totals - aggregated instead
+        }
+        ProcessingStats stats = processingStats.getStats();
+        ProcessingStatsCheckpoint checkpoint = new ProcessingStatsCheckpoint();
+        checkpoint.setCompletedBatches(stats.getCompletedBatches());
+        checkpoint.setFailedBatches(stats.getFailedBatches());
+        checkpoint.setProcessingBatches(stats.getProcessingBatches());
+        checkpoint.setTotalRecords(stats.getTotalRecordsProcessed());
+        checkpoint.setCleanShutdown(cleanShutdown);
+        checkpoint.setCheckpointAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+    
+    /**
+     * Replace the counters with a full aggregation of the manifest table
+     */
+    private void loadProcessingStatsFromManifest() {
+        Object[] stats = repository.getProcessingStatistics();
+        synchronized (processingStats) {
+            processingStats.reset();
             if (stats != null && stats.length > 0) {
-                return new ProcessingStats(
-                    ((Number) stats[0]).longValue(),  // totalBatches
+                processingStats.seed(
                     ((Number) stats[1]).longValue(),  // completedBatches
                     ((Number) stats[2]).longValue(),  // failedBatches
                     ((Number) stats[3]).longValue(),  // processingBatches
                     ((Number) stats[4]).longValue()   // totalRecordsProcessed
                 );
             }
-            return new ProcessingStats(0, 0, 0, 0, 0);
-        } catch (Exception e) {
-            logger.error("Error retrieving processing statistics: {}", e.getMessage(), e);
-            return new ProcessingStats(0, 0, 0, 0, 0);
+            processingStatsAggregatedAt.set(System.currentTimeMillis());
+            processingStatsLoaded = true;
         }
     }
     
+    /**
+     * Remember a manifest's state as read, so saving it later only applies what changed
+     */
+    private IngestionManifest tracked(IngestionManifest manifest) {
+        processingStats.recordLoaded(manifest);
+        return manifest;
+    }
+    
     /**
      * Count manifests by status
      */
@@ -184,7 +540,7 @@ public class IngestionManifestService {
      */
     public IngestionManifest findById(Long id) {
         try {
-            return repository.findById(id).orElse(null);
+            return tracked(repository.findById(id).orElse(null));
         } catch (Exception e) {
             logger.error("Error finding manifest by ID {}: {}", id, e.getMessage(), e);
             return null;
@@ -0,0 +1,347 @@
+package teranet.mapdev.ingest.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import teranet.mapdev.ingest.stream.IngestEvents;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Java Flight Recorder control for the ingest pipeline
+ *
+ * - On-demand recordings (POST /api/v1/ingest/delimited/jfr/start, stop,
+ * dump) with the JDK's "default" or "profile" settings; the
+ * pipeline's own events (see {@link IngestEvents}) are always included.
+ * - Slow-load capture: with csv.processing.jfr-slow-load-rows-per-sec set, a
+ * low-overhead continuous recording keeps the last jfr-max-age-minutes in a
+ * ring buffer, and a load of at least jfr-slow-load-min-rows rows that runs
+ * below the rate dumps a snapshot of it to csv.processing.jfr-directory (at
+ * most one per jfr-snapshot-cooldown-ms).
+ *
+ * Snapshots are written by a single background thread: the load thread only
+ * picks the file name, so a slow dump delays neither the manifest update nor
+ * the /jfr endpoints.
+ */
+@Service
+public class JfrRecordingService {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingService.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    @Value("${csv.processing.jfr-directory:./jfr}")
+    private String directory = "./jfr";
+
+    @Value("${csv.processing.jfr-slow-load-rows-per-sec:0}")
+    private double slowLoadRowsPerSec = 0;
+
+    @Value("${csv.processing.jfr-slow-load-min-rows:100000}")
+    private long slowLoadMinRows = 100000;
+
+    @Value("${csv.processing.jfr-snapshot-cooldown-ms:300000}")
+    private long snapshotCooldownMs = 300000;
+
+    @Value("${csv.processing.jfr-max-age-minutes:30}")
+    private long maxAgeMinutes = 30;
+
+    private final LongSupplier clock;
+
+    private Recording continuous;
+    private Recording manual;
+    private String manualSettings;
+    private long lastSnapshotAt = Long.MIN_VALUE;
+    private long slowLoads = 0;
+    private long snapshots = 0;
+    private String lastSnapshot;
+
+    private volatile ExecutorService snapshotExecutor;
+
+    public JfrRecordingService() {
+        this(System::currentTimeMillis);
+    }
+
+    JfrRecordingService(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Start the continuous recording behind slow-load snapshots
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuousRecording() {
+        if (slowLoadRowsPerSec <= 0 || !FlightRecorder.isAvailable()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (continuous == null) {
+                    continuous = newRecording("ingest-continuous", "default", maxAgeMinutes, 0);
+                    continuous.start();
+                }
+            }
+            log.info("JFR slow-load capture on: loads below {} rows/s are dumped to {}",
+                    slowLoadRowsPerSec, directory);
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.warn("Could not start continuous JFR recording: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start an on-demand recording
+     *
+     * @param settings      JDK settings ("default" or "profile")
+     * @param maxAgeMinutes Oldest data kept (0 = unlimited)
+     * @param maxSizeMb     Largest size kept on disk (0 = unlimited)
+     * @throws IllegalStateException if one is already running
+     */
+    public synchronized Map<String, Object> start(String settings, long maxAgeMinutes, long maxSizeMb)
+            throws IOException, ParseException {
+        if (manual != null) {
+            throw new IllegalStateException("A JFR recording is already running since " + manual.getStartTime());
+        }
+        manual = newRecording("ingest-manual", settings, maxAgeMinutes, maxSizeMb);
+        manualSettings = settings;
+        manual.start();
+        log.info("Started JFR recording ({} settings, max age {} min, max size {} MB)",
+                settings, maxAgeMinutes, maxSizeMb);
+        return getStatus();
+    }
+
+    /**
+     * Dump the on-demand recording to the JFR directory without stopping it
+     *
+     * @return Path of the dump
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Path dump() throws IOException {
+        if (manual == null) {
+            throw new IllegalStateException("No JFR recording is running");
+        }
+        Path file = newFile("manual");
+        manual.dump(file);
+        log.info("Dumped JFR recording to {}", file);
+        return file;
+    }
+
+    /**
+     * Stop the on-demand recording and write it to the JFR directory
+     *
+     * @return Path of the recording
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Path stop() throws IOException {
+        if (manual == null) {
+            throw new IllegalStateException("No JFR recording is running");
+        }
+        try {
+            Path file = newFile("manual");
+            manual.stop();
+            manual.dump(file);
+            log.info("Stopped JFR recording, written to {}", file);
+            return file;
+        } finally {
+            manual.close();
+            manual = null;
+            manualSettings = null;
+        }
+    }
+
+    /**
+     * Note a completed load; a slow one is logged as a SlowLoad event and,
+     * outside the cooldown, snapshots the flight recorder
+     *
+     * @param fileName   File that was loaded
+     * @param batchId    Its batch ID
+     * @param rows       Rows loaded
+     * @param durationMs Wall time of the load
+     * @return Path the snapshot is being written to, or null if none was taken
+     */
+    public Path recordLoad(String fileName, UUID batchId, long rows, long durationMs) {
+        if (slowLoadRowsPerSec <= 0 || rows < slowLoadMinRows) {
+            return null;
+        }
+        double rowsPerSec = rows * 1000.0 / Math.max(durationMs, 1);
+        if (rowsPerSec >= slowLoadRowsPerSec) {
+            return null;
+        }
+
+        Path snapshot = null;
+        synchronized (this) {
+            slowLoads++;
+            long now = clock.getAsLong();
+            if ((lastSnapshotAt == Long.MIN_VALUE || now - lastSnapshotAt >= snapshotCooldownMs)
+                    && isRecording()) {
+                try {
+                    snapshot = newFile("slow-load-" + batchId);
+                    lastSnapshotAt = now;
+                } catch (IOException e) {
+                    log.warn("Could not create JFR directory {}: {}", directory, e.getMessage());
+                }
+            }
+        }
+        if (snapshot != null) {
+            Path file = snapshot;
+            snapshotExecutor().execute(() -> snapshot(batchId, file));
+        }
+
+        IngestEvents.SlowLoad event = new IngestEvents.SlowLoad();
+        event.start(batchId, null);
+        event.add(0, rows);
+        event.fileName = fileName;
+        event.rowsPerSecond = rowsPerSec;
+        event.snapshot = snapshot != null ? snapshot.toString() : null;
+        event.commit();
+
+        log.warn("Slow load: {} ({} rows in {} ms, {} rows/s){}", fileName, rows, durationMs,
+                Math.round(rowsPerSec), snapshot != null ? " - JFR snapshot " + snapshot : "");
+        return snapshot;
+    }
+
+    /**
+     * Whether any recording is running, i.e. a snapshot would hold something
+     */
+    private boolean isRecording() {
+        return FlightRecorder.isAvailable() && FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .anyMatch(recording -> recording.getState() == RecordingState.RUNNING);
+    }
+
+    /**
+     * Write everything the running recordings hold to a file (on the snapshot thread)
+     */
+    private void snapshot(UUID batchId, Path file) {
+        try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+            if (snapshot.getSize() == 0) {
+                return; // the recordings stopped meanwhile
+            }
+            snapshot.dump(file);
+            synchronized (this) {
+                snapshots++;
+                lastSnapshot = file.toString();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write JFR snapshot for batch {}: {}", batchId, e.getMessage());
+        }
+    }
+
+    private ExecutorService snapshotExecutor() {
+        if (snapshotExecutor == null) {
+            synchronized (this) {
+                if (snapshotExecutor == null) {
+                    snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "jfr-snapshot");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return snapshotExecutor;
+    }
+
+    /**
+     * Wait until the snapshots queued so far are written (for tests)
+     */
+    void awaitSnapshots(long timeoutMs) throws InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService pool = snapshotExecutor;
+        if (pool != null) {
+            pool.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Recording newRecording(String name, String settings, long maxAgeMinutes, long maxSizeMb)
+            throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName(name);
+        recording.setToDisk(true);
+        if (maxAgeMinutes > 0) {
+            recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        }
+        if (maxSizeMb > 0) {
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        }
+        return recording;
+    }
+
+    private Path newFile(String prefix) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        return dir.resolve(prefix + "-" + LocalDateTime.now().format(FILE_TIME) + ".jfr").toAbsolutePath();
+    }
+
+    /**
+     * Recording state for the status endpoint
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("available", FlightRecorder.isAvailable());
+        status.put("directory", Paths.get(directory).toAbsolutePath().toString());
+        status.put("recording", manual != null);
+        if (manual != null) {
+            status.put("settings", manualSettings);
+            status.put("startedAt", manual.getStartTime() != null ? manual.getStartTime().toString() : null);
+            status.put("sizeBytes", manual.getSize());
+        }
+        status.put("slowLoadRowsPerSec", slowLoadRowsPerSec);
+        status.put("continuousRecording", continuous != null);
+        status.put("slowLoads", slowLoads);
+        status.put("snapshots", snapshots);
+        status.put("lastSnapshot", lastSnapshot);
+        if (lastSnapshotAt != Long.MIN_VALUE) {
+            status.put("lastSnapshotAt", Instant.ofEpochMilli(lastSnapshotAt).toString());
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void close() {
+        // Let queued snapshots finish before the recordings they read go away
+        ExecutorService pool = snapshotExecutor;
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                    pool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (manual != null) {
+                manual.close();
+                manual = null;
+            }
+            if (continuous != null) {
+                continuous.close();
+                continuous = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the monthly partitions of the time-partitioned tables in step with
+ * the calendar
+ *
+ * ingestion_manifest, file_validation_issues and file_validation_lines are
+ * RANGE partitioned by created_at, one partition per month named
+ * <table>_pYYYYMM (see migration V7). Once the application is ready and on
+ * csv.processing.partition-maintenance-cron this service:
+ * - creates the partitions for the current month and the next
+ * csv.processing.partition-premake-months months, so inserts never land in
+ * the DEFAULT partition
+ * - if the DEFAULT partition already holds rows for a missing month (e.g.
+ * the application was stopped over a month end), creates that partition by
+ * detaching DEFAULT, moving the rows and re-attaching it in one transaction;
+ * a plain CREATE would fail on those rows on every run
+ * - drops the monthly partitions whose whole range is older than
+ * csv.processing.partition-retention-months (0 = keep everything)
+ *
+ * Dropping a partition removes a month of rows without a DELETE, dead
+ * tuples or index maintenance. Dropping manifest partitions is followed by a
+ * reconcile of the processing statistics, which still count those manifests.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    static final List<String> PARTITIONED_TABLES = List.of(
+            "ingestion_manifest", "file_validation_issues", "file_validation_lines");
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            JOIN pg_namespace n ON n.oid = p.relnamespace
+            WHERE n.nspname = ? AND p.relname = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.datasource.schema}")
+    private String schema;
+
+    @Value("${csv.processing.partition-premake-months:3}")
+    private int premakeMonths = 3;
+
+    @Value("${csv.processing.partition-retention-months:0}")
+    private int retentionMonths = 0;
+
+    @Autowired(required = false)
+    private IngestionManifestService manifestService;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Run once at startup (after Flyway) so a long-stopped instance catches up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        scheduledMaintenance();
+    }
+
+    /**
+     * Daily by default; a failure is logged and retried on the next run
+     */
+    @Scheduled(cron = "${csv.processing.partition-maintenance-cron:0 15 2 * * *}")
+    public void scheduledMaintenance() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.warn("Partition maintenance failed (will retry on next run): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create upcoming partitions and drop expired ones for every partitioned table
+     */
+    public synchronized MaintenanceResult maintain() {
+        return maintain(LocalDate.now());
+    }
+
+    synchronized MaintenanceResult maintain(LocalDate today) {
+        MaintenanceResult result = new MaintenanceResult();
+        YearMonth current = YearMonth.from(today);
+
+        for (String table : PARTITIONED_TABLES) {
+            Set<String> existing = new HashSet<>(
+                    jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, schema, table));
+            String defaultPartition = table + "_default";
+
+            for (int i = 0; i <= premakeMonths; i++) {
+                YearMonth month = current.plusMonths(i);
+                String partition = partitionName(table, month);
+                if (existing.contains(partition)) {
+                    continue;
+                }
+                try {
+                    if (existing.contains(defaultPartition) && hasRows(defaultPartition, month)) {
+                        int moved = createFromDefault(table, partition, defaultPartition, month);
+                        log.warn("Moved {} rows from {}.{} into new partition {}.{}",
+                                moved, schema, defaultPartition, schema, partition);
+                    } else {
+                        jdbcTemplate.execute(createPartitionSql(table, partition, month));
+                    }
+                    result.created.add(partition);
+                } catch (Exception e) {
+                    log.warn("Could not create partition {}.{}: {}", schema, partition, e.getMessage());
+                }
+            }
+
+            if (retentionMonths <= 0) {
+                continue;
+            }
+            // A partition expires when its newest possible row is older than the retention
+            LocalDate cutoff = today.minusMonths(retentionMonths);
+            for (String partition : existing) {
+                YearMonth month = partitionMonth(table, partition);
+                if (month != null && !month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                    jdbcTemplate.execute(String.format("DROP TABLE IF EXISTS %s.%s", schema, partition));
+                    result.dropped.add(partition);
+                }
+            }
+        }
+
+        if (!result.created.isEmpty() || !result.dropped.isEmpty()) {
+            log.info("Partition maintenance: created {}, dropped {}", result.created, result.dropped);
+        }
+        if (manifestService != null
+                && result.dropped.stream().anyMatch(partition -> partitionMonth("ingestion_manifest", partition) != null)) {
+            manifestService.reconcileProcessingStats();
+        }
+        return result;
+    }
+
+    private String createPartitionSql(String table, String partition, YearMonth month) {
+        return String.format(
+                "CREATE TABLE IF NOT EXISTS %s.%s PARTITION OF %s.%s FOR VALUES FROM ('%s') TO ('%s')",
+                schema, partition, schema, table, month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    private String monthFilter(YearMonth month) {
+        return String.format("created_at >= '%s' AND created_at < '%s'", month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    private boolean hasRows(String defaultPartition, YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(String.format(
+                "SELECT EXISTS (SELECT 1 FROM %s.%s WHERE %s)", schema, defaultPartition, monthFilter(month)),
+                Boolean.class));
+    }
+
+    /**
+     * Create a monthly partition whose rows are already in the DEFAULT partition
+     *
+     * PostgreSQL refuses to add a partition while DEFAULT holds rows in its
+     * range, so DEFAULT is detached, the rows are moved across and DEFAULT is
+     * attached again. All in one transaction: on failure nothing changes, and
+     * writes to the table wait on its lock rather than finding no DEFAULT.
+     *
+     * @return Number of rows moved
+     */
+    private int createFromDefault(String table, String partition, String defaultPartition, YearMonth month) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(String.format("ALTER TABLE %s.%s DETACH PARTITION %s.%s",
+                    schema, table, schema, defaultPartition));
+            jdbcTemplate.execute(createPartitionSql(table, partition, month));
+            int moved = jdbcTemplate.update(String.format("INSERT INTO %s.%s SELECT * FROM %s.%s WHERE %s",
+                    schema, partition, schema, defaultPartition, monthFilter(month)));
+            jdbcTemplate.update(String.format("DELETE FROM %s.%s WHERE %s",
+                    schema, defaultPartition, monthFilter(month)));
+            jdbcTemplate.execute(String.format("ALTER TABLE %s.%s ATTACH PARTITION %s.%s DEFAULT",
+                    schema, table, schema, defaultPartition));
+            return moved;
+        });
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+
+    /**
+     * Month of a monthly partition of table, or null for any other child (e.g. the DEFAULT partition)
+     */
+    static YearMonth partitionMonth(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 6) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Partitions created and dropped by one maintenance run
+     */
+    public static class MaintenanceResult {
+        private final List<String> created = new ArrayList<>();
+        private final List<String> dropped = new ArrayList<>();
+
+        public List<String> getCreated() {
+            return created;
+        }
+
+        public List<String> getDropped() {
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package teranet.mapdev.ingest.service;
+
+import teranet.mapdev.ingest.model.IngestionManifest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Processing statistics maintained on every manifest state transition
+ *
+ * Each manifest contributes to at most one of the PROCESSING / COMPLETED /
+ * FAILED counters, and its total_records to the records total while in one
+ * of those states. When a manifest is saved the difference between its new
+ * and its last recorded contribution is applied, so reading the statistics
+ * is O(1) and never touches the manifest table.
+ *
+ * The last recorded contribution is kept per batch ID: for manifests saved
+ * here and for manifests read through IngestionManifestService. Entries of
+ * finished (and PENDING) manifests are evicted after an hour, PROCESSING
+ * ones after MAX_WINDOW (evictStale) - a load that is resumed later is read
+ * through the service again, which records it anew.
+ *
+ * COMPLETED / FAILED transitions are also counted in one-minute buckets
+ * covering the last 24 hours for the windowed statistics.
+ */
+public class ProcessingStatsAggregator {
+
+    /** Longest window served by getWindow */
+    public static final Duration MAX_WINDOW = Duration.ofHours(24);
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final int BUCKETS = (int) MAX_WINDOW.toMinutes();
+
+    /** Finished manifests are forgotten this long after their last transition */
+    static final long FINISHED_RETENTION_MS = 60 * MINUTE_MS;
+
+    /** PROCESSING manifests (e.g. interrupted loads never resumed) are forgotten after this long */
+    static final long UNFINISHED_RETENTION_MS = MAX_WINDOW.toMillis();
+
+    private final LongAdder processing = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder records = new LongAdder();
+
+    private final Map<UUID, Contribution> contributions = new ConcurrentHashMap<>();
+
+    // Ring of one-minute buckets, slot = minute % BUCKETS; bucketMinute tells which minute a slot holds
+    private final long[] bucketMinute = new long[BUCKETS];
+    private final long[] bucketCompleted = new long[BUCKETS];
+    private final long[] bucketFailed = new long[BUCKETS];
+    private final long[] bucketRecords = new long[BUCKETS];
+
+    private final LongSupplier clock;
+
+    public ProcessingStatsAggregator() {
+        this(System::currentTimeMillis);
+    }
+
+    ProcessingStatsAggregator(LongSupplier clock) {
+        this.clock = clock;
+        Arrays.fill(bucketMinute, -1);
+    }
+
+    /**
+     * Remember the state of a manifest read from the database, so a later save
+     * of it applies only what changed
+     */
+    public void recordLoaded(IngestionManifest manifest) {
+        if (manifest != null && manifest.getBatchId() != null) {
+            contributions.putIfAbsent(manifest.getBatchId(), Contribution.of(manifest, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * Apply a saved manifest's change of contribution
+     *
+     * @param isNew Whether the manifest was just inserted (no previous contribution)
+     */
+    public void recordSaved(IngestionManifest manifest, boolean isNew) {
+        if (manifest == null || manifest.getBatchId() == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Contribution next = Contribution.of(manifest, now);
+
+        contributions.compute(manifest.getBatchId(), (batchId, previous) -> {
+            Contribution before = isNew || previous == null ? Contribution.NONE : previous;
+            apply(before, -1);
+            apply(next, 1);
+            if (next.status != before.status && (next.status == IngestionManifest.Status.COMPLETED
+                    || next.status == IngestionManifest.Status.FAILED)) {
+                recordFinished(next.status, next.records, now);
+            }
+            return next;
+        });
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution.status == null) {
+            return;
+        }
+        switch (contribution.status) {
+            case PROCESSING -> processing.add(sign);
+            case COMPLETED -> completed.add(sign);
+            case FAILED -> failed.add(sign);
+            default -> {
+                return;
+            }
+        }
+        records.add(sign * contribution.records);
+    }
+
+    /**
+     * Count a COMPLETED / FAILED transition at the given time in the windowed statistics
+     */
+    public synchronized void recordFinished(IngestionManifest.Status status, long recordCount, long timeMillis) {
+        long minute = timeMillis / MINUTE_MS;
+        if (minute <= clock.getAsLong() / MINUTE_MS - BUCKETS) {
+            return; // older than the longest window
+        }
+        int slot = (int) (minute % BUCKETS);
+        if (bucketMinute[slot] != minute) {
+            bucketMinute[slot] = minute;
+            bucketCompleted[slot] = 0;
+            bucketFailed[slot] = 0;
+            bucketRecords[slot] = 0;
+        }
+        if (status == IngestionManifest.Status.COMPLETED) {
+            bucketCompleted[slot]++;
+            bucketRecords[slot] += recordCount;
+        } else if (status == IngestionManifest.Status.FAILED) {
+            bucketFailed[slot]++;
+        }
+    }
+
+    /**
+     * Add counts read from the database or a checkpoint
+     */
+    public void seed(long completedBatches, long failedBatches, long processingBatches, long totalRecords) {
+        completed.add(completedBatches);
+        failed.add(failedBatches);
+        processing.add(processingBatches);
+        records.add(totalRecords);
+    }
+
+    /**
+     * Clear the counters (not the windows) before seeding them again
+     */
+    public void reset() {
+        completed.reset();
+        failed.reset();
+        processing.reset();
+        records.reset();
+    }
+
+    /**
+     * Current totals, same shape as the full-table aggregation
+     */
+    public IngestionManifestService.ProcessingStats getStats() {
+        long completedBatches = completed.sum();
+        long failedBatches = failed.sum();
+        long processingBatches = processing.sum();
+        return new IngestionManifestService.ProcessingStats(
+                completedBatches + failedBatches + processingBatches,
+                completedBatches, failedBatches, processingBatches, records.sum());
+    }
+
+    /**
+     * Files finished in the last window (up to MAX_WINDOW, whole minutes)
+     */
+    public synchronized WindowStats getWindow(Duration window) {
+        int minutes = (int) Math.max(1, Math.min(BUCKETS, window.toMinutes()));
+        long currentMinute = clock.getAsLong() / MINUTE_MS;
+
+        long completedBatches = 0;
+        long failedBatches = 0;
+        long recordCount = 0;
+        for (long minute = currentMinute - minutes + 1; minute <= currentMinute; minute++) {
+            int slot = (int) (minute % BUCKETS);
+            if (bucketMinute[slot] == minute) {
+                completedBatches += bucketCompleted[slot];
+                failedBatches += bucketFailed[slot];
+                recordCount += bucketRecords[slot];
+            }
+        }
+        return new WindowStats(minutes, completedBatches, failedBatches, recordCount);
+    }
+
+    /**
+     * Forget manifests last recorded more than FINISHED_RETENTION_MS ago, or
+     * UNFINISHED_RETENTION_MS for PROCESSING ones (PENDING adds nothing to
+     * the counters, so forgetting it early loses nothing)
+     *
+     * @return Number of batch IDs still tracked
+     */
+    public int evictStale() {
+        long now = clock.getAsLong();
+        contributions.values().removeIf(c -> c.recordedAt < now - (c.status == IngestionManifest.Status.PROCESSING
+                ? UNFINISHED_RETENTION_MS : FINISHED_RETENTION_MS));
+        return contributions.size();
+    }
+
+    /**
+     * What a manifest adds to the counters in a given state
+     */
+    private static class Contribution {
+        static final Contribution NONE = new Contribution(null, 0, 0);
+
+        final IngestionManifest.Status status;
+        final long records;
+        final long recordedAt;
+
+        Contribution(IngestionManifest.Status status, long records, long recordedAt) {
+            this.status = status;
+            this.records = records;
+            this.recordedAt = recordedAt;
+        }
+
+        static Contribution of(IngestionManifest manifest, long now) {
+            long totalRecords = manifest.getTotalRecords() != null ? manifest.getTotalRecords() : 0;
+            return new Contribution(manifest.getStatus(), totalRecords, now);
+        }
+    }
+
+    /**
+     * Files finished within a window
+     */
+    public static class WindowStats {
+        private final int windowMinutes;
+        private final long completedBatches;
+        private final long failedBatches;
+        private final long recordsLoaded;
+
+        public WindowStats(int windowMinutes, long completedBatches, long failedBatches, long recordsLoaded) {
+            this.windowMinutes = windowMinutes;
+            this.completedBatches = completedBatches;
+            this.failedBatches = failedBatches;
+            this.recordsLoaded = recordsLoaded;
+        }
+
+        public int getWindowMinutes() { return windowMinutes; }
+        public long getCompletedBatches() { return completedBatches; }
+        public long getFailedBatches() { return failedBatches; }
+        public long getRecordsLoaded() { return recordsLoaded; }
+    }
+}
@@ -0,0 +1,92 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import teranet.mapdev.ingest.stream.RowQuarantine.RejectedRow;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage for quarantined rows (ingestion_rejected_rows)
+ *
+ * Rows are inserted on the caller's COPY connection so they commit (or roll
+ * back) together with the rows that were loaded around them.
+ */
+@Service
+public class RejectedRowService {
+
+    private static final Logger log = LoggerFactory.getLogger(RejectedRowService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO ingestion_rejected_rows "
+            + "(batch_id, table_name, line_number, reason, raw_line) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RejectedRowService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert rejects using the caller's connection/transaction
+     *
+     * @return Number of rows inserted
+     */
+    public int saveAll(Connection conn, UUID batchId, String tableName, List<RejectedRow> rows)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (RejectedRow row : rows) {
+                pstmt.setObject(1, batchId);
+                pstmt.setString(2, tableName);
+                pstmt.setLong(3, row.getLineNumber());
+                pstmt.setString(4, row.getReason());
+                pstmt.setString(5, row.getRawLine());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        log.info("Quarantined {} rows for batch {}", rows.size(), batchId);
+        return rows.size();
+    }
+
+    /**
+     * Delete rejects for a batch (a resumed load re-detects them from the start of the file)
+     */
+    public int deleteByBatchId(UUID batchId) {
+        return jdbcTemplate.update("DELETE FROM ingestion_rejected_rows WHERE batch_id = ?", batchId);
+    }
+
+    /**
+     * Count rejects for a batch
+     */
+    public long countByBatchId(UUID batchId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ingestion_rejected_rows WHERE batch_id = ?", Long.class, batchId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stream rejects for a batch in line order
+     */
+    public void forEachByBatchId(UUID batchId, Consumer<RejectedRow> consumer) {
+        jdbcTemplate.query(
+                "SELECT line_number, reason, raw_line FROM ingestion_rejected_rows "
+                        + "WHERE batch_id = ? ORDER BY line_number",
+                rs -> {
+                    consumer.accept(new RejectedRow(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                },
+                batchId);
+    }
+}
@@ -0,0 +1,92 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reserves contiguous row_number ranges from a table's BIGSERIAL sequence
+ *
+ * A load reserves a range once per file (or per block of a stream of unknown
+ * length) and writes row_number into the COPY stream itself, instead of every
+ * row calling nextval on the shared sequence. Reservers serialize on a
+ * transaction-level advisory lock per sequence, so nextval + setval cannot
+ * interleave between two loads.
+ *
+ * Writers that call nextval directly (default row_number) do not take the
+ * lock; one doing so between another load's nextval and setval gets a
+ * number inside that load's range.
+ */
+@Service
+public class RowNumberAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(RowNumberAllocator.class);
+
+    // First key of the two-key advisory lock (keeps these locks apart from any others)
+    static final int LOCK_NAMESPACE = 0x524e554d; // "RNUM"
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Table -> row_number sequence (empty if row_number is not a serial column)
+    private final Map<String, Optional<String>> sequences = new ConcurrentHashMap<>();
+
+    public RowNumberAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Sequence behind a table's row_number column, or null if it has none
+     */
+    public String getSequence(String tableName) {
+        return sequences.computeIfAbsent(tableName, table -> {
+            try {
+                List<String> rows = jdbcTemplate.queryForList(
+                        "SELECT pg_get_serial_sequence(?, 'row_number')", String.class, table);
+                return Optional.ofNullable(rows.isEmpty() ? null : rows.get(0));
+            } catch (Exception e) {
+                log.debug("No row_number sequence for {}: {}", table, e.getMessage());
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Reserve count consecutive row numbers
+     *
+     * Runs in its own short transaction so the advisory lock is released
+     * as soon as the sequence has been moved past the range.
+     *
+     * @return First number of the range
+     * @throws IllegalArgumentException if the table has no row_number sequence
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String tableName, long count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Row number range must hold at least one row: " + count);
+        }
+        String sequence = getSequence(tableName);
+        if (sequence == null) {
+            throw new IllegalArgumentException("Table " + tableName + " has no row_number sequence");
+        }
+
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?, hashtext(?))", LOCK_NAMESPACE, sequence);
+        Long start = jdbcTemplate.queryForObject("SELECT nextval(?::regclass)", Long.class, sequence);
+        if (start == null) {
+            throw new IllegalStateException("nextval returned no value for " + sequence);
+        }
+        if (count > 1) {
+            jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?)", Long.class, sequence, start + count - 1);
+        }
+
+        log.debug("Reserved row numbers {}-{} from {}", start, start + count - 1, sequence);
+        return start;
+    }
+}
@@ -0,0 +1,307 @@
+package teranet.mapdev.ingest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory catalog of the columns of every table in the application schema
+ *
+ * Loaded with a single information_schema.columns query once the application
+ * is ready, so column order (headerless files), column types (row
+ * quarantine) and table existence (ZIP analysis) are answered without a
+ * database round trip per file.
+ *
+ * The catalog is refreshed:
+ * - on demand via refresh() (e.g. after a DDL change)
+ * - on csv.processing.schema-catalog-refresh-cron, if configured
+ * - for a single table, when it is looked up (getColumns or tableExists) but
+ * is not in the catalog (tables created after startup); at most once per
+ * csv.processing.schema-catalog-miss-refresh-ms for the same table, so
+ * repeated lookups of a missing table do not query the database each time
+ */
+@Service
+public class SchemaCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaCatalogService.class);
+
+    private static final String CATALOG_SQL = """
+            SELECT table_name, column_name, udt_name, character_maximum_length,
+                   numeric_precision, numeric_scale, is_nullable
+            FROM information_schema.columns
+            WHERE table_schema = ?
+            ORDER BY table_name, ordinal_position
+            """;
+
+    private static final String TABLE_SQL = """
+            SELECT table_name, column_name, udt_name, character_maximum_length,
+                   numeric_precision, numeric_scale, is_nullable
+            FROM information_schema.columns
+            WHERE table_schema = ? AND table_name = ?
+            ORDER BY ordinal_position
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LongSupplier clock;
+
+    @Value("${spring.datasource.schema}")
+    private String schema;
+
+    @Value("${csv.processing.schema-catalog-miss-refresh-ms:30000}")
+    private long missRefreshIntervalMs = 30000;
+
+    // Table name (lower case) -> when a lookup miss last reloaded it
+    private final Map<String, Long> missRefreshedAt = new ConcurrentHashMap<>();
+
+    // Replaced as a whole on refresh: table name (lower case) -> columns in ordinal order
+    private volatile Map<String, List<ColumnDefinition>> tables = Collections.emptyMap();
+    private volatile LocalDateTime loadedAt;
+
+    public SchemaCatalogService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, System::currentTimeMillis);
+    }
+
+    SchemaCatalogService(JdbcTemplate jdbcTemplate, LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Load the catalog at startup (after Flyway has created the schema)
+     *
+     * A failure is logged and not fatal; the catalog is loaded on first use.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Schema catalog not loaded at startup (will retry on first use): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic refresh (disabled unless csv.processing.schema-catalog-refresh-cron is set)
+     */
+    @Scheduled(cron = "${csv.processing.schema-catalog-refresh-cron:-}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Scheduled schema catalog refresh failed, keeping previous catalog: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload all tables and columns of the schema in one query
+     *
+     * @return Number of tables in the catalog
+     */
+    public synchronized int refresh() {
+        long start = System.currentTimeMillis();
+        Map<String, List<ColumnDefinition>> loaded = new LinkedHashMap<>();
+
+        jdbcTemplate.query(CATALOG_SQL, rs -> {
+            addColumn(loaded, rs);
+        }, schema);
+
+        loaded.replaceAll((table, columns) -> List.copyOf(columns));
+        tables = Collections.unmodifiableMap(loaded);
+        loadedAt = LocalDateTime.now();
+        missRefreshedAt.clear();
+
+        log.info("Schema catalog loaded: {} tables in schema {} ({} ms)",
+                loaded.size(), schema, System.currentTimeMillis() - start);
+        return loaded.size();
+    }
+
+    /**
+     * Reload one table's columns after a lookup missed it, unless that table
+     * was already reloaded within csv.processing.schema-catalog-miss-refresh-ms
+     *
+     * @return The table's columns, or null if it (still) does not exist
+     */
+    private List<ColumnDefinition> refreshTable(String key) {
+        long now = clock.getAsLong();
+        Long last = missRefreshedAt.get(key);
+        if (last != null && now - last < missRefreshIntervalMs) {
+            return null;
+        }
+        missRefreshedAt.put(key, now);
+
+        Map<String, List<ColumnDefinition>> loaded = new LinkedHashMap<>();
+        jdbcTemplate.query(TABLE_SQL, rs -> {
+            addColumn(loaded, rs);
+        }, schema, key);
+        List<ColumnDefinition> columns = loaded.get(key);
+        if (columns == null) {
+            return null;
+        }
+
+        columns = List.copyOf(columns);
+        synchronized (this) {
+            Map<String, List<ColumnDefinition>> updated = new LinkedHashMap<>(tables);
+            updated.put(key, columns);
+            tables = Collections.unmodifiableMap(updated);
+        }
+        log.info("Schema catalog: added table {}.{} ({} columns)", schema, key, columns.size());
+        return columns;
+    }
+
+    private static void addColumn(Map<String, List<ColumnDefinition>> loaded, ResultSet rs) throws SQLException {
+        String udtName = rs.getString("udt_name");
+        int jdbcType = toJdbcType(udtName);
+
+        int precision;
+        int scale = 0;
+        if (isCharacterType(jdbcType)) {
+            int maxLength = rs.getInt("character_maximum_length");
+            precision = rs.wasNull() ? Integer.MAX_VALUE : maxLength; // text / varchar without length
+        } else {
+            precision = rs.getInt("numeric_precision"); // 0 for unconstrained numeric
+            scale = rs.getInt("numeric_scale");
+        }
+
+        loaded.computeIfAbsent(rs.getString("table_name").toLowerCase(), t -> new ArrayList<>())
+                .add(new ColumnDefinition(
+                        rs.getString("column_name"),
+                        jdbcType,
+                        udtName,
+                        precision,
+                        scale,
+                        "YES".equals(rs.getString("is_nullable"))));
+    }
+
+    /**
+     * Get column definitions for a table, in ordinal order
+     *
+     * @param tableName Table name (optionally schema-qualified)
+     * @return Column definitions (name, type, length/precision, nullability)
+     * @throws SQLException if the table is not in the schema (after a refresh)
+     */
+    public List<ColumnDefinition> getColumns(String tableName) throws SQLException {
+        String key = normalize(tableName);
+        List<ColumnDefinition> columns = tables.get(key);
+
+        if (columns == null) {
+            // Not loaded yet, or created since the last refresh
+            try {
+                if (isLoaded()) {
+                    columns = refreshTable(key);
+                } else {
+                    refresh();
+                    columns = tables.get(key);
+                }
+            } catch (Exception e) {
+                throw new SQLException("Failed to load schema catalog: " + e.getMessage(), e);
+            }
+        }
+
+        if (columns == null || columns.isEmpty()) {
+            throw new SQLException(
+                    String.format("Table %s.%s does not exist or has no columns", schema, tableName));
+        }
+        return columns;
+    }
+
+    /**
+     * Get column names for a table, in ordinal order
+     *
+     * @throws SQLException if the table is not in the schema (after a refresh)
+     */
+    public List<String> getColumnNames(String tableName) throws SQLException {
+        return getColumns(tableName).stream().map(ColumnDefinition::getName).toList();
+    }
+
+    /**
+     * Check a table against the catalog; a miss reloads that one table (rate-limited)
+     */
+    public boolean tableExists(String tableName) {
+        if (tableName == null) {
+            return false;
+        }
+        String key = normalize(tableName);
+        if (tables.containsKey(key)) {
+            return true;
+        }
+        try {
+            return refreshTable(key) != null;
+        } catch (Exception e) {
+            log.warn("Could not look up table {}.{}: {}", schema, key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether the catalog has been loaded at least once
+     */
+    public boolean isLoaded() {
+        return loadedAt != null;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public Set<String> getTableNames() {
+        return tables.keySet();
+    }
+
+    /**
+     * Lower-case and strip this schema's prefix (unquoted identifiers fold to lower case)
+     */
+    private String normalize(String tableName) {
+        String name = tableName.toLowerCase();
+        String prefix = schema.toLowerCase() + ".";
+        return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+    }
+
+    /**
+     * Map a PostgreSQL type (information_schema udt_name) to java.sql.Types,
+     * matching what pgjdbc reports in result set metadata
+     */
+    static int toJdbcType(String udtName) {
+        if (udtName == null) {
+            return Types.OTHER;
+        }
+        return switch (udtName) {
+            case "varchar", "text", "name" -> Types.VARCHAR;
+            case "bpchar", "char" -> Types.CHAR;
+            case "int2" -> Types.SMALLINT;
+            case "int4" -> Types.INTEGER;
+            case "int8" -> Types.BIGINT;
+            case "numeric" -> Types.NUMERIC;
+            case "float4" -> Types.REAL;
+            case "float8" -> Types.DOUBLE;
+            case "bool" -> Types.BIT;
+            case "date" -> Types.DATE;
+            case "timestamp", "timestamptz" -> Types.TIMESTAMP;
+            case "time", "timetz" -> Types.TIME;
+            default -> Types.OTHER;
+        };
+    }
+
+    private static boolean isCharacterType(int jdbcType) {
+        return jdbcType == Types.VARCHAR || jdbcType == Types.CHAR;
+    }
+}
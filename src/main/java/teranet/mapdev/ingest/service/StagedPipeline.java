@@ -0,0 +1,254 @@
+package teranet.mapdev.ingest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Two-stage file pipeline: prepare (checksum / validate - app CPU) then load
+ * (transform + COPY - database)
+ *
+ * Each stage has its own thread pool (csv.processing.pipeline-prepare-threads,
+ * pipeline-load-threads), so file N+1 is validated while file N is COPYed.
+ * A file holds a slot from the start of its prepare stage to the end of its
+ * load; csv.processing.pipeline-max-in-flight slots bound how many prepared
+ * (in-memory validated) files can pile up in front of a slow database.
+ *
+ * A caller interrupted while waiting (IngestJobWorker aborting a job that
+ * lost its lease) interrupts the stage thread working on its item, so the
+ * load stops before its next COPY or commit, and waits for it to stop.
+ */
+@Service
+public class StagedPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StagedPipeline.class);
+
+    /**
+     * One stage's work on an item
+     */
+    @FunctionalInterface
+    public interface Stage<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    @Value("${csv.processing.pipeline-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${csv.processing.pipeline-prepare-threads:2}")
+    private int prepareThreads = 2;
+
+    @Value("${csv.processing.pipeline-load-threads:2}")
+    private int loadThreads = 2;
+
+    @Value("${csv.processing.pipeline-max-in-flight:4}")
+    private int maxInFlight = 4;
+
+    private volatile ExecutorService preparePool;
+    private volatile ExecutorService loadPool;
+    private volatile Semaphore slots;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run every item through both stages, overlapping one item's load with the
+     * next items' prepare
+     *
+     * @param onFailure Result for an item whose prepare or load threw
+     * @return One result per item, in item order
+     */
+    public <T, P, R> List<R> run(List<T> items, Stage<T, P> prepare, Stage<P, R> load,
+            BiFunction<T, Exception, R> onFailure) {
+        List<InFlight<R>> flights = new ArrayList<>(items.size());
+        List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            InFlight<R> flight = submit(item, prepare, load);
+            flights.add(flight);
+            futures.add(flight.result.handle((result, error) -> error == null
+                    ? result
+                    : onFailure.apply(item, unwrap(error))));
+        }
+
+        boolean interrupted = false;
+        List<R> results = new ArrayList<>(items.size());
+        for (CompletableFuture<R> future : futures) {
+            if (!interrupted) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    // Aborted: stop every item, then collect their (failed) results below
+                    interrupted = true;
+                    flights.forEach(InFlight::cancel);
+                } catch (ExecutionException e) {
+                    // rethrown by join
+                }
+            }
+            results.add(future.join());
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    /**
+     * Run one item through both stages and wait for it (files arriving one at a
+     * time share the stage pools with everything else)
+     */
+    public <T, P, R> R process(T item, Stage<T, P> prepare, Stage<P, R> load) throws Exception {
+        InFlight<R> flight = submit(item, prepare, load);
+        try {
+            return flight.result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            // Aborted: stop the stage working on the item and wait until it has
+            flight.cancel();
+            flight.result.handle((result, error) -> null).join();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private <T, P, R> InFlight<R> submit(T item, Stage<T, P> prepare, Stage<P, R> load) {
+        ensureStarted();
+        InFlight<R> flight = new InFlight<>();
+        CompletableFuture<R> result = flight.result;
+        preparePool.execute(() -> {
+            P prepared;
+            flight.enter();
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                flight.exit();
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                prepared = prepare.apply(item);
+            } catch (Throwable e) {
+                slots.release();
+                result.completeExceptionally(e);
+                return;
+            } finally {
+                flight.exit();
+            }
+            try {
+                loadPool.execute(() -> {
+                    // A cancelled item still runs its load, which stops at once and cleans up
+                    flight.enter();
+                    try {
+                        result.complete(load.apply(prepared));
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        flight.exit();
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Load pool shut down
+                slots.release();
+                result.completeExceptionally(e);
+            }
+        });
+        return flight;
+    }
+
+    /**
+     * An item in the pipeline: its result and the stage thread working on it
+     */
+    private static final class InFlight<R> {
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        private Thread worker;
+        private boolean cancelled;
+
+        /** The current thread starts a stage of this item (interrupted at once if cancelled) */
+        synchronized void enter() {
+            worker = Thread.currentThread();
+            if (cancelled) {
+                worker.interrupt();
+            }
+        }
+
+        /** The stage is done; an interrupt meant for this item must not reach the pool's next one */
+        void exit() {
+            synchronized (this) {
+                worker = null;
+            }
+            Thread.interrupted();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void ensureStarted() {
+        if (preparePool == null) {
+            synchronized (this) {
+                if (preparePool == null) {
+                    slots = new Semaphore(Math.max(1, maxInFlight));
+                    loadPool = Executors.newFixedThreadPool(Math.max(1, loadThreads), named("pipeline-load-"));
+                    preparePool = Executors.newFixedThreadPool(Math.max(1, prepareThreads),
+                            named("pipeline-prepare-"));
+                    log.info("Staged pipeline started: {} prepare / {} load threads, {} files in flight",
+                            prepareThreads, loadThreads, maxInFlight);
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        return cause instanceof Exception e ? e : new RuntimeException(cause);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService pool : new ExecutorService[] { preparePool, loadPool }) {
+            if (pool == null) {
+                continue;
+            }
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                    pool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package teranet.mapdev.ingest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Post-load ANALYZE (optionally VACUUM (FREEZE, ANALYZE)) of the tables loads
+ * write to, off the load's critical path
+ *
+ * Every completed load reports its rows per target table. On
+ * csv.processing.table-maintenance-check-ms a table becomes due once
+ * - at least table-maintenance-threshold-rows rows were loaded into it since
+ * its last maintenance, and
+ * - nothing was loaded into it for table-maintenance-quiet-ms (debounce, so a
+ * burst of ZIP children is analyzed once after the last child)
+ * A table waiting longer than table-maintenance-max-delay-ms since its first
+ * pending load is run even while loads keep arriving.
+ *
+ * Due tables run on a background thread, at most one run per table at a
+ * time; rows loaded during a run count towards the next one.
+ */
+@Service
+public class TableMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(TableMaintenanceService.class);
+
+    @Value("${csv.processing.table-maintenance-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${csv.processing.table-maintenance-threshold-rows:100000}")
+    private long thresholdRows = 100000;
+
+    @Value("${csv.processing.table-maintenance-quiet-ms:60000}")
+    private long quietMs = 60000;
+
+    @Value("${csv.processing.table-maintenance-max-delay-ms:900000}")
+    private long maxDelayMs = 900000;
+
+    @Value("${csv.processing.table-maintenance-vacuum-freeze:false}")
+    private boolean vacuumFreeze = false;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LongSupplier clock;
+
+    private final Map<String, TableState> tables = new ConcurrentHashMap<>();
+    private volatile ExecutorService executor;
+
+    public TableMaintenanceService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, System::currentTimeMillis);
+    }
+
+    TableMaintenanceService(JdbcTemplate jdbcTemplate, LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Count rows committed into a table (called once per completed load)
+     */
+    public void recordLoad(String tableName, long rows) {
+        if (!enabled || tableName == null || rows <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        TableState state = tables.computeIfAbsent(tableName, table -> new TableState());
+        synchronized (state) {
+            if (state.pendingRows == 0) {
+                state.firstPendingAt = now;
+            }
+            state.pendingRows += rows;
+            state.lastLoadAt = now;
+        }
+    }
+
+    /**
+     * Start maintenance for every due table that is not already running
+     */
+    @Scheduled(fixedDelayString = "${csv.processing.table-maintenance-check-ms:15000}")
+    public void runDue() {
+        if (!enabled) {
+            return;
+        }
+        for (String table : dueTables()) {
+            TableState state = tables.get(table);
+            long rows;
+            synchronized (state) {
+                rows = state.pendingRows;
+                state.pendingRows = 0;
+                state.running = true;
+            }
+            try {
+                executor().execute(() -> maintain(table, state, rows));
+            } catch (RuntimeException e) {
+                // Shutting down - leave the rows pending
+                synchronized (state) {
+                    state.pendingRows += rows;
+                    state.running = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tables over the threshold whose loads have gone quiet (or waited max-delay-ms)
+     */
+    List<String> dueTables() {
+        long now = clock.getAsLong();
+        List<String> due = new ArrayList<>();
+        tables.forEach((table, state) -> {
+            synchronized (state) {
+                if (!state.running && state.pendingRows >= Math.max(1, thresholdRows)
+                        && (now - state.lastLoadAt >= quietMs || now - state.firstPendingAt >= maxDelayMs)) {
+                    due.add(table);
+                }
+            }
+        });
+        return due;
+    }
+
+    void maintain(String table, TableState state, long rows) {
+        String sql = vacuumFreeze ? "VACUUM (FREEZE, ANALYZE) " + table : "ANALYZE " + table;
+        long start = clock.getAsLong();
+        try {
+            jdbcTemplate.execute(sql);
+            long durationMs = clock.getAsLong() - start;
+            log.info("{} after {} loaded rows took {} ms", sql, rows, durationMs);
+            synchronized (state) {
+                state.runs++;
+                state.lastRunAt = clock.getAsLong();
+                state.lastRunMs = durationMs;
+                state.lastError = null;
+            }
+        } catch (Exception e) {
+            // Retried on a later check, once the rows are due again
+            log.warn("{} failed: {}", sql, e.getMessage());
+            synchronized (state) {
+                state.pendingRows += rows;
+                state.lastError = e.getMessage();
+            }
+        } finally {
+            synchronized (state) {
+                state.running = false;
+            }
+        }
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "table-maintenance");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Per-table pending rows and last run (for /stats)
+     */
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("thresholdRows", thresholdRows);
+        snapshot.put("operation", vacuumFreeze ? "VACUUM (FREEZE, ANALYZE)" : "ANALYZE");
+        Map<String, Object> perTable = new LinkedHashMap<>();
+        tables.forEach((table, state) -> {
+            synchronized (state) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("pendingRows", state.pendingRows);
+                entry.put("running", state.running);
+                entry.put("runs", state.runs);
+                entry.put("lastRunAt", state.lastRunAt > 0 ? Instant.ofEpochMilli(state.lastRunAt) : null);
+                entry.put("lastRunMs", state.lastRunMs);
+                entry.put("lastError", state.lastError);
+                perTable.put(table, entry);
+            }
+        });
+        snapshot.put("tables", perTable);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void stop() {
+        ExecutorService pool = executor;
+        if (pool == null) {
+            return;
+        }
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Guarded by the instance's own lock
+     */
+    static class TableState {
+        private long pendingRows;
+        private long firstPendingAt;
+        private long lastLoadAt;
+        private boolean running;
+        private long runs;
+        private long lastRunAt;
+        private long lastRunMs;
+        private String lastError;
+    }
+}
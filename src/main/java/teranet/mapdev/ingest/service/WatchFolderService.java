@@ -2,8 +2,11 @@ package teranet.mapdev.ingest.service;
 
 import teranet.mapdev.ingest.config.IngestConfig;
 import teranet.mapdev.ingest.config.WatchFolderConfig;
+import teranet.mapdev.ingest.model.IngestJob;
 import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.stream.ArchiveWalker;
 import teranet.mapdev.ingest.dto.BatchProcessingResultDto;
+import teranet.mapdev.ingest.util.PathMultipartFile;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -12,10 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.*;
 import java.util.Set;
 import java.util.UUID;
@@ -25,6 +25,10 @@ import java.util.concurrent.*;
  * Main watch folder service that monitors upload folder for new files
  * Uses Java NIO WatchService for efficient file monitoring
  * Processes files using existing CsvProcessingService and ZipProcessingService
+ *
+ * With csv.processing.job-queue-enabled a detected file is queued on the
+ * shared ingest_job table instead of being processed here, so several
+ * instances can watch the same (shared) folders; see runJob
  */
 @Service
 public class WatchFolderService {
@@ -49,6 +53,12 @@ public class WatchFolderService {
     @Autowired
     private IngestConfig ingestConfig;
 
+    @Autowired
+    private IngestJobQueue jobQueue;
+
+    @Autowired
+    private StagedPipeline pipeline;
+
     private WatchService watchService;
     private ExecutorService executorService;
     private volatile boolean running = false;
@@ -148,6 +158,13 @@ public class WatchFolderService {
         logger.info("========================================");
 
         try {
+            // Resume interrupted WIP files first so their markers are not picked up again.
+            // With the job queue the WIP folder may be shared: an interrupted file is
+            // resumed by whichever instance re-claims its job once the lease expires
+            if (!useJobQueue()) {
+                resumeWipFiles();
+            }
+
             Path uploadPath = folderManager.getUploadPath();
             
             // Find all marker files in the upload folder
@@ -182,6 +199,47 @@ public class WatchFolderService {
         }
     }
 
+    /**
+     * Resume files left in the WIP folder by a crash or restart
+     * Delimited files continue from the last committed chunk (chunked-commit mode)
+     * or restart under their interrupted batch; ZIP files need a manual retry
+     */
+    private void resumeWipFiles() throws IOException {
+        Path wipPath = folderManager.getWipPath();
+        if (wipPath == null || !Files.isDirectory(wipPath)) {
+            return;
+        }
+
+        try (var stream = Files.list(wipPath)) {
+            var wipFiles = stream
+                .filter(Files::isRegularFile)
+                .toList();
+
+            if (wipFiles.isEmpty()) {
+                logger.info("[STARTUP SCAN] No interrupted files in WIP folder");
+                return;
+            }
+
+            logger.info("[STARTUP SCAN] Found {} interrupted file(s) in WIP folder", wipFiles.size());
+
+            for (Path wipFile : wipFiles) {
+                String fileName = wipFile.getFileName().toString();
+
+                if (!getFileExtension(fileName).isEmpty()) {
+                    logger.warn("[RESUME] Skipping {} - only delimited files can be resumed, "
+                            + "move it back to the upload folder to reprocess", fileName);
+                    continue;
+                }
+
+                // Claim the file before submitting so the marker scan skips it
+                if (filesInProgress.add(fileName)) {
+                    logger.info("[RESUME] Resuming interrupted file: {}", fileName);
+                    executorService.submit(() -> resumeWipFile(wipFile));
+                }
+            }
+        }
+    }
+
     /**
      * Main watch loop - monitors folder for new marker files
      */
@@ -279,6 +337,12 @@ public class WatchFolderService {
             // Check if data file exists
             Path dataFilePath = folderManager.getUploadPath().resolve(dataFileName);
 
+            if (!Files.exists(dataFilePath) && useJobQueue()) {
+                // Possibly moved to WIP by another instance - its job settles the marker
+                jobQueue.enqueue(IngestJob.watchFile(dataFileName));
+                return;
+            }
+
             if (!Files.exists(dataFilePath)) {
                 logger.warn("[WARNING] Marker found but data file missing: {}", dataFileName);
                 logger.warn("   Expected file: {}", dataFilePath);
@@ -305,8 +369,12 @@ public class WatchFolderService {
                 }
             }
 
-            // Process the file
-            processFile(dataFilePath, dataFileName);
+            // Process the file (or leave it to whichever instance claims its job)
+            if (useJobQueue()) {
+                jobQueue.enqueue(IngestJob.watchFile(dataFileName));
+            } else {
+                processFile(dataFilePath, dataFileName);
+            }
 
         } catch (Exception e) {
             logger.error("[ERROR] Error handling marker file: {}", markerName, e);
@@ -337,11 +405,52 @@ public class WatchFolderService {
         }
     }
 
+    /**
+     * Run a watch folder job claimed from the shared job queue (see IngestJobWorker)
+     * A retried job whose file is still in WIP was interrupted on another instance:
+     * delimited files are resumed, ZIP files are moved to error
+     *
+     * @return Whether the file was processed successfully
+     */
+    public boolean runJob(IngestJob job) {
+        String fileName = job.getFileName();
+        Path wipFilePath = folderManager.getWipPath().resolve(fileName);
+
+        if (job.getAttempts() > 1 && Files.exists(wipFilePath)) {
+            if (getFileExtension(fileName).isEmpty()) {
+                logger.info("[RESUME] Resuming interrupted file: {} (attempt {})", fileName, job.getAttempts());
+                return resumeWipFile(wipFilePath);
+            }
+            try {
+                folderManager.moveToError(wipFilePath, "Interrupted",
+                        "Processing stopped part way - move the file back to the upload folder to reprocess", null);
+                folderManager.deleteMarkerFileFromUpload(fileName);
+            } catch (IOException e) {
+                logger.error("[ERROR] Failed to move file to error folder", e);
+            }
+            return false;
+        }
+
+        Path uploadedFilePath = folderManager.getUploadPath().resolve(fileName);
+        if (!Files.exists(uploadedFilePath)) {
+            logger.warn("[WARNING] Queued file no longer in upload folder: {}", fileName);
+            folderManager.deleteMarkerFileFromUpload(fileName);
+            return true;
+        }
+        return processFile(uploadedFilePath, fileName);
+    }
+
+    private boolean useJobQueue() {
+        return jobQueue != null && jobQueue.isEnabled();
+    }
+
     /**
      * Main file processing orchestration
      * Moves file through lifecycle: upload -> wip -> archive/error
+     *
+     * @return Whether the file was processed successfully
      */
-    private void processFile(Path uploadedFilePath, String fileName) {
+    private boolean processFile(Path uploadedFilePath, String fileName) {
         logger.info("========================================");
         logger.info("[START] START PROCESSING: {}", fileName);
         logger.info("========================================");
@@ -358,60 +467,119 @@ public class WatchFolderService {
 
             if (extension.isEmpty()) {
                 manifest = processTsvDelimeterFile(wipFilePath);
-            } else if (".zip".equalsIgnoreCase(extension)) {
+            } else if (ArchiveWalker.isArchive(fileName)) {
+                // .zip, and .tar / .tar.gz / .tgz / .gz drops (nested archives are walked)
                 manifest = processZipFile(wipFilePath);
             } else {
                 throw new IllegalArgumentException("Unsupported file type: " + extension);
             }
 
-            // Step 3: Check processing result
-            long endTime = System.currentTimeMillis();
-            long processingTimeMs = endTime - startTime;
+            // Step 3 + 4: Archive or error the file and delete its marker
+            finishFile(wipFilePath, fileName, manifest, startTime);
+            return manifest != null && manifest.getStatus() == IngestionManifest.Status.COMPLETED;
 
-            if (manifest != null && manifest.getStatus() == IngestionManifest.Status.COMPLETED) {
-                // Success - move to archive
-                Path archivedPath = folderManager.moveToArchive(wipFilePath);
-
-                // Create .done file with sucess details
-                createDoneFile(archivedPath, manifest, processingTimeMs, true);
+        } catch (Exception e) {
+            logger.error("[CRITICAL] CRITICAL ERROR processing file: {}", fileName, e);
 
-                logger.info("========================================");
-                logger.info("[SUCCESS] SUCCESS: {} -> {}", fileName, archivedPath.getFileName());
-                logger.info("   Batch ID: {}", manifest.getBatchId());
-                logger.info("   Records: {}", manifest.getTotalRecords());
-                logger.info("   Processing Time: {} and ms ({} seconds)", processingTimeMs, processingTimeMs / 1000.0);
-                logger.info("========================================");
-            } else {
-                // Failed - move to error
-                String errorMsg = manifest != null ? manifest.getErrorMessage() : "Unknown error";
-                String errorDetails = manifest != null ? manifest.getErrorDetails() : "";
-
-                Path errorPath = folderManager.moveToError(wipFilePath, errorMsg, errorDetails, null);
-
-                // Create .done file with error details
-                createDoneFile(errorPath, manifest, processingTimeMs, false);
-                logger.error("========================================");
-                logger.error("[FAILED] FAILED: {} -> {}", fileName, errorPath.getFileName());
-                logger.error("   Error: {}", errorMsg);
-                logger.error("   Processing Time: {} ms ({} seconds)", processingTimeMs, processingTimeMs / 1000.0);
-                logger.error("========================================");
+            // Try to move to error folder
+            if (wipFilePath != null && Files.exists(wipFilePath) && !isAborted(fileName)) {
+                try {
+                    folderManager.moveToError(wipFilePath, "Processing exception", e.getMessage(), e);
+                    folderManager.deleteMarkerFileFromUpload(fileName);
+                } catch (IOException ex) {
+                    logger.error("[ERROR] Failed to move file to error folder", ex);
+                }
             }
+            return false;
+        }
+    }
 
-            // Step 4: Delete marker file
-            folderManager.deleteMarkerFileFromUpload(fileName);
+    /**
+     * Move a processed WIP file to archive (success) or error (failure),
+     * write its .done file and delete the marker from the upload folder
+     */
+    private void finishFile(Path wipFilePath, String fileName, IngestionManifest manifest, long startTime)
+            throws IOException {
+        if (isAborted(fileName)) {
+            return;
+        }
+
+        // Step 3: Check processing result
+        long endTime = System.currentTimeMillis();
+        long processingTimeMs = endTime - startTime;
+
+        if (manifest != null && manifest.getStatus() == IngestionManifest.Status.COMPLETED) {
+            // Success - move to archive
+            Path archivedPath = folderManager.moveToArchive(wipFilePath);
+
+            // Create .done file with sucess details
+            createDoneFile(archivedPath, manifest, processingTimeMs, true);
+
+            logger.info("========================================");
+            logger.info("[SUCCESS] SUCCESS: {} -> {}", fileName, archivedPath.getFileName());
+            logger.info("   Batch ID: {}", manifest.getBatchId());
+            logger.info("   Records: {}", manifest.getTotalRecords());
+            logger.info("   Processing Time: {} and ms ({} seconds)", processingTimeMs, processingTimeMs / 1000.0);
+            logger.info("========================================");
+        } else {
+            // Failed - move to error
+            String errorMsg = manifest != null ? manifest.getErrorMessage() : "Unknown error";
+            String errorDetails = manifest != null ? manifest.getErrorDetails() : "";
+
+            Path errorPath = folderManager.moveToError(wipFilePath, errorMsg, errorDetails, null);
+
+            // Create .done file with error details
+            createDoneFile(errorPath, manifest, processingTimeMs, false);
+            logger.error("========================================");
+            logger.error("[FAILED] FAILED: {} -> {}", fileName, errorPath.getFileName());
+            logger.error("   Error: {}", errorMsg);
+            logger.error("   Processing Time: {} ms ({} seconds)", processingTimeMs, processingTimeMs / 1000.0);
+            logger.error("========================================");
+        }
 
+        // Step 4: Delete marker file
+        folderManager.deleteMarkerFileFromUpload(fileName);
+    }
+
+    /**
+     * Whether this file's job was aborted after losing its lease (IngestJobWorker
+     * interrupts it); the WIP file and marker then belong to the instance that
+     * re-claimed the job and are left where they are
+     */
+    private boolean isAborted(String fileName) {
+        if (Thread.currentThread().isInterrupted()) {
+            logger.warn("[ABORTED] Job for {} lost its lease - leaving the file in WIP", fileName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resume a file found in the WIP folder at startup
+     * Same lifecycle as processFile, minus the move into WIP
+     */
+    private boolean resumeWipFile(Path wipFilePath) {
+        String fileName = wipFilePath.getFileName().toString();
+        long startTime = System.currentTimeMillis();
+
+        try {
+            IngestionManifest manifest = processTsvDelimeterFile(wipFilePath, true);
+            finishFile(wipFilePath, fileName, manifest, startTime);
+            return manifest != null && manifest.getStatus() == IngestionManifest.Status.COMPLETED;
         } catch (Exception e) {
-            logger.error("[CRITICAL] CRITICAL ERROR processing file: {}", fileName, e);
+            logger.error("[RESUME] CRITICAL ERROR resuming file: {}", fileName, e);
 
-            // Try to move to error folder
-            if (wipFilePath != null && Files.exists(wipFilePath)) {
+            if (Files.exists(wipFilePath) && !isAborted(fileName)) {
                 try {
-                    folderManager.moveToError(wipFilePath, "Processing exception", e.getMessage(), e);
+                    folderManager.moveToError(wipFilePath, "Resume exception", e.getMessage(), e);
                     folderManager.deleteMarkerFileFromUpload(fileName);
                 } catch (IOException ex) {
                     logger.error("[ERROR] Failed to move file to error folder", ex);
                 }
             }
+            return false;
+        } finally {
+            filesInProgress.remove(fileName);
         }
     }
 
@@ -419,6 +587,13 @@ public class WatchFolderService {
      * Process a CSV file
      */
     private IngestionManifest processTsvDelimeterFile(Path csvFilePath) {
+        return processTsvDelimeterFile(csvFilePath, false);
+    }
+
+    /**
+     * Process a CSV file, optionally resuming an interrupted load of it
+     */
+    private IngestionManifest processTsvDelimeterFile(Path csvFilePath, boolean resume) {
         logger.info("Processing CSV file: {}", csvFilePath.getFileName());
         logger.debug("[DEBUG] About to convert Path to MultipartFile");
 
@@ -432,9 +607,29 @@ public class WatchFolderService {
 
             boolean hasHeadersForFormat = ingestConfig.hasHeadersForFormat(effectiveFormat);
 
-            // Process standalone CSV file (no parent batch)
-            IngestionManifest manifest = delimitedFileProcessingService.processDelimitedFile(
-                    multipartFile, effectiveFormat, hasHeadersForFormat, true, null);
+            // Pick up where an interrupted load left off (same batch, from its last checkpoint)
+            IngestionManifest interrupted = resume
+                    ? delimitedFileProcessingService.findInterruptedLoad(multipartFile)
+                    : null;
+
+            IngestionManifest manifest;
+            if (interrupted != null) {
+                logger.info("[RESUME] Found interrupted batch {} - resuming from line {}",
+                        interrupted.getBatchId(), interrupted.getCommittedLineNumber());
+                manifest = delimitedFileProcessingService.resumeDelimitedFile(
+                        multipartFile, effectiveFormat, hasHeadersForFormat, true, interrupted);
+            } else if (pipeline != null && pipeline.isEnabled()) {
+                // Validate on the pipeline's prepare threads, COPY on its load threads, so
+                // another watch thread's file is validated while this one loads
+                manifest = pipeline.process(multipartFile,
+                        file -> delimitedFileProcessingService.prepareDelimitedFile(
+                                file, effectiveFormat, hasHeadersForFormat, true, null),
+                        delimitedFileProcessingService::loadPrepared);
+            } else {
+                // Process standalone CSV file (no parent batch)
+                manifest = delimitedFileProcessingService.processDelimitedFile(
+                        multipartFile, effectiveFormat, hasHeadersForFormat, true, null);
+            }
 
             // Use existing CSV processing service
 
@@ -536,49 +731,8 @@ public class WatchFolderService {
         String detectedContentType = Files.probeContentType(filePath);
         final String contentType = (detectedContentType != null) ? detectedContentType : "application/octet-stream";
 
-        final File file = filePath.toFile();
-
-        return new MultipartFile() {
-            @Override
-            public String getName() {
-                return "file";
-            }
-
-            @Override
-            public String getOriginalFilename() {
-                return fileName;
-            }
-
-            @Override
-            public String getContentType() {
-                return contentType;
-            }
-
-            @Override
-            public boolean isEmpty() {
-                return file.length() == 0;
-            }
-
-            @Override
-            public long getSize() {
-                return file.length();
-            }
-
-            @Override
-            public byte[] getBytes() throws IOException {
-                return Files.readAllBytes(filePath);
-            }
-
-            @Override
-            public InputStream getInputStream() throws IOException {
-                return new FileInputStream(file);
-            }
-
-            @Override
-            public void transferTo(File dest) throws IOException {
-                Files.copy(filePath, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
-        };
+        // Path-backed, so a server-side COPY can read the WIP file directly
+        return new PathMultipartFile(filePath, fileName, contentType);
     }
 
     /**
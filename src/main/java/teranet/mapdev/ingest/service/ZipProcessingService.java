@@ -7,18 +7,25 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import teranet.mapdev.ingest.dto.ZipAnalysisDto;
 import teranet.mapdev.ingest.dto.ZipAnalysisDto.ExtractedFileInfo;
+import teranet.mapdev.ingest.stream.ArchiveWalker;
+import teranet.mapdev.ingest.util.PathMultipartFile;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Service for handling ZIP file operations in data processing
- * Extracts ZIP files, analyzes contents, and prepares for batch processing
+ * Analyzes ZIP contents from the central directory and prepares for batch processing
+ * Archives inside the ZIP (.zip, .tar.gz, .gz ...) and top-level .tar / .gz
+ * drops are streamed through {@link ArchiveWalker} without extraction
  */
 @Service
 public class ZipProcessingService {
@@ -33,273 +40,353 @@ public class ZipProcessingService {
     
     private static final String TEMP_EXTRACTION_DIR = "temp_extracted";
     private static final long MAX_ESTIMATION_BYTES = 1024 * 1024; // 1MB for row estimation
+    
+    // Pattern to match PM/IM files: PM162, IM262, etc. (2 letters + digits)
+    private static final Pattern ROUTING_PATTERN = Pattern.compile("^([A-Z]{2})(\\d+)$");
 
     /**
      * Analyzes a ZIP file and extracts information about contained CSV files
+     * 
+     * Reads the ZIP central directory (names, sizes, CRC32) and only inflates
+     * a bounded sample of each data file for its header and row estimate.
+     * Uploads that are not already on disk are spooled (compressed) first.
+     * 
      * @param zipFile the uploaded ZIP file
      * @return ZipAnalysisDto with extraction results and file analysis
      */
     public ZipAnalysisDto analyzeZipFile(MultipartFile zipFile) {
         logger.info("Starting ZIP file analysis for processing: {}", zipFile.getOriginalFilename());
         
-        String zipFilename = zipFile.getOriginalFilename();
-        List<ExtractedFileInfo> extractedFiles = new ArrayList<>();
-        List<String> recommendations = new ArrayList<>();
+        if (zipFile instanceof PathMultipartFile pathFile) {
+            return analyzeZipFile(pathFile.getPath(), zipFile.getOriginalFilename());
+        }
         
-        // Create temporary extraction directory
+        // Create temporary directory for the spooled archive
         Path extractionPath = createTemporaryExtractionDir();
         
         try {
-            // Extract ZIP file
-            int totalFiles = extractZipFile(zipFile, extractionPath);
-            
-            // Analyze extracted files
-            List<Path> csvFiles = findCsvFiles(extractionPath);
+            Path spooled = extractionPath.resolve("upload.zip");
+            try (InputStream in = zipFile.getInputStream()) {
+                Files.copy(in, spooled);
+            }
+            return analyzeZipFile(spooled, zipFile.getOriginalFilename());
             
-            logger.info("Extracted {} total files, found {} CSV files", totalFiles, csvFiles.size());
+        } catch (Exception e) {
+            return failedAnalysis(zipFile.getOriginalFilename(), e);
             
-            // Analyze each CSV file
-            for (Path csvPath : csvFiles) {
-                ExtractedFileInfo fileInfo = analyzeCsvFile(csvPath, extractionPath);
+        } finally {
+            // Clean up temporary files
+            cleanupTemporaryFiles(extractionPath);
+        }
+    }
+
+    /**
+     * Analyzes a ZIP file on disk from its central directory
+     * @param zipPath the ZIP file
+     * @param zipFilename original filename (for the report)
+     * @return ZipAnalysisDto with file analysis (entries are not extracted)
+     */
+    public ZipAnalysisDto analyzeZipFile(Path zipPath, String zipFilename) {
+        List<ExtractedFileInfo> extractedFiles = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        int[] counts = new int[2]; // total files, data files
+        
+        ArchiveWalker.Visitor leafVisitor = new ArchiveWalker.Visitor() {
+            @Override
+            public void file(String path, InputStream content) throws IOException {
+                counts[0]++;
+                counts[1]++;
+                ExtractedFileInfo fileInfo = analyzeStreamedEntry(path, content);
                 if (fileInfo != null) {
                     extractedFiles.add(fileInfo);
                 }
             }
+
+            @Override
+            public void skipped(String path, String reason) {
+                counts[0]++;
+                skipped.add(path + " (" + reason + ")");
+            }
+        };
+        
+        String archiveName = zipFilename != null ? zipFilename : zipPath.getFileName().toString();
+        try {
+            if (isZipName(archiveName)) {
+                try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (entry.isDirectory()) {
+                            continue;
+                        }
+                        
+                        if (ArchiveWalker.isArchive(entry.getName())) {
+                            // Nested archive - streamed, never extracted
+                            try (InputStream in = zip.getInputStream(entry)) {
+                                ArchiveWalker.defaults().walkNested(entry.getName().replace('\\', '/'), in,
+                                        ZipProcessingService::isDataFile, leafVisitor);
+                            }
+                            continue;
+                        }
+                        counts[0]++;
+                        
+                        if (isDataFile(entry.getName())) {
+                            counts[1]++;
+                            ExtractedFileInfo fileInfo = analyzeEntry(zip, entry);
+                            if (fileInfo != null) {
+                                extractedFiles.add(fileInfo);
+                            }
+                        }
+                    }
+                }
+            } else {
+                // .tar / .tar.gz / .tgz / .gz drop - one sequential pass
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(zipPath), 65536)) {
+                    ArchiveWalker.defaults().walk(archiveName, in, ZipProcessingService::isDataFile, leafVisitor);
+                }
+            }
+            
+            logger.info("Archive contains {} files, found {} CSV files", counts[0], counts[1]);
+            if (!skipped.isEmpty()) {
+                logger.warn("Skipped {} archive members of {}: {}", skipped.size(), zipFilename, skipped);
+            }
             
             // Generate processing recommendations
-            recommendations = generateProcessingRecommendations(extractedFiles);
+            List<String> recommendations = generateProcessingRecommendations(extractedFiles);
+            if (!skipped.isEmpty()) {
+                recommendations.add(String.format("%d archive members skipped (not data files): %s",
+                        skipped.size(), String.join(", ", skipped)));
+            }
             
             String status = extractedFiles.isEmpty() ? "NO_CSV_FILES_FOUND" : "SUCCESS";
             
             ZipAnalysisDto analysis = new ZipAnalysisDto(
                 zipFilename,
-                totalFiles,
-                csvFiles.size(),
+                counts[0],
+                counts[1],
                 status,
                 extractedFiles,
                 recommendations
             );
             
-            logger.info("ZIP analysis completed successfully - {} CSV files ready for processing", csvFiles.size());
+            logger.info("ZIP analysis completed successfully - {} CSV files ready for processing", counts[1]);
             return analysis;
             
         } catch (Exception e) {
-            logger.error("Failed to analyze ZIP file: {}", zipFilename, e);
-            
-            return new ZipAnalysisDto(
-                zipFilename,
-                0,
-                0,
-                "EXTRACTION_FAILED: " + e.getMessage(),
-                extractedFiles,
-                Arrays.asList("Please check ZIP file format and try again")
-            );
-            
-        } finally {
-            // Clean up temporary files
-            cleanupTemporaryFiles(extractionPath);
+            return failedAnalysis(zipFilename, e);
         }
     }
 
-    /**
-     * Extracts ZIP file to temporary directory
-     * @param zipFile the ZIP file to extract
-     * @param extractionPath the path to extract to
-     * @return number of files extracted
-     */
-    private int extractZipFile(MultipartFile zipFile, Path extractionPath) throws IOException {
-        int fileCount = 0;
-        
-        try (ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
-            ZipEntry entry;
-            
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                if (!entry.isDirectory()) {
-                    Path filePath = extractionPath.resolve(entry.getName());
-                    
-                    // Create parent directories if needed
-                    Files.createDirectories(filePath.getParent());
-                    
-                    // Extract file
-                    try (FileOutputStream fileOutputStream = new FileOutputStream(filePath.toFile())) {
-                        byte[] buffer = new byte[8192];
-                        int length;
-                        while ((length = zipInputStream.read(buffer)) != -1) {
-                            fileOutputStream.write(buffer, 0, length);
-                        }
-                    }
-                    
-                    fileCount++;
-                    logger.debug("Extracted file: {}", entry.getName());
-                }
-                
-                zipInputStream.closeEntry();
-            }
-        }
+    private ZipAnalysisDto failedAnalysis(String zipFilename, Exception e) {
+        logger.error("Failed to analyze ZIP file: {}", zipFilename, e);
         
-        logger.info("Successfully extracted {} files from ZIP", fileCount);
-        return fileCount;
+        return new ZipAnalysisDto(
+            zipFilename,
+            0,
+            0,
+            "EXTRACTION_FAILED: " + e.getMessage(),
+            new ArrayList<>(),
+            Arrays.asList("Please check ZIP file format and try again")
+        );
     }
 
     /**
-     * Finds all CSV/TSV files and files matching routing patterns in the extracted directory
+     * Whether a ZIP entry is a data file to load
      * Accepts files with .csv, .tsv extensions or files matching PM/IM naming patterns (no extension)
+     * Archives (PM162.gz, PM162.zip) are never data files - their members are
      * 
-     * @param extractionPath the extraction directory
-     * @return list of data file paths
+     * @param entryName entry name (may include directories)
+     * @return true for CSV/TSV and PM/IM files
      */
-    private List<Path> findCsvFiles(Path extractionPath) throws IOException {
-        List<Path> csvFiles = new ArrayList<>();
+    public static boolean isDataFile(String entryName) {
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        String lowerFileName = fileName.toLowerCase();
         
-        // Pattern to match PM/IM files: PM162, IM262, etc. (2 letters + digits)
-        java.util.regex.Pattern routingPattern = java.util.regex.Pattern.compile("^([A-Z]{2})(\\d+)$");
+        if (ArchiveWalker.isArchive(fileName)) {
+            return false;
+        }
         
-        Files.walk(extractionPath)
-            .filter(Files::isRegularFile)
-            .filter(path -> {
-                String fileName = path.getFileName().toString();
-                String lowerFileName = fileName.toLowerCase();
-                
-                // Accept .csv or .tsv files
-                if (lowerFileName.endsWith(".csv") || lowerFileName.endsWith(".tsv")) {
-                    return true;
-                }
-                
-                // Accept files matching PM/IM routing pattern (no extension)
-                // Remove any extension first to check base name
-                String baseName = fileName;
-                int lastDot = fileName.lastIndexOf('.');
-                if (lastDot > 0) {
-                    baseName = fileName.substring(0, lastDot);
-                }
-                
-                return routingPattern.matcher(baseName).matches();
-            })
-            .forEach(csvFiles::add);
+        // Accept .csv or .tsv files
+        if (lowerFileName.endsWith(".csv") || lowerFileName.endsWith(".tsv")) {
+            return true;
+        }
         
-        logger.info("Found {} CSV files in extracted content", csvFiles.size());
-        return csvFiles;
+        // Accept files matching PM/IM routing pattern (no extension)
+        // Remove any extension first to check base name
+        String baseName = fileName;
+        int lastDot = fileName.lastIndexOf('.');
+        if (lastDot > 0) {
+            baseName = fileName.substring(0, lastDot);
+        }
+        
+        return ROUTING_PATTERN.matcher(baseName).matches();
+    }
+
+    /**
+     * Whether an archive name is a ZIP (read from its central directory)
+     * rather than a sequential .tar / .gz drop
+     */
+    public static boolean isZipName(String fileName) {
+        return fileName.toLowerCase().endsWith(".zip");
     }
 
     /**
-     * Analyzes a single CSV file to extract metadata
-     * @param csvPath path to the CSV file
-     * @param extractionPath root extraction directory for computing relative path
+     * Analyzes a single CSV entry: size and CRC32 from the central directory,
+     * header and row estimate from the first MAX_ESTIMATION_BYTES
+     * @param zip the open archive
+     * @param entry the data file entry
      * @return ExtractedFileInfo with file analysis
      */
-    private ExtractedFileInfo analyzeCsvFile(Path csvPath, Path extractionPath) {
+    private ExtractedFileInfo analyzeEntry(ZipFile zip, ZipEntry entry) {
         try {
-            // Get relative path from extraction directory (preserves folder structure for file location)
-            String relativePath = extractionPath.relativize(csvPath).toString();
-            // Normalize path separators to forward slashes for consistency
-            relativePath = relativePath.replace('\\', '/');
-            // Extract just the filename (not the parent folder) for routing
-            String filename = csvPath.getFileName().toString();
-            long fileSize = Files.size(csvPath);
-            
-            // Extract headers from CSV file
-            List<String> headers = extractCsvHeaders(csvPath);
-            
-            // Estimate row count
-            long estimatedRows = estimateRowCount(csvPath, fileSize);
-            
-            // Resolve table name from filename using routing rules
-            String suggestedTableName = filenameRouterService.resolveTableName(filename);
-            
-            // Check if table exists in default schema
-            boolean tableExists = databaseConnectionService.doesStagingTableExist(suggestedTableName);
-            
-            ExtractedFileInfo fileInfo = new ExtractedFileInfo(
-                filename,
-                relativePath,
-                fileSize,
-                "CSV",
-                estimatedRows,
-                headers,
-                suggestedTableName,
-                tableExists
-            );
-            
-            logger.debug("Analyzed CSV file: {} - {} rows estimated, {} headers, table exists: {}", 
-                        filename, estimatedRows, headers.size(), tableExists);
-            
-            return fileInfo;
+            byte[] sample;
+            try (InputStream in = zip.getInputStream(entry)) {
+                sample = in.readNBytes((int) MAX_ESTIMATION_BYTES);
+            }
+            // Entry name preserves folder structure (normalize separators to forward slashes)
+            return analyzeData(entry.getName().replace('\\', '/'), entry.getSize(), sample,
+                    entry.getCrc() >= 0 ? entry.getCrc() : null);
             
         } catch (Exception e) {
-            logger.error("Failed to analyze CSV file: {}", csvPath, e);
+            logger.error("Failed to analyze CSV file: {}", entry.getName(), e);
             return null;
         }
     }
 
     /**
-     * Extracts headers from CSV file
-     * @param csvPath path to CSV file
-     * @return list of column headers
+     * Analyzes a data file inside a nested or sequential archive - there is no
+     * central directory, so the member is read through once for its size and
+     * CRC32 while the sample is kept
+     * @param relativePath path of the member ("outer.zip/PM162")
+     * @param content member content
+     * @return ExtractedFileInfo with file analysis
      */
-    private List<String> extractCsvHeaders(Path csvPath) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(csvPath)) {
-            String headerLine = reader.readLine();
-            
-            if (headerLine != null && !headerLine.trim().isEmpty()) {
-                // Parse CSV headers (simple comma-split for now)
-                return Arrays.asList(headerLine.split(","));
+    private ExtractedFileInfo analyzeStreamedEntry(String relativePath, InputStream content) {
+        try {
+            CRC32 crc = new CRC32();
+            byte[] sample = content.readNBytes((int) MAX_ESTIMATION_BYTES);
+            crc.update(sample);
+            long fileSize = sample.length;
+            byte[] buffer = new byte[65536];
+            int n;
+            while ((n = content.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+                fileSize += n;
             }
+            return analyzeData(relativePath, fileSize, sample, crc.getValue());
+            
+        } catch (Exception e) {
+            logger.error("Failed to analyze CSV file: {}", relativePath, e);
+            return null;
         }
+    }
+
+    private ExtractedFileInfo analyzeData(String relativePath, long fileSize, byte[] sample, Long crc32) {
+        // Extract just the filename (not the parent folder) for routing
+        String filename = relativePath.substring(relativePath.lastIndexOf('/') + 1);
         
-        return new ArrayList<>();
+        // Extract headers from the first line
+        List<String> headers = extractCsvHeaders(sample);
+        
+        // Estimate row count
+        long estimatedRows = estimateRowCount(sample, fileSize);
+        
+        // Resolve table name from filename using routing rules
+        String suggestedTableName = filenameRouterService.resolveTableName(filename);
+        
+        // Check if table exists in default schema
+        boolean tableExists = databaseConnectionService.doesStagingTableExist(suggestedTableName);
+        
+        ExtractedFileInfo fileInfo = new ExtractedFileInfo(
+            filename,
+            relativePath,
+            fileSize,
+            "CSV",
+            estimatedRows,
+            headers,
+            suggestedTableName,
+            tableExists,
+            crc32
+        );
+        
+        logger.debug("Analyzed CSV file: {} - {} rows estimated, {} headers, table exists: {}", 
+                    filename, estimatedRows, headers.size(), tableExists);
+        
+        return fileInfo;
     }
 
     /**
-     * Estimates row count in CSV file
-     * @param csvPath path to CSV file
-     * @param fileSize total file size
-     * @return estimated number of rows
+     * Extracts headers from the first line of a sample
+     * @param sample first bytes of the file
+     * @return list of column headers
      */
-    private long estimateRowCount(Path csvPath, long fileSize) {
-        try {
-            if (fileSize <= MAX_ESTIMATION_BYTES) {
-                // For small files, count actual lines
-                return Files.lines(csvPath).count() - 1; // Subtract header
-            } else {
-                // For large files, estimate based on sample
-                return estimateRowsFromSample(csvPath, fileSize);
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Could not estimate row count for {}, using file size approximation", csvPath, e);
-            // Rough estimation: assume average 50 bytes per row
-            return Math.max(1, fileSize / 50);
+    private List<String> extractCsvHeaders(byte[] sample) {
+        int end = indexOf(sample, 0, (byte) '\n');
+        String headerLine = new String(sample, 0, end < 0 ? sample.length : end, StandardCharsets.UTF_8);
+        if (headerLine.endsWith("\r")) {
+            headerLine = headerLine.substring(0, headerLine.length() - 1);
         }
+        
+        if (!headerLine.trim().isEmpty()) {
+            // Parse CSV headers (simple comma-split for now)
+            return Arrays.asList(headerLine.split(","));
+        }
+        
+        return new ArrayList<>();
     }
 
     /**
-     * Estimates rows by sampling first part of file
-     * @param csvPath path to CSV file
-     * @param totalFileSize total file size
-     * @return estimated row count
+     * Estimates row count in CSV file (header excluded)
+     * 
+     * Files that fit in the sample are counted exactly; larger files are
+     * estimated from the average line length of the sample.
+     * 
+     * @param sample first MAX_ESTIMATION_BYTES of the file
+     * @param fileSize total (uncompressed) file size
+     * @return estimated number of rows
      */
-    private long estimateRowsFromSample(Path csvPath, long totalFileSize) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(csvPath)) {
-            long bytesRead = 0;
-            long linesRead = 0;
-            String line;
-            
-            // Skip header
-            reader.readLine();
-            
-            // Read sample
-            while ((line = reader.readLine()) != null && bytesRead < MAX_ESTIMATION_BYTES) {
-                bytesRead += line.length() + 1; // +1 for newline
-                linesRead++;
+    private long estimateRowCount(byte[] sample, long fileSize) {
+        if (fileSize <= sample.length) {
+            // Whole file sampled - count actual lines
+            long lines = 0;
+            for (byte b : sample) {
+                if (b == '\n') {
+                    lines++;
+                }
             }
-            
-            if (linesRead > 0 && bytesRead > 0) {
-                double avgLineSize = (double) bytesRead / linesRead;
-                return Math.round(totalFileSize / avgLineSize) - 1; // Subtract header
+            if (sample.length > 0 && sample[sample.length - 1] != '\n') {
+                lines++; // Last line without terminator
+            }
+            return Math.max(0, lines - 1); // Subtract header
+        }
+        
+        // Skip header, then average the complete lines in the sample
+        int headerEnd = indexOf(sample, 0, (byte) '\n');
+        int lastNewline = -1;
+        long linesRead = 0;
+        for (int i = headerEnd + 1; headerEnd >= 0 && i < sample.length; i++) {
+            if (sample[i] == '\n') {
+                linesRead++;
+                lastNewline = i;
             }
         }
         
-        return 1; // Fallback
+        if (linesRead > 0) {
+            double avgLineSize = (double) (lastNewline - headerEnd) / linesRead;
+            return Math.max(1, Math.round(fileSize / avgLineSize) - 1); // Subtract header
+        }
+        
+        // Rough estimation: assume average 50 bytes per row
+        return Math.max(1, fileSize / 50);
+    }
+
+    private static int indexOf(byte[] bytes, int from, byte value) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
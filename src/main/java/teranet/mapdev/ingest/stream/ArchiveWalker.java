@@ -0,0 +1,380 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streams through (possibly nested) archives and hands every data file found
+ * to a visitor - nothing is extracted to disk.
+ *
+ * Formats are pluggable ({@link Format}); the defaults are ZIP, TAR and GZIP,
+ * so .zip, .tar, .gz, .tar.gz and .tgz nest in any combination. A member's
+ * path is its path inside its archive, prefixed with the path of the archive
+ * it came from ("outer/inner.zip/PM162"); the root archive adds no prefix, and
+ * compressors (.gz) are transparent ("PM162.gz" yields "PM162").
+ *
+ * Nesting deeper than MAX_DEPTH is reported as skipped rather than followed
+ * (archive bombs / self-containing archives).
+ */
+public class ArchiveWalker {
+
+    /** Archive levels followed below the root */
+    public static final int MAX_DEPTH = 8;
+
+    private static final ArchiveWalker DEFAULT = new ArchiveWalker(List.of(new Zip(), new Tar(), new Gzip()));
+
+    /**
+     * One archive or compression format
+     */
+    public interface Format {
+        /**
+         * @param lowerName File name, lower-cased
+         */
+        boolean accepts(String lowerName);
+
+        /**
+         * Whether members are files of their own (ZIP, TAR) rather than the
+         * decompressed archive itself (GZIP)
+         */
+        boolean isContainer();
+
+        /**
+         * Call the handler for every regular file member, in archive order
+         *
+         * @param name Name of the archive (a compressor derives its member's name from it)
+         */
+        void members(String name, InputStream in, MemberHandler handler) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface MemberHandler {
+        void member(String name, InputStream content) throws IOException;
+    }
+
+    /**
+     * Receives the leaf files of a walk
+     */
+    public interface Visitor {
+        /**
+         * A data file; content must be consumed (or abandoned) before returning
+         * and need not be closed
+         */
+        void file(String path, InputStream content) throws IOException;
+
+        /**
+         * A member that is neither a data file nor a followed archive
+         */
+        default void skipped(String path, String reason) {
+        }
+    }
+
+    private final List<Format> formats;
+
+    public ArchiveWalker(List<Format> formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Walker for ZIP, TAR and GZIP
+     */
+    public static ArchiveWalker defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Whether a file name is an archive of one of the default formats
+     */
+    public static boolean isArchive(String fileName) {
+        return DEFAULT.formatOf(fileName) != null;
+    }
+
+    public Format formatOf(String fileName) {
+        String lower = baseName(fileName).toLowerCase(Locale.ROOT);
+        for (Format format : formats) {
+            if (format.accepts(lower)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walk an archive whose members are paths of their own (the root)
+     *
+     * @param name       Archive file name (selects the format)
+     * @param in         Archive content
+     * @param isDataFile Which leaf paths are data files
+     */
+    public void walk(String name, InputStream in, Predicate<String> isDataFile, Visitor visitor)
+            throws IOException {
+        walk(name, "", in, isDataFile, visitor, 0);
+    }
+
+    /**
+     * Walk an archive that is itself a member at path (its members are
+     * prefixed with path + "/")
+     */
+    public void walkNested(String path, InputStream in, Predicate<String> isDataFile, Visitor visitor)
+            throws IOException {
+        walk(path, path + "/", in, isDataFile, visitor, 1);
+    }
+
+    private void walk(String path, String membersPrefix, InputStream in, Predicate<String> isDataFile,
+            Visitor visitor, int depth) throws IOException {
+        Format format = formatOf(path);
+        if (format == null) {
+            if (isDataFile.test(path)) {
+                visitor.file(path, new NonClosingInputStream(in));
+            } else {
+                visitor.skipped(path, "not a data file");
+            }
+            return;
+        }
+        if (depth > MAX_DEPTH) {
+            visitor.skipped(path, "archive nested more than " + MAX_DEPTH + " levels deep");
+            return;
+        }
+        format.members(path, in, (memberName, content) -> {
+            String memberPath = format.isContainer() ? membersPrefix + memberName : memberName;
+            String memberPrefix = format.isContainer() ? memberPath + "/" : membersPrefix;
+            walk(memberPath, memberPrefix, content, isDataFile, visitor, depth + 1);
+        });
+    }
+
+    private static String baseName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Member content - a visitor closing it must not close the archive stream
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * ZIP read sequentially (local headers), so it can nest
+     */
+    static class Zip implements Format {
+        @Override
+        public boolean accepts(String lowerName) {
+            return lowerName.endsWith(".zip");
+        }
+
+        @Override
+        public boolean isContainer() {
+            return true;
+        }
+
+        @Override
+        public void members(String name, InputStream in, MemberHandler handler) throws IOException {
+            ZipInputStream zip = new ZipInputStream(new NonClosingInputStream(in));
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    handler.member(entry.getName().replace('\\', '/'), zip);
+                }
+            }
+        }
+    }
+
+    /**
+     * GZIP - one member named after the archive without .gz (.tgz becomes .tar)
+     */
+    static class Gzip implements Format {
+        @Override
+        public boolean accepts(String lowerName) {
+            return lowerName.endsWith(".gz") || lowerName.endsWith(".tgz");
+        }
+
+        @Override
+        public boolean isContainer() {
+            return false;
+        }
+
+        @Override
+        public void members(String name, InputStream in, MemberHandler handler) throws IOException {
+            String lower = name.toLowerCase(Locale.ROOT);
+            String memberName = lower.endsWith(".tgz")
+                    ? name.substring(0, name.length() - 4) + ".tar"
+                    : name.substring(0, name.length() - 3);
+            handler.member(memberName, new GZIPInputStream(new NonClosingInputStream(in), 65536));
+        }
+    }
+
+    /**
+     * POSIX ustar / GNU tar: regular files only, with GNU long names and pax
+     * path records
+     */
+    static class Tar implements Format {
+        private static final int BLOCK = 512;
+
+        @Override
+        public boolean accepts(String lowerName) {
+            return lowerName.endsWith(".tar");
+        }
+
+        @Override
+        public boolean isContainer() {
+            return true;
+        }
+
+        @Override
+        public void members(String name, InputStream in, MemberHandler handler) throws IOException {
+            byte[] header = new byte[BLOCK];
+            String longName = null;
+            while (readBlock(in, header)) {
+                if (isZeroBlock(header)) {
+                    break; // end-of-archive marker
+                }
+                String entryName = text(header, 0, 100);
+                String prefix = text(header, 345, 155);
+                if (!prefix.isEmpty() && "ustar".equals(text(header, 257, 5))) {
+                    entryName = prefix + "/" + entryName;
+                }
+                long size = number(header, 124, 12);
+                char type = (char) header[156];
+                if (longName != null) {
+                    entryName = longName;
+                    longName = null;
+                }
+
+                BoundedInputStream content = new BoundedInputStream(in, size);
+                if (type == 'L') {
+                    longName = trimNulls(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+                } else if (type == 'x') {
+                    longName = paxPath(content.readAllBytes());
+                } else if (type == '0' || type == '\0' || type == '7') {
+                    handler.member(entryName, content);
+                }
+                content.skipRemaining();
+                in.skipNBytes((BLOCK - size % BLOCK) % BLOCK);
+            }
+        }
+
+        private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+            int n = in.readNBytes(block, 0, BLOCK);
+            if (n == 0) {
+                return false;
+            }
+            if (n < BLOCK) {
+                throw new EOFException("Truncated tar header");
+            }
+            return true;
+        }
+
+        private static boolean isZeroBlock(byte[] block) {
+            for (byte b : block) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String text(byte[] header, int offset, int length) {
+            int end = offset;
+            while (end < offset + length && header[end] != 0) {
+                end++;
+            }
+            return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Octal, or base-256 when the high bit of the first byte is set (GNU, > 8 GB)
+         */
+        private static long number(byte[] header, int offset, int length) {
+            if ((header[offset] & 0x80) != 0) {
+                long value = header[offset] & 0x7f;
+                for (int i = offset + 1; i < offset + length; i++) {
+                    value = (value << 8) | (header[i] & 0xff);
+                }
+                return value;
+            }
+            String octal = text(header, offset, length).trim();
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        }
+
+        private static String trimNulls(String value) {
+            int end = value.indexOf('\0');
+            return end >= 0 ? value.substring(0, end) : value;
+        }
+
+        /**
+         * The path record of a pax extended header ("<len> path=<value>\n" records)
+         */
+        private static String paxPath(byte[] records) {
+            String text = new String(records, StandardCharsets.UTF_8);
+            for (String record : text.split("\n")) {
+                int space = record.indexOf(' ');
+                if (space > 0 && record.startsWith("path=", space + 1)) {
+                    return record.substring(space + 6);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The next size bytes of a stream
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated tar member");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("Truncated tar member");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        void skipRemaining() throws IOException {
+            in.skipNBytes(remaining);
+            remaining = 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
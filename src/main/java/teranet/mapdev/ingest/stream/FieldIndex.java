@@ -0,0 +1,137 @@
+package teranet.mapdev.ingest.stream;
+
+import java.util.Arrays;
+
+/**
+ * Delimiter positions of one line, found in a single pass and reused.
+ *
+ * A stage keeps one FieldIndex and {@link #reset(String)}s it per line; the
+ * line is only scanned when a field or the field count is first asked for,
+ * so stages that end up not needing it pay nothing. After that, the field
+ * count is O(1) and fields are addressed by offset instead of re-splitting
+ * (no String[] per line, substrings only for the fields actually used).
+ *
+ * Delimiters are located with String.indexOf(char), which HotSpot compiles
+ * to a vectorized search on Latin-1 lines.
+ *
+ * Not thread-safe - one instance per stage/thread.
+ */
+public final class FieldIndex {
+
+    private final char delimiter;
+    private int[] ends = new int[32]; // ends[i] = offset just past field i (its delimiter, or the line length)
+    private int fieldCount = -1; // -1 = not parsed yet
+    private String line = "";
+
+    /**
+     * Index for tab-delimited lines
+     */
+    public FieldIndex() {
+        this('\t');
+    }
+
+    public FieldIndex(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Point the index at the next line (parsed on first use)
+     *
+     * @param line Line without terminator
+     * @return this
+     */
+    public FieldIndex reset(String line) {
+        this.line = line;
+        this.fieldCount = -1;
+        return this;
+    }
+
+    public String line() {
+        return line;
+    }
+
+    private void parse() {
+        int count = 0;
+        int from = 0;
+        int next;
+        while ((next = line.indexOf(delimiter, from)) >= 0) {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = next;
+            from = next + 1;
+        }
+        if (count == ends.length) {
+            ends = Arrays.copyOf(ends, count + 1);
+        }
+        ends[count++] = line.length();
+        fieldCount = count;
+    }
+
+    /**
+     * Number of fields (delimiters + 1; an empty line has one empty field)
+     */
+    public int fieldCount() {
+        if (fieldCount < 0) {
+            parse();
+        }
+        return fieldCount;
+    }
+
+    public int delimiterCount() {
+        return fieldCount() - 1;
+    }
+
+    /**
+     * Offset of the first character of a field
+     */
+    public int start(int field) {
+        checkField(field);
+        return field == 0 ? 0 : ends[field - 1] + 1;
+    }
+
+    /**
+     * Offset just past the last character of a field
+     */
+    public int end(int field) {
+        checkField(field);
+        return ends[field];
+    }
+
+    public String field(int field) {
+        return line.substring(start(field), end(field));
+    }
+
+    public boolean isEmpty(int field) {
+        return start(field) == end(field);
+    }
+
+    /**
+     * Whether a field equals a value, without extracting it
+     */
+    public boolean fieldEquals(int field, String value) {
+        int start = start(field);
+        return end(field) - start == value.length() && line.regionMatches(start, value, 0, value.length());
+    }
+
+    /**
+     * The line with only the first keep delimiters kept and the rest
+     * replaced by a character (the line itself if there are no more)
+     */
+    public String keepDelimiters(int keep, char replacement) {
+        if (delimiterCount() <= keep) {
+            return line;
+        }
+        StringBuilder result = new StringBuilder(line);
+        for (int i = Math.max(0, keep); i < fieldCount - 1; i++) {
+            result.setCharAt(ends[i], replacement);
+        }
+        return result.toString();
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount()) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * FilterInputStream that computes a SHA-256 checksum and byte count
+ * of everything read through it.
+ * 
+ * Used by streaming uploads so the checksum is available as soon as the
+ * body has been consumed, without a separate hashing pass. The hex digest
+ * matches FileChecksumService.calculateFileChecksum for the same bytes.
+ */
+public class HashingInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long byteCount = 0;
+    private String hexDigest;
+
+    public HashingInputStream(InputStream in) throws NoSuchAlgorithmException {
+        super(in);
+        this.digest = MessageDigest.getInstance("SHA-256");
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            byteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            digest.update(b, off, n);
+            byteCount += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must still be hashed
+        byte[] buffer = new byte[8192];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Number of bytes read so far
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * SHA-256 of the bytes read (finalizes the digest on first call,
+     * so only call this once the stream has been fully consumed)
+     */
+    public String getHexDigest() {
+        if (hexDigest == null) {
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            hexDigest = result.toString();
+        }
+        return hexDigest;
+    }
+}
@@ -0,0 +1,170 @@
+package teranet.mapdev.ingest.stream;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.UUID;
+
+/**
+ * JFR events for the stages a file goes through (category "Ingest").
+ *
+ * Each event carries the batch ID, file pattern, bytes and rows of one
+ * stage run, so a recording shows where an individual slow file spent its
+ * time. Line-based stages (validation, transformation) emit one event per
+ * CHUNK_LINES lines; their bytes are characters plus line terminators.
+ * Those stages are pulled by the COPY, so a chunk's duration includes
+ * waiting on the database - its activeTime is the stage's own share.
+ *
+ * Creating and committing an event while no recording is running costs
+ * next to nothing, so the instrumentation is always on.
+ */
+public final class IngestEvents {
+
+    /** Lines per validation / transformation chunk event */
+    public static final int CHUNK_LINES = 65536;
+
+    private IngestEvents() {
+    }
+
+    /**
+     * Fields shared by every ingest stage event
+     */
+    @Category("Ingest")
+    @StackTrace(false)
+    public abstract static class StageEvent extends Event {
+        @Label("Batch ID")
+        protected String batchId;
+
+        @Label("File Pattern")
+        protected String filePattern;
+
+        @Label("Bytes")
+        @DataAmount
+        protected long bytes;
+
+        @Label("Rows")
+        protected long rows;
+
+        @Label("Active Time")
+        @Description("Time spent inside the stage itself, excluding waits on the rest of the pipeline")
+        @Timespan
+        protected long activeTime;
+
+        /**
+         * Begin timing this stage
+         */
+        public void start(UUID batchId, String filePattern) {
+            this.batchId = batchId != null ? batchId.toString() : null;
+            this.filePattern = filePattern;
+            begin();
+        }
+
+        /**
+         * Clock reading for {@link #addLine(int, long)}, or 0 when no
+         * recording wants this event (saves the nanoTime calls)
+         */
+        public long lineStart() {
+            return isEnabled() ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Count one line of lineLength characters processed since started
+         */
+        public void addLine(int lineLength, long started) {
+            rows++;
+            bytes += lineLength + 1;
+            if (started != 0) {
+                activeTime += System.nanoTime() - started;
+            }
+        }
+
+        public void add(long bytes, long rows) {
+            this.bytes += bytes;
+            this.rows += rows;
+        }
+
+        public boolean isChunkFull() {
+            return rows >= CHUNK_LINES;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Commit unless nothing was counted (a trailing empty chunk)
+         */
+        public void commitIfAny() {
+            if (rows > 0 || bytes > 0) {
+                commit();
+            }
+        }
+    }
+
+    @Name("teranet.ingest.Checksum")
+    @Label("Checksum")
+    @Description("SHA-256 of a file for duplicate detection")
+    public static class Checksum extends StageEvent {
+    }
+
+    @Name("teranet.ingest.ValidationChunk")
+    @Label("Validation Chunk")
+    @Description("Lines validated and fixed against the file's validation rule")
+    public static class ValidationChunk extends StageEvent {
+    }
+
+    @Name("teranet.ingest.TransformChunk")
+    @Label("Transform Chunk")
+    @Description("Lines passed through the file pattern's DataTransformer")
+    public static class TransformChunk extends StageEvent {
+        @Label("Transformer")
+        public String transformer;
+    }
+
+    @Name("teranet.ingest.Copy")
+    @Label("COPY")
+    @Description("COPY into the target table (one per load, or per chunk with chunked commit)")
+    public static class Copy extends StageEvent {
+        @Label("Table")
+        public String table;
+
+        @Label("Server-Side")
+        public boolean serverSide;
+    }
+
+    @Name("teranet.ingest.BatchIdUpdate")
+    @Label("Batch ID Update")
+    @Description("UPDATE stamping freshly COPYed rows with their batch ID")
+    public static class BatchIdUpdate extends StageEvent {
+        @Label("Table")
+        public String table;
+    }
+
+    @Name("teranet.ingest.IssueFlush")
+    @Label("Issue Flush")
+    @Description("Validation / transformation issues written for a batch (rows = issue rows)")
+    public static class IssueFlush extends StageEvent {
+        @Label("Source")
+        public String source;
+    }
+
+    @Name("teranet.ingest.SlowLoad")
+    @Label("Slow Load")
+    @Description("A file loaded below csv.processing.jfr-slow-load-rows-per-sec")
+    public static class SlowLoad extends StageEvent {
+        @Label("File Name")
+        public String fileName;
+
+        @Label("Rows per Second")
+        public double rowsPerSecond;
+
+        @Label("Snapshot")
+        public String snapshot;
+    }
+}
@@ -0,0 +1,147 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Splits a byte stream into chunks that always end on a line boundary.
+ *
+ * Used by the chunked-commit COPY mode:
+ * - Each chunk holds at most maxLines lines and stops growing once it
+ * reaches maxBytes
+ * - Lines are copied as raw bytes (no charset decode/encode round trip)
+ * - Running byte and line totals are the checkpoint written to the manifest
+ * after each committed chunk
+ *
+ * A final line without a trailing newline still counts as a line.
+ */
+public class LineChunkReader {
+
+    private static final int READ_BUFFER_SIZE = 65536;
+
+    private final InputStream in;
+    private final int maxLines;
+    private final long maxBytes;
+    private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(READ_BUFFER_SIZE);
+
+    private int pos = 0;
+    private int limit = 0;
+    private long linesRead = 0;
+    private long bytesRead = 0;
+    private int chunkLineCount = 0;
+
+    /**
+     * @param in       Source stream
+     * @param maxLines Maximum lines per chunk (0 or less = unlimited)
+     * @param maxBytes Size at which a chunk is closed (0 or less = unlimited)
+     */
+    public LineChunkReader(InputStream in, int maxLines, long maxBytes) {
+        this.in = in;
+        this.maxLines = maxLines;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Skip lines without buffering them (used for headers and resume).
+     *
+     * @param lines Number of lines to skip
+     * @return Number of lines actually skipped (less than requested at EOF)
+     */
+    public long skipLines(long lines) throws IOException {
+        OutputStream discard = OutputStream.nullOutputStream();
+        long skipped = 0;
+        while (skipped < lines) {
+            long length = copyLine(discard);
+            if (length < 0) {
+                break;
+            }
+            skipped++;
+            bytesRead += length;
+        }
+        linesRead += skipped;
+        return skipped;
+    }
+
+    /**
+     * Read the next chunk of whole lines.
+     *
+     * @return Chunk bytes, or null when the stream is exhausted
+     */
+    public byte[] nextChunk() throws IOException {
+        chunk.reset();
+        chunkLineCount = 0;
+
+        while ((maxLines <= 0 || chunkLineCount < maxLines)
+                && (maxBytes <= 0 || chunk.size() < maxBytes)) {
+            if (copyLine(chunk) < 0) {
+                break;
+            }
+            chunkLineCount++;
+        }
+
+        if (chunkLineCount == 0) {
+            return null;
+        }
+
+        linesRead += chunkLineCount;
+        bytesRead += chunk.size();
+        return chunk.toByteArray();
+    }
+
+    /**
+     * Copy one line (including its terminator) to the output.
+     *
+     * @return Number of bytes copied, or -1 at end of stream
+     */
+    private long copyLine(OutputStream out) throws IOException {
+        long copied = 0;
+        while (true) {
+            if (pos >= limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return copied > 0 ? copied : -1;
+                }
+            }
+
+            int start = pos;
+            while (pos < limit && buffer[pos] != '\n') {
+                pos++;
+            }
+
+            if (pos < limit) {
+                pos++; // include the newline
+                out.write(buffer, start, pos - start);
+                return copied + (pos - start);
+            }
+
+            out.write(buffer, start, pos - start);
+            copied += pos - start;
+        }
+    }
+
+    /**
+     * Lines consumed so far (skipped + chunked)
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Bytes consumed so far (skipped + chunked)
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Lines in the chunk last returned by {@link #nextChunk()}
+     */
+    public int getChunkLineCount() {
+        return chunkLineCount;
+    }
+}
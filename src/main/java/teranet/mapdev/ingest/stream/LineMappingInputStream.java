@@ -0,0 +1,90 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+/**
+ * InputStream that applies a line-level function as it is read.
+ * 
+ * Unlike TransformingInputStream this is pull-based: a line is only read
+ * from the source (and mapped) when the consumer asks for more bytes, so
+ * no background thread or buffer of the whole file is needed. Used to run
+ * streaming validation in front of COPY.
+ * 
+ * Each mapped line is emitted with a trailing '\n'. A mapper returning
+ * null drops the line.
+ */
+public class LineMappingInputStream extends InputStream {
+
+    private final BufferedReader reader;
+    private final UnaryOperator<String> mapper;
+
+    private byte[] current = new byte[0];
+    private int pos = 0;
+    private boolean eof = false;
+
+    public LineMappingInputStream(InputStream in, UnaryOperator<String> mapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Make sure there are unread bytes in the current line buffer
+     * 
+     * @return false once the source is exhausted
+     */
+    private boolean fill() throws IOException {
+        while (pos >= current.length) {
+            if (eof) {
+                return false;
+            }
+            String line = reader.readLine();
+            if (line == null) {
+                eof = true;
+                return false;
+            }
+            String mapped = mapper.apply(line);
+            if (mapped != null) {
+                current = (mapped + "\n").getBytes(StandardCharsets.UTF_8);
+                pos = 0;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,303 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses gzip with inflation off the reading thread.
+ *
+ * BGZF files (bgzip, and any multi-member gzip whose members carry the "BC"
+ * block-size extra field) are split into their members without inflating
+ * them; members are inflated on the given pool, up to parallelism at a time,
+ * and handed out in order.
+ *
+ * Any other gzip (single member, or members of unknown size) is inflated
+ * sequentially by a read-ahead thread that stays up to readAheadChunks chunks
+ * ahead of the consumer, so inflation overlaps with parsing and COPY. A file
+ * that starts as BGZF and continues otherwise switches to read-ahead there.
+ *
+ * Every member's CRC32 and size are verified as with {@link GZIPInputStream}.
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final byte[] END = new byte[0];
+
+    private static final int FIXED_HEADER = 12; // ID1 ID2 CM FLG MTIME(4) XFL OS XLEN(2)
+    private static final int FEXTRA = 4;
+
+    private final BufferedInputStream source;
+    private final ExecutorService pool;
+    private final int parallelism;
+    private final int readAheadChunks;
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private boolean sourceDone;
+    private int members;
+    private ReadAhead readAhead;
+
+    private byte[] current = END;
+    private int pos;
+    private boolean closed;
+
+    /**
+     * @param compressed      gzip content
+     * @param pool            Pool that inflates BGZF members
+     * @param parallelism     BGZF members inflated at a time
+     * @param readAheadChunks Chunks the read-ahead thread may be ahead by
+     */
+    public ParallelGzipInputStream(InputStream compressed, ExecutorService pool, int parallelism,
+            int readAheadChunks) {
+        this.source = new BufferedInputStream(compressed, 65536);
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+        this.readAheadChunks = Math.max(1, readAheadChunks);
+    }
+
+    /**
+     * Whether members are being inflated in parallel (false once read-ahead took over)
+     */
+    public boolean isParallel() {
+        return readAhead == null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (pos == current.length) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (readAhead == null) {
+            fillPending();
+            Future<byte[]> next = pending.poll();
+            if (next != null) {
+                current = await(next);
+                pos = 0;
+                return true;
+            }
+            if (readAhead == null) {
+                return false; // All members inflated
+            }
+        }
+        current = readAhead.take();
+        pos = 0;
+        return current != END;
+    }
+
+    /**
+     * Split off and submit members until parallelism are in flight
+     */
+    private void fillPending() throws IOException {
+        while (!sourceDone && readAhead == null && pending.size() < parallelism) {
+            byte[] member = nextBgzfMember();
+            if (member != null) {
+                try {
+                    pending.add(pool.submit(() -> inflate(member)));
+                } catch (RejectedExecutionException e) {
+                    pending.add(CompletableFuture.completedFuture(inflate(member))); // Pool shut down
+                }
+            }
+        }
+    }
+
+    /**
+     * The next member if its header declares its size, else null (end of
+     * input, or read-ahead started for the rest)
+     */
+    private byte[] nextBgzfMember() throws IOException {
+        source.mark(FIXED_HEADER + 65535);
+        byte[] header = source.readNBytes(FIXED_HEADER);
+        if (header.length == 0 || (members > 0 && !isGzipMagic(header))) {
+            sourceDone = true; // End of input (trailing garbage is ignored, as by GZIPInputStream)
+            return null;
+        }
+
+        if (header.length == FIXED_HEADER && isGzipMagic(header) && (header[3] & FEXTRA) != 0) {
+            int xlen = le16(header, 10);
+            byte[] extra = source.readNBytes(xlen);
+            int blockSize = extra.length == xlen ? bgzfBlockSize(extra) : -1;
+            if (blockSize > 0) {
+                if (blockSize < FIXED_HEADER + xlen + 8) {
+                    throw new IOException("Corrupt gzip member " + (members + 1) + ": block size " + blockSize);
+                }
+                byte[] member = new byte[blockSize];
+                System.arraycopy(header, 0, member, 0, FIXED_HEADER);
+                System.arraycopy(extra, 0, member, FIXED_HEADER, xlen);
+                int rest = blockSize - FIXED_HEADER - xlen;
+                if (source.readNBytes(member, FIXED_HEADER + xlen, rest) < rest) {
+                    throw new EOFException("Truncated gzip member " + (members + 1));
+                }
+                members++;
+                return member;
+            }
+        }
+
+        // Not BGZF - inflate the rest sequentially
+        source.reset();
+        sourceDone = true;
+        readAhead = new ReadAhead(new GZIPInputStream(source, 65536), readAheadChunks, pending);
+        return null;
+    }
+
+    private static boolean isGzipMagic(byte[] header) {
+        return header.length >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b;
+    }
+
+    /**
+     * BSIZE + 1 from the "BC" extra subfield, or -1
+     */
+    private static int bgzfBlockSize(byte[] extra) {
+        int i = 0;
+        while (i + 4 <= extra.length) {
+            int length = le16(extra, i + 2);
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && length == 2 && i + 6 <= extra.length) {
+                return le16(extra, i + 4) + 1;
+            }
+            i += 4 + length;
+        }
+        return -1;
+    }
+
+    private static int le16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static byte[] inflate(byte[] member) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(member), member.length)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<byte[]> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        if (readAhead != null) {
+            readAhead.stop();
+        }
+        source.close();
+    }
+
+    /**
+     * Inflates on its own thread into a bounded queue of chunks
+     */
+    private static class ReadAhead implements Runnable {
+        private final InputStream inflater;
+        private final BlockingQueue<byte[]> chunks;
+        private final Deque<Future<byte[]>> ahead; // parallel members still to hand out first
+        private final Thread thread;
+        private volatile IOException error;
+        private volatile boolean stopped;
+
+        ReadAhead(InputStream inflater, int capacity, Deque<Future<byte[]>> ahead) {
+            this.inflater = inflater;
+            this.chunks = new ArrayBlockingQueue<>(capacity);
+            this.ahead = ahead;
+            this.thread = new Thread(this, "gzip-read-ahead");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    byte[] chunk = inflater.readNBytes(CHUNK_SIZE);
+                    if (chunk.length == 0) {
+                        break;
+                    }
+                    chunks.put(chunk);
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    error = e;
+                }
+            } catch (InterruptedException e) {
+                return; // Stopped
+            }
+            try {
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                // Stopped
+            }
+        }
+
+        byte[] take() throws IOException {
+            if (!ahead.isEmpty()) {
+                return await(ahead.poll());
+            }
+            byte[] chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while inflating");
+            }
+            if (chunk == END) {
+                chunks.offer(END); // Further reads see the end too
+                if (error != null) {
+                    throw error;
+                }
+            }
+            return chunk;
+        }
+
+        void stop() {
+            stopped = true;
+            thread.interrupt();
+            chunks.clear();
+        }
+    }
+}
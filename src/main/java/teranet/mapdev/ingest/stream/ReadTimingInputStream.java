@@ -0,0 +1,60 @@
+package teranet.mapdev.ingest.stream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * FilterInputStream that adds up the time spent inside reads of the wrapped
+ * stream.
+ * 
+ * Wrapped around the source of a COPY, it tells how much of the load was
+ * spent waiting on the source (a slow upload client, the validation or
+ * transformation pipeline) rather than on the database, so that time can be
+ * left out of the adaptive concurrency limiter's latency sample.
+ */
+public class ReadTimingInputStream extends FilterInputStream {
+
+    private long readNanos = 0;
+
+    public ReadTimingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.read();
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.read(b, off, len);
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.skip(n);
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Milliseconds spent in reads and skips so far
+     */
+    public long getReadMillis() {
+        return readNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,102 @@
+package teranet.mapdev.ingest.stream;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Line mapper that prepends a row_number field to every data line.
+ *
+ * Numbers come from ranges reserved up front (see RowNumberAllocator): the
+ * first range is sized to the expected line count when it is known,
+ * otherwise ranges of blockSize are reserved as the stream is read. A line
+ * keeps the number of its position in the stream even when the upstream
+ * mapper (e.g. RowQuarantine) drops it, so a load's numbers follow its
+ * source lines and a quarantined row leaves a gap at its own line.
+ *
+ * The header line (if any) and empty lines are passed through unnumbered.
+ */
+public class RowNumberAssigner implements UnaryOperator<String> {
+
+    /**
+     * Source of reserved ranges
+     */
+    @FunctionalInterface
+    public interface RangeSource {
+        /**
+         * @return First number of a range of count consecutive numbers
+         */
+        long reserve(long count);
+    }
+
+    private final UnaryOperator<String> upstream;
+    private final RangeSource ranges;
+    private final String delimiter;
+    private final boolean hasHeaders;
+    private final long expectedLines;
+    private final int blockSize;
+
+    private long lineNumber = 0;
+    private long next = 0;
+    private long end = 0; // exclusive
+    private long firstNumber = 0;
+    private long reserved = 0;
+
+    /**
+     * @param upstream      Mapper applied to each line first (null = none)
+     * @param ranges        Where ranges are reserved
+     * @param delimiter     Field delimiter written after the number
+     * @param hasHeaders    Whether the first line is a header (passed through)
+     * @param expectedLines Data lines expected (0 = unknown)
+     * @param blockSize     Size of each further range
+     */
+    public RowNumberAssigner(UnaryOperator<String> upstream, RangeSource ranges, char delimiter,
+            boolean hasHeaders, long expectedLines, int blockSize) {
+        this.upstream = upstream;
+        this.ranges = ranges;
+        this.delimiter = String.valueOf(delimiter);
+        this.hasHeaders = hasHeaders;
+        this.expectedLines = expectedLines;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public String apply(String line) {
+        lineNumber++;
+        String mapped = upstream != null ? upstream.apply(line) : line;
+        if (hasHeaders && lineNumber == 1) {
+            return mapped;
+        }
+
+        long number = nextNumber();
+        if (mapped == null || mapped.isEmpty()) {
+            return mapped;
+        }
+        return number + delimiter + mapped;
+    }
+
+    private long nextNumber() {
+        if (next >= end) {
+            long count = reserved == 0 && expectedLines > 0 ? expectedLines : blockSize;
+            next = ranges.reserve(count);
+            end = next + count;
+            if (reserved == 0) {
+                firstNumber = next;
+            }
+            reserved += count;
+        }
+        return next++;
+    }
+
+    /**
+     * First number handed out (0 if no data line has been read)
+     */
+    public long getFirstNumber() {
+        return firstNumber;
+    }
+
+    /**
+     * Total numbers reserved so far
+     */
+    public long getReserved() {
+        return reserved;
+    }
+}
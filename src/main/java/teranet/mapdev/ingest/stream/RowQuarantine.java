@@ -0,0 +1,111 @@
+package teranet.mapdev.ingest.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Line filter that diverts rows COPY would reject.
+ *
+ * Runs as the last stage in front of COPY (after validation and
+ * transformation) via LineMappingInputStream. Rows failing the
+ * RowTypeChecker are dropped from the stream and kept as pending rejects
+ * until the caller persists them in the same transaction as the COPY.
+ *
+ * Line numbers are 1-based positions in the stream fed to COPY (the header
+ * line, if any, is line 1 and is passed through unchecked).
+ */
+public class RowQuarantine implements UnaryOperator<String> {
+
+    private final RowTypeChecker checker;
+    private final boolean hasHeaders;
+    private final int maxRejects;
+
+    private final List<RejectedRow> pending = new ArrayList<>();
+    private long lineNumber = 0;
+    private long rejectedCount = 0;
+
+    /**
+     * @param checker    Type checker for the COPY column list
+     * @param hasHeaders Whether the first line is a header (passed through)
+     * @param maxRejects Rejects tolerated before the whole load fails (negative = unlimited)
+     */
+    public RowQuarantine(RowTypeChecker checker, boolean hasHeaders, int maxRejects) {
+        this.checker = checker;
+        this.hasHeaders = hasHeaders;
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * @return The line unchanged, or null if it was quarantined
+     * @throws IllegalArgumentException once more than maxRejects rows have been quarantined
+     */
+    @Override
+    public String apply(String line) {
+        lineNumber++;
+        if (hasHeaders && lineNumber == 1) {
+            return line;
+        }
+
+        String reason = checker.check(line);
+        if (reason == null) {
+            return line;
+        }
+
+        rejectedCount++;
+        if (maxRejects >= 0 && rejectedCount > maxRejects) {
+            throw new IllegalArgumentException(String.format(
+                    "File rejected: more than %d invalid records (line %d: %s)", maxRejects, lineNumber, reason));
+        }
+
+        synchronized (pending) {
+            pending.add(new RejectedRow(lineNumber, reason, line));
+        }
+        return null;
+    }
+
+    /**
+     * Take the rejects recorded since the last call (to persist them)
+     */
+    public List<RejectedRow> drainPending() {
+        synchronized (pending) {
+            List<RejectedRow> drained = new ArrayList<>(pending);
+            pending.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Total rows quarantined so far
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * A quarantined line and why COPY would have rejected it
+     */
+    public static class RejectedRow {
+        private final long lineNumber;
+        private final String reason;
+        private final String rawLine;
+
+        public RejectedRow(long lineNumber, String reason, String rawLine) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.rawLine = rawLine;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String getRawLine() {
+            return rawLine;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package teranet.mapdev.ingest.stream;
+
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Types;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks whether a line would be accepted by COPY into the target columns.
+ *
+ * Mirrors the COPY options used by DelimitedFileProcessingService
+ * (FORMAT csv, NULL ''; TSV has quoting disabled):
+ * - Field count must match the COPY column list
+ * - NOT NULL columns must have a value
+ * - Character columns: length limit (excess trailing spaces are allowed,
+ * PostgreSQL truncates them)
+ * - Integer, numeric, floating point, boolean, date and timestamp values
+ * must parse and be in range
+ *
+ * Other types (text, uuid, json, ...) are not checked. The check is
+ * deliberately conservative for dates: ISO-style (YYYY-MM-DD or
+ * YYYY/MM/DD, optional time and zone) and YYYYMMDD are accepted, other
+ * layouts are reported.
+ *
+ * Not thread-safe (plain lines are split with a reused FieldIndex) - one
+ * checker per load.
+ */
+public class RowTypeChecker {
+
+    private static final Pattern DATE_TIME = Pattern.compile(
+            "(\\d{4})([-/])(\\d{1,2})\\2(\\d{1,2})"
+                    + "(?:[ T](\\d{1,2}):(\\d{2})(?::(\\d{2})(?:\\.\\d{1,6})?)?)?"
+                    + "\\s*(?:Z|[+-]\\d{2}(?::?\\d{2})?)?");
+
+    private static final Pattern COMPACT_DATE = Pattern.compile("(\\d{4})(\\d{2})(\\d{2})");
+
+    private static final Set<String> SPECIAL_DATE_VALUES = Set.of(
+            "infinity", "-infinity", "epoch", "now", "today", "tomorrow", "yesterday");
+
+    private static final Set<String> SPECIAL_FLOAT_VALUES = Set.of(
+            "nan", "infinity", "+infinity", "-infinity", "inf", "+inf", "-inf");
+
+    private final List<ColumnDefinition> columns;
+    private final char delimiter;
+    private final boolean quoted;
+    private final FieldIndex index;
+
+    /**
+     * @param columns   Column definitions in COPY column-list order (null entries are not checked)
+     * @param delimiter Field delimiter
+     * @param quoted    Whether fields may be double-quoted (CSV) - false for TSV
+     */
+    public RowTypeChecker(List<ColumnDefinition> columns, char delimiter, boolean quoted) {
+        this.columns = columns;
+        this.delimiter = delimiter;
+        this.quoted = quoted;
+        this.index = new FieldIndex(delimiter);
+    }
+
+    /**
+     * Check one line
+     *
+     * @param line Line without terminator
+     * @return Reason COPY would reject the line, or null if it looks loadable
+     */
+    public String check(String line) {
+        if (!quoted && index.reset(line).fieldCount() != columns.size()) {
+            // Wrong field count - reported without extracting any field
+            return String.format("Expected %d fields but found %d", columns.size(), index.fieldCount());
+        }
+
+        List<String> fields = quoted ? splitQuoted(line) : splitPlain();
+        if (fields == null) {
+            return "Unterminated quoted field";
+        }
+
+        if (fields.size() != columns.size()) {
+            return String.format("Expected %d fields but found %d", columns.size(), fields.size());
+        }
+
+        for (int i = 0; i < fields.size(); i++) {
+            ColumnDefinition column = columns.get(i);
+            if (column == null) {
+                continue;
+            }
+            String problem = checkValue(column, fields.get(i));
+            if (problem != null) {
+                return "Column " + column.getName() + ": " + problem;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check a single value (null = SQL NULL)
+     */
+    private String checkValue(ColumnDefinition column, String value) {
+        if (value == null) {
+            return column.isNullable() ? null : "NULL in NOT NULL column";
+        }
+
+        switch (column.getJdbcType()) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.NVARCHAR:
+            case Types.NCHAR:
+                return checkLength(value, column.getPrecision());
+            case Types.SMALLINT:
+                return checkInteger(value, Short.MIN_VALUE, Short.MAX_VALUE, "smallint");
+            case Types.INTEGER:
+                return checkInteger(value, Integer.MIN_VALUE, Integer.MAX_VALUE, "integer");
+            case Types.BIGINT:
+                return checkInteger(value, Long.MIN_VALUE, Long.MAX_VALUE, "bigint");
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return checkNumeric(value, column.getPrecision(), column.getScale());
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return checkFloat(value);
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return checkBoolean(value);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return checkDateTime(value, column.getTypeName());
+            default:
+                return null;
+        }
+    }
+
+    private String checkLength(String value, int maxLength) {
+        if (maxLength <= 0 || maxLength == Integer.MAX_VALUE) {
+            return null; // Unbounded (varchar without length, text)
+        }
+        int length = value.codePointCount(0, value.length());
+        if (length <= maxLength) {
+            return null;
+        }
+        // PostgreSQL silently truncates excess trailing spaces
+        int limitIndex = value.offsetByCodePoints(0, maxLength);
+        if (value.substring(limitIndex).chars().allMatch(c -> c == ' ')) {
+            return null;
+        }
+        return String.format("value too long (%d > %d)", length, maxLength);
+    }
+
+    private String checkInteger(String value, long min, long max, String typeName) {
+        String trimmed = value.trim();
+        try {
+            long parsed = Long.parseLong(trimmed);
+            if (parsed < min || parsed > max) {
+                return "value '" + abbreviate(value) + "' out of range for " + typeName;
+            }
+            return null;
+        } catch (NumberFormatException e) {
+            return "invalid " + typeName + " '" + abbreviate(value) + "'";
+        }
+    }
+
+    private String checkNumeric(String value, int precision, int scale) {
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("nan")) {
+            return null;
+        }
+        BigDecimal parsed;
+        try {
+            parsed = new BigDecimal(trimmed);
+        } catch (NumberFormatException e) {
+            return "invalid numeric '" + abbreviate(value) + "'";
+        }
+        // pgjdbc reports 0 (or 1000) for numeric without a declared precision
+        if (precision <= 0 || precision >= 1000) {
+            return null;
+        }
+        BigDecimal rounded = parsed.setScale(Math.max(scale, 0), RoundingMode.HALF_UP);
+        int integerDigits = rounded.precision() - rounded.scale();
+        if (integerDigits > precision - scale) {
+            return String.format("numeric '%s' exceeds precision %d, scale %d", abbreviate(value), precision, scale);
+        }
+        return null;
+    }
+
+    private String checkFloat(String value) {
+        String trimmed = value.trim();
+        if (SPECIAL_FLOAT_VALUES.contains(trimmed.toLowerCase())) {
+            return null;
+        }
+        // Reject Java-only syntax (hex, d/f suffixes) that Double.parseDouble would accept
+        if (!trimmed.matches("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?")) {
+            return "invalid floating point value '" + abbreviate(value) + "'";
+        }
+        return null;
+    }
+
+    private String checkBoolean(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.equals("1") || v.equals("0") || v.equals("on") || v.equals("off")
+                || (!v.isEmpty() && ("true".startsWith(v) || "false".startsWith(v)
+                        || "yes".startsWith(v) || "no".startsWith(v)))) {
+            return null;
+        }
+        return "invalid boolean '" + abbreviate(value) + "'";
+    }
+
+    private String checkDateTime(String value, String typeName) {
+        String trimmed = value.trim();
+        if (SPECIAL_DATE_VALUES.contains(trimmed.toLowerCase())) {
+            return null;
+        }
+
+        Matcher m = DATE_TIME.matcher(trimmed);
+        if (m.matches()) {
+            if (!validDate(m.group(1), m.group(3), m.group(4))) {
+                return "invalid " + typeName + " '" + abbreviate(value) + "'";
+            }
+            if (m.group(5) != null) {
+                int hour = Integer.parseInt(m.group(5));
+                int minute = Integer.parseInt(m.group(6));
+                int second = m.group(7) != null ? Integer.parseInt(m.group(7)) : 0;
+                if (hour > 24 || minute > 59 || second > 60
+                        || (hour == 24 && (minute > 0 || second > 0))) {
+                    return "invalid time in " + typeName + " '" + abbreviate(value) + "'";
+                }
+            }
+            return null;
+        }
+
+        m = COMPACT_DATE.matcher(trimmed);
+        if (m.matches() && validDate(m.group(1), m.group(2), m.group(3))) {
+            return null;
+        }
+
+        return "invalid " + typeName + " '" + abbreviate(value) + "'";
+    }
+
+    private boolean validDate(String yearText, String monthText, String dayText) {
+        int year = Integer.parseInt(yearText);
+        int month = Integer.parseInt(monthText);
+        int day = Integer.parseInt(dayText);
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= YearMonth.of(year, month).lengthOfMonth();
+    }
+
+    /**
+     * Fields of the line the index was reset to, with quoting disabled (TSV):
+     * empty field = NULL
+     */
+    private List<String> splitPlain() {
+        List<String> fields = new ArrayList<>(index.fieldCount());
+        for (int i = 0; i < index.fieldCount(); i++) {
+            fields.add(index.isEmpty(i) ? null : index.field(i));
+        }
+        return fields;
+    }
+
+    /**
+     * Split a CSV line: unquoted empty field = NULL, quoted "" = empty string
+     *
+     * @return Fields, or null if a quoted field is not terminated on this line
+     */
+    private List<String> splitQuoted(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                fields.add(wasQuoted ? field.toString() : nullIfEmpty(field.toString()));
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (inQuotes) {
+            return null;
+        }
+        fields.add(wasQuoted ? field.toString() : nullIfEmpty(field.toString()));
+        return fields;
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() <= 50 ? value : value.substring(0, 47) + "...";
+    }
+}
@@ -0,0 +1,247 @@
+package teranet.mapdev.ingest.stream;
+
+import teranet.mapdev.ingest.service.BufferPool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write-once, read-once holder for one file's content, bounded by the
+ * {@link BufferPool} memory budget.
+ *
+ * Content goes into pooled buffers while the pool has any to spare, and the
+ * rest into a temp file. {@link #toInputStream()} reads it back in order and
+ * hands each buffer back to the pool as soon as it has been read, so a
+ * consumer (COPY) frees budget progressively.
+ *
+ * Without a pool the content is kept in plain heap segments (no budget, no
+ * spilling) - the behaviour before the pool existed.
+ */
+public class SpillingBuffer extends OutputStream {
+
+    private static final int UNPOOLED_SEGMENT_SIZE = 65536;
+
+    private final BufferPool pool;
+    private final List<byte[]> segments = new ArrayList<>();
+    private int lastLength; // bytes used in the last segment
+    private long size;
+
+    private Path spillFile;
+    private OutputStream spillOut;
+    private long spilledBytes;
+
+    private boolean closed;
+    private boolean handedOff;
+    private boolean discarded;
+
+    /**
+     * @param pool Pool to draw buffers from (null = unbounded heap segments);
+     *             waits for the first buffer as the load's admission
+     */
+    public SpillingBuffer(BufferPool pool) {
+        this.pool = pool;
+        if (pool != null) {
+            try {
+                byte[] first = pool.acquire();
+                if (first != null) {
+                    segments.add(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Buffer already closed for writing");
+        }
+        size += len;
+        while (len > 0) {
+            if (spillOut != null) {
+                spillOut.write(b, off, len);
+                spilledBytes += len;
+                return;
+            }
+            if (segments.isEmpty() || lastLength == segments.get(segments.size() - 1).length) {
+                byte[] segment = pool != null ? pool.tryAcquire() : new byte[UNPOOLED_SEGMENT_SIZE];
+                if (segment == null) {
+                    startSpill();
+                    continue;
+                }
+                segments.add(segment);
+                lastLength = 0;
+            }
+            byte[] last = segments.get(segments.size() - 1);
+            int n = Math.min(len, last.length - lastLength);
+            System.arraycopy(b, off, last, lastLength, n);
+            lastLength += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void startSpill() throws IOException {
+        Path dir = pool.getSpillDirectory();
+        Files.createDirectories(dir);
+        spillFile = Files.createTempFile(dir, "buffer-", ".spill");
+        spillOut = new BufferedOutputStream(Files.newOutputStream(spillFile), UNPOOLED_SEGMENT_SIZE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spillOut != null) {
+            spillOut.flush();
+        }
+    }
+
+    /**
+     * Finish writing (the content can then be read back)
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (spillOut != null) {
+            spillOut.close();
+            pool.recordSpill(spilledBytes);
+        }
+    }
+
+    /**
+     * Total bytes written
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Bytes that went to disk because the budget was used up
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Read the content back; the stream owns the buffers from here on and
+     * releases them (and deletes any spill file) when read or closed
+     */
+    public InputStream toInputStream() throws IOException {
+        if (handedOff || discarded) {
+            throw new IllegalStateException("Buffer content already handed off or discarded");
+        }
+        close();
+        handedOff = true;
+        return new ContentStream();
+    }
+
+    /**
+     * Drop the content without reading it (no-op once handed off)
+     */
+    public void discard() {
+        if (handedOff || discarded) {
+            return;
+        }
+        discarded = true;
+        try {
+            close();
+        } catch (IOException e) {
+            // Content is being thrown away anyway
+        }
+        releaseAll();
+    }
+
+    private void releaseSegment(int index) {
+        byte[] segment = segments.set(index, null);
+        if (segment != null && pool != null) {
+            pool.release(segment);
+        }
+    }
+
+    private void releaseAll() {
+        for (int i = 0; i < segments.size(); i++) {
+            releaseSegment(i);
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                // Left for the temp directory cleanup
+            }
+        }
+    }
+
+    /**
+     * Segments in order, then the spill file (synchronized: a failed load may
+     * close it while a transformer thread is still reading)
+     */
+    private class ContentStream extends InputStream {
+        private int segmentIndex;
+        private int segmentPos;
+        private InputStream spillIn;
+        private boolean streamClosed;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (streamClosed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (segmentIndex < segments.size()) {
+                byte[] segment = segments.get(segmentIndex);
+                int limit = segmentIndex == segments.size() - 1 ? lastLength : segment.length;
+                if (segmentPos < limit) {
+                    int n = Math.min(len, limit - segmentPos);
+                    System.arraycopy(segment, segmentPos, b, off, n);
+                    segmentPos += n;
+                    return n;
+                }
+                releaseSegment(segmentIndex++);
+                segmentPos = 0;
+            }
+            if (spillFile == null) {
+                return -1;
+            }
+            if (spillIn == null) {
+                spillIn = new BufferedInputStream(Files.newInputStream(spillFile), UNPOOLED_SEGMENT_SIZE);
+            }
+            return spillIn.read(b, off, len);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (streamClosed) {
+                return;
+            }
+            streamClosed = true;
+            if (spillIn != null) {
+                spillIn.close();
+            }
+            releaseAll();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package teranet.mapdev.ingest.stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded audit of the lines a DataTransformer changed.
+ *
+ * Memory stays flat regardless of file size:
+ * - exact counts per kind of change (DataTransformer.describeChange)
+ * - a reservoir sample of at most sampleSize changed lines (Algorithm R:
+ * every changed line has the same chance of being kept)
+ * - optionally, every change streamed to a gzipped log on disk
+ *
+ * The log is one line per change in COPY text format (tab separated,
+ * backslash escaped): line_number, description, original_line,
+ * transformed_line - so it can be loaded with COPY if ever needed. A
+ * failure writing the log stops the log, never the load.
+ */
+@Slf4j
+public class TransformationAudit implements Closeable {
+
+    private final int sampleSize;
+    private Path logFile;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final List<Change> samples = new ArrayList<>();
+    private long changedLines = 0;
+    private long skippedLines = 0;
+    private BufferedWriter logWriter;
+
+    /**
+     * @param sampleSize Changed lines kept for the issue report (0 = counts only)
+     * @param logFile    Full change log (gzip), or null to disable
+     */
+    public TransformationAudit(int sampleSize, Path logFile) {
+        this.sampleSize = Math.max(0, sampleSize);
+        this.logFile = logFile;
+    }
+
+    /**
+     * Record a line the transformer changed
+     */
+    public synchronized void recordChange(long lineNumber, String description, String originalLine,
+            String transformedLine) {
+        changedLines++;
+        counts.merge(description, 1L, Long::sum);
+
+        if (samples.size() < sampleSize) {
+            samples.add(new Change(lineNumber, description, originalLine, transformedLine));
+        } else if (sampleSize > 0) {
+            long slot = random.nextLong(changedLines);
+            if (slot < sampleSize) {
+                samples.set((int) slot, new Change(lineNumber, description, originalLine, transformedLine));
+            }
+        }
+
+        if (logFile != null) {
+            try {
+                writeLog(lineNumber, description, originalLine, transformedLine);
+            } catch (IOException e) {
+                log.warn("Transformation log {} abandoned at line {}: {}", logFile, lineNumber, e.getMessage());
+                abandonLog();
+            }
+        }
+    }
+
+    /**
+     * Record a line the transformer dropped (returned null)
+     */
+    public synchronized void recordSkipped() {
+        skippedLines++;
+    }
+
+    private void writeLog(long lineNumber, String description, String originalLine, String transformedLine)
+            throws IOException {
+        if (logWriter == null) {
+            Files.createDirectories(logFile.toAbsolutePath().getParent());
+            logWriter = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(logFile), 65536), StandardCharsets.UTF_8));
+        }
+        logWriter.write(Long.toString(lineNumber));
+        logWriter.write('\t');
+        writeEscaped(description);
+        logWriter.write('\t');
+        writeEscaped(originalLine);
+        logWriter.write('\t');
+        writeEscaped(transformedLine);
+        logWriter.write('\n');
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> logWriter.write("\\\\");
+                case '\t' -> logWriter.write("\\t");
+                case '\n' -> logWriter.write("\\n");
+                case '\r' -> logWriter.write("\\r");
+                default -> logWriter.write(c);
+            }
+        }
+    }
+
+    /**
+     * Finish the change log (if any)
+     */
+    @Override
+    public synchronized void close() {
+        if (logWriter != null) {
+            try {
+                logWriter.close();
+                logWriter = null;
+            } catch (IOException e) {
+                log.warn("Failed to finish transformation log {}: {}", logFile, e.getMessage());
+                abandonLog();
+            }
+        }
+    }
+
+    private void abandonLog() {
+        try {
+            if (logWriter != null) {
+                logWriter.close();
+            }
+        } catch (IOException e) {
+            // already failing
+        }
+        try {
+            Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+            // best effort
+        }
+        logWriter = null;
+        logFile = null;
+    }
+
+    public synchronized long getChangedLines() {
+        return changedLines;
+    }
+
+    public synchronized long getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Exact number of changed lines per kind of change, in first-seen order
+     */
+    public synchronized Map<String, Long> getCounts() {
+        return new LinkedHashMap<>(counts);
+    }
+
+    /**
+     * Sampled changes in line order
+     */
+    public synchronized List<Change> getSamples() {
+        List<Change> sorted = new ArrayList<>(samples);
+        sorted.sort(Comparator.comparingLong(Change::getLineNumber));
+        return sorted;
+    }
+
+    /**
+     * Full change log, or null if disabled or nothing was changed
+     */
+    public synchronized Path getLogFile() {
+        return logFile != null && Files.exists(logFile) ? logFile : null;
+    }
+
+    /**
+     * A line changed by the transformer
+     */
+    public static class Change {
+        private final long lineNumber;
+        private final String description;
+        private final String originalLine;
+        private final String transformedLine;
+
+        public Change(long lineNumber, String description, String originalLine, String transformedLine) {
+            this.lineNumber = lineNumber;
+            this.description = description;
+            this.originalLine = originalLine;
+            this.transformedLine = transformedLine;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getOriginalLine() {
+            return originalLine;
+        }
+
+        public String getTransformedLine() {
+            return transformedLine;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package teranet.mapdev.ingest.stream;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import teranet.mapdev.ingest.transformer.DataTransformer;
 import teranet.mapdev.ingest.model.FileValidationIssue;
@@ -8,9 +7,11 @@ import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * FilterInputStream that applies DataTransformer to each line.
@@ -22,6 +23,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * - Pipes the output back as readable input
  * 
  * The transformation happens in a background thread to avoid blocking.
+ * 
+ * Changed lines go to a TransformationAudit (counts, a bounded sample and an
+ * optional log on disk), so memory does not grow with the number of changes.
  */
 @Slf4j
 public class TransformingInputStream extends FilterInputStream {
@@ -29,7 +33,8 @@ public class TransformingInputStream extends FilterInputStream {
     private final PipedInputStream pipedInput;
     private final Thread transformThread;
     private volatile IOException transformException;
-    private final List<TransformationRecord> transformations = new CopyOnWriteArrayList<>();
+    private final TransformationAudit audit;
+    private final String transformerName;
     private final String filePattern;
     private final UUID batchId;
     private final FileValidationIssueRepository issueRepository;
@@ -42,12 +47,16 @@ public class TransformingInputStream extends FilterInputStream {
      * @param filePattern The file pattern being processed
      * @param batchId The batch ID for tracking
      * @param issueRepository Repository to save transformation issues
+     * @param audit Sink for the changed lines
      * @throws IOException If piping cannot be established
      */
     public TransformingInputStream(InputStream in, DataTransformer transformer, String filePattern,
-                        UUID batchId, FileValidationIssueRepository issueRepository) throws IOException {
+                        UUID batchId, FileValidationIssueRepository issueRepository,
+                        TransformationAudit audit) throws IOException {
         super(in);
         
+        this.audit = audit;
+        this.transformerName = transformer.getClass().getSimpleName();
         this.filePattern = filePattern;
         this.batchId = batchId;
         this.issueRepository = issueRepository;
@@ -57,7 +66,7 @@ public class TransformingInputStream extends FilterInputStream {
         
         // Start transformation in background thread
         this.transformThread = new Thread(() -> transformData(in, pipedOutput, transformer));
-        this.transformThread.setName("DataTransformer-" + transformer.getClass().getSimpleName());
+        this.transformThread.setName("DataTransformer-" + transformerName);
         this.transformThread.setDaemon(true);
         this.transformThread.start();
     }
@@ -71,25 +80,39 @@ public class TransformingInputStream extends FilterInputStream {
             
             String line;
             long lineNumber = 0;
+            String delimiter = transformer.getDelimiter();
+            FieldIndex fields = new FieldIndex(delimiter != null && delimiter.length() == 1 ? delimiter.charAt(0) : '\t');
+            IngestEvents.TransformChunk chunkEvent = null;
             
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
+                if (chunkEvent == null) {
+                    chunkEvent = new IngestEvents.TransformChunk();
+                    chunkEvent.start(batchId, filePattern);
+                    chunkEvent.transformer = transformerName;
+                }
+                long started = chunkEvent.lineStart();
                 
                 try {
                     // Transform the line
-                    String transformedLine = transformer.transformLine(line, lineNumber);
+                    String transformedLine = transformer.transformLine(line, fields.reset(line), lineNumber);
                     
                     // Skip line if transformer returns null
                     if (transformedLine == null) {
                         log.debug("Line {} skipped by transformer", lineNumber);
+                        audit.recordSkipped();
+                        chunkEvent.addLine(line.length(), started);
                         continue;
                     }
                     
                     // Track transformation if line was actually changed
                     if (!line.equals(transformedLine)) {
-                        transformations.add(new TransformationRecord(lineNumber, line, transformedLine));
+                        audit.recordChange(lineNumber, transformer.describeChange(line, transformedLine),
+                                line, transformedLine);
                     }
                     
+                    chunkEvent.addLine(line.length(), started);
+
                     // Write transformed line
                     writer.write(transformedLine);
                     writer.newLine();
@@ -97,56 +120,92 @@ public class TransformingInputStream extends FilterInputStream {
                 } catch (Exception e) {
                     log.error("Error transforming line {}: {}", lineNumber, e.getMessage(), e);
                     // Write original line on error
+                    chunkEvent.addLine(line.length(), started);
                     writer.write(line);
                     writer.newLine();
                 }
+
+                if (chunkEvent.isChunkFull()) {
+                    chunkEvent.commit();
+                    chunkEvent = null;
+                }
+            }
+            if (chunkEvent != null) {
+                chunkEvent.commitIfAny();
             }
             
+            // Flush the change log before it is referenced in the issues
+            audit.close();
+
             log.debug("Transformation completed. Processed {} lines, {} transformations applied", 
-                     lineNumber, transformations.size());
+                     lineNumber, audit.getChangedLines());
             
             // Save transformations to database after processing completes
-            if (!transformations.isEmpty() && issueRepository != null) {
+            if (audit.getChangedLines() > 0 && issueRepository != null) {
                 saveTransformationIssues();
             }
             
         } catch (IOException e) {
             log.error("Error during data transformation", e);
             this.transformException = e;
+            audit.close();
         }
     }
     
     /**
      * Save transformation issues to database
+     * 
+     * One file-level issue (line 0) per kind of change with its exact count,
+     * plus one issue per sampled line.
      */
     private void saveTransformationIssues() {
         try {
-            // Use parallel stream with map to leverage multiple CPUs
-            List<FileValidationIssue> issues = transformations.parallelStream()
-                .map(record -> {
-                    FileValidationIssue issue = new FileValidationIssue();
-                    issue.setBatchId(batchId);
-                    issue.setFileName(filePattern);
-                    issue.setLineNumber(record.lineNumber);
-                    issue.setIssueType(FileValidationIssue.IssueType.DATA_TRANSFORMATION);
-                    issue.setSeverity(FileValidationIssue.Severity.WARNING);
-                    issue.setAutoFixed(true);
-                    issue.setOriginalLine(record.originalLine);
-                    issue.setCorrectedLine(record.transformedLine);
-                    issue.setFixDescription("Applied data transformation (empty PIN fix)");
-                    issue.setDescription("Empty PIN value '0000' inserted");
-                    return issue;
-                })
-                .toList();
-            
+            List<FileValidationIssue> issues = new ArrayList<>();
+            Path logFile = audit.getLogFile();
+            IngestEvents.IssueFlush flush = new IngestEvents.IssueFlush();
+            flush.start(batchId, filePattern);
+            flush.source = "transformation";
+
+            for (Map.Entry<String, Long> count : audit.getCounts().entrySet()) {
+                FileValidationIssue issue = newIssue(0L, count.getKey());
+                issue.setSeverity(FileValidationIssue.Severity.INFO);
+                issue.setActualValue(String.valueOf(count.getValue()));
+                issue.setDescription(String.format("%s: %d lines%s", count.getKey(), count.getValue(),
+                        logFile != null ? " (all changes logged to " + logFile + ")" : ""));
+                issues.add(issue);
+            }
+
+            for (TransformationAudit.Change change : audit.getSamples()) {
+                FileValidationIssue issue = newIssue(change.getLineNumber(), change.getDescription());
+                issue.setOriginalLine(change.getOriginalLine());
+                issue.setCorrectedLine(change.getTransformedLine());
+                issue.setDescription(change.getDescription());
+                issues.add(issue);
+            }
+
             issueRepository.saveAll(issues);
-            log.info("{} transformation issues saved for batch {}", issues.size(), batchId);
+            flush.add(0, issues.size());
+            flush.commit();
+            log.info("{} transformed lines for batch {}: {} ({} sample lines saved)",
+                    audit.getChangedLines(), batchId, audit.getCounts(), audit.getSamples().size());
             
         } catch (Exception e) {
             log.error("Error saving transformation issues for batch {}", batchId, e);
             // Don't throw - transformation already happened, just logging failed
         }
     }
+
+    private FileValidationIssue newIssue(long lineNumber, String fixDescription) {
+        FileValidationIssue issue = new FileValidationIssue();
+        issue.setBatchId(batchId);
+        issue.setFileName(filePattern);
+        issue.setLineNumber(lineNumber);
+        issue.setIssueType(FileValidationIssue.IssueType.DATA_TRANSFORMATION);
+        issue.setSeverity(FileValidationIssue.Severity.WARNING);
+        issue.setAutoFixed(true);
+        issue.setFixDescription("Applied data transformation (" + transformerName + "): " + fixDescription);
+        return issue;
+    }
     
     @Override
     public int read() throws IOException {
@@ -198,15 +257,5 @@ public class TransformingInputStream extends FilterInputStream {
             throw new IOException("Error during data transformation", transformException);
         }
     }
-
-    /**
-    * Record of a transformation that was applied
-    */
-    @AllArgsConstructor
-    public static class TransformationRecord {
-        public final long lineNumber;
-        public final String originalLine;
-        public final String transformedLine;
-    }
     
 }
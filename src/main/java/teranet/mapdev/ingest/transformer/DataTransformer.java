@@ -1,5 +1,7 @@
 package teranet.mapdev.ingest.transformer;
 
+import teranet.mapdev.ingest.stream.FieldIndex;
+
 /**
  * Interface for implementing custom data transformations per file type.
  * 
@@ -33,6 +35,36 @@ public interface DataTransformer {
      */
     String transformLine(String line, long lineNumber);
     
+    /**
+     * Transform a line whose field offsets are already indexed.
+     * 
+     * Called by the transformation stream, which reuses one FieldIndex for
+     * every line. Override to address fields by offset instead of splitting
+     * the line again; the default ignores the index.
+     * 
+     * @param line The original line from the file
+     * @param fields Index of the line's fields (parsed on first use, valid for this call only)
+     * @param lineNumber The line number (1-based, excluding headers)
+     * @return The transformed line, or null to skip this line
+     */
+    default String transformLine(String line, FieldIndex fields, long lineNumber) {
+        return transformLine(line, lineNumber);
+    }
+    
+    /**
+     * Describe what was done to a line that transformLine() changed.
+     * 
+     * Used as the key for the per-change counts in the transformation audit,
+     * so return one of a small, fixed set of descriptions (not line values).
+     * 
+     * @param originalLine The line before transformation
+     * @param transformedLine The line after transformation
+     * @return Short description of the change
+     */
+    default String describeChange(String originalLine, String transformedLine) {
+        return "Data transformation applied";
+    }
+    
     /**
      * Check if this transformer actually needs to modify data.
      * 
@@ -1,6 +1,7 @@
 package teranet.mapdev.ingest.transformer;
 
 import lombok.extern.slf4j.Slf4j;
+import teranet.mapdev.ingest.stream.FieldIndex;
 
 /**
  * Data transformer for IM2 files (TRAILING_NULLCOLS format).
@@ -34,34 +35,54 @@ public class IM2Transformer implements DataTransformer {
 
     @Override
     public String transformLine(String line, long lineNumber) {
+        return transformLine(line, new FieldIndex().reset(line), lineNumber);
+    }
+
+    /**
+     * Same result as split / trim / join, but fields are trimmed by offset and
+     * a new line is only built from the first field that changes (the line
+     * itself is returned when nothing does)
+     */
+    @Override
+    public String transformLine(String line, FieldIndex fields, long lineNumber) {
         if (line == null || line.isEmpty()) {
             return line;
         }
 
         try {
-            // Split by tab, preserving empty fields
-            String[] fields = line.split("\t", -1);
-
-            // Trim all fields
-            for (int i = 0; i < fields.length; i++) {
-                fields[i] = fields[i].trim();
-            }
+            StringBuilder result = null;
+            for (int i = 0; i < fields.fieldCount(); i++) {
+                int start = fields.start(i);
+                int end = fields.end(i);
 
-            // Transform PARTY_B_DAY field
-            if (fields.length > PARTY_B_DAY_INDEX) {
-                String dateValue = fields[PARTY_B_DAY_INDEX];
+                // Trim the field (same characters as String.trim())
+                int from = start;
+                int to = end;
+                while (from < to && line.charAt(from) <= ' ') {
+                    from++;
+                }
+                while (to > from && line.charAt(to - 1) <= ' ') {
+                    to--;
+                }
 
                 // Convert invalid dates to NULL (empty string for PostgreSQL COPY)
-                if (INVALID_DATE_MARKER.equals(dateValue) || dateValue.isEmpty()) {
-                    fields[PARTY_B_DAY_INDEX] = ""; // PostgreSQL NULL
-                    log.debug("Line {}: Converted invalid date '{}' to NULL", lineNumber, dateValue);
+                if (i == PARTY_B_DAY_INDEX && to - from == INVALID_DATE_MARKER.length()
+                        && line.regionMatches(from, INVALID_DATE_MARKER, 0, INVALID_DATE_MARKER.length())) {
+                    from = to; // PostgreSQL NULL
+                    log.debug("Line {}: Converted invalid date '{}' to NULL", lineNumber, INVALID_DATE_MARKER);
                 }
                 // Valid dates in YYYY/MM/DD format are PostgreSQL-compatible, no conversion
                 // needed
-            }
 
-            // Rejoin with tabs
-            return String.join("\t", fields);
+                if (result != null) {
+                    result.append('\t').append(line, from, to);
+                } else if (from != start || to != end) {
+                    // First changed field - copy everything before it unchanged
+                    result = new StringBuilder(line.length());
+                    result.append(line, 0, start).append(line, from, to);
+                }
+            }
+            return result == null ? line : result.toString();
 
         } catch (Exception e) {
             log.error("Error transforming IM2 line {}: {}", lineNumber, e.getMessage(), e);
@@ -70,6 +91,24 @@ public class IM2Transformer implements DataTransformer {
         }
     }
 
+    @Override
+    public String describeChange(String originalLine, String transformedLine) {
+        // Locate PARTY_B_DAY without splitting the whole line
+        int start = 0;
+        for (int i = 0; i < PARTY_B_DAY_INDEX && start >= 0; i++) {
+            start = originalLine.indexOf('\t', start);
+            start = start < 0 ? -1 : start + 1;
+        }
+        if (start >= 0) {
+            int end = originalLine.indexOf('\t', start);
+            String dateValue = originalLine.substring(start, end < 0 ? originalLine.length() : end).trim();
+            if (INVALID_DATE_MARKER.equals(dateValue)) {
+                return "PARTY_B_DAY '" + INVALID_DATE_MARKER + "' converted to NULL";
+            }
+        }
+        return "Fields trimmed";
+    }
+
     @Override
     public boolean requiresTransformation() {
         return true;
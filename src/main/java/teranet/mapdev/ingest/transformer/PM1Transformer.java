@@ -36,6 +36,11 @@ public class PM1Transformer implements DataTransformer {
         return PMTransformerUtils.fixEmptyPinControlCharCheck(line, lineNumber, MIN_LINE_LENGTH, "PM1");
     }
 
+    @Override
+    public String describeChange(String originalLine, String transformedLine) {
+        return PMTransformerUtils.EMPTY_PIN_FIX;
+    }
+
     @Override
     public boolean requiresTransformation() {
         return true;
@@ -39,6 +39,11 @@ public class PM2Transformer implements DataTransformer {
         return PMTransformerUtils.fixEmptyPinNonDigitCheck(line, lineNumber, MIN_LINE_LENGTH, "PM2");
     }
 
+    @Override
+    public String describeChange(String originalLine, String transformedLine) {
+        return PMTransformerUtils.EMPTY_PIN_FIX;
+    }
+
     @Override
     public boolean requiresTransformation() {
         return true;
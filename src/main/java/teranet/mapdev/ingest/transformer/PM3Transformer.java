@@ -27,6 +27,11 @@ public class PM3Transformer implements DataTransformer {
         return PMTransformerUtils.fixEmptyPinControlCharCheck(line, lineNumber, MIN_LINE_LENGTH, "PM3");
     }
 
+    @Override
+    public String describeChange(String originalLine, String transformedLine) {
+        return PMTransformerUtils.EMPTY_PIN_FIX;
+    }
+
     @Override
     public boolean requiresTransformation() {
         return true;
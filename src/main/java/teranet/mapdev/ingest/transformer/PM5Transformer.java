@@ -27,6 +27,11 @@ public class PM5Transformer implements DataTransformer {
         return PMTransformerUtils.fixEmptyPinNonDigitCheck(line, lineNumber, MIN_LINE_LENGTH, "PM5");
     }
 
+    @Override
+    public String describeChange(String originalLine, String transformedLine) {
+        return PMTransformerUtils.EMPTY_PIN_FIX;
+    }
+
     @Override
     public boolean requiresTransformation() {
         return true;
@@ -22,6 +22,9 @@ public class PMTransformerUtils {
     private static final String EMPTY_PIN_VALUE = "0000";
     private static final int SUBSTRING_START_INDEX = 10;
 
+    /** Change description reported by every PM transformer (they only fix empty PINs) */
+    public static final String EMPTY_PIN_FIX = "Empty PIN value '0000' inserted";
+
     /**
      * Strategy 1: Insert "0000" when control character is detected at position 6.
      * Used by: PM1, PM3
@@ -53,7 +53,22 @@ public class FileValidationUtil {
      * @throws IllegalArgumentException if file extension is not allowed
      */
     public static void validateFileExtension(MultipartFile file, String... allowedExtensions) {
-        String filename = validateAndGetFilename(file);
+        validateFileExtension(validateAndGetFilename(file), allowedExtensions);
+    }
+
+    /**
+     * Validates that a filename has one of the allowed extensions.
+     * Used for streamed uploads, where no MultipartFile exists.
+     * 
+     * @param filename          the filename to validate
+     * @param allowedExtensions allowed file extensions (without dot, e.g., "csv",
+     *                          "zip", or "" for no extension)
+     * @throws IllegalArgumentException if filename is blank or extension is not allowed
+     */
+    public static void validateFileExtension(String filename, String... allowedExtensions) {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid filename");
+        }
         String lowerCaseFilename = filename.toLowerCase();
 
         // Check if filename has no extension
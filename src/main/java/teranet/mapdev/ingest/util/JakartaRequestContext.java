@@ -0,0 +1,48 @@
+package teranet.mapdev.ingest.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload.UploadContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adapts a jakarta.servlet request to commons-fileupload's UploadContext.
+ * 
+ * commons-fileupload 1.x only ships a javax.servlet adapter
+ * (ServletRequestContext), which cannot be used with Spring Boot 3.
+ */
+public class JakartaRequestContext implements UploadContext {
+
+    private final HttpServletRequest request;
+
+    public JakartaRequestContext(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return request.getCharacterEncoding();
+    }
+
+    @Override
+    public String getContentType() {
+        return request.getContentType();
+    }
+
+    @Override
+    @Deprecated
+    public int getContentLength() {
+        return request.getContentLength();
+    }
+
+    @Override
+    public long contentLength() {
+        return request.getContentLengthLong();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return request.getInputStream();
+    }
+}
@@ -0,0 +1,116 @@
+package teranet.mapdev.ingest.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Run-length encoded set of line numbers, e.g. "2-4180,4182,4190-5000"
+ *
+ * Lines are added in ascending order (as a file is read), so a finding that
+ * affects every line of a file costs one range whatever the file size.
+ */
+public class LineRanges {
+
+    private final StringBuilder encoded = new StringBuilder();
+    private long firstLine = -1;
+    private long rangeStart = -1;
+    private long rangeEnd = -1;
+    private long count = 0;
+
+    /**
+     * Add a line number (greater than any added before; repeats are ignored)
+     */
+    public void add(long lineNumber) {
+        if (count > 0 && lineNumber <= rangeEnd) {
+            return;
+        }
+        count++;
+
+        if (firstLine < 0) {
+            firstLine = lineNumber;
+            rangeStart = lineNumber;
+        } else if (lineNumber != rangeEnd + 1) {
+            appendRange();
+            rangeStart = lineNumber;
+        }
+        rangeEnd = lineNumber;
+    }
+
+    public long getFirstLine() {
+        return firstLine;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The encoded ranges, or null if there is at most one line
+     */
+    public String encode() {
+        if (count <= 1) {
+            return null;
+        }
+        int length = encoded.length();
+        appendRange();
+        String result = encoded.toString();
+        encoded.setLength(length);
+        return result;
+    }
+
+    private void appendRange() {
+        if (encoded.length() > 0) {
+            encoded.append(',');
+        }
+        encoded.append(rangeStart);
+        if (rangeEnd != rangeStart) {
+            encoded.append('-').append(rangeEnd);
+        }
+    }
+
+    /**
+     * Call action for every line in an encoded set, in ascending order
+     *
+     * @param encoded   Ranges as produced by encode()
+     * @param firstLine Line used when encoded is null (single-line set)
+     */
+    public static void forEach(String encoded, long firstLine, LongConsumer action) {
+        if (encoded == null || encoded.isEmpty()) {
+            action.accept(firstLine);
+            return;
+        }
+        for (String range : encoded.split(",")) {
+            int dash = range.indexOf('-');
+            long start = Long.parseLong(range.substring(0, dash < 0 ? range.length() : dash));
+            long end = dash < 0 ? start : Long.parseLong(range.substring(dash + 1));
+            for (long line = start; line <= end; line++) {
+                action.accept(line);
+            }
+        }
+    }
+
+    /**
+     * Up to max lines of an encoded set, starting at fromLine, in ascending order
+     *
+     * Ranges entirely before fromLine are skipped without being expanded.
+     */
+    public static long[] linesFrom(String encoded, long firstLine, long fromLine, int max) {
+        if (encoded == null || encoded.isEmpty()) {
+            return firstLine >= fromLine && max > 0 ? new long[] { firstLine } : new long[0];
+        }
+        long[] lines = new long[Math.max(0, max)];
+        int n = 0;
+        for (String range : encoded.split(",")) {
+            if (n == lines.length) {
+                break;
+            }
+            int dash = range.indexOf('-');
+            long start = Long.parseLong(range.substring(0, dash < 0 ? range.length() : dash));
+            long end = dash < 0 ? start : Long.parseLong(range.substring(dash + 1));
+            for (long line = Math.max(start, fromLine); line <= end && n < lines.length; line++) {
+                lines[n++] = line;
+            }
+        }
+        return n == lines.length ? lines : Arrays.copyOf(lines, n);
+    }
+}
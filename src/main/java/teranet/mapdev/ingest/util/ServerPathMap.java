@@ -0,0 +1,53 @@
+package teranet.mapdev.ingest.util;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translates local file paths to the paths the database server sees for the
+ * same files (csv.processing.server-side-copy-path-map)
+ *
+ * The map is a comma-separated list of local-prefix=server-prefix entries,
+ * e.g. "/mnt/ingest=/var/lib/postgresql/ingest"; the first entry whose prefix
+ * covers the path wins. An empty map means the loader and the database see the
+ * same paths.
+ */
+public class ServerPathMap {
+
+    private final Map<String, String> prefixes = new LinkedHashMap<>();
+
+    public ServerPathMap(String pathMap) {
+        if (pathMap == null) {
+            return;
+        }
+        for (String entry : pathMap.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                prefixes.put(trimSlash(entry.substring(0, separator).trim()),
+                        trimSlash(entry.substring(separator + 1).trim()));
+            }
+        }
+    }
+
+    /**
+     * @return The server path of a local file, or null if no entry covers it
+     */
+    public String toServerPath(Path localFile) {
+        String local = localFile.toAbsolutePath().normalize().toString().replace('\\', '/');
+        if (prefixes.isEmpty()) {
+            return local;
+        }
+        for (Map.Entry<String, String> entry : prefixes.entrySet()) {
+            String prefix = entry.getKey();
+            if (local.startsWith(prefix + "/")) {
+                return entry.getValue() + local.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    private static String trimSlash(String prefix) {
+        return prefix.length() > 1 && prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+    }
+}
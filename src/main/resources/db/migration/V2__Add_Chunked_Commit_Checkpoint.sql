@@ -0,0 +1,15 @@
+-- =====================================================
+-- CHUNKED COMMIT CHECKPOINT
+-- =====================================================
+-- Chunked-commit COPY mode (csv.processing.chunked-commit-enabled)
+-- commits every N rows / MB and records how far the load got so the
+-- watch folder can resume a WIP file after a crash or restart.
+--
+-- committed_line_number / committed_byte_offset are offsets into the
+-- validated + transformed stream that is fed to COPY (header included).
+
+ALTER TABLE title_d_app.ingestion_manifest
+ADD COLUMN IF NOT EXISTS committed_line_number BIGINT,
+ADD COLUMN IF NOT EXISTS committed_byte_offset BIGINT,
+ADD COLUMN IF NOT EXISTS last_checkpoint_at TIMESTAMP WITH TIME ZONE;
+
@@ -0,0 +1,19 @@
+-- =====================================================
+-- CHECKSUM IDEMPOTENCY INDEX
+-- =====================================================
+-- Duplicate detection looks up the latest COMPLETED manifest for a file
+-- checksum (file_checksum = ? AND status = ? ORDER BY created_at DESC
+-- LIMIT 1). The composite index answers it with a single index probe
+-- instead of filtering and sorting every manifest with that checksum.
+--
+-- Most lookups never reach the database: IngestionManifestService keeps
+-- an in-memory Bloom filter of COMPLETED checksums and only confirms
+-- possible matches here.
+--
+-- The leading file_checksum column also serves checksum-only lookups, so
+-- the single-column index is dropped.
+
+CREATE INDEX IF NOT EXISTS idx_manifest_checksum_status_created
+    ON title_d_app.ingestion_manifest(file_checksum, status, created_at DESC);
+
+DROP INDEX IF EXISTS title_d_app.idx_manifest_checksum;
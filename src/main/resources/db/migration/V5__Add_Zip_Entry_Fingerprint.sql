@@ -0,0 +1,14 @@
+-- =====================================================
+-- ZIP ENTRY FINGERPRINT
+-- =====================================================
+-- CRC32 of a file loaded from a ZIP, as recorded in the archive's central
+-- directory. With file_size_bytes it fingerprints the content without
+-- inflating it: when a re-sent ZIP contains an entry whose (CRC32, size)
+-- matches a COMPLETED file, only that entry is hashed to confirm the
+-- duplicate, and it is never extracted or loaded again.
+
+ALTER TABLE title_d_app.ingestion_manifest
+ADD COLUMN IF NOT EXISTS content_crc32 BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_manifest_crc_size
+    ON title_d_app.ingestion_manifest(content_crc32, file_size_bytes);
@@ -0,0 +1,137 @@
+-- =====================================================
+-- MONTHLY PARTITIONS ON CREATED_AT
+-- =====================================================
+-- ingestion_manifest, file_validation_issues and file_validation_lines
+-- become RANGE partitioned by created_at, one partition per month
+-- (<table>_pYYYYMM) plus a DEFAULT partition that only catches rows no
+-- monthly partition covers.
+--
+-- Each month has its own, small indexes, and old data is removed by
+-- dropping whole partitions (PartitionMaintenanceService, which also
+-- creates the partitions for the coming months) instead of DELETEs.
+--
+-- A partitioned table's unique constraints must include the partition
+-- key, so the primary keys become (id, created_at) and the manifest's
+-- batch_id uniqueness becomes (batch_id, created_at). id values still
+-- come from the existing sequences and batch_id from gen_random_uuid() /
+-- UUID.randomUUID(), so both stay unique in practice.
+--
+-- Queries by created_at are pruned to the matching partitions. Lookups
+-- by batch_id / checksum probe each partition's index, and the
+-- "latest manifest" lookups (ORDER BY created_at DESC LIMIT 1) read the
+-- partitions newest first and stop at the first match.
+
+-- -----------------------------------------------------
+-- Monthly partitions for a parent table, from the month of its oldest
+-- row (or the current month) to three months ahead
+-- -----------------------------------------------------
+CREATE OR REPLACE FUNCTION title_d_app.create_monthly_partitions(parent TEXT, first_month DATE)
+RETURNS VOID AS $$
+DECLARE
+    part_month DATE := date_trunc('month', COALESCE(first_month, CURRENT_DATE))::date;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE part_month <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS title_d_app.%I PARTITION OF title_d_app.%I FOR VALUES FROM (%L) TO (%L)',
+                parent || '_p' || to_char(part_month, 'YYYYMM'), parent, part_month, (part_month + INTERVAL '1 month')::date);
+        part_month := (part_month + INTERVAL '1 month')::date;
+    END LOOP;
+    EXECUTE format('CREATE TABLE IF NOT EXISTS title_d_app.%I PARTITION OF title_d_app.%I DEFAULT',
+            parent || '_default', parent);
+END;
+$$ LANGUAGE plpgsql;
+
+-- =====================================================
+-- INGESTION MANIFEST
+-- =====================================================
+
+ALTER TABLE title_d_app.ingestion_manifest RENAME TO ingestion_manifest_unpartitioned;
+ALTER TABLE title_d_app.ingestion_manifest_unpartitioned RENAME CONSTRAINT ingestion_manifest_pkey TO ingestion_manifest_unpartitioned_pkey;
+
+UPDATE title_d_app.ingestion_manifest_unpartitioned
+SET created_at = COALESCE(started_at, updated_at, CURRENT_TIMESTAMP)
+WHERE created_at IS NULL;
+
+CREATE TABLE title_d_app.ingestion_manifest (
+    LIKE title_d_app.ingestion_manifest_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING COMMENTS,
+    CONSTRAINT ingestion_manifest_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_manifest_batch_id UNIQUE (batch_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE title_d_app.ingestion_manifest_id_seq OWNED BY title_d_app.ingestion_manifest.id;
+
+SELECT title_d_app.create_monthly_partitions('ingestion_manifest',
+        (SELECT MIN(created_at)::date FROM title_d_app.ingestion_manifest_unpartitioned));
+
+INSERT INTO title_d_app.ingestion_manifest SELECT * FROM title_d_app.ingestion_manifest_unpartitioned;
+
+DROP TABLE title_d_app.ingestion_manifest_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS idx_manifest_batch_id ON title_d_app.ingestion_manifest(batch_id);
+CREATE INDEX IF NOT EXISTS idx_manifest_status ON title_d_app.ingestion_manifest(status);
+CREATE INDEX IF NOT EXISTS idx_manifest_data_quality ON title_d_app.ingestion_manifest(data_quality_status, created_at);
+CREATE INDEX IF NOT EXISTS idx_manifest_quality_metrics ON title_d_app.ingestion_manifest(file_name, created_at, data_quality_status);
+CREATE INDEX IF NOT EXISTS idx_manifest_checksum_status_created
+    ON title_d_app.ingestion_manifest(file_checksum, status, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_manifest_crc_size
+    ON title_d_app.ingestion_manifest(content_crc32, file_size_bytes);
+CREATE INDEX IF NOT EXISTS idx_manifest_parent_batch ON title_d_app.ingestion_manifest(parent_batch_id);
+
+CREATE TRIGGER trigger_update_ingestion_manifest_updated_at
+    BEFORE UPDATE ON title_d_app.ingestion_manifest
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+COMMENT ON TABLE title_d_app.ingestion_manifest IS 'Tracks all file ingestion attempts with processing status and metrics (partitioned monthly by created_at)';
+
+-- =====================================================
+-- FILE VALIDATION ISSUES
+-- =====================================================
+
+ALTER TABLE title_d_app.file_validation_issues RENAME TO file_validation_issues_unpartitioned;
+ALTER TABLE title_d_app.file_validation_issues_unpartitioned RENAME CONSTRAINT file_validation_issues_pkey TO file_validation_issues_unpartitioned_pkey;
+
+CREATE TABLE title_d_app.file_validation_issues (
+    LIKE title_d_app.file_validation_issues_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING COMMENTS,
+    CONSTRAINT file_validation_issues_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE title_d_app.file_validation_issues_id_seq OWNED BY title_d_app.file_validation_issues.id;
+
+SELECT title_d_app.create_monthly_partitions('file_validation_issues',
+        (SELECT MIN(created_at)::date FROM title_d_app.file_validation_issues_unpartitioned));
+
+INSERT INTO title_d_app.file_validation_issues SELECT * FROM title_d_app.file_validation_issues_unpartitioned;
+
+DROP TABLE title_d_app.file_validation_issues_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS idx_validation_batch ON title_d_app.file_validation_issues(batch_id);
+CREATE INDEX IF NOT EXISTS idx_validation_severity ON title_d_app.file_validation_issues(severity, id);
+CREATE INDEX IF NOT EXISTS idx_validation_created ON title_d_app.file_validation_issues(created_at);
+
+COMMENT ON TABLE title_d_app.file_validation_issues IS 'Tracks all validation issues found during file processing (partitioned monthly by created_at)';
+
+-- =====================================================
+-- FILE VALIDATION LINES
+-- =====================================================
+-- Sampled line text of the issues above; kept for the same months so
+-- a retention drop never leaves lines without their issues.
+
+ALTER TABLE title_d_app.file_validation_lines RENAME TO file_validation_lines_unpartitioned;
+ALTER TABLE title_d_app.file_validation_lines_unpartitioned RENAME CONSTRAINT file_validation_lines_pkey TO file_validation_lines_unpartitioned_pkey;
+ALTER TABLE title_d_app.file_validation_lines_unpartitioned RENAME CONSTRAINT uk_validation_lines_batch_line TO uk_validation_lines_unpartitioned;
+
+CREATE TABLE title_d_app.file_validation_lines (
+    LIKE title_d_app.file_validation_lines_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING COMMENTS,
+    CONSTRAINT file_validation_lines_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_validation_lines_batch_line UNIQUE (batch_id, line_number, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE title_d_app.file_validation_lines_id_seq OWNED BY title_d_app.file_validation_lines.id;
+
+SELECT title_d_app.create_monthly_partitions('file_validation_lines',
+        (SELECT MIN(created_at)::date FROM title_d_app.file_validation_lines_unpartitioned));
+
+INSERT INTO title_d_app.file_validation_lines SELECT * FROM title_d_app.file_validation_lines_unpartitioned;
+
+DROP TABLE title_d_app.file_validation_lines_unpartitioned;
@@ -0,0 +1,23 @@
+-- =====================================================
+-- PROCESSING STATISTICS CHECKPOINT
+-- =====================================================
+-- Processing statistics are maintained in memory on every manifest state
+-- transition (ProcessingStatsAggregator) instead of aggregating the whole
+-- manifest on each request. They are written here periodically and on
+-- shutdown, and read back at startup.
+--
+-- clean_shutdown is only true when the row was written on shutdown; any
+-- other start recomputes the statistics from ingestion_manifest once.
+
+CREATE TABLE IF NOT EXISTS title_d_app.processing_stats_checkpoint (
+    id SMALLINT PRIMARY KEY,
+    completed_batches BIGINT NOT NULL DEFAULT 0,
+    failed_batches BIGINT NOT NULL DEFAULT 0,
+    processing_batches BIGINT NOT NULL DEFAULT 0,
+    total_records BIGINT NOT NULL DEFAULT 0,
+    clean_shutdown BOOLEAN NOT NULL DEFAULT FALSE,
+    checkpoint_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_stats_checkpoint_single_row CHECK (id = 1)
+);
+
+COMMENT ON TABLE title_d_app.processing_stats_checkpoint IS 'Last checkpoint of the in-memory processing statistics (single row)';
@@ -0,0 +1,51 @@
+-- =====================================================
+-- INGEST JOB QUEUE
+-- =====================================================
+-- Durable work queue shared by every loader instance
+-- (csv.processing.job-queue-enabled). The watch folder and the async
+-- upload endpoints enqueue jobs; each instance claims QUEUED jobs with
+-- SELECT ... FOR UPDATE SKIP LOCKED, so concurrent claimers never block on
+-- or take the same row.
+--
+-- A claimed job is RUNNING under a lease (owner + lease_expires_at) that
+-- the owner extends with heartbeats. When an owner dies its lease expires
+-- and the job is claimed again (up to max_attempts times); a watch folder
+-- job then resumes the file from the WIP folder.
+--
+-- job_key identifies the work (watch:<file name>, upload:<batch id>): at
+-- most one QUEUED/RUNNING job per key, so instances that see the same
+-- marker file enqueue it only once.
+
+CREATE TABLE IF NOT EXISTS title_d_app.ingest_job (
+    id BIGSERIAL PRIMARY KEY,
+    job_key VARCHAR(600) NOT NULL,
+    job_type VARCHAR(30) NOT NULL,
+    file_name VARCHAR(500) NOT NULL,
+    file_path VARCHAR(1000),
+    batch_id UUID,
+    file_format VARCHAR(10),
+    has_headers BOOLEAN,
+    route_by_filename BOOLEAN,
+    table_name VARCHAR(128),
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    owner VARCHAR(200),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    heartbeat_at TIMESTAMP WITH TIME ZONE,
+    error_message TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_ingest_job_status CHECK (status IN ('QUEUED', 'RUNNING', 'DONE', 'FAILED'))
+);
+
+-- One live job per key (enqueue is INSERT ... ON CONFLICT DO NOTHING)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_ingest_job_active_key
+    ON title_d_app.ingest_job(job_key) WHERE status IN ('QUEUED', 'RUNNING');
+
+-- Claim order: oldest QUEUED first, then expired leases
+CREATE INDEX IF NOT EXISTS idx_ingest_job_queued
+    ON title_d_app.ingest_job(id) WHERE status = 'QUEUED';
+CREATE INDEX IF NOT EXISTS idx_ingest_job_lease
+    ON title_d_app.ingest_job(lease_expires_at) WHERE status = 'RUNNING';
+
+COMMENT ON TABLE title_d_app.ingest_job IS 'Durable ingest work queue claimed with FOR UPDATE SKIP LOCKED leases';
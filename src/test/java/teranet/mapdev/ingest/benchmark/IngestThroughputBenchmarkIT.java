@@ -0,0 +1,300 @@
+package teranet.mapdev.ingest.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import teranet.mapdev.ingest.benchmark.TitleDDataGenerator.DefectRates;
+import teranet.mapdev.ingest.benchmark.TitleDDataGenerator.FileType;
+import teranet.mapdev.ingest.service.WatchFolderManager;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end throughput benchmark against a throwaway PostgreSQL (Testcontainers)
+ *
+ * Drives the REST endpoints and the watch folder with synthetic Title D data
+ * (TitleDDataGenerator) and reports, per scenario, rows/sec, MB/sec, peak
+ * heap and GC time. Results are logged and written to
+ * target/benchmark/results.tsv.
+ *
+ * Opt-in, since it needs Docker and takes minutes:
+ * mvn verify -Dit.test=IngestThroughputBenchmarkIT -Dbenchmark=true -Dbenchmark.rows=1000000
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class IngestThroughputBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestThroughputBenchmarkIT.class);
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 100_000);
+    private static final String SCHEMA = "title_d_app";
+    private static final long WATCH_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            System.getProperty("benchmark.postgres-image", "postgres:16-alpine"));
+
+    private static Path workDir;
+    private static final List<Result> RESULTS = new ArrayList<>();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WatchFolderManager folderManager;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        workDir = Files.createTempDirectory("ingest-benchmark");
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl()
+                + (POSTGRES.getJdbcUrl().contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("watch.folder.root", () -> workDir.resolve("watch").toString());
+        registry.add("watch.folder.polling-interval", () -> "500");
+        registry.add("watch.folder.stability-check-delay", () -> "200");
+        registry.add("csv.processing.temp-directory", () -> workDir.resolve("tmp").toString());
+        // Injected defects COPY cannot take (0000/00/00 outside IM2, empty PINs) are quarantined, not fatal
+        registry.add("csv.processing.skip-invalid-records", () -> "true");
+        registry.add("csv.processing.max-validation-errors", () -> "-1");
+    }
+
+    @BeforeAll
+    static void announce() {
+        log.info("Benchmark: {} rows per scenario, PostgreSQL {}", ROWS, POSTGRES.getDockerImageName());
+    }
+
+    @Test
+    @Order(1)
+    void uploadCleanPm1() throws IOException {
+        Path file = generate(FileType.PM1, 1, DefectRates.none());
+        measure("REST /upload PM1 clean", file, Set.of(FileType.PM1),
+                () -> upload("/api/v1/ingest/delimited/upload", file));
+    }
+
+    @Test
+    @Order(2)
+    void streamCleanPm1() throws IOException {
+        Path file = generate(FileType.PM1, 2, DefectRates.none());
+        measure("REST /upload-stream PM1 clean", file, Set.of(FileType.PM1),
+                () -> upload("/api/v1/ingest/delimited/upload-stream?format=tsv&hasHeaders=false", file));
+    }
+
+    @Test
+    @Order(3)
+    void uploadDefectiveIm2() throws IOException {
+        Path file = generate(FileType.IM2, 3, DefectRates.typical());
+        measure("REST /upload IM2 typical defects", file, Set.of(FileType.IM2),
+                () -> upload("/api/v1/ingest/delimited/upload", file));
+    }
+
+    @Test
+    @Order(4)
+    void uploadZipOfAllTypes() throws IOException {
+        Map<FileType, Long> rows = new LinkedHashMap<>();
+        for (FileType type : FileType.values()) {
+            rows.put(type, Math.max(1, ROWS / FileType.values().length));
+        }
+        Path zip = workDir.resolve("4.synthetic.zip");
+        new TitleDDataGenerator(4, DefectRates.typical()).writeZip(rows, "62", zip);
+        measure("REST /zip/process PM1-PM7 IM1-IM3", zip, EnumSet.allOf(FileType.class),
+                () -> upload("/api/v1/ingest/zip/process", zip));
+    }
+
+    @Test
+    @Order(5)
+    void watchFolderPm1() throws IOException {
+        Path file = generate(FileType.PM1, 5, DefectRates.typical());
+        measure("Watch folder PM1 typical defects", file, Set.of(FileType.PM1), () -> {
+            Path upload = folderManager.getUploadPath();
+            Path dropped = Files.copy(file, upload.resolve(file.getFileName()));
+            Files.createFile(upload.resolve(file.getFileName() + ".done"));
+            awaitWatchFolder(dropped);
+        });
+    }
+
+    @AfterAll
+    static void report() throws IOException {
+        StringBuilder tsv = new StringBuilder(
+                "scenario\trows\tbytes\tseconds\trows_per_sec\tmb_per_sec\tpeak_heap_mb\tgc_ms\tgc_count\n");
+        for (Result result : RESULTS) {
+            tsv.append(result.toTsv()).append('\n');
+            log.info("{}", result);
+        }
+        Path out = Paths.get("target", "benchmark", "results.tsv");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, tsv);
+        log.info("Benchmark results written to {}", out.toAbsolutePath());
+    }
+
+    private Path generate(FileType type, long seed, DefectRates rates) throws IOException {
+        return new TitleDDataGenerator(seed, rates).writeFile(type, ROWS, "62", workDir.resolve("in-" + seed));
+    }
+
+    private void upload(String path, Path file) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new FileSystemResource(file));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<String> response = restTemplate.postForEntity(path, new HttpEntity<>(body, headers),
+                String.class);
+        assertThat(response.getStatusCode().is2xxSuccessful())
+                .as("%s -> %s", path, response.getBody()).isTrue();
+    }
+
+    /**
+     * Wait until the dropped file has left the upload and WIP folders
+     */
+    private void awaitWatchFolder(Path dropped) throws IOException {
+        String name = dropped.getFileName().toString();
+        long deadline = System.currentTimeMillis() + WATCH_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!Files.exists(dropped) && !containsFile(folderManager.getWipPath(), name)
+                    && (containsFile(folderManager.getArchivePath(), name)
+                            || containsFile(folderManager.getErrorPath(), name))) {
+                assertThat(containsFile(folderManager.getErrorPath(), name)).as("%s moved to error", name).isFalse();
+                return;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for " + name, e);
+            }
+        }
+        throw new IllegalStateException("Watch folder did not finish " + name + " in time");
+    }
+
+    private static boolean containsFile(Path dir, String name) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.anyMatch(p -> p.getFileName().toString().contains(name));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Scenario {
+        void run() throws Exception;
+    }
+
+    private void measure(String name, Path input, Set<FileType> tables, Scenario scenario) {
+        long rowsBefore = countRows(tables);
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcTimeBefore = gcTime();
+        long gcCountBefore = gcCount();
+        long start = System.nanoTime();
+
+        try {
+            scenario.run();
+        } catch (Exception e) {
+            throw new IllegalStateException("Scenario failed: " + name, e);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        long bytes;
+        try {
+            bytes = Files.size(input);
+        } catch (IOException e) {
+            bytes = 0;
+        }
+        Result result = new Result(name, countRows(tables) - rowsBefore, bytes, seconds, peakHeap,
+                gcTime() - gcTimeBefore, gcCount() - gcCountBefore);
+        RESULTS.add(result);
+        log.info("{}", result);
+        assertThat(result.rows).as("%s loaded rows", name).isPositive();
+    }
+
+    private long countRows(Set<FileType> tables) {
+        long rows = 0;
+        for (FileType type : tables) {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + SCHEMA + "." + type.name().toLowerCase(), Long.class);
+            rows += count != null ? count : 0;
+        }
+        return rows;
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(t -> t > 0).sum();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(c -> c > 0).sum();
+    }
+
+    private record Result(String scenario, long rows, long bytes, double seconds, long peakHeapBytes,
+            long gcMs, long gcCount) {
+
+        double rowsPerSecond() {
+            return seconds > 0 ? rows / seconds : 0;
+        }
+
+        double mbPerSecond() {
+            return seconds > 0 ? bytes / 1024.0 / 1024.0 / seconds : 0;
+        }
+
+        String toTsv() {
+            return String.format("%s\t%d\t%d\t%.2f\t%.0f\t%.2f\t%d\t%d\t%d", scenario, rows, bytes, seconds,
+                    rowsPerSecond(), mbPerSecond(), peakHeapBytes / (1024 * 1024), gcMs, gcCount);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-36s %,12d rows %8.2f s %,10.0f rows/s %8.2f MB/s peak heap %,6d MB GC %,6d ms (%d)",
+                    scenario, rows, seconds, rowsPerSecond(), mbPerSecond(), peakHeapBytes / (1024 * 1024), gcMs,
+                    gcCount);
+        }
+    }
+}
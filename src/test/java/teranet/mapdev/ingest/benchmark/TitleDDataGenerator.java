@@ -0,0 +1,439 @@
+package teranet.mapdev.ingest.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic Title D data generator for load tests and benchmarks.
+ *
+ * Writes headerless TSV files in the layout of the Polaris extracts
+ * (PM1-PM7, IM1-IM3 - same field counts as the file_validation_rules and
+ * the same value shapes as the samples: yyyy/MM/dd dates, space-padded
+ * instrument numbers, upper-case names), of any size, either as plain files
+ * named like the real ones (PM162) or bundled into a ZIP.
+ *
+ * Each row independently gets each defect with its configured rate:
+ * - excess tab (an extra field, auto-fixed or rejected by validation)
+ * - control character inside a text field
+ * - non-Latin characters inside a text field
+ * - empty PIN (property_id_num / instrument_num)
+ * - 0000/00/00 in the row's date fields
+ *
+ * Output is deterministic for a given seed. Run main() to write files to disk:
+ * TitleDDataGenerator out-dir rows=1000000 types=PM1,IM2 zip=true seed=7 excess-tabs=0.001 ...
+ */
+public class TitleDDataGenerator {
+
+    /**
+     * Title D file types with their column count
+     */
+    public enum FileType {
+        PM1(17), PM2(5), PM3(7), PM4(4), PM5(3), PM6(3), PM7(10),
+        IM1(13), IM2(9), IM3(3);
+
+        private final int columns;
+
+        FileType(int columns) {
+            this.columns = columns;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public boolean isProperty() {
+            return name().startsWith("PM");
+        }
+
+        /** File name as delivered, e.g. PM162 for PM1 from LRO 62 */
+        public String fileName(String lro) {
+            return name() + lro;
+        }
+    }
+
+    /**
+     * Kinds of injected defects
+     */
+    public enum Defect {
+        EXCESS_TAB, CONTROL_CHAR, NON_LATIN, EMPTY_PIN, ZERO_DATE
+    }
+
+    /**
+     * Per-row probability of each defect (0 = never, 1 = every row)
+     */
+    public static class DefectRates {
+        private final Map<Defect, Double> rates = new EnumMap<>(Defect.class);
+
+        public static DefectRates none() {
+            return new DefectRates();
+        }
+
+        /** Rates seen in real extracts, roughly */
+        public static DefectRates typical() {
+            return new DefectRates()
+                    .with(Defect.EXCESS_TAB, 0.0005)
+                    .with(Defect.CONTROL_CHAR, 0.001)
+                    .with(Defect.NON_LATIN, 0.002)
+                    .with(Defect.EMPTY_PIN, 0.0001)
+                    .with(Defect.ZERO_DATE, 0.05);
+        }
+
+        public DefectRates with(Defect defect, double rate) {
+            rates.put(defect, Math.max(0, Math.min(1, rate)));
+            return this;
+        }
+
+        public double get(Defect defect) {
+            return rates.getOrDefault(defect, 0.0);
+        }
+    }
+
+    /**
+     * Rows, bytes and injected defects of what was written
+     */
+    public static class Stats {
+        private long rows;
+        private long bytes;
+        private final Map<Defect, Long> defects = new EnumMap<>(Defect.class);
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getDefects(Defect defect) {
+            return defects.getOrDefault(defect, 0L);
+        }
+
+        void add(Stats other) {
+            rows += other.rows;
+            bytes += other.bytes;
+            other.defects.forEach((defect, count) -> defects.merge(defect, count, Long::sum));
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, " + bytes + " bytes, defects " + defects;
+        }
+    }
+
+    private static final String[] SURNAMES = { "SMITH", "BROWN", "TREMBLAY", "MARTIN", "ROY", "WILSON",
+            "MACDONALD", "GAGNON", "JOHNSON", "TAYLOR", "KONING", "BLAYLOCK", "WOODS", "NGUYEN", "SINGH" };
+    private static final String[] GIVEN_NAMES = { "MARY", "JOHN", "ROBERT", "PATRICIA", "SYTZE", "CAROL ANN",
+            "GAIL MAY", "MABLE E.", "DAVID", "LINDA", "PETER", "SUSAN", "ANDY", "EGBERTJE" };
+    private static final String[] COMPANIES = { "RYMAL SQUARE DEVELOPMENTS INC.",
+            "THE CORPORATION OF THE CITY OF STONEY CREEK", "TORONTO-DOMINION BANK", "ROYAL BANK OF CANADA",
+            "1234567 ONTARIO LIMITED", "HAMILTON HOUSING CORPORATION" };
+    private static final String[] CAPACITIES = { "BENO ", "JTEN ", "RGOW ", "NC ", "TCOM ", "" };
+    private static final String[] INTERESTS = { "FEES", "LEASE", "EASE", "LIFE", "" };
+    private static final String[] QUALIFIERS = { "LTCQ", "LTAB", "LT", "" };
+    private static final String[] SUB_TYPES = { "APL", "CTXARC", "PLSUB", "CHARGE", "TRANSFER", "DISCH" };
+    private static final String[] MUNICIPALITIES = { "HAMILTON", "TORONTO", "OTTAWA", "BURLINGTON", "OAKVILLE",
+            "STONEY CREEK", "ANCASTER" };
+    private static final String[] STREETS = { "TWENTY RD", "MAIN ST E", "KING ST W", "RYMAL RD", "BARTON ST",
+            "UPPER JAMES ST", "MOUNTAIN BROW BLVD" };
+    private static final String[] REMARKS = {
+            "THE FOLLOWING REMARK HAS BEEN ADDED ON %s BY THE LAND REGISTRAR : SUBJECT TO SUBSECTION 44(1) "
+                    + "OF THE LAND TITLES ACT EXCEPT PARAGRAPHS 3 AND 14",
+            "PT LT %d CON %d AS IN %s; S/T EXECUTION IF ENFORCEABLE",
+            "FIRST APPLICATION - CONVERSION QUALIFIED %s" };
+    private static final String[] NON_LATIN = { "Жилой", "地契", "Οικία", "דירה", "土地", "Ӂ" };
+
+    private final SplittableRandom random;
+    private final DefectRates rates;
+
+    public TitleDDataGenerator(long seed, DefectRates rates) {
+        this.random = new SplittableRandom(seed);
+        this.rates = rates;
+    }
+
+    /**
+     * Write rows of one file type as headerless TSV
+     */
+    public Stats write(FileType type, long rows, String lro, OutputStream out) throws IOException {
+        Stats stats = new Stats();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), 1 << 16);
+        StringBuilder line = new StringBuilder(256);
+        for (long i = 0; i < rows; i++) {
+            line.setLength(0);
+            String[] fields = row(type, lro, i);
+            applyDefects(fields, stats);
+            for (int f = 0; f < fields.length; f++) {
+                if (f > 0) {
+                    line.append('\t');
+                }
+                line.append(fields[f]);
+            }
+            line.append('\n');
+            writer.write(line.toString());
+        }
+        writer.flush();
+        stats.rows = rows;
+        stats.bytes = counting.count;
+        return stats;
+    }
+
+    /**
+     * Write a file named like the real extracts (e.g. dir/PM162)
+     */
+    public Path writeFile(FileType type, long rows, String lro, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(type.fileName(lro));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            write(type, rows, lro, out);
+        }
+        return file;
+    }
+
+    /**
+     * Write a ZIP holding one file per entry of rowsPerType (in map order)
+     */
+    public Stats writeZip(Map<FileType, Long> rowsPerType, String lro, Path zip) throws IOException {
+        Stats total = new Stats();
+        if (zip.getParent() != null) {
+            Files.createDirectories(zip.getParent());
+        }
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zip), 1 << 16))) {
+            for (Map.Entry<FileType, Long> entry : rowsPerType.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey().fileName(lro)));
+                total.add(write(entry.getKey(), entry.getValue(), lro, new NonClosingOutputStream(out)));
+                out.closeEntry();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Clean fields of one row (rowIndex keeps PINs unique and ascending, like the extracts)
+     */
+    String[] row(FileType type, String lro, long rowIndex) {
+        String block = String.format("%05d", 10000 + (rowIndex / 9999) % 90000);
+        String pid = String.format("%04d", 1 + rowIndex % 9999);
+        String instrument = padRight(instrumentNumber(lro, rowIndex), 10);
+        return switch (type) {
+            case PM1 -> new String[] { block, pid, pick("L", "R"), pick("Q", "A", "C"), date(), pick(INTERESTS),
+                    pick(QUALIFIERS), pick("F", "C"), pick("A", "I"), "", "", "00000", "", "", "", "",
+                    pick("Y", "N") };
+            case PM2 -> new String[] { block, pid, lro, instrument, pick("", "Y") };
+            case PM3 -> new String[] { block, pid, "", "", pick(CAPACITIES), pick("", "1/2", "1/3"), person() };
+            case PM4 -> new String[] { block, pid, block, String.format("%04d", 1 + random.nextInt(9999)) };
+            case PM5 -> new String[] { block, pid, remark() };
+            case PM6 -> new String[] { block, pid, remark() };
+            case PM7 -> new String[] { block, pid, random.nextInt(4) == 0 ? assessment() : "", pick(MUNICIPALITIES),
+                    pick(MUNICIPALITIES), String.valueOf(1 + random.nextInt(9999)), "", pick(STREETS),
+                    random.nextInt(5) == 0 ? String.valueOf(1 + random.nextInt(2000)) : "", "" };
+            case IM1 -> new String[] { lro, instrument, date(), "", "", "", "",
+                    String.format("%016.2f", random.nextInt(2_000_000) + random.nextInt(100) / 100.0), date(), "",
+                    pick(SUB_TYPES), "", pick("C", "P") };
+            case IM2 -> new String[] { lro, instrument, pick("T", "F"), random.nextInt(3) == 0 ? date() : "0000/00/00",
+                    "", "", pick(CAPACITIES), "", random.nextInt(4) == 0 ? pick(COMPANIES) : person() };
+            case IM3 -> new String[] { lro, instrument, "LT" + (100000 + random.nextInt(900000)) };
+        };
+    }
+
+    private void applyDefects(String[] fields, Stats stats) {
+        int text = fields.length - 1; // last column is free text in most layouts
+        if (hit(Defect.ZERO_DATE)) {
+            boolean any = false;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].length() == 10 && fields[i].charAt(4) == '/' && fields[i].charAt(7) == '/') {
+                    fields[i] = "0000/00/00";
+                    any = true;
+                }
+            }
+            if (any) {
+                count(stats, Defect.ZERO_DATE);
+            }
+        }
+        if (hit(Defect.EMPTY_PIN)) {
+            fields[1] = "";
+            count(stats, Defect.EMPTY_PIN);
+        }
+        if (hit(Defect.CONTROL_CHAR)) {
+            fields[text] = insert(fields[text], String.valueOf((char) (1 + random.nextInt(8))));
+            count(stats, Defect.CONTROL_CHAR);
+        }
+        if (hit(Defect.NON_LATIN)) {
+            fields[text] = insert(fields[text], pick(NON_LATIN));
+            count(stats, Defect.NON_LATIN);
+        }
+        if (hit(Defect.EXCESS_TAB)) {
+            fields[text] = insert(fields[text], "\t");
+            count(stats, Defect.EXCESS_TAB);
+        }
+    }
+
+    private boolean hit(Defect defect) {
+        double rate = rates.get(defect);
+        return rate > 0 && random.nextDouble() < rate;
+    }
+
+    private static void count(Stats stats, Defect defect) {
+        stats.defects.merge(defect, 1L, Long::sum);
+    }
+
+    private String insert(String value, String extra) {
+        int at = value.isEmpty() ? 0 : random.nextInt(value.length() + 1);
+        return value.substring(0, at) + extra + value.substring(at);
+    }
+
+    private String instrumentNumber(String lro, long rowIndex) {
+        return switch ((int) (rowIndex % 3)) {
+            case 0 -> String.valueOf(30_000_000 + rowIndex / 3);
+            case 1 -> lro + "M" + (1000 + rowIndex / 3 % 9000);
+            default -> "AB" + (10000 + rowIndex / 3 % 90000);
+        };
+    }
+
+    private String date() {
+        return String.format("%04d/%02d/%02d", 1970 + random.nextInt(55), 1 + random.nextInt(12),
+                1 + random.nextInt(28));
+    }
+
+    private String person() {
+        return pick(SURNAMES) + ", " + pick(GIVEN_NAMES);
+    }
+
+    private String assessment() {
+        return String.format("%015d", random.nextLong(1_000_000_000_000_000L));
+    }
+
+    private String remark() {
+        return switch (random.nextInt(REMARKS.length)) {
+            case 0 -> String.format(REMARKS[0], date());
+            case 1 -> String.format(REMARKS[1], 1 + random.nextInt(40), 1 + random.nextInt(10),
+                    "LT" + (100000 + random.nextInt(900000)));
+            default -> String.format(REMARKS[2], "LT" + (100000 + random.nextInt(900000)));
+        };
+    }
+
+    private String pick(String... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String padRight(String value, int width) {
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < width) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+
+    /**
+     * Write files (or a ZIP) to a directory, e.g.
+     * out-dir rows=1000000 types=PM1,PM2,IM2 lro=62 zip=false seed=1 zero-dates=0.05
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TitleDDataGenerator <out-dir> [rows=N] [types=PM1,IM2,...] [lro=62] "
+                    + "[zip=true] [seed=N] [excess-tabs=R] [control-chars=R] [non-latin=R] [empty-pins=R] "
+                    + "[zero-dates=R]");
+            System.exit(1);
+        }
+        Path dir = Paths.get(args[0]);
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq > 0) {
+                options.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+            }
+        }
+
+        long rows = Long.parseLong(options.getOrDefault("rows", "100000"));
+        String lro = options.getOrDefault("lro", "62");
+        DefectRates rates = DefectRates.none()
+                .with(Defect.EXCESS_TAB, Double.parseDouble(options.getOrDefault("excess-tabs", "0")))
+                .with(Defect.CONTROL_CHAR, Double.parseDouble(options.getOrDefault("control-chars", "0")))
+                .with(Defect.NON_LATIN, Double.parseDouble(options.getOrDefault("non-latin", "0")))
+                .with(Defect.EMPTY_PIN, Double.parseDouble(options.getOrDefault("empty-pins", "0")))
+                .with(Defect.ZERO_DATE, Double.parseDouble(options.getOrDefault("zero-dates", "0")));
+        TitleDDataGenerator generator = new TitleDDataGenerator(
+                Long.parseLong(options.getOrDefault("seed", "1")), rates);
+
+        Map<FileType, Long> rowsPerType = new LinkedHashMap<>();
+        for (String type : options.getOrDefault("types", "PM1,PM2,PM3,PM4,PM5,PM6,PM7,IM1,IM2,IM3").split(",")) {
+            rowsPerType.put(FileType.valueOf(type.trim().toUpperCase()), rows);
+        }
+
+        if (Boolean.parseBoolean(options.getOrDefault("zip", "false"))) {
+            Path zip = dir.resolve(lro + ".synthetic.zip");
+            System.out.println(zip + ": " + generator.writeZip(rowsPerType, lro, zip));
+        } else {
+            for (FileType type : rowsPerType.keySet()) {
+                System.out.println(generator.writeFile(type, rows, lro, dir));
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush(); // the ZIP entry is closed by writeZip
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package teranet.mapdev.ingest.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import teranet.mapdev.ingest.benchmark.TitleDDataGenerator.Defect;
+import teranet.mapdev.ingest.benchmark.TitleDDataGenerator.DefectRates;
+import teranet.mapdev.ingest.benchmark.TitleDDataGenerator.FileType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TitleDDataGenerator (synthetic benchmark data)
+ */
+class TitleDDataGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String generate(long seed, DefectRates rates, FileType type, long rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TitleDDataGenerator(seed, rates).write(type, rows, "62", out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCleanRows_MatchTheValidationRuleFieldCounts() throws IOException {
+        for (FileType type : FileType.values()) {
+            String data = generate(1, DefectRates.none(), type, 200);
+
+            String[] lines = data.split("\n");
+            assertThat(lines).as(type.name()).hasSize(200);
+            for (String line : lines) {
+                assertThat(line.split("\t", -1)).as(type.name()).hasSize(type.getColumns());
+                assertThat(line.chars().allMatch(c -> c == '\t' || (c >= 0x20 && c < 0x7f)))
+                        .as(type.name()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void testSameSeed_SameOutput() throws IOException {
+        assertThat(generate(42, DefectRates.typical(), FileType.IM2, 500))
+                .isEqualTo(generate(42, DefectRates.typical(), FileType.IM2, 500))
+                .isNotEqualTo(generate(43, DefectRates.typical(), FileType.IM2, 500));
+    }
+
+    @Test
+    void testDefects_InjectedAtTheirRates() throws IOException {
+        DefectRates rates = DefectRates.none()
+                .with(Defect.EXCESS_TAB, 1.0)
+                .with(Defect.EMPTY_PIN, 1.0)
+                .with(Defect.ZERO_DATE, 1.0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        TitleDDataGenerator.Stats stats = new TitleDDataGenerator(3, rates).write(FileType.PM1, 100, "62", out);
+
+        assertThat(stats.getDefects(Defect.EXCESS_TAB)).isEqualTo(100);
+        assertThat(stats.getDefects(Defect.EMPTY_PIN)).isEqualTo(100);
+        assertThat(stats.getDefects(Defect.CONTROL_CHAR)).isZero();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            String[] fields = line.split("\t", -1);
+            assertThat(fields).hasSize(FileType.PM1.getColumns() + 1);
+            assertThat(fields[1]).isEmpty();
+            assertThat(fields[4]).isEqualTo("0000/00/00");
+        }
+        assertThat(stats.getBytes()).isEqualTo(out.size());
+    }
+
+    @Test
+    void testWriteZip_OneEntryPerFileType() throws IOException {
+        Map<FileType, Long> rows = new LinkedHashMap<>();
+        rows.put(FileType.PM1, 10L);
+        rows.put(FileType.IM3, 5L);
+        Path zip = tempDir.resolve("62.synthetic.zip");
+
+        TitleDDataGenerator.Stats stats = new TitleDDataGenerator(1, DefectRates.none()).writeZip(rows, "62", zip);
+
+        assertThat(stats.getRows()).isEqualTo(15);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.add(entry.getName() + ":" + new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                        .split("\n").length);
+            }
+        }
+        assertThat(entries).containsExactly("PM162:10", "IM362:5");
+    }
+}
@@ -0,0 +1,86 @@
+package teranet.mapdev.ingest.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.config.IngestConfig;
+import teranet.mapdev.ingest.dto.ErrorResponseDto;
+import teranet.mapdev.ingest.service.AsyncUploadService;
+import teranet.mapdev.ingest.service.DelimitedFileProcessingService;
+import teranet.mapdev.ingest.service.FilenameRouterService;
+import teranet.mapdev.ingest.service.IngestJobQueue;
+import teranet.mapdev.ingest.service.IngestionManifestService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DelimitedFileController
+ * Tests the 429 response of async uploads when the shared job queue is full
+ */
+@ExtendWith(MockitoExtension.class)
+class DelimitedFileControllerTest {
+
+    @Mock
+    private FilenameRouterService filenameRouterService;
+
+    @Mock
+    private DelimitedFileProcessingService delimitedFileProcessingService;
+
+    @Mock
+    private IngestionManifestService manifestService;
+
+    @Mock
+    private IngestJobQueue jobQueue;
+
+    @TempDir
+    Path tempDir;
+
+    private DelimitedFileController controller;
+
+    @BeforeEach
+    void setUp() {
+        CsvProcessingConfig csvProcessingConfig = new CsvProcessingConfig();
+        csvProcessingConfig.setTempDirectory(tempDir.toString());
+        csvProcessingConfig.setAsyncQueueCapacity(2);
+
+        AsyncUploadService asyncUploadService = new AsyncUploadService();
+        ReflectionTestUtils.setField(asyncUploadService, "jobQueue", jobQueue);
+        ReflectionTestUtils.setField(asyncUploadService, "manifestService", manifestService);
+        ReflectionTestUtils.setField(asyncUploadService, "csvProcessingConfig", csvProcessingConfig);
+
+        controller = new DelimitedFileController(new IngestConfig(), filenameRouterService,
+                delimitedFileProcessingService);
+        ReflectionTestUtils.setField(controller, "asyncUploadService", asyncUploadService);
+    }
+
+    @Test
+    void testUploadAsync_JobQueueFull_Returns429WithRetryAfter() {
+        when(jobQueue.isEnabled()).thenReturn(true);
+        when(jobQueue.countQueuedUploads()).thenReturn(2);
+        MockMultipartFile file = new MockMultipartFile("file", "PM162", "text/plain",
+                "1\tA\n".getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = controller.uploadDelimitedFile(file, "tsv", false, false, true);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+                .isEqualTo(String.valueOf(QueueFullResponse.RETRY_AFTER_SECONDS));
+        assertThat(((ErrorResponseDto) response.getBody()).getMessage()).contains("queue is full");
+        verify(jobQueue, never()).enqueue(any());
+        verifyNoInteractions(manifestService, delimitedFileProcessingService);
+    }
+}
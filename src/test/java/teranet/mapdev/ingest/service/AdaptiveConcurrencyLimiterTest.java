@@ -0,0 +1,153 @@
+package teranet.mapdev.ingest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter
+ * Tests additive increase, multiplicative decrease on each overload signal and permit blocking
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private SimpleMeterRegistry registry;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(registry, now::get);
+    }
+
+    @Test
+    void testIncrease_AfterLimitWorthOfHealthyLoadsAtFullUse() throws Exception {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(3);
+
+        for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+            load(permit, 10_000, 0, 100);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(registry.get("ingest.copy.concurrency.decisions")
+                .tag("action", "increase").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("ingest.copy.concurrency.limit").gauge().value()).isEqualTo(4.0);
+    }
+
+    @Test
+    void testNoIncrease_WhenLimitNotFullyUsed() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            load(limiter.acquire("pm1"), 10_000, 0, 100);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void testDecrease_OnOverloadErrorButNotOnDataError() throws Exception {
+        limiter.acquire("pm1").release(0, new SQLException("invalid input syntax", "22P02"));
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        limiter.acquire("pm1").release(0,
+                new RuntimeException(new SQLTransientConnectionException("Connection is not available")));
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(registry.get("ingest.copy.concurrency.decisions")
+                .tag("reason", "overload-error").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testDecrease_OnPoolWaitOverThreshold() throws Exception {
+        load(limiter.acquire("pm1"), 10_000, 0, 100);
+        load(limiter.acquire("pm1"), 10_000, 0, 100);
+        load(limiter.acquire("pm1"), 10_000, 0, 100);
+
+        load(limiter.acquire("pm1"), 10_000, 500, 100);
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getSnapshot()).containsEntry("limit", 2);
+    }
+
+    @Test
+    void testDecrease_OnRisingPerRowLatency() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            load(limiter.acquire("pm1"), 10_000, 0, 100);
+        }
+        // Another table's latency does not count against pm1's baseline
+        load(limiter.acquire("im1"), 10_000, 0, 900);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        load(limiter.acquire("pm1"), 10_000, 0, 400);
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(registry.get("ingest.copy.concurrency.decisions")
+                .tag("reason", "latency-gradient").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testNoDecrease_WhenSlowLoadWasWaitingOnItsSource() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            load(limiter.acquire("pm1"), 10_000, 0, 100);
+        }
+
+        // 900 ms wall time, but 800 ms of it blocked on a slow upload client
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire("pm1");
+        permit.connected();
+        now.addAndGet(900);
+        permit.waitedUpstream(800);
+        permit.release(10_000, null);
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(registry.find("ingest.copy.concurrency.decisions")
+                .tag("reason", "latency-gradient").counter()).isNull();
+    }
+
+    @Test
+    void testAcquire_WaitsForPermitAboveLimit() throws Exception {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(3);
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire("pm1");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (limiter.getWaiting() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(limiter.getWaiting()).isEqualTo(1);
+        assertThat(blocked).isNotDone();
+
+        load(permits.get(0), 10_000, 0, 100);
+
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> acquire(int count) throws InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.acquire("pm1"));
+        }
+        return permits;
+    }
+
+    private void load(AdaptiveConcurrencyLimiter.Permit permit, long rows, long poolWaitMs, long copyMs) {
+        now.addAndGet(poolWaitMs);
+        permit.connected();
+        now.addAndGet(copyMs);
+        permit.release(rows, null);
+    }
+}
@@ -0,0 +1,211 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.model.IngestJob;
+import teranet.mapdev.ingest.model.IngestionManifest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AsyncUploadService
+ * Tests queueing, admission control (queue full) and worker failure handling
+ */
+class AsyncUploadServiceTest {
+
+    @Mock
+    private DelimitedFileProcessingService delimitedFileProcessingService;
+
+    @Mock
+    private BatchProcessingService batchProcessingService;
+
+    @Mock
+    private IngestionManifestService manifestService;
+
+    @Mock
+    private IngestJobQueue jobQueue;
+
+    @InjectMocks
+    private AsyncUploadService asyncUploadService;
+
+    @TempDir
+    Path tempDir;
+
+    private ThreadPoolTaskExecutor executor;
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+
+        // One worker, one queue slot
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        CsvProcessingConfig csvProcessingConfig = new CsvProcessingConfig();
+        csvProcessingConfig.setTempDirectory(tempDir.toString());
+
+        ReflectionTestUtils.setField(asyncUploadService, "executor", executor);
+        ReflectionTestUtils.setField(asyncUploadService, "csvProcessingConfig", csvProcessingConfig);
+
+        when(manifestService.save(any(IngestionManifest.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdown();
+        mocks.close();
+    }
+
+    @Test
+    void testSubmitDelimitedFile_ReturnsPendingManifestAndProcessesSpooledCopy() throws Exception {
+        AtomicReference<String> processedContent = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        when(delimitedFileProcessingService.processQueuedDelimitedFile(any(), eq("tsv"), eq(false), eq(true), any()))
+                .thenAnswer(inv -> {
+                    MultipartFile spooled = inv.getArgument(0);
+                    processedContent.set(new String(spooled.getBytes(), StandardCharsets.UTF_8));
+                    done.countDown();
+                    return inv.getArgument(4);
+                });
+
+        IngestionManifest queued = asyncUploadService.submitDelimitedFile(
+                upload("PM162", "a\tb\n"), "tsv", false, true, "pm1");
+
+        assertThat(queued.getStatus()).isEqualTo(IngestionManifest.Status.PENDING);
+        assertThat(queued.getBatchId()).isNotNull();
+        assertThat(queued.getFileName()).isEqualTo("PM162");
+        assertThat(queued.getTableName()).isEqualTo("pm1");
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(processedContent.get()).isEqualTo("a\tb\n");
+
+        // Spool file is removed once the worker finishes
+        executor.getThreadPoolExecutor().shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testSubmit_QueueFull_Rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(delimitedFileProcessingService.processQueuedDelimitedFile(any(), any(), anyBoolean(), anyBoolean(), any()))
+                .thenAnswer(inv -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return inv.getArgument(4);
+                });
+
+        try {
+            // First occupies the worker, second the single queue slot
+            asyncUploadService.submitDelimitedFile(upload("PM162", "1\n"), "tsv", false, true, null);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            asyncUploadService.submitDelimitedFile(upload("PM163", "2\n"), "tsv", false, true, null);
+
+            assertThat(asyncUploadService.hasCapacity()).isFalse();
+            assertThatThrownBy(() -> asyncUploadService.submitDelimitedFile(
+                    upload("PM164", "3\n"), "tsv", false, true, null))
+                    .isInstanceOf(RejectedExecutionException.class)
+                    .hasMessageContaining("queue is full");
+
+            // Rejected before spooling or creating a manifest
+            verify(manifestService, times(2)).save(any(IngestionManifest.class));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testWorkerFailureBeforeTakeover_MarksManifestFailed() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        when(delimitedFileProcessingService.processQueuedDelimitedFile(any(), any(), anyBoolean(), anyBoolean(), any()))
+                .thenThrow(new IllegalArgumentException("Cannot route file"));
+        when(manifestService.update(any(IngestionManifest.class))).thenAnswer(inv -> {
+            failed.countDown();
+            return inv.getArgument(0);
+        });
+
+        IngestionManifest queued = asyncUploadService.submitDelimitedFile(
+                upload("PM162", "1\n"), "tsv", false, true, null);
+
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.getStatus()).isEqualTo(IngestionManifest.Status.FAILED);
+        assertThat(queued.getErrorMessage()).isEqualTo("Cannot route file");
+    }
+
+    @Test
+    void testSubmitZipFile_PassesQueuedManifestToBatchProcessing() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        when(batchProcessingService.processBatchFromZip(any(MultipartFile.class), any(IngestionManifest.class)))
+                .thenAnswer(inv -> {
+                    done.countDown();
+                    return null;
+                });
+
+        IngestionManifest queued = asyncUploadService.submitZipFile(upload("batch.zip", "PK"));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(batchProcessingService).processBatchFromZip(any(MultipartFile.class), same(queued));
+    }
+
+    @Test
+    void testSubmit_JobQueueFull_RejectedBeforeSpooling() throws Exception {
+        when(jobQueue.isEnabled()).thenReturn(true);
+        when(jobQueue.countQueuedUploads()).thenReturn(20);
+
+        assertThatThrownBy(() -> asyncUploadService.submitDelimitedFile(
+                upload("PM162", "1\n"), "tsv", false, true, null))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("queue is full (20 waiting)");
+
+        verify(jobQueue, never()).enqueue(any());
+        verify(manifestService, never()).save(any(IngestionManifest.class));
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testSubmit_JobQueueWithRoom_Enqueued() throws Exception {
+        when(jobQueue.isEnabled()).thenReturn(true);
+        when(jobQueue.countQueuedUploads()).thenReturn(19);
+        when(jobQueue.enqueue(any(IngestJob.class))).thenReturn(1L);
+
+        IngestionManifest queued = asyncUploadService.submitZipFile(upload("batch.zip", "PK"));
+
+        assertThat(queued.getStatus()).isEqualTo(IngestionManifest.Status.PENDING);
+        verify(jobQueue).enqueue(argThat(job -> job.getJobType() == IngestJob.Type.ZIP_UPLOAD
+                && queued.getBatchId().equals(job.getBatchId())));
+    }
+
+    private MockMultipartFile upload(String name, String content) {
+        return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
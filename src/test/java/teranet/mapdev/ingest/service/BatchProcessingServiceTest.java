@@ -244,6 +244,58 @@ class BatchProcessingServiceTest {
                 assertThat(result.getTotalFilesProcessed()).isEqualTo(2);
         }
 
+        @Test
+        void testProcessBatchFromZip_PrecheckSkipsKnownDuplicateEntries() throws Exception {
+                UUID parentBatchId = UUID.randomUUID();
+                IngestionManifest zipManifest = createManifest(parentBatchId, "resent.zip");
+                IngestionManifest fresh = createManifest(UUID.randomUUID(), "new.csv");
+                fresh.setTotalRecords(1L);
+
+                // Completed earlier with the same content as old.csv
+                IngestionManifest loaded = createCompletedManifest(UUID.randomUUID(), "old.csv");
+                loaded.setFileChecksum(sha256("id\n1"));
+                // Same fingerprint as new.csv, different content - must be loaded
+                IngestionManifest collision = createCompletedManifest(UUID.randomUUID(), "other.csv");
+                collision.setFileChecksum(sha256("something else"));
+
+                ZipAnalysisDto analysis = createAnalysis(List.of("old.csv", "new.csv"));
+                analysis.getExtractedFiles().get(0).setCrc32(111L);
+                analysis.getExtractedFiles().get(1).setCrc32(222L);
+
+                when(manifestService.findByChecksum(anyString())).thenReturn(null);
+                when(manifestService.save(any())).thenReturn(zipManifest);
+                when(manifestService.findCompletedByFingerprint(111L, 100L)).thenReturn(loaded);
+                when(manifestService.findCompletedByFingerprint(222L, 100L)).thenReturn(collision);
+                when(zipProcessingService.analyzeZipFile(any())).thenReturn(analysis);
+                when(delimitedFileProcessingService.processDelimitedFile(any(), anyString(), anyBoolean(),
+                                anyBoolean(), any())).thenReturn(fresh);
+
+                MockMultipartFile zip = createZip("resent.zip", Map.of(
+                                "old.csv", "id\n1",
+                                "new.csv", "id\n2"));
+
+                BatchProcessingResultDto result = batchProcessingService.processBatchFromZip(zip);
+
+                assertThat(result.getProcessingStatus()).isEqualTo("PARTIAL_SUCCESS");
+                assertThat(result.getFileResults()).extracting(BatchProcessingResultDto.FileProcessingResult::getStatus)
+                                .containsExactly("DUPLICATE", "SUCCESS");
+                // Only the new entry was extracted and loaded
+                verify(delimitedFileProcessingService, times(1)).processDelimitedFile(
+                                argThat(f -> "new.csv".equals(f.getOriginalFilename())), anyString(), anyBoolean(),
+                                anyBoolean(), any());
+                // Its fingerprint is recorded for the next re-send
+                assertThat(fresh.getContentCrc32()).isEqualTo(222L);
+        }
+
+        private static String sha256(String content) throws Exception {
+                byte[] digest = java.security.MessageDigest.getInstance("SHA-256").digest(content.getBytes());
+                StringBuilder sb = new StringBuilder();
+                for (byte b : digest) {
+                        sb.append(String.format("%02x", b));
+                }
+                return sb.toString();
+        }
+
         private MockMultipartFile createZip(String name, Map<String, String> files) throws Exception {
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
                 try (ZipOutputStream zos = new ZipOutputStream(baos)) {
@@ -0,0 +1,73 @@
+package teranet.mapdev.ingest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for BufferPool
+ * Tests the budget, buffer reuse and admission waits
+ */
+class BufferPoolTest {
+
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new BufferPool(new SimpleMeterRegistry(), new CsvProcessingConfig());
+        ReflectionTestUtils.setField(pool, "budgetMb", 1L);
+        ReflectionTestUtils.setField(pool, "bufferKb", 256);
+        ReflectionTestUtils.setField(pool, "waitMs", 100L);
+    }
+
+    @Test
+    void testTryAcquire_StopsAtBudgetAndReusesReleasedBuffers() {
+        byte[][] taken = new byte[4][];
+        for (int i = 0; i < 4; i++) {
+            taken[i] = pool.tryAcquire();
+            assertThat(taken[i]).hasSize(256 * 1024);
+        }
+
+        assertThat(pool.tryAcquire()).isNull();
+        assertThat(pool.getInUse()).isEqualTo(4);
+
+        pool.release(taken[2]);
+        assertThat(pool.tryAcquire()).isSameAs(taken[2]);
+        assertThatThrownBy(() -> pool.release(new byte[10])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testAcquire_WaitsForAReleaseThenTimesOut() throws Exception {
+        byte[][] taken = new byte[4][];
+        for (int i = 0; i < 4; i++) {
+            taken[i] = pool.tryAcquire();
+        }
+        ReflectionTestUtils.setField(pool, "waitMs", 5_000L);
+
+        CompletableFuture<byte[]> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (pool.getSnapshot().get("waiting").equals(0)) {
+            Thread.onSpinWait();
+        }
+        assertThat(pool.tryAcquire()).isNull(); // a waiting load is served first
+        pool.release(taken[0]);
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isSameAs(taken[0]);
+
+        ReflectionTestUtils.setField(pool, "waitMs", 50L);
+        assertThat(pool.acquire()).isNull();
+        assertThat(pool.getSnapshot()).containsEntry("admissionTimeouts", 1L);
+    }
+}
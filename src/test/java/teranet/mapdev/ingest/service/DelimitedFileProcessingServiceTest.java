@@ -0,0 +1,217 @@
+package teranet.mapdev.ingest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.QueryExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.model.IngestionManifest;
+import teranet.mapdev.ingest.stream.LineMappingInputStream;
+import teranet.mapdev.ingest.stream.RowQuarantine;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DelimitedFileProcessingService
+ * Tests the chunked-commit load: one commit and checkpoint per chunk, and resuming after a checkpoint
+ */
+@ExtendWith(MockitoExtension.class)
+class DelimitedFileProcessingServiceTest {
+
+    private static final String TABLE = "title_d_app.pm1";
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private BaseConnection connection;
+
+    @Mock
+    private QueryExecutor queryExecutor;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Mock
+    private PreparedStatement batchIdUpdate;
+
+    @Mock
+    private PreparedStatement checkpointUpdate;
+
+    private DelimitedFileProcessingService service;
+
+    /** Content of each COPY, in order */
+    private final List<String> copies = new ArrayList<>();
+
+    /** A COPY of content containing this fails like a bad row would */
+    private String failOn;
+
+    /** A COPY of content containing this interrupts the load's thread, like an aborted job */
+    private String abortOn;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CsvProcessingConfig config = new CsvProcessingConfig();
+        config.setBatchSize(2);
+        config.setCommitIntervalMb(0);
+
+        service = new DelimitedFileProcessingService(dataSource, null, null, null, null, null, config, null,
+                null, null, null, null, new AdaptiveConcurrencyLimiter(new SimpleMeterRegistry()), null, null,
+                null);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(BaseConnection.class)).thenReturn(connection);
+        when(connection.getQueryExecutor()).thenReturn(queryExecutor);
+        when(queryExecutor.startCopy(anyString(), anyBoolean())).thenReturn(copyIn);
+        when(connection.prepareStatement(startsWith("UPDATE " + TABLE))).thenReturn(batchIdUpdate);
+        when(connection.prepareStatement(startsWith("UPDATE ingestion_manifest"))).thenReturn(checkpointUpdate);
+
+        // Each COPY returns the number of lines it was sent
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            copy.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenAnswer(invocation -> {
+            String content = copy.toString(StandardCharsets.UTF_8);
+            copy.reset();
+            if (failOn != null && content.contains(failOn)) {
+                throw new SQLException("invalid input syntax", "22P02");
+            }
+            if (abortOn != null && content.contains(abortOn)) {
+                Thread.currentThread().interrupt();
+            }
+            copies.add(content);
+            return content.lines().count();
+        });
+    }
+
+    private long loadDataInChunks(String content, boolean hasHeaders, IngestionManifest manifest) {
+        return loadDataInChunks(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), hasHeaders,
+                manifest);
+    }
+
+    private long loadDataInChunks(InputStream stream, boolean hasHeaders, IngestionManifest manifest) {
+        return ReflectionTestUtils.invokeMethod(service, "loadDataInChunks", stream, TABLE,
+                List.of("pin", "name"), "tsv", hasHeaders, manifest, (RowQuarantine) null);
+    }
+
+    private static IngestionManifest manifest() {
+        IngestionManifest manifest = new IngestionManifest("PM162", 100L, "abc");
+        manifest.setBatchId(UUID.randomUUID());
+        return manifest;
+    }
+
+    @Test
+    void testLoadDataInChunks_CommitsEachChunkWithItsCheckpoint() throws SQLException {
+        IngestionManifest manifest = manifest();
+
+        long rows = loadDataInChunks("1\tA\n2\tB\n3\tC\n4\tD\n5\tE\n", false, manifest);
+
+        assertThat(rows).isEqualTo(5);
+        assertThat(copies).containsExactly("1\tA\n2\tB\n", "3\tC\n4\tD\n", "5\tE\n");
+
+        // Checkpoint written inside each chunk's transaction, before its commit
+        InOrder inOrder = inOrder(checkpointUpdate, connection);
+        for (long line : new long[] { 2, 4, 5 }) {
+            inOrder.verify(checkpointUpdate).setLong(4, line);
+            inOrder.verify(checkpointUpdate).executeUpdate();
+            inOrder.verify(connection).commit();
+        }
+        verify(connection, never()).rollback();
+        verify(batchIdUpdate, times(3)).setObject(1, manifest.getBatchId());
+        assertThat(manifest.getCommittedLineNumber()).isEqualTo(5L);
+        assertThat(manifest.getProcessedRecords()).isEqualTo(5L);
+    }
+
+    @Test
+    void testLoadDataInChunks_ResumesAfterCommittedLines() throws SQLException {
+        IngestionManifest manifest = manifest();
+        manifest.recordCheckpoint(2, 3, 14); // header + 2 rows committed before the interruption
+
+        long rows = loadDataInChunks("pin\tname\n1\tA\n2\tB\n3\tC\n4\tD\n5\tE\n", true, manifest);
+
+        // Previously committed rows are counted, not loaded again
+        assertThat(rows).isEqualTo(5);
+        assertThat(copies).containsExactly("3\tC\n4\tD\n", "5\tE\n");
+        verify(checkpointUpdate).setLong(2, 4);
+        verify(checkpointUpdate).setLong(4, 5);
+        verify(checkpointUpdate).setLong(2, 5);
+        verify(checkpointUpdate).setLong(4, 6);
+        verify(connection, times(2)).commit();
+        assertThat(manifest.getCommittedLineNumber()).isEqualTo(6L);
+    }
+
+    @Test
+    void testLoadDataInChunks_CheckpointOffsetIsInTheLoadedStream() throws SQLException {
+        IngestionManifest manifest = manifest();
+        // 15 bytes of CRLF source; the line filter in front of COPY emits LF only
+        byte[] source = "1\tA\r\n2\tB\r\n3\tC\r\n".getBytes(StandardCharsets.UTF_8);
+
+        loadDataInChunks(new LineMappingInputStream(new ByteArrayInputStream(source), UnaryOperator.identity()),
+                false, manifest);
+
+        assertThat(copies).containsExactly("1\tA\n2\tB\n", "3\tC\n");
+        // Offsets count the normalised stream (8, 12), not the source file (10, 15)
+        verify(checkpointUpdate).setLong(5, 8);
+        verify(checkpointUpdate).setLong(5, 12);
+        assertThat(manifest.getCommittedLineNumber()).isEqualTo(3L);
+        assertThat(manifest.getCommittedStreamOffset()).isEqualTo(12L);
+    }
+
+    @Test
+    void testLoadDataInChunks_FailedChunkRollsBackOnlyItself() throws SQLException {
+        IngestionManifest manifest = manifest();
+        failOn = "3\tC";
+
+        assertThatThrownBy(() -> loadDataInChunks("1\tA\n2\tB\n3\tC\n4\tD\n5\tE\n", false, manifest))
+                .hasCauseInstanceOf(SQLException.class);
+
+        verify(connection, times(1)).commit();
+        verify(connection).rollback();
+        // The checkpoint still points at the end of the first chunk
+        assertThat(manifest.getCommittedLineNumber()).isEqualTo(2L);
+        assertThat(manifest.getProcessedRecords()).isEqualTo(2L);
+    }
+
+    @Test
+    void testLoadDataInChunks_AbortedLoadIsNotCommitted() throws SQLException {
+        IngestionManifest manifest = manifest();
+        abortOn = "3\tC";
+
+        try {
+            assertThatThrownBy(() -> loadDataInChunks("1\tA\n2\tB\n3\tC\n4\tD\n5\tE\n", false, manifest))
+                    .hasCauseInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // The chunk copied when the job was aborted is rolled back and nothing more is copied
+        assertThat(copies).containsExactly("1\tA\n2\tB\n", "3\tC\n4\tD\n");
+        verify(connection, times(1)).commit();
+        verify(connection).rollback();
+        assertThat(manifest.getCommittedLineNumber()).isEqualTo(2L);
+    }
+}
@@ -209,6 +209,33 @@ class FileChecksumServiceTest {
         }
     }
 
+    @Test
+    void testDecompressed_GzipFileReadsAsTheDataInside() throws Exception {
+        // Given: PM162 uploaded gzipped
+        String tsvContent = "1\tA\n2\tB\n";
+        MockMultipartFile gzipped = new MockMultipartFile(
+                "file",
+                "PM162.gz",
+                "application/gzip",
+                compressWithGzip(tsvContent));
+        MockMultipartFile plain = new MockMultipartFile(
+                "file",
+                "PM162",
+                "text/plain",
+                tsvContent.getBytes(StandardCharsets.UTF_8));
+
+        // When: Read through the decompressed view
+        org.springframework.web.multipart.MultipartFile view = fileChecksumService.decompressed(gzipped);
+
+        // Then: Name, content and checksum are those of the delimited data
+        assertEquals("PM162", view.getOriginalFilename());
+        assertEquals(tsvContent, new String(view.getBytes(), StandardCharsets.UTF_8));
+        assertEquals(fileChecksumService.calculateFileChecksum(plain),
+                fileChecksumService.calculateFileChecksum(view));
+        assertSame(plain, fileChecksumService.decompressed(plain));
+        assertEquals("data.tsv", FileChecksumService.dataFileName("data.tsv.gz"));
+    }
+
     // Helper methods for compression
 
     private byte[] compressWithGzip(String content) throws IOException {
@@ -7,10 +7,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
 import teranet.mapdev.ingest.model.FileValidationIssue;
 import teranet.mapdev.ingest.model.FileValidationRule;
 import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
+import teranet.mapdev.ingest.repository.FileValidationLineRepository;
 import teranet.mapdev.ingest.repository.FileValidationRuleRepository;
 
 import java.io.ByteArrayInputStream;
@@ -41,6 +45,15 @@ class FileValidationServiceDataCleaningTest {
     @Mock
     private FileValidationIssueRepository issueRepository;
 
+    @Mock
+    private FileValidationLineRepository lineRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private CsvProcessingConfig csvProcessingConfig = new CsvProcessingConfig();
+
     @InjectMocks
     private FileValidationService validationService;
 
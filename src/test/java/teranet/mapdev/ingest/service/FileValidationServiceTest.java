@@ -0,0 +1,272 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.model.FileValidationIssue;
+import teranet.mapdev.ingest.model.FileValidationLine;
+import teranet.mapdev.ingest.model.FileValidationRule;
+import teranet.mapdev.ingest.repository.FileValidationIssueRepository;
+import teranet.mapdev.ingest.repository.FileValidationLineRepository;
+import teranet.mapdev.ingest.repository.FileValidationRuleRepository;
+import teranet.mapdev.ingest.stream.SpillingBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FileValidationService issue storage
+ * Tests compaction of repeated findings and expansion for reports
+ */
+@ExtendWith(MockitoExtension.class)
+class FileValidationServiceTest {
+
+    @Mock
+    private FileValidationRuleRepository ruleRepository;
+
+    @Mock
+    private FileValidationIssueRepository issueRepository;
+
+    @Mock
+    private FileValidationLineRepository lineRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private CsvProcessingConfig csvProcessingConfig = new CsvProcessingConfig();
+
+    @InjectMocks
+    private FileValidationService validationService;
+
+    @Captor
+    private ArgumentCaptor<List<FileValidationIssue>> issuesCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<FileValidationLine>> linesCaptor;
+
+    private final UUID batchId = UUID.randomUUID();
+    private FileValidationRule rule;
+
+    @BeforeEach
+    void setUp() {
+        rule = new FileValidationRule();
+        rule.setFilePattern("pm3");
+        rule.setExpectedTabCount(2);
+        rule.setValidationEnabled(true);
+        rule.setAutoFixEnabled(true);
+        rule.setRejectOnViolation(false);
+        rule.setReplaceControlChars(false);
+        rule.setReplaceNonLatinChars(false);
+        rule.setCollapseConsecutiveReplaced(false);
+    }
+
+    @Test
+    void testValidateAndFix_CompactsRepeatedFindingsIntoLineRanges() throws IOException {
+        // Every line but 1001 has one extra tab; line 1001 is missing one
+        StringBuilder data = new StringBuilder();
+        for (int line = 1; line <= 2000; line++) {
+            data.append(line == 1001 ? "a\tb\n" : "a\tb\tc\td\n");
+        }
+        when(ruleRepository.findByFilePattern("pm3")).thenReturn(Optional.of(rule));
+
+        FileValidationService.ValidationResult result = validationService.validateAndFix(
+                new ByteArrayInputStream(data.toString().getBytes(StandardCharsets.UTF_8)),
+                "test.pm3", "pm3", batchId);
+
+        verify(issueRepository).saveAll(issuesCaptor.capture());
+        List<FileValidationIssue> issues = issuesCaptor.getValue();
+        assertThat(issues).hasSize(2);
+
+        FileValidationIssue excess = issues.get(0);
+        assertThat(excess.getIssueType()).isEqualTo(FileValidationIssue.IssueType.EXCESS_TABS);
+        assertThat(excess.getLineNumber()).isEqualTo(1);
+        assertThat(excess.getLineCount()).isEqualTo(1999);
+        assertThat(excess.getLineRanges()).isEqualTo("1-1000,1002-2000");
+        assertThat(excess.getOriginalLine()).isNull();
+
+        FileValidationIssue insufficient = issues.get(1);
+        assertThat(insufficient.getLineNumber()).isEqualTo(1001);
+        assertThat(insufficient.getLineCount()).isEqualTo(1);
+        assertThat(insufficient.getLineRanges()).isNull();
+
+        assertThat(result.getIssueCount()).isEqualTo(2000);
+        assertThat(result.getAutoFixedCount()).isEqualTo(1999);
+        assertThat(result.getLineCount()).isEqualTo(2000);
+
+        // Line text is sampled: the first 100 lines plus the first line of each later finding
+        verify(lineRepository).saveAll(linesCaptor.capture());
+        assertThat(linesCaptor.getValue()).hasSize(101);
+        assertThat(linesCaptor.getValue().get(100).getLineNumber()).isEqualTo(1001);
+        assertThat(linesCaptor.getValue().get(0).getOriginalLine()).isEqualTo("a\tb\tc\td");
+        assertThat(linesCaptor.getValue().get(0).getCorrectedLine()).isEqualTo("a\tb\tc d");
+    }
+
+    private static ByteArrayInputStream lines(int count, int badFrom, int badEvery) {
+        StringBuilder data = new StringBuilder();
+        for (int line = 1; line <= count; line++) {
+            data.append(line >= badFrom && (line - badFrom) % badEvery == 0 ? "a\tb\n" : "a\tb\tc\n");
+        }
+        return new ByteArrayInputStream(data.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testValidateAndFix_RejectOnViolationStopsAtFirstCriticalLine() throws IOException {
+        rule.setRejectOnViolation(true);
+        when(ruleRepository.findByFilePattern("pm3")).thenReturn(Optional.of(rule));
+        ByteArrayInputStream input = lines(100_000, 3, 1);
+
+        FileValidationService.ValidationResult result = validationService.validateAndFix(
+                input, "test.pm3", "pm3", batchId);
+
+        assertThat(result.isRejected()).isTrue();
+        assertThat(result.getRejectionReason()).startsWith("critical violation on line 3");
+        assertThat(result.getIssueCount()).isEqualTo(1);
+        assertThat(input.available()).isGreaterThan(390_000); // Only the first buffer of ~400 KB was read
+
+        verify(issueRepository).saveAll(issuesCaptor.capture());
+        assertThat(issuesCaptor.getValue()).singleElement()
+                .satisfies(issue -> assertThat(issue.getSeverity()).isEqualTo(FileValidationIssue.Severity.CRITICAL));
+    }
+
+    @Test
+    void testValidateAndFix_StopsAfterRuleErrorLimit() throws IOException {
+        rule.setMaxErrors(5);
+        when(ruleRepository.findByFilePattern("pm3")).thenReturn(Optional.of(rule));
+
+        FileValidationService.ValidationResult result = validationService.validateAndFix(
+                lines(100_000, 10, 10), "test.pm3", "pm3", batchId);
+
+        assertThat(result.isRejected()).isTrue();
+        assertThat(result.getRejectionReason()).isEqualTo("more than 5 validation errors (stopped at line 60)");
+        assertThat(result.getIssueCount()).isEqualTo(6);
+
+        // No limit: the whole file is validated
+        rule.setMaxErrors(-1);
+        result = validationService.validateAndFix(lines(1_000, 10, 10), "test.pm3", "pm3", batchId);
+        assertThat(result.isRejected()).isFalse();
+        assertThat(result.getIssueCount()).isEqualTo(100);
+    }
+
+    @Test
+    void testValidateAndFix_BatchBudgetSharedAcrossFiles() throws IOException {
+        csvProcessingConfig.setBatchMaxValidationErrors(3);
+        UUID parentBatchId = UUID.randomUUID();
+        when(ruleRepository.findByFilePattern("pm3")).thenReturn(Optional.of(rule));
+
+        FileValidationService.ErrorBudget budget = validationService.openBatchBudget(parentBatchId);
+        FileValidationService.ValidationResult first = validationService.validateAndFix(
+                lines(20, 10, 10), "PM301", "pm3", UUID.randomUUID(), parentBatchId);
+        FileValidationService.ValidationResult second = validationService.validateAndFix(
+                lines(20, 10, 10), "PM302", "pm3", UUID.randomUUID(), parentBatchId);
+        validationService.closeBatchBudget(parentBatchId);
+
+        assertThat(first.isRejected()).isFalse();
+        assertThat(second.isRejected()).isTrue();
+        assertThat(second.getRejectionReason()).isEqualTo("ZIP batch exceeded 3 validation errors (stopped at line 20)");
+        assertThat(budget.isExhausted()).isTrue();
+
+        // The closed budget no longer applies
+        assertThat(validationService.validateAndFix(lines(20, 10, 10), "PM303", "pm3", UUID.randomUUID(), parentBatchId)
+                .isRejected()).isFalse();
+    }
+
+    @Test
+    void testValidateAndFix_BufferAdmittedOutsideTransaction() throws IOException {
+        BufferPool bufferPool = mock(BufferPool.class);
+        when(bufferPool.newBuffer()).thenReturn(new SpillingBuffer(null));
+        when(ruleRepository.findByFilePattern("pm3")).thenReturn(Optional.of(rule));
+        FileValidationService service = new FileValidationService(ruleRepository, issueRepository,
+                lineRepository, null, bufferPool, csvProcessingConfig, transactionManager);
+
+        service.validateAndFix(lines(20, 10, 10), "test.pm3", "pm3", batchId);
+
+        // No connection is held while waiting for the buffer; only the issue saving is transactional
+        InOrder inOrder = inOrder(bufferPool, transactionManager, issueRepository);
+        inOrder.verify(bufferPool).newBuffer();
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(issueRepository).saveAll(anyCollection());
+        inOrder.verify(transactionManager).commit(any());
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void testGetIssuePage_KeysetPagesOverExpandedLines() {
+        FileValidationIssue excess = group(10L, 2L, 3L, "2-3,7", FileValidationIssue.IssueType.EXCESS_TABS);
+        FileValidationIssue cleaned = group(11L, 3L, 1L, null, FileValidationIssue.IssueType.CONTROL_CHARACTERS);
+
+        FileValidationLine sampled = new FileValidationLine();
+        sampled.setBatchId(batchId);
+        sampled.setLineNumber(3L);
+        sampled.setOriginalLine("a\tb\tc\td");
+
+        when(issueRepository.findByBatchIdOrderByLineNumber(batchId)).thenReturn(List.of(excess, cleaned));
+        when(lineRepository.findByBatchIdAndLineNumberIn(eq(batchId), anyCollection()))
+                .thenReturn(List.of(sampled), List.of());
+
+        // Page 1: (2, 10), (3, 10) - line 3 has two issues, ordered by id
+        FileValidationService.IssuePage first = validationService.getIssuePage(batchId, null, 0, 0, 2);
+        assertThat(first.getIssues()).extracting(FileValidationIssue::getLineNumber).containsExactly(2L, 3L);
+        assertThat(first.getIssues().get(1).getOriginalLine()).isEqualTo("a\tb\tc\td");
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getNextAfterLine()).isEqualTo(3L);
+        assertThat(first.getNextAfterId()).isEqualTo(10L);
+
+        // Page 2 continues within line 3: (3, 11), (7, 10)
+        FileValidationService.IssuePage second = validationService.getIssuePage(batchId, null,
+                first.getNextAfterLine(), first.getNextAfterId(), 2);
+        assertThat(second.getIssues()).extracting(FileValidationIssue::getId).containsExactly(11L, 10L);
+        assertThat(second.getIssues()).extracting(FileValidationIssue::getLineNumber).containsExactly(3L, 7L);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getNextAfterLine()).isNull();
+    }
+
+    @Test
+    void testGenerateReport_CountsFromAggregates() {
+        when(issueRepository.summarizeByBatchId(batchId)).thenReturn(List.of(
+                new Object[] { FileValidationIssue.Severity.WARNING, 1999L, 1999L },
+                new Object[] { FileValidationIssue.Severity.ERROR, 1L, 0L }));
+        when(issueRepository.findByBatchIdOrderByLineNumber(batchId)).thenReturn(List.of());
+
+        FileValidationService.ValidationReport report = validationService.generateReport(batchId);
+
+        assertThat(report.getTotalIssues()).isEqualTo(2000);
+        assertThat(report.getAutoFixedCount()).isEqualTo(1999);
+        assertThat(report.getSeverityCounts()).containsEntry(FileValidationIssue.Severity.ERROR, 1L);
+        assertThat(report.getIssues()).isEmpty();
+        assertThat(report.isMoreIssues()).isFalse();
+    }
+
+    private FileValidationIssue group(Long id, Long firstLine, Long lineCount, String ranges,
+            FileValidationIssue.IssueType type) {
+        FileValidationIssue issue = new FileValidationIssue();
+        issue.setId(id);
+        issue.setBatchId(batchId);
+        issue.setLineNumber(firstLine);
+        issue.setLineCount(lineCount);
+        issue.setLineRanges(ranges);
+        issue.setIssueType(type);
+        issue.setSeverity(FileValidationIssue.Severity.WARNING);
+        issue.setAutoFixed(true);
+        return issue;
+    }
+}
@@ -0,0 +1,93 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import teranet.mapdev.ingest.model.IngestJob;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IngestJobQueue
+ * Tests enqueue de-duplication, SKIP LOCKED claims, heartbeats and completion
+ */
+class IngestJobQueueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private IngestJobQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        queue = new IngestJobQueue(jdbcTemplate);
+    }
+
+    @Test
+    void testEnqueue_ReturnsNullWhenAlreadyQueued() {
+        IngestJob job = IngestJob.watchFile("PM162");
+        when(jdbcTemplate.queryForList(contains("ON CONFLICT"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(7L))
+                .thenReturn(List.of());
+
+        assertThat(queue.enqueue(job)).isEqualTo(7L);
+        assertThat(queue.enqueue(job)).isNull();
+        assertThat(job.getJobKey()).isEqualTo("watch:PM162");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testClaim_FailsExhaustedJobsThenClaimsWithSkipLocked() {
+        IngestJob claimed = IngestJob.upload(IngestJob.Type.ZIP_UPLOAD, "batch.zip", "/tmp/async-1.spool",
+                UUID.randomUUID());
+        when(jdbcTemplate.query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class),
+                eq(queue.getOwner()), eq(300), eq(3), eq(2)))
+                .thenReturn(List.of(claimed));
+
+        List<IngestJob> jobs = queue.claim(2);
+
+        assertThat(jobs).containsExactly(claimed);
+        var order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(contains("attempts >= ?"), eq(3));
+        order.verify(jdbcTemplate).query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class),
+                eq(queue.getOwner()), eq(300), eq(3), eq(2));
+    }
+
+    @Test
+    void testCountQueuedUploads_CountsOnlyQueuedUploads() {
+        when(jdbcTemplate.queryForObject(argThat((String sql) -> sql.contains("status = 'QUEUED'")
+                && sql.contains("'DELIMITED_UPLOAD', 'ZIP_UPLOAD'")), eq(Integer.class))).thenReturn(4);
+
+        assertThat(queue.countQueuedUploads()).isEqualTo(4);
+    }
+
+    @Test
+    void testClaim_NothingWhenNoFreeSlots() {
+        assertThat(queue.claim(0)).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testHeartbeatAndComplete_OnlyTouchOwnJobs() {
+        when(jdbcTemplate.queryForList(contains("lease_expires_at"), eq(Long.class), eq(300), eq(queue.getOwner())))
+                .thenReturn(List.of(1L, 2L));
+        when(jdbcTemplate.update(contains("owner = ?"), eq("DONE"), isNull(), eq(1L), eq(queue.getOwner())))
+                .thenReturn(1);
+        when(jdbcTemplate.update(contains("owner = ?"), eq("FAILED"), eq("boom"), eq(2L), eq(queue.getOwner())))
+                .thenReturn(0);
+
+        assertThat(queue.heartbeat()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(queue.complete(1L, true, null)).isTrue();
+        assertThat(queue.complete(2L, false, "boom")).isFalse();
+    }
+}
@@ -0,0 +1,151 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import teranet.mapdev.ingest.model.IngestJob;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IngestJobWorker
+ * Tests claiming for free worker threads, job completion and aborting jobs
+ * whose lease was lost
+ */
+class IngestJobWorkerTest {
+
+    @Mock
+    private IngestJobQueue queue;
+
+    @Mock
+    private WatchFolderService watchFolderService;
+
+    @Mock
+    private AsyncUploadService asyncUploadService;
+
+    private IngestJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        worker = new IngestJobWorker(queue, watchFolderService, asyncUploadService);
+        ReflectionTestUtils.setField(worker, "workerThreads", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.stop();
+    }
+
+    @Test
+    void testPoll_DisabledQueueClaimsNothing() {
+        when(queue.isEnabled()).thenReturn(false);
+
+        worker.poll();
+
+        verify(queue, never()).claim(anyInt());
+    }
+
+    @Test
+    void testPoll_ClaimsForFreeThreadsAndCompletesJobs() {
+        IngestJob job = job(1L, IngestJob.Type.WATCH_FILE);
+        when(queue.isEnabled()).thenReturn(true);
+        when(queue.claim(2)).thenReturn(List.of(job));
+        when(watchFolderService.runJob(job)).thenReturn(true);
+
+        worker.poll();
+
+        verify(queue, timeout(5000)).complete(1L, true, null);
+        verify(asyncUploadService, never()).runJob(any());
+    }
+
+    @Test
+    void testRun_FailedJobIsCompletedAsFailed() {
+        IngestJob job = job(2L, IngestJob.Type.DELIMITED_UPLOAD);
+        when(asyncUploadService.runJob(job)).thenThrow(new IllegalStateException("disk full"));
+
+        worker.run(job);
+
+        verify(queue).complete(2L, false, "disk full");
+        assertThat(worker.getRunningCount()).isZero();
+    }
+
+    @Test
+    void testHeartbeat_SkippedWithoutRunningJobs() {
+        worker.heartbeat();
+
+        verify(queue, never()).heartbeat();
+    }
+
+    @Test
+    void testHeartbeat_LostLeaseAbortsJob() throws Exception {
+        IngestJob job = job(3L, IngestJob.Type.WATCH_FILE);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(queue.isEnabled()).thenReturn(true);
+        when(queue.claim(2)).thenReturn(List.of(job));
+        when(watchFolderService.runJob(job)).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return false;
+        });
+        // Another instance re-claimed the job
+        when(queue.heartbeat()).thenReturn(Set.of());
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.heartbeat();
+
+        verify(queue, timeout(5000)).complete(3L, false, null);
+        assertThat(interrupted).isTrue();
+        assertThat(worker.getRunningCount()).isZero();
+    }
+
+    @Test
+    void testHeartbeat_OwnedJobKeepsRunning() throws Exception {
+        IngestJob job = job(4L, IngestJob.Type.WATCH_FILE);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(queue.isEnabled()).thenReturn(true);
+        when(queue.claim(2)).thenReturn(List.of(job));
+        when(watchFolderService.runJob(job)).thenAnswer(invocation -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        when(queue.heartbeat()).thenReturn(Set.of(4L));
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.heartbeat();
+        assertThat(worker.getRunningCount()).isEqualTo(1);
+        release.countDown();
+
+        verify(queue, timeout(5000)).complete(4L, true, null);
+    }
+
+    private IngestJob job(long id, IngestJob.Type type) {
+        IngestJob job = type == IngestJob.Type.WATCH_FILE
+                ? IngestJob.watchFile("PM162")
+                : IngestJob.upload(type, "PM162", "/tmp/async-1.spool", UUID.randomUUID());
+        job.setId(id);
+        job.setAttempts(1);
+        return job;
+    }
+}
@@ -7,7 +7,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import teranet.mapdev.ingest.model.IngestionManifest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.model.ProcessingStatsCheckpoint;
 import teranet.mapdev.ingest.repository.IngestionManifestRepository;
+import teranet.mapdev.ingest.repository.ProcessingStatsCheckpointRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -17,6 +23,8 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +33,9 @@ class IngestionManifestServiceTest {
     @Mock
     private IngestionManifestRepository repository;
 
+    @Mock
+    private ProcessingStatsCheckpointRepository checkpointRepository;
+
     @InjectMocks
     private IngestionManifestService service;
 
@@ -164,6 +175,47 @@ class IngestionManifestServiceTest {
                 IngestionManifest.Status.COMPLETED);
     }
 
+    @Test
+    void testFindInterruptedByChecksum_Success() {
+        String checksum = "abc123";
+        manifest.setStatus(IngestionManifest.Status.PROCESSING);
+        manifest.recordCheckpoint(499, 500, 40000); // header + 499 rows committed
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(checksum,
+                IngestionManifest.Status.PROCESSING))
+                .thenReturn(Optional.of(manifest));
+
+        IngestionManifest result = service.findInterruptedByChecksum(checksum);
+
+        assertNotNull(result);
+        assertEquals(batchId, result.getBatchId());
+        assertEquals(500L, result.getCommittedLineNumber());
+        verify(repository, never()).findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(checksum,
+                IngestionManifest.Status.COMPLETED);
+    }
+
+    @Test
+    void testFindInterruptedByChecksum_NotFound() {
+        String checksum = "xyz789";
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(checksum,
+                IngestionManifest.Status.PROCESSING))
+                .thenReturn(Optional.empty());
+
+        IngestionManifest result = service.findInterruptedByChecksum(checksum);
+
+        assertNull(result);
+    }
+
+    @Test
+    void testFindInterruptedByChecksum_Exception() {
+        String checksum = "abc123";
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc(checksum,
+                IngestionManifest.Status.PROCESSING))
+                .thenThrow(new RuntimeException("DB error"));
+
+        IngestionManifest result = service.findInterruptedByChecksum(checksum);
+
+        assertNull(result);
+    }
     @Test
     void testFindByParentBatchId_Success() {
         UUID parentBatchId = UUID.randomUUID();
@@ -299,6 +351,139 @@ class IngestionManifestServiceTest {
         assertEquals(0L, result.getTotalBatches());
     }
 
+    @Test
+    void testGetProcessingStats_MaintainedOnSaveWithoutRequerying() {
+        when(repository.getProcessingStatistics()).thenReturn(new Object[] { 3L, 2L, 1L, 0L, 500L });
+        service.getProcessingStats();
+
+        IngestionManifest newManifest = new IngestionManifest("pm1.tsv", 10L, "def456");
+        newManifest.markAsProcessing();
+        when(repository.save(newManifest)).thenReturn(newManifest);
+        service.save(newManifest);
+
+        newManifest.setTotalRecords(250L);
+        newManifest.markAsCompleted();
+        service.update(newManifest);
+
+        IngestionManifestService.ProcessingStats result = service.getProcessingStats();
+        assertEquals(4L, result.getTotalBatches());
+        assertEquals(3L, result.getCompletedBatches());
+        assertEquals(0L, result.getProcessingBatches());
+        assertEquals(750L, result.getTotalRecordsProcessed());
+        assertEquals(1L, service.getProcessingStats(java.time.Duration.ofHours(1)).getCompletedBatches());
+        verify(repository, times(1)).getProcessingStatistics();
+    }
+
+    @Test
+    void testGetProcessingStats_RolledBackSaveIsNotCounted() {
+        when(repository.getProcessingStatistics()).thenReturn(new Object[] { 3L, 2L, 1L, 0L, 500L });
+        service.getProcessingStats();
+
+        IngestionManifest newManifest = new IngestionManifest("pm1.tsv", 10L, "def456");
+        newManifest.setBatchId(UUID.randomUUID());
+        newManifest.setTotalRecords(250L);
+        newManifest.markAsCompleted();
+        when(repository.save(newManifest)).thenReturn(newManifest);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.save(newManifest);
+            assertEquals(2L, service.getProcessingStats().getCompletedBatches());
+            // Rolled back - afterCommit never runs
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2L, service.getProcessingStats().getCompletedBatches());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.update(newManifest);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(3L, service.getProcessingStats().getCompletedBatches());
+        assertEquals(750L, service.getProcessingStats().getTotalRecordsProcessed());
+    }
+
+    @Test
+    void testLoadProcessingStats_CleanCheckpointSkipsAggregation() {
+        ProcessingStatsCheckpoint checkpoint = new ProcessingStatsCheckpoint();
+        checkpoint.setCompletedBatches(40L);
+        checkpoint.setFailedBatches(5L);
+        checkpoint.setTotalRecords(9000L);
+        checkpoint.setCleanShutdown(true);
+        when(checkpointRepository.findById(ProcessingStatsCheckpoint.SINGLETON_ID)).thenReturn(Optional.of(checkpoint));
+
+        service.loadProcessingStats();
+
+        assertEquals(45L, service.getProcessingStats().getTotalBatches());
+        verify(repository, never()).getProcessingStatistics();
+        // Marked unclean straight away so a crash is detected at the next start
+        verify(checkpointRepository).save(argThat(saved -> !saved.isCleanShutdown() && saved.getTotalRecords() == 9000L));
+    }
+
+    @Test
+    void testLoadProcessingStats_SharedJobQueueIgnoresCheckpoint() {
+        ReflectionTestUtils.setField(service, "sharedManifest", true);
+        ReflectionTestUtils.setField(service, "sharedStatsRefreshMs", 60000L);
+        when(repository.getProcessingStatistics()).thenReturn(new Object[] { 42L, 41L, 1L, 0L, 100L });
+        when(repository.findFinishedSince(any(LocalDateTime.class))).thenReturn(List.of());
+
+        service.loadProcessingStats();
+        service.checkpointProcessingStats();
+        service.checkpointProcessingStatsOnShutdown();
+
+        assertEquals(41L, service.getProcessingStats().getCompletedBatches());
+        verify(repository, times(1)).getProcessingStatistics();
+        // Each instance would overwrite the others' checkpoint
+        verify(checkpointRepository, never()).findById(any());
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    void testGetProcessingStats_SharedJobQueueReaggregatesOtherInstancesChanges() {
+        ReflectionTestUtils.setField(service, "sharedManifest", true);
+        ReflectionTestUtils.setField(service, "sharedStatsRefreshMs", 0L);
+        when(repository.getProcessingStatistics())
+                .thenReturn(new Object[] { 42L, 41L, 1L, 0L, 100L })
+                .thenReturn(new Object[] { 43L, 42L, 1L, 0L, 150L }); // completed by another instance
+
+        assertEquals(41L, service.getProcessingStats().getCompletedBatches());
+        assertEquals(42L, service.getProcessingStats().getCompletedBatches());
+        assertEquals(150L, service.getProcessingStats().getTotalRecordsProcessed());
+    }
+
+    @Test
+    void testGetProcessingStats_SharedRefreshFailureKeepsCounters() {
+        ReflectionTestUtils.setField(service, "sharedManifest", true);
+        ReflectionTestUtils.setField(service, "sharedStatsRefreshMs", 0L);
+        when(repository.getProcessingStatistics())
+                .thenReturn(new Object[] { 42L, 41L, 1L, 0L, 100L })
+                .thenThrow(new RuntimeException("DB error"));
+
+        assertEquals(41L, service.getProcessingStats().getCompletedBatches());
+        assertEquals(41L, service.getProcessingStats().getCompletedBatches());
+    }
+
+    @Test
+    void testLoadProcessingStats_UncleanCheckpointAggregatesOnce() {
+        ProcessingStatsCheckpoint checkpoint = new ProcessingStatsCheckpoint();
+        checkpoint.setCompletedBatches(40L);
+        when(checkpointRepository.findById(ProcessingStatsCheckpoint.SINGLETON_ID)).thenReturn(Optional.of(checkpoint));
+        when(repository.getProcessingStatistics()).thenReturn(new Object[] { 42L, 41L, 1L, 0L, 100L });
+        when(repository.findFinishedSince(any(LocalDateTime.class))).thenReturn(List.<Object[]>of(
+                new Object[] { IngestionManifest.Status.COMPLETED, LocalDateTime.now().minusMinutes(5), 100L }));
+
+        service.loadProcessingStats();
+        service.checkpointProcessingStatsOnShutdown();
+
+        assertEquals(41L, service.getProcessingStats().getCompletedBatches());
+        assertEquals(1L, service.getProcessingStats(java.time.Duration.ofHours(1)).getCompletedBatches());
+        verify(repository, times(1)).getProcessingStatistics();
+        verify(checkpointRepository).save(argThat(ProcessingStatsCheckpoint::isCleanShutdown));
+    }
+
     @Test
     void testCountByStatus_Success() {
         when(repository.countByStatus(IngestionManifest.Status.COMPLETED)).thenReturn(5L);
@@ -397,4 +582,72 @@ class IngestionManifestServiceTest {
 
         verify(repository, times(1)).deleteById(1L);
     }
+
+    @Test
+    void testFindByChecksum_FilterSkipsDatabaseForUnknownChecksum() {
+        when(repository.countByStatus(IngestionManifest.Status.COMPLETED)).thenReturn(1L);
+        when(repository.findCompletedChecksumsAfterId(eq(0L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[] { 7L, "abc123" }));
+        when(repository.findCompletedChecksumsUpdatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("abc123",
+                IngestionManifest.Status.COMPLETED)).thenReturn(Optional.of(manifest));
+
+        service.warmChecksumFilter();
+
+        // Never completed - answered from memory
+        assertNull(service.findByChecksum("never-seen"));
+        verify(repository, never()).findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("never-seen",
+                IngestionManifest.Status.COMPLETED);
+
+        // Possible match - confirmed against the database
+        assertSame(manifest, service.findByChecksum("abc123"));
+        assertEquals(2, service.getChecksumLookups());
+        assertEquals(1, service.getChecksumLookupsSkipped());
+    }
+
+    @Test
+    void testFindByChecksum_SharedJobQueueConfirmsMissInDatabase() {
+        ReflectionTestUtils.setField(service, "sharedManifest", true);
+        when(repository.countByStatus(IngestionManifest.Status.COMPLETED)).thenReturn(0L);
+        when(repository.findCompletedChecksumsAfterId(eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(repository.findCompletedChecksumsUpdatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+        // Completed by another instance after this one warmed its filter
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("abc123",
+                IngestionManifest.Status.COMPLETED)).thenReturn(Optional.of(manifest));
+
+        service.warmChecksumFilter();
+
+        assertSame(manifest, service.findByChecksum("abc123"));
+        assertEquals(0, service.getChecksumLookupsSkipped());
+    }
+
+    @Test
+    void testUpdate_CompletedManifestIsAddedToFilter() {
+        when(repository.countByStatus(IngestionManifest.Status.COMPLETED)).thenReturn(0L);
+        when(repository.findCompletedChecksumsAfterId(eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(repository.findCompletedChecksumsUpdatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+        service.warmChecksumFilter();
+
+        manifest.setFileChecksum("def456");
+        when(repository.save(manifest)).thenReturn(manifest);
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("def456",
+                IngestionManifest.Status.COMPLETED)).thenReturn(Optional.of(manifest));
+
+        service.update(manifest);
+
+        assertSame(manifest, service.findByChecksum("def456"));
+    }
+
+    @Test
+    void testFindByChecksum_WarmFailureFallsBackToDatabase() {
+        when(repository.countByStatus(IngestionManifest.Status.COMPLETED)).thenThrow(new RuntimeException("DB down"));
+        when(repository.findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("xyz789",
+                IngestionManifest.Status.COMPLETED)).thenReturn(Optional.empty());
+
+        service.warmChecksumFilter();
+
+        assertNull(service.findByChecksum("xyz789"));
+        verify(repository, times(1)).findFirstByFileChecksumAndStatusOrderByCreatedAtDesc("xyz789",
+                IngestionManifest.Status.COMPLETED);
+    }
 }
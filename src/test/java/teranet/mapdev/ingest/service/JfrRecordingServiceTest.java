@@ -0,0 +1,104 @@
+package teranet.mapdev.ingest.service;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.stream.IngestEvents;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for JfrRecordingService
+ * Tests the on-demand recording lifecycle and slow-load snapshots with their cooldown
+ */
+class JfrRecordingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private JfrRecordingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new JfrRecordingService(now::get);
+        ReflectionTestUtils.setField(service, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(service, "slowLoadRowsPerSec", 10_000.0);
+        ReflectionTestUtils.setField(service, "slowLoadMinRows", 1000L);
+        ReflectionTestUtils.setField(service, "snapshotCooldownMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void testStartStop_WritesIngestEvents() throws Exception {
+        service.start("default", 0, 0);
+        assertThatThrownBy(() -> service.start("default", 0, 0)).isInstanceOf(IllegalStateException.class);
+
+        UUID batchId = UUID.randomUUID();
+        IngestEvents.Copy event = new IngestEvents.Copy();
+        event.table = "title_d_app.pm1";
+        event.start(batchId, "PM1");
+        event.add(2048, 12);
+        event.commit();
+
+        Path file = service.stop();
+
+        assertThat(file).exists().hasParent(tempDir);
+        List<RecordedEvent> copies = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("teranet.ingest.Copy"))
+                .filter(e -> batchId.toString().equals(e.getString("batchId")))
+                .toList();
+        assertThat(copies).hasSize(1);
+        assertThat(copies.get(0).getLong("rows")).isEqualTo(12);
+        assertThat(copies.get(0).getLong("bytes")).isEqualTo(2048);
+        assertThat(copies.get(0).getString("table")).isEqualTo("title_d_app.pm1");
+        assertThatThrownBy(() -> service.stop()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRecordLoad_SkipsSnapshotWhenNothingIsRecording() {
+        assertThat(service.recordLoad("PM162", UUID.randomUUID(), 50_000, 10_000)).isNull();
+        assertThat(service.getStatus())
+                .containsEntry("slowLoads", 1L)
+                .containsEntry("snapshots", 0L);
+    }
+
+    @Test
+    void testRecordLoad_SnapshotsSlowLoadsOncePerCooldown() throws Exception {
+        service.start("default", 0, 0);
+
+        assertThat(service.recordLoad("PM162", UUID.randomUUID(), 500, 10_000)).isNull(); // too small
+        assertThat(service.recordLoad("PM162", UUID.randomUUID(), 50_000, 1_000)).isNull(); // fast enough
+
+        Path first = service.recordLoad("PM162", UUID.randomUUID(), 50_000, 10_000);
+        now.addAndGet(30_000);
+        Path second = service.recordLoad("PM262", UUID.randomUUID(), 50_000, 10_000);
+        now.addAndGet(30_000);
+        Path third = service.recordLoad("PM362", UUID.randomUUID(), 50_000, 10_000);
+        service.awaitSnapshots(30_000);
+
+        assertThat(first).exists().hasParent(tempDir);
+        assertThat(Files.size(first)).isPositive();
+        assertThat(second).isNull();
+        assertThat(third).exists();
+        assertThat(service.getStatus())
+                .containsEntry("recording", true)
+                .containsEntry("slowLoads", 3L)
+                .containsEntry("snapshots", 2L)
+                .containsEntry("lastSnapshot", third.toString());
+    }
+}
@@ -0,0 +1,164 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PartitionMaintenanceService
+ * Tests pre-creation of upcoming monthly partitions (including moving rows out
+ * of the DEFAULT partition) and retention drops
+ */
+class PartitionMaintenanceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private IngestionManifestService manifestService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionMaintenanceService service;
+
+    /** Existing children of every partitioned table, as table suffixes */
+    private final List<String> existingSuffixes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new PartitionMaintenanceService(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(service, "schema", "title_d_app");
+        ReflectionTestUtils.setField(service, "manifestService", manifestService);
+
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("title_d_app"), anyString()))
+                .thenAnswer(invocation -> {
+                    String table = invocation.getArgument(3);
+                    return existingSuffixes.stream().map(suffix -> table + suffix).toList();
+                });
+    }
+
+    @Test
+    void testMaintain_CreatesMissingUpcomingPartitions() {
+        existingSuffixes.addAll(List.of("_default", "_p202610", "_p202611"));
+
+        PartitionMaintenanceService.MaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getCreated()).contains(
+                "ingestion_manifest_p202612", "ingestion_manifest_p202701",
+                "file_validation_issues_p202612", "file_validation_lines_p202701");
+        assertThat(result.getCreated()).hasSize(2 * PartitionMaintenanceService.PARTITIONED_TABLES.size());
+        assertThat(result.getDropped()).isEmpty();
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS title_d_app.file_validation_issues_p202612 "
+                + "PARTITION OF title_d_app.file_validation_issues FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+        verify(manifestService, never()).reconcileProcessingStats();
+    }
+
+    @Test
+    void testMaintain_MovesDefaultPartitionRowsIntoNewPartition() {
+        existingSuffixes.addAll(List.of("_default", "_p202610", "_p202611", "_p202612"));
+        // Rows for January 2027 are already in the manifest's DEFAULT partition
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return sql.contains("ingestion_manifest_default") && sql.contains("'2027-01-01'");
+        });
+        when(jdbcTemplate.update(startsWith("INSERT"))).thenReturn(7);
+
+        PartitionMaintenanceService.MaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getCreated()).containsExactly(
+                "ingestion_manifest_p202701", "file_validation_issues_p202701", "file_validation_lines_p202701");
+        InOrder inOrder = inOrder(transactionManager, jdbcTemplate);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(jdbcTemplate).execute(
+                "ALTER TABLE title_d_app.ingestion_manifest DETACH PARTITION title_d_app.ingestion_manifest_default");
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS title_d_app.ingestion_manifest_p202701 "
+                + "PARTITION OF title_d_app.ingestion_manifest FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+        inOrder.verify(jdbcTemplate).update("INSERT INTO title_d_app.ingestion_manifest_p202701 "
+                + "SELECT * FROM title_d_app.ingestion_manifest_default "
+                + "WHERE created_at >= '2027-01-01' AND created_at < '2027-02-01'");
+        inOrder.verify(jdbcTemplate).update("DELETE FROM title_d_app.ingestion_manifest_default "
+                + "WHERE created_at >= '2027-01-01' AND created_at < '2027-02-01'");
+        inOrder.verify(jdbcTemplate).execute(
+                "ALTER TABLE title_d_app.ingestion_manifest ATTACH PARTITION title_d_app.ingestion_manifest_default DEFAULT");
+        inOrder.verify(transactionManager).commit(any());
+        // Tables without rows in DEFAULT get a plain CREATE
+        verify(jdbcTemplate, times(1)).execute(contains("DETACH"));
+    }
+
+    @Test
+    void testMaintain_FailedMoveRollsBackAndRetriesNextRun() {
+        existingSuffixes.addAll(List.of("_default", "_p202610", "_p202611", "_p202612"));
+        when(jdbcTemplate.queryForObject(contains("ingestion_manifest_default"), eq(Boolean.class)))
+                .thenReturn(true);
+        doThrow(new RuntimeException("canceling statement due to lock timeout"))
+                .when(jdbcTemplate).update(startsWith("INSERT"));
+
+        PartitionMaintenanceService.MaintenanceResult result = service.maintain(TODAY);
+
+        // The detach and create are rolled back; the other tables still get their partition
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(jdbcTemplate, never()).execute(contains("ATTACH PARTITION"));
+        assertThat(result.getCreated()).containsExactly("file_validation_issues_p202701", "file_validation_lines_p202701");
+    }
+
+    @Test
+    void testMaintain_DropsOnlyPartitionsEntirelyPastRetention() {
+        ReflectionTestUtils.setField(service, "retentionMonths", 2);
+        existingSuffixes.addAll(List.of("_default", "_p202607", "_p202608", "_p202609",
+                "_p202610", "_p202611", "_p202612", "_p202701"));
+
+        PartitionMaintenanceService.MaintenanceResult result = service.maintain(TODAY);
+
+        // Cutoff 2026-08-18: July ended before it, August still holds rows inside the retention
+        assertThat(result.getDropped()).containsExactlyInAnyOrder(
+                "ingestion_manifest_p202607", "file_validation_issues_p202607", "file_validation_lines_p202607");
+        assertThat(result.getCreated()).isEmpty();
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS title_d_app.ingestion_manifest_p202607");
+        verify(jdbcTemplate, never()).execute(contains("_default"));
+        // The dropped manifests are still in the processing statistics
+        verify(manifestService).reconcileProcessingStats();
+    }
+
+    @Test
+    void testMaintain_CreateFailureDoesNotStopOtherTables() {
+        existingSuffixes.addAll(List.of("_p202610", "_p202611", "_p202612"));
+        doThrow(new RuntimeException("updated partition constraint for default partition would be violated"))
+                .when(jdbcTemplate).execute(contains("ingestion_manifest_p202701"));
+
+        PartitionMaintenanceService.MaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getCreated()).containsExactly("file_validation_issues_p202701", "file_validation_lines_p202701");
+    }
+
+    @Test
+    void testPartitionMonth_ParsesOnlyMonthlyPartitions() {
+        assertThat(PartitionMaintenanceService.partitionMonth("ingestion_manifest", "ingestion_manifest_p202610"))
+                .isEqualTo(YearMonth.of(2026, 10));
+        assertThat(PartitionMaintenanceService.partitionMonth("ingestion_manifest", "ingestion_manifest_default"))
+                .isNull();
+        assertThat(PartitionMaintenanceService.partitionMonth("ingestion_manifest", "ingestion_manifest_p2026xx"))
+                .isNull();
+        assertThat(PartitionMaintenanceService.partitionName("file_validation_lines", YearMonth.of(2027, 1)))
+                .isEqualTo("file_validation_lines_p202701");
+    }
+}
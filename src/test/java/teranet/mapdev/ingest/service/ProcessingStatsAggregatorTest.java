@@ -0,0 +1,140 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import teranet.mapdev.ingest.model.IngestionManifest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ProcessingStatsAggregator
+ * Tests transition deltas, seeding and the windowed statistics
+ */
+class ProcessingStatsAggregatorTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private long now = 1_000_000 * MINUTE;
+    private ProcessingStatsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new ProcessingStatsAggregator(() -> now);
+    }
+
+    private static IngestionManifest manifest(IngestionManifest.Status status, long totalRecords) {
+        IngestionManifest manifest = new IngestionManifest("pm1.tsv", 100L, "abc");
+        manifest.setStatus(status);
+        manifest.setTotalRecords(totalRecords);
+        return manifest;
+    }
+
+    @Test
+    void testRecordSaved_AppliesOnlyTheChangeOfEachManifest() {
+        aggregator.seed(10, 2, 0, 5000);
+        IngestionManifest manifest = manifest(IngestionManifest.Status.PROCESSING, 0);
+
+        aggregator.recordSaved(manifest, true);
+        assertThat(aggregator.getStats().getProcessingBatches()).isEqualTo(1);
+        assertThat(aggregator.getStats().getTotalBatches()).isEqualTo(13);
+
+        manifest.setTotalRecords(400L);
+        aggregator.recordSaved(manifest, false);
+        manifest.markAsCompleted();
+        aggregator.recordSaved(manifest, false);
+        // Saved again (e.g. quality metrics) - no change of contribution
+        aggregator.recordSaved(manifest, false);
+
+        IngestionManifestService.ProcessingStats stats = aggregator.getStats();
+        assertThat(stats.getProcessingBatches()).isZero();
+        assertThat(stats.getCompletedBatches()).isEqualTo(11);
+        assertThat(stats.getFailedBatches()).isEqualTo(2);
+        assertThat(stats.getTotalBatches()).isEqualTo(13);
+        assertThat(stats.getTotalRecordsProcessed()).isEqualTo(5400);
+        assertThat(aggregator.getWindow(Duration.ofHours(1)).getCompletedBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void testRecordLoaded_ManifestFromDatabaseIsNotCountedTwice() {
+        aggregator.seed(0, 0, 1, 0);
+        IngestionManifest interrupted = manifest(IngestionManifest.Status.PROCESSING, 0);
+
+        aggregator.recordLoaded(interrupted);
+        interrupted.markAsFailed("boom", null);
+        aggregator.recordSaved(interrupted, false);
+
+        assertThat(aggregator.getStats().getProcessingBatches()).isZero();
+        assertThat(aggregator.getStats().getFailedBatches()).isEqualTo(1);
+        assertThat(aggregator.getStats().getTotalBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void testDuplicateAndCancelledAreNotCounted() {
+        IngestionManifest manifest = manifest(IngestionManifest.Status.PROCESSING, 50);
+        aggregator.recordSaved(manifest, true);
+
+        manifest.setStatus(IngestionManifest.Status.DUPLICATE);
+        aggregator.recordSaved(manifest, false);
+
+        assertThat(aggregator.getStats().getTotalBatches()).isZero();
+        assertThat(aggregator.getStats().getTotalRecordsProcessed()).isZero();
+    }
+
+    @Test
+    void testGetWindow_CountsOnlyFinishesInsideTheWindow() {
+        aggregator.recordFinished(IngestionManifest.Status.COMPLETED, 100, now - 30 * MINUTE);
+        aggregator.recordFinished(IngestionManifest.Status.FAILED, 0, now - 90 * MINUTE);
+        aggregator.recordFinished(IngestionManifest.Status.COMPLETED, 200, now - 23 * 60 * MINUTE);
+        aggregator.recordFinished(IngestionManifest.Status.COMPLETED, 999, now - 25 * 60 * MINUTE); // too old
+
+        ProcessingStatsAggregator.WindowStats hour = aggregator.getWindow(Duration.ofHours(1));
+        assertThat(hour.getCompletedBatches()).isEqualTo(1);
+        assertThat(hour.getFailedBatches()).isZero();
+        assertThat(hour.getRecordsLoaded()).isEqualTo(100);
+
+        ProcessingStatsAggregator.WindowStats day = aggregator.getWindow(Duration.ofDays(1));
+        assertThat(day.getWindowMinutes()).isEqualTo(1440);
+        assertThat(day.getCompletedBatches()).isEqualTo(2);
+        assertThat(day.getFailedBatches()).isEqualTo(1);
+        assertThat(day.getRecordsLoaded()).isEqualTo(300);
+
+        // A day later the ring slots are reused without leaking old counts
+        now += 24 * 60 * MINUTE;
+        assertThat(aggregator.getWindow(Duration.ofDays(1)).getCompletedBatches()).isZero();
+    }
+
+    @Test
+    void testEvictFinished_ForgetsOnlyOldFinishedManifests() {
+        IngestionManifest running = manifest(IngestionManifest.Status.PROCESSING, 0);
+        IngestionManifest done = manifest(IngestionManifest.Status.COMPLETED, 10);
+        aggregator.recordSaved(running, true);
+        aggregator.recordSaved(done, true);
+
+        assertThat(aggregator.evictStale()).isEqualTo(2);
+        now += ProcessingStatsAggregator.FINISHED_RETENTION_MS + MINUTE;
+        assertThat(aggregator.evictStale()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictStale_ForgetsPendingAndLongRunningManifests() {
+        IngestionManifest queued = manifest(IngestionManifest.Status.PENDING, 0);
+        IngestionManifest stuck = manifest(IngestionManifest.Status.PROCESSING, 0);
+        aggregator.recordSaved(queued, true);
+        aggregator.recordSaved(stuck, true);
+
+        now += ProcessingStatsAggregator.FINISHED_RETENTION_MS + MINUTE;
+        assertThat(aggregator.evictStale()).isEqualTo(1);
+        now += ProcessingStatsAggregator.UNFINISHED_RETENTION_MS;
+        assertThat(aggregator.evictStale()).isZero();
+
+        // Resumed later: read back through the service, so finishing it still moves it out of PROCESSING
+        aggregator.recordLoaded(stuck);
+        stuck.setTotalRecords(50L);
+        stuck.markAsCompleted();
+        aggregator.recordSaved(stuck, false);
+        assertThat(aggregator.getStats().getProcessingBatches()).isZero();
+        assertThat(aggregator.getStats().getCompletedBatches()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,72 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RowNumberAllocator
+ * Tests sequence lookup caching and locked nextval + setval reservations
+ */
+class RowNumberAllocatorTest {
+
+    private static final String SEQUENCE = "title_d_app.pm1_row_number_seq";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RowNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        allocator = new RowNumberAllocator(jdbcTemplate);
+        when(jdbcTemplate.queryForList(contains("pg_get_serial_sequence"), eq(String.class), eq("pm1")))
+                .thenReturn(List.of(SEQUENCE));
+    }
+
+    @Test
+    void testReserve_LocksThenMovesSequencePastRange() {
+        when(jdbcTemplate.queryForObject(contains("nextval"), eq(Long.class), eq(SEQUENCE))).thenReturn(41L);
+
+        assertThat(allocator.reserve("pm1", 10)).isEqualTo(41L);
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).queryForList(contains("pg_advisory_xact_lock"),
+                eq(RowNumberAllocator.LOCK_NAMESPACE), eq(SEQUENCE));
+        order.verify(jdbcTemplate).queryForObject(contains("nextval"), eq(Long.class), eq(SEQUENCE));
+        order.verify(jdbcTemplate).queryForObject(contains("setval"), eq(Long.class), eq(SEQUENCE), eq(50L));
+    }
+
+    @Test
+    void testReserve_SingleRowNeedsNoSetval() {
+        when(jdbcTemplate.queryForObject(contains("nextval"), eq(Long.class), eq(SEQUENCE))).thenReturn(7L);
+
+        assertThat(allocator.reserve("pm1", 1)).isEqualTo(7L);
+
+        verify(jdbcTemplate, never()).queryForObject(contains("setval"), eq(Long.class), any(), any());
+    }
+
+    @Test
+    void testGetSequence_CachedAndNullWithoutSerialColumn() {
+        when(jdbcTemplate.queryForList(contains("pg_get_serial_sequence"), eq(String.class), eq("staging")))
+                .thenReturn(java.util.Collections.singletonList(null));
+
+        assertThat(allocator.getSequence("pm1")).isEqualTo(SEQUENCE);
+        assertThat(allocator.getSequence("pm1")).isEqualTo(SEQUENCE);
+        assertThat(allocator.getSequence("staging")).isNull();
+        assertThatThrownBy(() -> allocator.reserve("staging", 5))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(jdbcTemplate, times(1)).queryForList(contains("pg_get_serial_sequence"), eq(String.class), eq("pm1"));
+    }
+}
@@ -0,0 +1,193 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SchemaCatalogService
+ * Tests the single-query load, in-memory lookups and the rate-limited per-table refresh on miss
+ */
+class SchemaCatalogServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SchemaCatalogService catalog;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    /** Rows returned by the catalog query: table, column, udt_name, max length, precision, scale, nullable */
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        catalog = new SchemaCatalogService(jdbcTemplate, now::get);
+        ReflectionTestUtils.setField(catalog, "schema", "title_d_app");
+        ReflectionTestUtils.setField(catalog, "missRefreshIntervalMs", 30_000L);
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                if (row[0].equals(invocation.getArgument(3))) {
+                    handler.processRow(resultSet(row));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"), anyString());
+
+        rows.add(new Object[] { "pm1", "pin", "varchar", 9, null, null, "NO" });
+        rows.add(new Object[] { "pm1", "notes", "text", null, null, null, "YES" });
+        rows.add(new Object[] { "pm1", "amount", "numeric", null, 12, 2, "YES" });
+        rows.add(new Object[] { "pm1", "loaded_at", "timestamp", null, null, null, "YES" });
+        rows.add(new Object[] { "im2", "reg_date", "date", null, null, null, "YES" });
+    }
+
+    private static ResultSet resultSet(Object[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("table_name")).thenReturn((String) row[0]);
+        when(rs.getString("column_name")).thenReturn((String) row[1]);
+        when(rs.getString("udt_name")).thenReturn((String) row[2]);
+        when(rs.getString("is_nullable")).thenReturn((String) row[6]);
+
+        // getInt + wasNull, as with a real nullable integer column
+        Boolean[] lastWasNull = { false };
+        when(rs.getInt(anyString())).thenAnswer(inv -> {
+            int index = switch ((String) inv.getArgument(0)) {
+                case "character_maximum_length" -> 3;
+                case "numeric_precision" -> 4;
+                default -> 5;
+            };
+            lastWasNull[0] = row[index] == null;
+            return row[index] == null ? 0 : (Integer) row[index];
+        });
+        when(rs.wasNull()).thenAnswer(inv -> lastWasNull[0]);
+        return rs;
+    }
+
+    @Test
+    void testRefresh_LoadsAllTablesInOneQuery() throws SQLException {
+        assertThat(catalog.isLoaded()).isFalse();
+
+        assertThat(catalog.refresh()).isEqualTo(2);
+
+        assertThat(catalog.isLoaded()).isTrue();
+        assertThat(catalog.getTableNames()).containsExactly("pm1", "im2");
+        assertThat(catalog.getColumnNames("pm1")).containsExactly("pin", "notes", "amount", "loaded_at");
+        assertThat(catalog.getColumnNames("im2")).containsExactly("reg_date");
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"));
+    }
+
+    @Test
+    void testGetColumns_TypedDefinitions() throws SQLException {
+        catalog.refresh();
+
+        List<ColumnDefinition> columns = catalog.getColumns("pm1");
+
+        assertThat(columns.get(0).getJdbcType()).isEqualTo(Types.VARCHAR);
+        assertThat(columns.get(0).getPrecision()).isEqualTo(9);
+        assertThat(columns.get(0).isNullable()).isFalse();
+        // text has no length limit
+        assertThat(columns.get(1).getPrecision()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(columns.get(2).getJdbcType()).isEqualTo(Types.NUMERIC);
+        assertThat(columns.get(2).getPrecision()).isEqualTo(12);
+        assertThat(columns.get(2).getScale()).isEqualTo(2);
+        assertThat(columns.get(3).getJdbcType()).isEqualTo(Types.TIMESTAMP);
+        assertThat(columns.get(3).getTypeName()).isEqualTo("timestamp");
+    }
+
+    @Test
+    void testLookups_AreCaseInsensitiveAndSchemaQualified() throws SQLException {
+        catalog.refresh();
+
+        assertThat(catalog.tableExists("PM1")).isTrue();
+        assertThat(catalog.tableExists("title_d_app.im2")).isTrue();
+        assertThat(catalog.tableExists("staging_unknown")).isFalse();
+        assertThat(catalog.getColumnNames("TITLE_D_APP.PM1")).hasSize(4);
+
+        // Hits never go back to the database; the miss only looks up that one table
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"),
+                eq("staging_unknown"));
+    }
+
+    @Test
+    void testGetColumns_RefreshesOnMissForNewTables() throws SQLException {
+        catalog.refresh();
+        rows.add(new Object[] { "pm7", "pin", "varchar", 9, null, null, "NO" });
+
+        assertThat(catalog.getColumnNames("pm7")).containsExactly("pin");
+
+        assertThatThrownBy(() -> catalog.getColumns("missing_table"))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("title_d_app.missing_table does not exist");
+        // Only the missed tables are reloaded, not the whole catalog
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"),
+                anyString());
+        assertThat(catalog.getTableNames()).containsExactly("pm1", "im2", "pm7");
+    }
+
+    @Test
+    void testGetColumns_LoadsWholeCatalogOnFirstUse() throws SQLException {
+        assertThat(catalog.getColumnNames("im2")).containsExactly("reg_date");
+
+        assertThat(catalog.isLoaded()).isTrue();
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"));
+    }
+
+    @Test
+    void testTableExists_RefreshesMissedTableAtMostOncePerInterval() throws SQLException {
+        catalog.refresh();
+
+        assertThat(catalog.tableExists("pm8")).isFalse();
+        assertThat(catalog.tableExists("pm8")).isFalse();
+        assertThatThrownBy(() -> catalog.getColumns("pm8")).isInstanceOf(SQLException.class);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"),
+                eq("pm8"));
+
+        // Created meanwhile - found once the interval has passed
+        rows.add(new Object[] { "pm8", "pin", "varchar", 9, null, null, "NO" });
+        now.addAndGet(30_000);
+
+        assertThat(catalog.tableExists("pm8")).isTrue();
+        assertThat(catalog.getColumnNames("pm8")).containsExactly("pin");
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), eq("title_d_app"),
+                eq("pm8"));
+    }
+
+    @Test
+    void testToJdbcType_MatchesDriverMetadata() {
+        assertThat(SchemaCatalogService.toJdbcType("bpchar")).isEqualTo(Types.CHAR);
+        assertThat(SchemaCatalogService.toJdbcType("int2")).isEqualTo(Types.SMALLINT);
+        assertThat(SchemaCatalogService.toJdbcType("int8")).isEqualTo(Types.BIGINT);
+        assertThat(SchemaCatalogService.toJdbcType("float8")).isEqualTo(Types.DOUBLE);
+        assertThat(SchemaCatalogService.toJdbcType("bool")).isEqualTo(Types.BIT);
+        assertThat(SchemaCatalogService.toJdbcType("timestamptz")).isEqualTo(Types.TIMESTAMP);
+        assertThat(SchemaCatalogService.toJdbcType("uuid")).isEqualTo(Types.OTHER);
+    }
+}
@@ -0,0 +1,172 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for StagedPipeline
+ * Tests result ordering, overlap of prepare and load stages, the in-flight bound
+ * and stopping the stages of an interrupted caller
+ */
+class StagedPipelineTest {
+
+    private StagedPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new StagedPipeline();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void testRun_ResultsInItemOrderWithFailuresMapped() {
+        List<String> results = pipeline.run(List.of(1, 2, 3, 4),
+                item -> {
+                    if (item == 3) {
+                        throw new IOException("bad file " + item);
+                    }
+                    return item * 10;
+                },
+                prepared -> "loaded " + prepared,
+                (item, e) -> "failed " + item + ": " + e.getMessage());
+
+        assertThat(results).containsExactly("loaded 10", "loaded 20", "failed 3: bad file 3", "loaded 40");
+    }
+
+    @Test
+    void testRun_NextItemPreparedWhileCurrentLoads() throws Exception {
+        CountDownLatch secondPrepared = new CountDownLatch(1);
+
+        List<String> results = pipeline.run(List.of(1, 2),
+                item -> {
+                    if (item == 2) {
+                        secondPrepared.countDown();
+                    }
+                    return item;
+                },
+                prepared -> {
+                    // The first load only finishes once the second file has been prepared
+                    if (prepared == 1 && !secondPrepared.await(5, TimeUnit.SECONDS)) {
+                        return "no overlap";
+                    }
+                    return "loaded " + prepared;
+                },
+                (item, e) -> "failed " + item);
+
+        assertThat(results).containsExactly("loaded 1", "loaded 2");
+    }
+
+    @Test
+    void testRun_MaxInFlightBoundsPreparedFiles() {
+        ReflectionTestUtils.setField(pipeline, "maxInFlight", 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        pipeline.run(List.of(1, 2, 3, 4, 5, 6),
+                item -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return item;
+                },
+                prepared -> {
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return prepared;
+                },
+                (item, e) -> null);
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void testProcess_RethrowsStageException() {
+        assertThatThrownBy(() -> pipeline.process("PM162",
+                item -> item,
+                prepared -> {
+                    throw new IllegalStateException("COPY failed for " + prepared);
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("COPY failed for PM162");
+    }
+
+    @Test
+    void testProcess_InterruptedCallerStopsLoadStage() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        AtomicBoolean loadInterrupted = new AtomicBoolean();
+        AtomicBoolean committed = new AtomicBoolean();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicBoolean callerInterrupted = new AtomicBoolean();
+
+        Thread caller = new Thread(() -> {
+            try {
+                pipeline.process("PM162", item -> item, prepared -> {
+                    loading.countDown();
+                    try {
+                        Thread.sleep(10000);
+                        committed.set(true);
+                    } catch (InterruptedException e) {
+                        loadInterrupted.set(true);
+                        throw e;
+                    }
+                    return prepared;
+                });
+            } catch (Exception e) {
+                thrown.set(e);
+            }
+            callerInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        caller.interrupt();
+        caller.join(5000);
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(thrown.get()).isInstanceOf(InterruptedException.class);
+        assertThat(callerInterrupted).isTrue();
+        // The load had stopped by the time process returned
+        assertThat(loadInterrupted).isTrue();
+        assertThat(committed).isFalse();
+    }
+
+    @Test
+    void testRun_InterruptedCallerStopsEveryItem() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        AtomicInteger committed = new AtomicInteger();
+        AtomicReference<List<String>> results = new AtomicReference<>();
+
+        Thread caller = new Thread(() -> results.set(pipeline.run(List.of(1, 2, 3),
+                item -> item,
+                prepared -> {
+                    loading.countDown();
+                    Thread.sleep(10000);
+                    committed.incrementAndGet();
+                    return "loaded " + prepared;
+                },
+                (item, e) -> "aborted " + item)));
+        caller.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        caller.interrupt();
+        caller.join(5000);
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(results.get()).containsExactly("aborted 1", "aborted 2", "aborted 3");
+        assertThat(committed).hasValue(0);
+    }
+}
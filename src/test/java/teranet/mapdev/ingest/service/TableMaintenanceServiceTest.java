@@ -0,0 +1,95 @@
+package teranet.mapdev.ingest.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TableMaintenanceService
+ * Tests the row threshold, debouncing across load bursts and one run per table
+ */
+class TableMaintenanceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private TableMaintenanceService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new TableMaintenanceService(jdbcTemplate, now::get);
+    }
+
+    @Test
+    void testDue_OnlyAboveThresholdAndAfterQuietPeriod() {
+        service.recordLoad("title_d_app.pm1", 60_000);
+        service.recordLoad("title_d_app.im2", 10);
+
+        now.addAndGet(30_000);
+        service.recordLoad("title_d_app.pm1", 60_000); // burst continues - debounced
+        now.addAndGet(30_000);
+        assertThat(service.dueTables()).isEmpty();
+
+        now.addAndGet(30_000);
+        assertThat(service.dueTables()).containsExactly("title_d_app.pm1");
+    }
+
+    @Test
+    void testDue_MaxDelayCapsAnEndlessBurst() {
+        for (int i = 0; i < 20; i++) {
+            service.recordLoad("title_d_app.pm1", 10_000);
+            now.addAndGet(50_000);
+        }
+
+        assertThat(service.dueTables()).containsExactly("title_d_app.pm1");
+    }
+
+    @Test
+    void testRunDue_AnalyzesInBackgroundAndResetsPendingRows() {
+        service.recordLoad("title_d_app.pm1", 150_000);
+        now.addAndGet(60_000);
+
+        service.runDue();
+        service.stop(); // waits for the background run
+
+        verify(jdbcTemplate).execute("ANALYZE title_d_app.pm1");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> tables =
+                (Map<String, Map<String, Object>>) service.getSnapshot().get("tables");
+        assertThat(tables.get("title_d_app.pm1"))
+                .containsEntry("pendingRows", 0L)
+                .containsEntry("runs", 1L)
+                .containsEntry("running", false);
+        assertThat(service.dueTables()).isEmpty();
+    }
+
+    @Test
+    void testRunDue_FailureKeepsRowsPending() {
+        doThrow(new RuntimeException("lock timeout")).when(jdbcTemplate).execute("ANALYZE title_d_app.pm1");
+        service.recordLoad("title_d_app.pm1", 150_000);
+        now.addAndGet(60_000);
+
+        service.runDue();
+        service.stop();
+
+        verify(jdbcTemplate).execute("ANALYZE title_d_app.pm1");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> tables =
+                (Map<String, Map<String, Object>>) service.getSnapshot().get("tables");
+        assertThat(tables.get("title_d_app.pm1"))
+                .containsEntry("pendingRows", 150_000L)
+                .containsEntry("running", false)
+                .containsEntry("lastError", "lock timeout");
+        assertThat(service.dueTables()).containsExactly("title_d_app.pm1");
+    }
+}
@@ -9,15 +9,19 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
+import teranet.mapdev.ingest.config.IngestConfig;
 import teranet.mapdev.ingest.config.WatchFolderConfig;
 import teranet.mapdev.ingest.dto.BatchProcessingResultDto;
 import teranet.mapdev.ingest.model.IngestionManifest;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.*;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,6 +42,9 @@ class WatchFolderServiceTest {
     @Mock
     private IngestionManifestService manifestService;
 
+    @Mock
+    private DelimitedFileProcessingService delimitedFileProcessingService;
+
     @InjectMocks
     private WatchFolderService watchFolderService;
 
@@ -87,6 +94,8 @@ class WatchFolderServiceTest {
         lenient().when(folderManager.getWipPath()).thenReturn(wipDir);
         lenient().when(folderManager.getErrorPath()).thenReturn(errorDir);
         lenient().when(folderManager.getArchivePath()).thenReturn(archiveDir);
+
+        ReflectionTestUtils.setField(watchFolderService, "ingestConfig", new IngestConfig());
     }
 
     @AfterEach
@@ -316,6 +325,160 @@ class WatchFolderServiceTest {
     }
 
 
+    // ===== RESUME TESTS =====
+
+    @Test
+    void testResumeWipFile_WithInterruptedManifest_ResumesFromCheckpoint() throws Exception {
+        // Arrange - a WIP file whose load was interrupted after its first 2 data lines
+        Path wipFile = wipDir.resolve("PM162");
+        Files.writeString(wipFile, "pin,name\n1,A\n2,B\n3,C\n");
+        Path archivedFile = archiveDir.resolve("PM162");
+
+        IngestionManifest interrupted = new IngestionManifest("PM162", Files.size(wipFile), "abc123");
+        interrupted.setBatchId(UUID.randomUUID());
+        interrupted.recordCheckpoint(2, 3, 18);
+
+        IngestionManifest completed = new IngestionManifest("PM162", Files.size(wipFile), "abc123");
+        completed.setBatchId(interrupted.getBatchId());
+        completed.setStatus(IngestionManifest.Status.COMPLETED);
+
+        when(delimitedFileProcessingService.findInterruptedLoad(any(MultipartFile.class))).thenReturn(interrupted);
+        when(delimitedFileProcessingService.resumeDelimitedFile(any(MultipartFile.class), eq("csv"), eq(true),
+                eq(true), same(interrupted))).thenReturn(completed);
+        when(folderManager.moveToArchive(wipFile)).thenAnswer(invocation -> Files.move(wipFile, archivedFile));
+
+        // Use reflection to access private method
+        Boolean resumed = ReflectionTestUtils.invokeMethod(watchFolderService, "resumeWipFile", wipFile);
+
+        // Assert - same batch resumed, not reloaded from the start
+        assertThat(resumed).isTrue();
+        verify(delimitedFileProcessingService, never()).processDelimitedFile(any(), any(), anyBoolean(),
+                anyBoolean(), any());
+        verify(folderManager).moveToArchive(wipFile);
+        verify(folderManager).deleteMarkerFileFromUpload("PM162");
+        assertThat(archiveDir.resolve("PM162.done")).content().contains(interrupted.getBatchId().toString());
+    }
+
+    @Test
+    void testResumeWipFile_WithoutInterruptedManifest_ProcessesFromStart() throws Exception {
+        // Arrange - a WIP file moved in before its load started
+        Path wipFile = wipDir.resolve("PM162");
+        Files.writeString(wipFile, "pin,name\n1,A\n");
+        Path archivedFile = archiveDir.resolve("PM162");
+
+        IngestionManifest completed = new IngestionManifest("PM162", Files.size(wipFile), "abc123");
+        completed.setBatchId(UUID.randomUUID());
+        completed.setStatus(IngestionManifest.Status.COMPLETED);
+
+        when(delimitedFileProcessingService.findInterruptedLoad(any(MultipartFile.class))).thenReturn(null);
+        when(delimitedFileProcessingService.processDelimitedFile(any(MultipartFile.class), eq("csv"), eq(true),
+                eq(true), isNull())).thenReturn(completed);
+        when(folderManager.moveToArchive(wipFile)).thenAnswer(invocation -> Files.move(wipFile, archivedFile));
+
+        // Use reflection to access private method
+        Boolean resumed = ReflectionTestUtils.invokeMethod(watchFolderService, "resumeWipFile", wipFile);
+
+        // Assert
+        assertThat(resumed).isTrue();
+        verify(delimitedFileProcessingService, never()).resumeDelimitedFile(any(), any(), anyBoolean(),
+                anyBoolean(), any());
+        verify(folderManager).moveToArchive(wipFile);
+    }
+
+    @Test
+    void testResumeWipFile_WhenResumeFails_MovesToError() throws Exception {
+        // Arrange
+        Path wipFile = wipDir.resolve("PM162");
+        Files.writeString(wipFile, "pin,name\n1,A\n");
+        Path errorFile = errorDir.resolve("PM162");
+
+        IngestionManifest interrupted = new IngestionManifest("PM162", Files.size(wipFile), "abc123");
+        interrupted.setBatchId(UUID.randomUUID());
+
+        when(delimitedFileProcessingService.findInterruptedLoad(any(MultipartFile.class))).thenReturn(interrupted);
+        when(delimitedFileProcessingService.resumeDelimitedFile(any(MultipartFile.class), anyString(), anyBoolean(),
+                anyBoolean(), same(interrupted))).thenThrow(new IOException("connection reset"));
+        when(folderManager.moveToError(eq(wipFile), anyString(), anyString(), isNull()))
+                .thenAnswer(invocation -> Files.move(wipFile, errorFile));
+
+        // Use reflection to access private method
+        Boolean resumed = ReflectionTestUtils.invokeMethod(watchFolderService, "resumeWipFile", wipFile);
+
+        // Assert
+        assertThat(resumed).isFalse();
+        verify(folderManager, never()).moveToArchive(any());
+        verify(folderManager).moveToError(eq(wipFile), contains("connection reset"), anyString(), isNull());
+        verify(folderManager).deleteMarkerFileFromUpload("PM162");
+    }
+
+    @Test
+    void testResumeWipFile_WhenJobAborted_LeavesFileInWip() throws Exception {
+        // Arrange - the job lost its lease, so another instance owns the file now
+        Path wipFile = wipDir.resolve("PM162");
+        Files.writeString(wipFile, "pin,name\n1,A\n");
+        lenient().when(delimitedFileProcessingService.findInterruptedLoad(any(MultipartFile.class)))
+                .thenThrow(new IOException("Load was aborted"));
+
+        Boolean resumed;
+        Thread.currentThread().interrupt();
+        try {
+            resumed = ReflectionTestUtils.invokeMethod(watchFolderService, "resumeWipFile", wipFile);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Assert
+        assertThat(resumed).isFalse();
+        assertThat(wipFile).exists();
+        verify(folderManager, never()).moveToArchive(any());
+        verify(folderManager, never()).moveToError(any(), any(), any(), any());
+        verify(folderManager, never()).deleteMarkerFileFromUpload(anyString());
+    }
+
+    @Test
+    void testProcessFile_LeaseLostDuringPipelineLoad_NothingCommits() throws Exception {
+        // Arrange - pipeline mode: the COPY runs on a pipeline-load thread, not the job thread
+        StagedPipeline pipeline = new StagedPipeline();
+        ReflectionTestUtils.setField(watchFolderService, "pipeline", pipeline);
+        Path uploadedFile = uploadDir.resolve("PM162");
+        Files.writeString(uploadedFile, "pin,name\n1,A\n");
+        Path wipFile = wipDir.resolve("PM162");
+        when(folderManager.moveToWip(uploadedFile)).thenAnswer(invocation -> Files.move(uploadedFile, wipFile));
+
+        CountDownLatch loading = new CountDownLatch(1);
+        AtomicBoolean committed = new AtomicBoolean();
+        when(delimitedFileProcessingService.loadPrepared(any())).thenAnswer(invocation -> {
+            loading.countDown();
+            try {
+                Thread.sleep(10000); // the COPY
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Load was aborted");
+            }
+            committed.set(true);
+            return new IngestionManifest();
+        });
+
+        // The job thread, cancelled by IngestJobWorker once the heartbeat finds the lease lost
+        Thread job = new Thread(() -> ReflectionTestUtils.invokeMethod(
+                watchFolderService, "processFile", uploadedFile, "PM162"));
+        try {
+            job.start();
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            job.interrupt();
+            job.join(5000);
+
+            // Assert - the load stopped before committing and the file is left for the new owner
+            assertThat(job.isAlive()).isFalse();
+            assertThat(committed).isFalse();
+            assertThat(wipFile).exists();
+            verify(folderManager, never()).moveToArchive(any());
+            verify(folderManager, never()).moveToError(any(), any(), any(), any());
+            verify(folderManager, never()).deleteMarkerFileFromUpload(anyString());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
     @Test
     void testProcessFile_WithUnsupportedExtension_ThrowsException() throws Exception {
         // Arrange
@@ -504,4 +504,97 @@ class ZipProcessingServiceTest {
         assertNotNull(result);
         assertEquals(1, result.getCsvFilesFound());
     }
+
+    @Test
+    void testAnalyzeZipFile_ReportsCentralDirectoryMetadata() throws IOException {
+        byte[] content = "id,name\n1,John\n2,Jane\n".getBytes();
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(content);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("62.2023_05_24/PM162"));
+            zos.write(content);
+            zos.closeEntry();
+        }
+
+        when(zipFile.getInputStream()).thenReturn(new ByteArrayInputStream(baos.toByteArray()));
+        when(filenameRouterService.resolveTableName("PM162")).thenReturn("pm1");
+        when(databaseConnectionService.doesStagingTableExist("pm1")).thenReturn(true);
+
+        ZipAnalysisDto result = service.analyzeZipFile(zipFile);
+
+        assertEquals("SUCCESS", result.getExtractionStatus());
+        ZipAnalysisDto.ExtractedFileInfo info = result.getExtractedFiles().get(0);
+        assertEquals("PM162", info.getFilename());
+        assertEquals("62.2023_05_24/PM162", info.getRelativePath());
+        assertEquals(content.length, info.getFileSize());
+        assertEquals(crc.getValue(), info.getCrc32());
+        assertEquals(2, info.getEstimatedRows());
+        assertEquals(java.util.List.of("id", "name"), info.getHeadersDetected());
+
+        // Already on disk - read in place (not spooled, not deleted)
+        Path zipPath = tempDir.resolve("fingerprint.zip");
+        Files.write(zipPath, baos.toByteArray());
+        ZipAnalysisDto fromDisk = service.analyzeZipFile(
+                new teranet.mapdev.ingest.util.PathMultipartFile(zipPath, "fingerprint.zip", "application/zip"));
+
+        assertEquals(info, fromDisk.getExtractedFiles().get(0));
+        assertTrue(Files.exists(zipPath));
+
+        // Data file detection from the entry name
+        assertTrue(ZipProcessingService.isDataFile("dir/PM162"));
+        assertTrue(ZipProcessingService.isDataFile("IM262.txt"));
+        assertTrue(ZipProcessingService.isDataFile("data.TSV"));
+        assertFalse(ZipProcessingService.isDataFile("readme.txt"));
+        assertFalse(ZipProcessingService.isDataFile("pm162"));
+    }
+
+    @Test
+    void testAnalyzeZipFile_NestedArchives_StreamsLeavesWithoutExtraction() throws IOException {
+        byte[] content = "id\tname\n1\tA\n2\tB\n".getBytes();
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(content);
+
+        // inner.zip holds IM262; PM162.gz is a compressed data file
+        ByteArrayOutputStream inner = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(inner)) {
+            zos.putNextEntry(new ZipEntry("IM262"));
+            zos.write(content);
+            zos.closeEntry();
+        }
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (java.util.zip.GZIPOutputStream out = new java.util.zip.GZIPOutputStream(gz)) {
+            out.write(content);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("drop/inner.zip"));
+            zos.write(inner.toByteArray());
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("PM162.gz"));
+            zos.write(gz.toByteArray());
+            zos.closeEntry();
+        }
+
+        when(zipFile.getInputStream()).thenReturn(new ByteArrayInputStream(baos.toByteArray()));
+        when(filenameRouterService.resolveTableName(anyString())).thenReturn("pm1");
+        when(databaseConnectionService.doesStagingTableExist("pm1")).thenReturn(true);
+
+        ZipAnalysisDto result = service.analyzeZipFile(zipFile);
+
+        assertEquals("SUCCESS", result.getExtractionStatus());
+        assertEquals(2, result.getCsvFilesFound());
+        ZipAnalysisDto.ExtractedFileInfo nested = result.getExtractedFiles().get(0);
+        assertEquals("IM262", nested.getFilename());
+        assertEquals("drop/inner.zip/IM262", nested.getRelativePath());
+        assertEquals(content.length, nested.getFileSize());
+        assertEquals(crc.getValue(), nested.getCrc32());
+        assertEquals(2, nested.getEstimatedRows());
+        assertEquals("PM162", result.getExtractedFiles().get(1).getRelativePath());
+
+        // Archives are walked, never loaded as data files themselves
+        assertFalse(ZipProcessingService.isDataFile("PM162.gz"));
+        assertFalse(ZipProcessingService.isDataFile("IM262.zip"));
+    }
 }
@@ -0,0 +1,149 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ArchiveWalker
+ * Tests nested zip / tar / gzip walking, member paths and skipped members
+ */
+class ArchiveWalkerTest {
+
+    private static final Predicate<String> DATA = path -> !path.endsWith(".txt");
+
+    private final Map<String, String> files = new LinkedHashMap<>();
+    private final List<String> skipped = new ArrayList<>();
+
+    private final ArchiveWalker.Visitor visitor = new ArchiveWalker.Visitor() {
+        @Override
+        public void file(String path, InputStream content) throws IOException {
+            files.put(path, new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            content.close(); // must not close the enclosing archive
+        }
+
+        @Override
+        public void skipped(String path, String reason) {
+            skipped.add(path);
+        }
+    };
+
+    private static byte[] zip(Object... nameAndContent) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (int i = 0; i < nameAndContent.length; i += 2) {
+                zos.putNextEntry(new ZipEntry((String) nameAndContent[i]));
+                zos.write(bytes(nameAndContent[i + 1]));
+                zos.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] tar(Object... nameAndContent) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < nameAndContent.length; i += 2) {
+            String name = (String) nameAndContent[i];
+            byte[] content = bytes(nameAndContent[i + 1]);
+            if (name.length() > 100) {
+                // GNU long name record
+                byte[] longName = (name + "\0").getBytes(StandardCharsets.UTF_8);
+                writeTarMember(out, "././@LongLink", 'L', longName);
+                name = name.substring(0, 100);
+            }
+            writeTarMember(out, name, '0', content);
+        }
+        out.write(new byte[1024]); // end-of-archive marker
+        return out.toByteArray();
+    }
+
+    private static void writeTarMember(ByteArrayOutputStream out, String name, char type, byte[] content) {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        byte[] size = String.format("%011o", content.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(size, 0, header, 124, size.length);
+        header[156] = (byte) type;
+        System.arraycopy("ustar\00000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        out.writeBytes(header);
+        out.writeBytes(content);
+        out.writeBytes(new byte[(512 - content.length % 512) % 512]);
+    }
+
+    private static byte[] bytes(Object content) {
+        return content instanceof byte[] b ? b : ((String) content).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testWalk_NestedZipTarAndGzip_YieldsLeavesWithTheirPaths() throws IOException {
+        String longName = "d".repeat(120) + "/IM262";
+        byte[] tarGz = gzip(tar("PM162", "a\tb\n", longName, "c\td\n", "notes.txt", "x"));
+        byte[] outer = zip(
+                "PM100", "top\n",
+                "drop/inner.zip", zip("IM300", "inner\n"),
+                "batch.tar.gz", tarGz,
+                "PM200.gz", gzip(bytes("gz\n")),
+                "readme.txt", "ignored");
+
+        ArchiveWalker.defaults().walk("outer.zip", new ByteArrayInputStream(outer), DATA, visitor);
+
+        assertThat(files).containsExactly(
+                entry("PM100", "top\n"),
+                entry("drop/inner.zip/IM300", "inner\n"),
+                entry("batch.tar.gz/PM162", "a\tb\n"),
+                entry("batch.tar.gz/" + longName, "c\td\n"),
+                entry("PM200", "gz\n"));
+        assertThat(skipped).containsExactly("batch.tar.gz/notes.txt", "readme.txt");
+    }
+
+    @Test
+    void testWalk_TopLevelTgzAndNestedMember() throws IOException {
+        byte[] tgz = gzip(tar("IM162", "row\n", "more.zip", zip("PM1", "z\n")));
+
+        ArchiveWalker.defaults().walk("drop.tgz", new ByteArrayInputStream(tgz), DATA, visitor);
+        ArchiveWalker.defaults().walkNested("x/PM9.gz", new ByteArrayInputStream(gzip(bytes("g\n"))), DATA, visitor);
+
+        assertThat(files).containsExactly(
+                entry("IM162", "row\n"),
+                entry("more.zip/PM1", "z\n"),
+                entry("x/PM9", "g\n"));
+        assertThat(ArchiveWalker.isArchive("dir/drop.TAR.GZ")).isTrue();
+        assertThat(ArchiveWalker.isArchive("PM162")).isFalse();
+    }
+
+    @Test
+    void testWalk_StopsBeyondMaxDepth() throws IOException {
+        byte[] archive = zip("PM1", "deep\n");
+        for (int i = 0; i < ArchiveWalker.MAX_DEPTH + 1; i++) {
+            archive = zip("level" + i + ".zip", archive);
+        }
+
+        ArchiveWalker.defaults().walk("root.zip", new ByteArrayInputStream(archive), DATA, visitor);
+
+        assertThat(files).isEmpty();
+        assertThat(skipped).hasSize(1);
+        assertThat(skipped.get(0)).endsWith(".zip");
+    }
+}
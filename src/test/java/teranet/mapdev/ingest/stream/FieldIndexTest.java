@@ -0,0 +1,56 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for FieldIndex
+ * Tests field offsets, reuse across lines and excess delimiter replacement
+ */
+class FieldIndexTest {
+
+    private final FieldIndex index = new FieldIndex();
+
+    @Test
+    void testReset_IndexesFieldsIncludingEmptyOnes() {
+        index.reset("PM162\t\t 42 \t");
+
+        assertThat(index.fieldCount()).isEqualTo(4);
+        assertThat(index.delimiterCount()).isEqualTo(3);
+        assertThat(index.field(0)).isEqualTo("PM162");
+        assertThat(index.isEmpty(1)).isTrue();
+        assertThat(index.field(2)).isEqualTo(" 42 ");
+        assertThat(index.start(2)).isEqualTo(7);
+        assertThat(index.end(2)).isEqualTo(11);
+        assertThat(index.isEmpty(3)).isTrue();
+        assertThat(index.fieldEquals(0, "PM162")).isTrue();
+        assertThat(index.fieldEquals(0, "PM16")).isFalse();
+        assertThatThrownBy(() -> index.field(4)).isInstanceOf(IndexOutOfBoundsException.class);
+
+        assertThat(index.reset("").fieldCount()).isEqualTo(1);
+        assertThat(index.isEmpty(0)).isTrue();
+    }
+
+    @Test
+    void testReset_ReusedForLongerLinesAndOtherDelimiters() {
+        String wide = "x\t".repeat(100) + "last";
+        assertThat(index.reset(wide).fieldCount()).isEqualTo(101);
+        assertThat(index.field(100)).isEqualTo("last");
+        assertThat(index.reset("a\tb").fieldCount()).isEqualTo(2);
+        assertThat(index.field(1)).isEqualTo("b");
+
+        FieldIndex pipes = new FieldIndex('|');
+        assertThat(pipes.reset("a|b\tc|d").fieldCount()).isEqualTo(3);
+        assertThat(pipes.field(1)).isEqualTo("b\tc");
+    }
+
+    @Test
+    void testKeepDelimiters_ReplacesOnlyTheExcess() {
+        String line = "a\tb\tc\td";
+
+        assertThat(index.reset(line).keepDelimiters(3, ' ')).isSameAs(line);
+        assertThat(index.keepDelimiters(1, ' ')).isEqualTo("a\tb c d");
+        assertThat(index.keepDelimiters(0, ' ')).isEqualTo("a b c d");
+    }
+}
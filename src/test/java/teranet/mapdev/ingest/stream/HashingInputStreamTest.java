@@ -0,0 +1,52 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for HashingInputStream (in-flight checksum for streamed uploads)
+ */
+class HashingInputStreamTest {
+
+    @Test
+    void testGetHexDigest_MatchesSha256OfContent() throws Exception {
+        byte[] content = "PM1\tA\tB\nPM1\tC\tD\n".getBytes(StandardCharsets.UTF_8);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        HashingInputStream hashing = new HashingInputStream(new ByteArrayInputStream(content));
+        hashing.readAllBytes();
+
+        assertThat(hashing.getHexDigest()).isEqualTo(expected);
+        assertThat(hashing.getByteCount()).isEqualTo(content.length);
+    }
+
+    @Test
+    void testGetHexDigest_IncludesSingleByteReadsAndSkips() throws Exception {
+        byte[] content = "abcdefghij".getBytes(StandardCharsets.UTF_8);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        HashingInputStream hashing = new HashingInputStream(new ByteArrayInputStream(content));
+        hashing.read();
+        hashing.skip(4);
+        hashing.readAllBytes();
+
+        assertThat(hashing.getHexDigest()).isEqualTo(expected);
+        assertThat(hashing.getByteCount()).isEqualTo(10);
+    }
+
+    @Test
+    void testGetHexDigest_IsStableAcrossCalls() throws Exception {
+        HashingInputStream hashing = new HashingInputStream(InputStream.nullInputStream());
+        hashing.readAllBytes();
+
+        String first = hashing.getHexDigest();
+        assertThat(hashing.getHexDigest()).isEqualTo(first).hasSize(64);
+    }
+}
@@ -0,0 +1,102 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LineChunkReader (chunked-commit COPY splitting and checkpoints)
+ */
+class LineChunkReaderTest {
+
+    private static LineChunkReader reader(String data, int maxLines, long maxBytes) {
+        return new LineChunkReader(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), maxLines, maxBytes);
+    }
+
+    private static String text(byte[] chunk) {
+        return new String(chunk, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNextChunk_SplitsByLineCount() throws IOException {
+        LineChunkReader chunks = reader("a\tb\nc\td\ne\tf\n", 2, 0);
+
+        assertThat(text(chunks.nextChunk())).isEqualTo("a\tb\nc\td\n");
+        assertThat(chunks.getChunkLineCount()).isEqualTo(2);
+        assertThat(text(chunks.nextChunk())).isEqualTo("e\tf\n");
+        assertThat(chunks.getChunkLineCount()).isEqualTo(1);
+        assertThat(chunks.nextChunk()).isNull();
+
+        assertThat(chunks.getLinesRead()).isEqualTo(3);
+        assertThat(chunks.getBytesRead()).isEqualTo(12);
+    }
+
+    @Test
+    void testNextChunk_ClosesChunkOnceByteLimitReached() throws IOException {
+        LineChunkReader chunks = reader("1234\n5678\n90\n", 100, 6);
+
+        // First line (5 bytes) is under the limit, second line pushes it over
+        assertThat(text(chunks.nextChunk())).isEqualTo("1234\n5678\n");
+        assertThat(text(chunks.nextChunk())).isEqualTo("90\n");
+        assertThat(chunks.nextChunk()).isNull();
+    }
+
+    @Test
+    void testNextChunk_KeepsLastLineWithoutNewline() throws IOException {
+        LineChunkReader chunks = reader("a\nb", 10, 0);
+
+        assertThat(text(chunks.nextChunk())).isEqualTo("a\nb");
+        assertThat(chunks.getLinesRead()).isEqualTo(2);
+        assertThat(chunks.getBytesRead()).isEqualTo(3);
+    }
+
+    @Test
+    void testNextChunk_EmptyStream() throws IOException {
+        LineChunkReader chunks = reader("", 10, 0);
+
+        assertThat(chunks.nextChunk()).isNull();
+        assertThat(chunks.getLinesRead()).isZero();
+    }
+
+    @Test
+    void testSkipLines_ResumesAfterCheckpoint() throws IOException {
+        LineChunkReader chunks = reader("h1\th2\nr1\nr2\nr3\n", 10, 0);
+
+        assertThat(chunks.skipLines(2)).isEqualTo(2);
+        assertThat(chunks.getBytesRead()).isEqualTo(9);
+
+        assertThat(text(chunks.nextChunk())).isEqualTo("r2\nr3\n");
+        assertThat(chunks.getLinesRead()).isEqualTo(4);
+        assertThat(chunks.getBytesRead()).isEqualTo(15);
+    }
+
+    @Test
+    void testSkipLines_StopsAtEndOfStream() throws IOException {
+        LineChunkReader chunks = reader("a\nb\n", 10, 0);
+
+        assertThat(chunks.skipLines(5)).isEqualTo(2);
+        assertThat(chunks.nextChunk()).isNull();
+    }
+
+    @Test
+    void testNextChunk_HandlesLinesLongerThanReadBuffer() throws IOException {
+        String longLine = "x".repeat(200_000);
+        LineChunkReader chunks = reader(longLine + "\nshort\n", 1, 0);
+
+        assertThat(chunks.nextChunk()).hasSize(200_001);
+        assertThat(text(chunks.nextChunk())).isEqualTo("short\n");
+    }
+
+    @Test
+    void testNextChunk_CountsMultiByteCharactersAsBytes() throws IOException {
+        LineChunkReader chunks = reader("é\n", 10, 0);
+
+        chunks.nextChunk();
+        assertThat(chunks.getBytesRead()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,71 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LineMappingInputStream (pull-based streaming validation)
+ */
+class LineMappingInputStreamTest {
+
+    private static InputStream source(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRead_AppliesMapperToEachLine() throws IOException {
+        try (InputStream in = new LineMappingInputStream(source("a\tb\r\nc\td"), String::toUpperCase)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("A\tB\nC\tD\n");
+        }
+    }
+
+    @Test
+    void testRead_DropsLinesMappedToNull() throws IOException {
+        try (InputStream in = new LineMappingInputStream(source("keep\nskip\nkeep\n"),
+                line -> line.equals("skip") ? null : line)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("keep\nkeep\n");
+        }
+    }
+
+    @Test
+    void testRead_PullsLinesOnlyWhenConsumed() throws IOException {
+        List<String> seen = new ArrayList<>();
+        try (InputStream in = new LineMappingInputStream(source("l1\nl2\nl3\n"), line -> {
+            seen.add(line);
+            return line;
+        })) {
+            assertThat(in.read()).isEqualTo('l');
+            assertThat(seen).containsExactly("l1");
+
+            in.readAllBytes();
+            assertThat(seen).containsExactly("l1", "l2", "l3");
+        }
+    }
+
+    @Test
+    void testRead_SingleByteReadsMatchBulkRead() throws IOException {
+        StringBuilder out = new StringBuilder();
+        try (InputStream in = new LineMappingInputStream(source("x\ny"), line -> line + "!")) {
+            int b;
+            while ((b = in.read()) != -1) {
+                out.append((char) b);
+            }
+        }
+        assertThat(out.toString()).isEqualTo("x!\ny!\n");
+    }
+
+    @Test
+    void testRead_EmptySource() throws IOException {
+        try (InputStream in = new LineMappingInputStream(source(""), line -> line)) {
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ParallelGzipInputStream
+ * Tests BGZF member splitting, read-ahead fallback and integrity checks
+ */
+class ParallelGzipInputStreamTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static byte[] rows(int count) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            rows.append("PM").append(i).append("\t").append(i * 31).append("\tsome value\n");
+        }
+        return rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * bgzip layout: members of up to 64 KB input, each with a "BC" block-size field
+     */
+    private static byte[] bgzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int off = 0; off < content.length; off += 60_000) {
+            out.writeBytes(bgzfBlock(Arrays.copyOfRange(content, off, Math.min(content.length, off + 60_000))));
+        }
+        out.writeBytes(bgzfBlock(new byte[0])); // EOF block
+        return out.toByteArray();
+    }
+
+    private static byte[] bgzfBlock(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[data.length + 1024];
+        int deflated = deflater.deflate(buffer);
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        int total = 18 + deflated + 8;
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        block.writeBytes(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+                (byte) (total - 1), (byte) ((total - 1) >> 8) });
+        block.write(buffer, 0, deflated);
+        writeLe32(block, crc.getValue());
+        writeLe32(block, data.length);
+        return block.toByteArray();
+    }
+
+    private static void writeLe32(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >> (8 * i)));
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private ParallelGzipInputStream open(byte[] compressed) {
+        return new ParallelGzipInputStream(new ByteArrayInputStream(compressed), pool, 4, 2);
+    }
+
+    @Test
+    void testBgzf_InflatesMembersInParallelInOrder() throws IOException {
+        byte[] content = rows(50_000);
+
+        try (ParallelGzipInputStream in = open(bgzip(content))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+            assertThat(in.isParallel()).isTrue();
+        }
+    }
+
+    @Test
+    void testSingleMemberAndMixedFiles_FallBackToReadAhead() throws IOException {
+        byte[] content = rows(50_000);
+        try (ParallelGzipInputStream in = open(gzip(content))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+            assertThat(in.isParallel()).isFalse();
+        }
+
+        // BGZF members followed by a plain member (cat a.bgz b.gz)
+        ByteArrayOutputStream mixed = new ByteArrayOutputStream();
+        mixed.writeBytes(bgzip(Arrays.copyOf(content, 200_000)));
+        mixed.writeBytes(gzip(Arrays.copyOfRange(content, 200_000, content.length)));
+        try (ParallelGzipInputStream in = open(mixed.toByteArray())) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void testCorruptMember_FailsAndEarlyCloseStopsReading() throws IOException {
+        byte[] compressed = bgzip(rows(20_000));
+        compressed[compressed.length - 34] ^= 0x55; // CRC of the last data member (before the EOF block)
+
+        try (InputStream in = open(compressed)) {
+            assertThatThrownBy(in::readAllBytes).isInstanceOf(ZipException.class);
+        }
+
+        InputStream in = open(gzip(rows(200_000)));
+        assertThat(in.readNBytes(10)).isEqualTo(Arrays.copyOf(rows(1), 10));
+        in.close();
+        assertThatThrownBy(in::read).isInstanceOf(IOException.class);
+    }
+}
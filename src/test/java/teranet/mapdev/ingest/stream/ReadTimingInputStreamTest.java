@@ -0,0 +1,51 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ReadTimingInputStream (time a COPY spends waiting on its source)
+ */
+class ReadTimingInputStreamTest {
+
+    @Test
+    void testGetReadMillis_CountsTimeBlockedInReads() throws Exception {
+        InputStream slow = new FilterInputStream(new ByteArrayInputStream(new byte[64])) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, Math.min(len, 16));
+            }
+        };
+
+        ReadTimingInputStream timing = new ReadTimingInputStream(slow);
+        byte[] content = timing.readAllBytes();
+
+        assertThat(content).hasSize(64);
+        assertThat(timing.getReadMillis()).isGreaterThanOrEqualTo(80);
+    }
+
+    @Test
+    void testRead_PassesContentThrough() throws Exception {
+        byte[] content = "PM1\tA\tB\nPM1\tC\tD\n".getBytes(StandardCharsets.UTF_8);
+
+        ReadTimingInputStream timing = new ReadTimingInputStream(new ByteArrayInputStream(content));
+        int first = timing.read();
+        timing.skip(3);
+
+        assertThat(first).isEqualTo('P');
+        assertThat(new String(timing.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("A\tB\nPM1\tC\tD\n");
+        assertThat(timing.getReadMillis()).isGreaterThanOrEqualTo(0);
+    }
+}
@@ -0,0 +1,74 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RowNumberAssigner (loader-assigned row_number)
+ */
+class RowNumberAssignerTest {
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static InputStream source(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testAssign_ReservesOneRangeSizedToTheFile() throws IOException {
+        List<Long> requests = new ArrayList<>();
+        RowNumberAssigner assigner = new RowNumberAssigner(null, count -> {
+            requests.add(count);
+            return 101;
+        }, '\t', true, 3, 10000);
+
+        String loaded = read(new LineMappingInputStream(source("a\tb\nx\t1\ny\t2\nz\t3\n"), assigner));
+
+        assertThat(loaded).isEqualTo("a\tb\n101\tx\t1\n102\ty\t2\n103\tz\t3\n");
+        assertThat(requests).containsExactly(3L);
+        assertThat(assigner.getFirstNumber()).isEqualTo(101);
+        assertThat(assigner.getReserved()).isEqualTo(3);
+    }
+
+    @Test
+    void testAssign_UnknownLengthReservesBlocks() throws IOException {
+        List<Long> requests = new ArrayList<>();
+        long[] nextStart = { 1, 500 };
+        RowNumberAssigner assigner = new RowNumberAssigner(null, count -> {
+            requests.add(count);
+            return nextStart[requests.size() - 1];
+        }, ',', false, 0, 2);
+
+        String loaded = read(new LineMappingInputStream(source("a\nb\nc\n"), assigner));
+
+        // A later block continues from wherever the sequence stood
+        assertThat(loaded).isEqualTo("1,a\n2,b\n500,c\n");
+        assertThat(requests).containsExactly(2L, 2L);
+        assertThat(assigner.getReserved()).isEqualTo(4);
+    }
+
+    @Test
+    void testAssign_QuarantinedLinesLeaveGaps() throws IOException {
+        RowTypeChecker checker = new RowTypeChecker(List.of(
+                new ColumnDefinition("id", Types.INTEGER, "int4", 10, 0, false)), ',', true);
+        RowQuarantine quarantine = new RowQuarantine(checker, true, -1);
+        RowNumberAssigner assigner = new RowNumberAssigner(quarantine, count -> 10, ',', true, 3, 100);
+
+        String loaded = read(new LineMappingInputStream(source("id\n1\nx\n3\n"), assigner));
+
+        assertThat(loaded).isEqualTo("id\n10,1\n12,3\n");
+        assertThat(quarantine.getRejectedCount()).isEqualTo(1);
+    }
+}
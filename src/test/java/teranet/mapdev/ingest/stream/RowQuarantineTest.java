@@ -0,0 +1,62 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for RowQuarantine (diverting un-COPYable rows)
+ */
+class RowQuarantineTest {
+
+    private static final RowTypeChecker CHECKER = new RowTypeChecker(List.of(
+            new ColumnDefinition("id", Types.INTEGER, "int4", 10, 0, false),
+            new ColumnDefinition("code", Types.VARCHAR, "varchar", 3, 0, true)), ',', true);
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static InputStream source(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFilter_DropsInvalidRowsAndKeepsLineNumbers() throws IOException {
+        RowQuarantine quarantine = new RowQuarantine(CHECKER, true, -1);
+
+        String loaded = read(new LineMappingInputStream(
+                source("id,code\n1,AB\nx,AB\n3,TOOLONG\n4,OK\n"), quarantine));
+
+        assertThat(loaded).isEqualTo("id,code\n1,AB\n4,OK\n");
+        assertThat(quarantine.getRejectedCount()).isEqualTo(2);
+
+        List<RowQuarantine.RejectedRow> rejects = quarantine.drainPending();
+        assertThat(rejects).extracting(RowQuarantine.RejectedRow::getLineNumber).containsExactly(3L, 4L);
+        assertThat(rejects).extracting(RowQuarantine.RejectedRow::getRawLine).containsExactly("x,AB", "3,TOOLONG");
+        assertThat(rejects.get(0).getReason()).contains("Column id");
+
+        // Drained rejects are not returned twice
+        assertThat(quarantine.drainPending()).isEmpty();
+        assertThat(quarantine.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testFilter_TooManyRejectsFailsTheLoad() {
+        RowQuarantine quarantine = new RowQuarantine(CHECKER, false, 1);
+
+        assertThatThrownBy(() -> read(new LineMappingInputStream(source("x,A\n1,A\ny,A\n"), quarantine)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than 1 invalid records")
+                .hasMessageContaining("line 3");
+    }
+}
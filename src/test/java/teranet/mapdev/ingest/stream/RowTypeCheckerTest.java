@@ -0,0 +1,85 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+import teranet.mapdev.ingest.model.ColumnDefinition;
+
+import java.sql.Types;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RowTypeChecker (pre-COPY type checks)
+ */
+class RowTypeCheckerTest {
+
+    private static final ColumnDefinition CODE = new ColumnDefinition("code", Types.VARCHAR, "varchar", 5, 0, true);
+    private static final ColumnDefinition QTY = new ColumnDefinition("qty", Types.INTEGER, "int4", 10, 0, false);
+    private static final ColumnDefinition AMOUNT = new ColumnDefinition("amount", Types.NUMERIC, "numeric", 6, 2, true);
+    private static final ColumnDefinition UPDATED = new ColumnDefinition("updated", Types.TIMESTAMP, "timestamp", 29, 0, true);
+
+    private final RowTypeChecker tsv = new RowTypeChecker(List.of(CODE, QTY, AMOUNT, UPDATED), '\t', false);
+
+    @Test
+    void testCheck_ValidRowsPass() {
+        assertThat(tsv.check("AB\t1\t1234.56\t2024-02-29 23:59:59")).isNull();
+        assertThat(tsv.check("AB\t-7\t\t2024/01/15")).isNull();
+        assertThat(tsv.check("\t42\t0.001\t")).isNull();
+    }
+
+    @Test
+    void testCheck_FieldCountMismatch() {
+        assertThat(tsv.check("AB\t1\t2")).isEqualTo("Expected 4 fields but found 3");
+        assertThat(tsv.check("AB\t1\t2\t\textra")).isEqualTo("Expected 4 fields but found 5");
+    }
+
+    @Test
+    void testCheck_VarcharTooLong() {
+        assertThat(tsv.check("ABCDEF\t1\t\t")).startsWith("Column code: value too long (6 > 5)");
+        // Excess trailing spaces are truncated by PostgreSQL, not rejected
+        assertThat(tsv.check("ABCDE   \t1\t\t")).isNull();
+    }
+
+    @Test
+    void testCheck_NotNullAndIntegers() {
+        assertThat(tsv.check("AB\t\t\t")).isEqualTo("Column qty: NULL in NOT NULL column");
+        assertThat(tsv.check("AB\t1.5\t\t")).startsWith("Column qty: invalid integer");
+        assertThat(tsv.check("AB\t3000000000\t\t")).contains("out of range for integer");
+    }
+
+    @Test
+    void testCheck_NumericPrecision() {
+        assertThat(tsv.check("AB\t1\t9999.99\t")).isNull();
+        assertThat(tsv.check("AB\t1\t10000\t")).contains("exceeds precision 6, scale 2");
+        assertThat(tsv.check("AB\t1\tabc\t")).contains("invalid numeric");
+    }
+
+    @Test
+    void testCheck_Timestamps() {
+        assertThat(tsv.check("AB\t1\t\t2023-02-29")).contains("invalid timestamp");
+        assertThat(tsv.check("AB\t1\t\t0000/00/00")).contains("invalid timestamp");
+        assertThat(tsv.check("AB\t1\t\t2024-01-01 25:00:00")).contains("invalid time");
+        assertThat(tsv.check("AB\t1\t\t15-Jan-2024")).contains("invalid timestamp");
+        assertThat(tsv.check("AB\t1\t\t20240115")).isNull();
+        assertThat(tsv.check("AB\t1\t\t2024-01-15T08:30:00.123+05:30")).isNull();
+    }
+
+    @Test
+    void testCheck_CsvQuoting() {
+        RowTypeChecker csv = new RowTypeChecker(List.of(CODE, QTY), ',', true);
+
+        assertThat(csv.check("\"A,B\",1")).isNull();
+        assertThat(csv.check("\"ABC\"\"DE\",1")).contains("value too long (6 > 5)");
+        // Quoted empty string is not NULL - invalid for an integer column
+        assertThat(csv.check("AB,\"\"")).contains("invalid integer");
+        assertThat(csv.check("AB,")).contains("NULL in NOT NULL column");
+        assertThat(csv.check("\"AB,1")).isEqualTo("Unterminated quoted field");
+    }
+
+    @Test
+    void testCheck_UnknownColumnsAreNotChecked() {
+        RowTypeChecker checker = new RowTypeChecker(java.util.Arrays.asList(null, QTY), '\t', false);
+
+        assertThat(checker.check("anything at all\t5")).isNull();
+    }
+}
@@ -0,0 +1,103 @@
+package teranet.mapdev.ingest.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import teranet.mapdev.ingest.config.CsvProcessingConfig;
+import teranet.mapdev.ingest.service.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for SpillingBuffer
+ * Tests content round trips within and beyond the budget and buffer release
+ */
+class SpillingBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        CsvProcessingConfig config = new CsvProcessingConfig();
+        config.setTempDirectory(tempDir.toString());
+        pool = new BufferPool(new SimpleMeterRegistry(), config);
+        ReflectionTestUtils.setField(pool, "budgetMb", 1L);
+        ReflectionTestUtils.setField(pool, "bufferKb", 256);
+        ReflectionTestUtils.setField(pool, "waitMs", 100L);
+    }
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeInPieces(SpillingBuffer buffer, byte[] bytes) throws IOException {
+        for (int off = 0; off < bytes.length; off += 10_000) {
+            buffer.write(bytes, off, Math.min(10_000, bytes.length - off));
+        }
+    }
+
+    @Test
+    void testWithinBudget_RoundTripsAndReleasesBuffersAsRead() throws IOException {
+        byte[] bytes = content(600_000);
+        SpillingBuffer buffer = pool.newBuffer();
+        writeInPieces(buffer, bytes);
+
+        try (InputStream in = buffer.toInputStream()) {
+            assertThat(pool.getSnapshot()).containsEntry("inUse", 3);
+            assertThat(in.readNBytes(300_000)).isEqualTo(Arrays.copyOf(bytes, 300_000));
+            assertThat(pool.getSnapshot()).containsEntry("inUse", 2);
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(bytes, 300_000, 600_000));
+        }
+
+        assertThat(buffer.getSpilledBytes()).isZero();
+        assertThat(pool.getSnapshot()).containsEntry("inUse", 0).containsEntry("pooled", 3);
+    }
+
+    @Test
+    void testBeyondBudget_SpillsTheRestAndDeletesTheSpillFile() throws IOException {
+        byte[] held = pool.tryAcquire(); // another load holds a quarter of the budget
+        byte[] bytes = content(2_000_000);
+        SpillingBuffer buffer = pool.newBuffer();
+        writeInPieces(buffer, bytes);
+
+        assertThat(buffer.size()).isEqualTo(2_000_000);
+        assertThat(buffer.getSpilledBytes()).isEqualTo(2_000_000 - 3 * 256 * 1024);
+        try (InputStream in = buffer.toInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(bytes);
+        }
+
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+        assertThat(pool.getSnapshot()).containsEntry("inUse", 1).containsEntry("spills", 1L);
+        pool.release(held);
+    }
+
+    @Test
+    void testDiscard_ReleasesEverything() throws IOException {
+        SpillingBuffer buffer = pool.newBuffer();
+        writeInPieces(buffer, content(2_000_000));
+
+        buffer.discard();
+
+        assertThat(pool.getSnapshot()).containsEntry("inUse", 0);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+        assertThatThrownBy(buffer::toInputStream).isInstanceOf(IllegalStateException.class);
+    }
+}
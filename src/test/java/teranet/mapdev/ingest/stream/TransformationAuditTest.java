@@ -0,0 +1,74 @@
+package teranet.mapdev.ingest.stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TransformationAudit (bounded transformation tracking)
+ */
+class TransformationAuditTest {
+
+    @Test
+    void testRecordChange_ExactCountsAndBoundedSample() {
+        TransformationAudit audit = new TransformationAudit(10, null);
+
+        for (long line = 1; line <= 10_000; line++) {
+            audit.recordChange(line, line % 4 == 0 ? "Fields trimmed" : "Date converted to NULL",
+                    "original " + line, "transformed " + line);
+        }
+        audit.recordSkipped();
+        audit.close();
+
+        assertThat(audit.getChangedLines()).isEqualTo(10_000);
+        assertThat(audit.getSkippedLines()).isEqualTo(1);
+        assertThat(audit.getCounts()).containsExactly(
+                Map.entry("Date converted to NULL", 7_500L),
+                Map.entry("Fields trimmed", 2_500L));
+
+        // Sample stays at its size, in line order
+        assertThat(audit.getSamples()).hasSize(10);
+        assertThat(audit.getSamples()).isSortedAccordingTo(
+                Comparator.comparingLong(TransformationAudit.Change::getLineNumber));
+        assertThat(audit.getSamples().get(0).getOriginalLine())
+                .isEqualTo("original " + audit.getSamples().get(0).getLineNumber());
+        assertThat(audit.getLogFile()).isNull();
+    }
+
+    @Test
+    void testRecordChange_SampleSizeZeroKeepsCountsOnly() {
+        TransformationAudit audit = new TransformationAudit(0, null);
+
+        audit.recordChange(1, "Fields trimmed", " a", "a");
+
+        assertThat(audit.getCounts()).containsEntry("Fields trimmed", 1L);
+        assertThat(audit.getSamples()).isEmpty();
+    }
+
+    @Test
+    void testRecordChange_LogsEveryChangeEscaped(@TempDir Path tempDir) throws IOException {
+        Path logFile = tempDir.resolve("logs").resolve("batch_transformations.tsv.gz");
+        TransformationAudit audit = new TransformationAudit(1, logFile);
+
+        audit.recordChange(2, "Fields trimmed", " a\tb\\c", "a\tb\\c");
+        audit.recordChange(5, "Fields trimmed", "d ", "d");
+        audit.close();
+
+        assertThat(audit.getLogFile()).isEqualTo(logFile);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(logFile))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+                    "2\tFields trimmed\t a\\tb\\\\c\ta\\tb\\\\c\n"
+                            + "5\tFields trimmed\td \td\n");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import teranet.mapdev.ingest.stream.FieldIndex;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -223,4 +224,33 @@ class IM2TransformerTest {
             assertEquals(expected, result, "Invalid date '" + invalidDate + "' should be converted to empty");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTransformLine_IndexedOverloadMatchesAndKeepsUnchangedLine() {
+        String changed = "  John  \t  Doe  \t  Smith  \t  0000/00/00  \t  123 Main St  \t  \t  Toronto  ";
+        FieldIndex fields = new FieldIndex();
+        assertEquals("John\tDoe\tSmith\t\t123 Main St\t\tToronto",
+                transformer.transformLine(changed, fields.reset(changed), 1));
+
+        // Lines that need no change are returned as is, not rebuilt
+        String clean = "field1\tfield2\tfield3\t2024/01/15\tfield5";
+        assertSame(clean, transformer.transformLine(clean, fields.reset(clean), 2));
+
+        // Only the tail after the first changed field is rebuilt
+        String tail = "field1\tfield2\tfield3\t2024/01/15\tfield5 ";
+        assertEquals("field1\tfield2\tfield3\t2024/01/15\tfield5", transformer.transformLine(tail, fields.reset(tail), 3));
+    }
+
+    @Test
+    void testDescribeChange() {
+        String invalidDate = "field1\tfield2\tfield3\t 0000/00/00 \tfield5";
+        assertEquals("PARTY_B_DAY '0000/00/00' converted to NULL",
+                transformer.describeChange(invalidDate, transformer.transformLine(invalidDate, 1)));
+
+        String padded = " field1\tfield2\tfield3\t2024/01/15\tfield5";
+        assertEquals("Fields trimmed", transformer.describeChange(padded, transformer.transformLine(padded, 1)));
+
+        // Short lines without a date field
+        assertEquals("Fields trimmed", transformer.describeChange(" a\tb", "a\tb"));
+    }
+}
@@ -0,0 +1,58 @@
+package teranet.mapdev.ingest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for BloomFilter (checksum duplicate-check filter)
+ */
+class BloomFilterTest {
+
+    private static String checksum(int i) {
+        return UUID.nameUUIDFromBytes(("file-" + i).getBytes()).toString().replace("-", "") + "00000000";
+    }
+
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(checksum(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(checksum(i))).isTrue();
+        }
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(checksum(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(checksum(i))) {
+                falsePositives++;
+            }
+        }
+        // Target 1% - allow for hash variance
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void testSizing() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // ~9.6 bits per entry, 7 hashes for 1%
+        assertThat(filter.getBitCount()).isBetween(9_500_000L, 9_700_000L);
+        assertThat(filter.getHashCount()).isEqualTo(7);
+        assertThat(new BloomFilter(0, 0.01).mightContain("anything")).isFalse();
+        assertThatThrownBy(() -> new BloomFilter(10, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package teranet.mapdev.ingest.util;
+
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.util.Streams;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for JakartaRequestContext (commons-fileupload streaming on jakarta.servlet)
+ */
+class JakartaRequestContextTest {
+
+    private static final String BOUNDARY = "----test-boundary";
+
+    @Test
+    void testItemIterator_StreamsFieldsAndFilePart() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"format\"\r\n\r\n"
+                + "tsv\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"PM162\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"
+                + "A\tB\nC\tD\n\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/ingest/delimited/upload-stream");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        FileItemIterator items = new FileUpload().getItemIterator(new JakartaRequestContext(request));
+
+        FileItemStream field = items.next();
+        assertThat(field.isFormField()).isTrue();
+        assertThat(field.getFieldName()).isEqualTo("format");
+        try (InputStream value = field.openStream()) {
+            assertThat(Streams.asString(value, "UTF-8")).isEqualTo("tsv");
+        }
+
+        FileItemStream file = items.next();
+        assertThat(file.isFormField()).isFalse();
+        assertThat(file.getName()).isEqualTo("PM162");
+        try (InputStream content = file.openStream()) {
+            assertThat(new String(content.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("A\tB\nC\tD\n");
+        }
+
+        assertThat(items.hasNext()).isFalse();
+    }
+}
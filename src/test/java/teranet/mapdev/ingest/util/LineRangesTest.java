@@ -0,0 +1,63 @@
+package teranet.mapdev.ingest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LineRanges (run-length encoded line numbers)
+ */
+class LineRangesTest {
+
+    private static List<Long> expand(String encoded, long firstLine) {
+        List<Long> lines = new ArrayList<>();
+        LineRanges.forEach(encoded, firstLine, lines::add);
+        return lines;
+    }
+
+    @Test
+    void testEncode_CollapsesConsecutiveLines() {
+        LineRanges ranges = new LineRanges();
+        for (long line = 2; line <= 1_000_000; line++) {
+            ranges.add(line);
+        }
+        ranges.add(1_000_002);
+        ranges.add(1_000_004);
+        ranges.add(1_000_005);
+
+        assertThat(ranges.encode()).isEqualTo("2-1000000,1000002,1000004-1000005");
+        assertThat(ranges.getCount()).isEqualTo(999_999 + 3);
+        assertThat(ranges.getFirstLine()).isEqualTo(2);
+
+        // encode() can be called while lines are still being added
+        ranges.add(1_000_006);
+        assertThat(ranges.encode()).isEqualTo("2-1000000,1000002,1000004-1000006");
+    }
+
+    @Test
+    void testEncode_SingleLineAndRepeats() {
+        LineRanges ranges = new LineRanges();
+        ranges.add(7);
+        ranges.add(7);
+
+        assertThat(ranges.getCount()).isEqualTo(1);
+        assertThat(ranges.encode()).isNull();
+        assertThat(expand(ranges.encode(), ranges.getFirstLine())).containsExactly(7L);
+    }
+
+    @Test
+    void testForEach_ExpandsRanges() {
+        assertThat(expand("3-5,9,11-12", 3)).containsExactly(3L, 4L, 5L, 9L, 11L, 12L);
+    }
+
+    @Test
+    void testLinesFrom_SkipsEarlierRangesAndStopsAtMax() {
+        assertThat(LineRanges.linesFrom("3-5,9,11-1000000", 3, 5, 4)).containsExactly(5L, 9L, 11L, 12L);
+        assertThat(LineRanges.linesFrom("3-5", 3, 6, 10)).isEmpty();
+        assertThat(LineRanges.linesFrom(null, 8, 8, 10)).containsExactly(8L);
+        assertThat(LineRanges.linesFrom(null, 8, 9, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package teranet.mapdev.ingest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ServerPathMap (local to database server paths for server-side COPY)
+ */
+class ServerPathMapTest {
+
+    @Test
+    void testToServerPath_EmptyMapKeepsPath() {
+        assertThat(new ServerPathMap("").toServerPath(Path.of("/data/wip/PM162"))).isEqualTo("/data/wip/PM162");
+    }
+
+    @Test
+    void testToServerPath_ReplacesFirstMatchingPrefix() {
+        ServerPathMap map = new ServerPathMap("/data/wip/=/pgshare/wip, /data=/pgshare/other");
+
+        assertThat(map.toServerPath(Path.of("/data/wip/PM162"))).isEqualTo("/pgshare/wip/PM162");
+        assertThat(map.toServerPath(Path.of("/data/archive/../upload/IM262"))).isEqualTo("/pgshare/other/upload/IM262");
+    }
+
+    @Test
+    void testToServerPath_UnmappedPathReturnsNull() {
+        ServerPathMap map = new ServerPathMap("/data/wip=/pgshare/wip");
+
+        // Prefix match is per path segment
+        assertThat(map.toServerPath(Path.of("/data/wip2/PM162"))).isNull();
+        assertThat(map.toServerPath(Path.of("/tmp/PM162"))).isNull();
+    }
+}
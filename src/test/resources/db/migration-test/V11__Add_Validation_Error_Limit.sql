@@ -0,0 +1,11 @@
+-- =====================================================
+-- VALIDATION ERROR LIMIT
+-- =====================================================
+-- Validation stops and rejects a file once it has more unfixed violations
+-- than max_errors (NULL = csv.processing.max-validation-errors, -1 = no
+-- limit). Rules with reject_on_violation stop at the first one.
+
+ALTER TABLE title_d_app_int.file_validation_rules
+ADD COLUMN IF NOT EXISTS max_errors INTEGER;
+
+COMMENT ON COLUMN title_d_app_int.file_validation_rules.max_errors IS 'Unfixed violations before the file is rejected (NULL = csv.processing.max-validation-errors, -1 = no limit)';
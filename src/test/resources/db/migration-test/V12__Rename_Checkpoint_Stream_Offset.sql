@@ -0,0 +1,13 @@
+-- =====================================================
+-- CHECKPOINT STREAM OFFSET
+-- =====================================================
+-- The chunked-commit checkpoint counts bytes of the stream fed to COPY,
+-- i.e. after validation, fixes, transformation and line-ending
+-- normalisation (CRLF -> LF). It is not a position in the source file, so
+-- the column is renamed to say so. Resume is by committed_line_number only.
+
+ALTER TABLE title_d_app_int.ingestion_manifest
+RENAME COLUMN committed_byte_offset TO committed_stream_offset;
+
+COMMENT ON COLUMN title_d_app_int.ingestion_manifest.committed_line_number IS 'Lines of the loaded stream (header included) covered by committed chunks; resume skips this many lines';
+COMMENT ON COLUMN title_d_app_int.ingestion_manifest.committed_stream_offset IS 'Bytes of the loaded (validated + transformed) stream covered by committed chunks - not a source file offset, informational only';
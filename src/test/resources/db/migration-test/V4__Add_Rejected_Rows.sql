@@ -0,0 +1,23 @@
+-- =====================================================
+-- ROW QUARANTINE
+-- =====================================================
+-- With csv.processing.skip-invalid-records=true, rows that would make
+-- COPY fail (bad type, too long, NOT NULL, wrong field count) are
+-- diverted here instead of aborting the load. Rows are written in the
+-- same transaction as the COPY that skipped them.
+--
+-- line_number is the position in the validated + transformed stream fed
+-- to COPY (header line included). raw_line is the line as COPY would
+-- have seen it, so the rejects can be exported, fixed and reloaded.
+
+CREATE TABLE IF NOT EXISTS title_d_app_int.ingestion_rejected_rows (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id UUID NOT NULL,
+    table_name VARCHAR(255) NOT NULL,
+    line_number BIGINT NOT NULL,
+    reason TEXT NOT NULL,
+    raw_line TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_rejected_rows_batch ON title_d_app_int.ingestion_rejected_rows(batch_id, line_number);
@@ -0,0 +1,26 @@
+-- =====================================================
+-- COMPACT VALIDATION ISSUES
+-- =====================================================
+-- One file_validation_issues row now describes every line with the same
+-- finding (issue type, severity, expected/actual value, fix): line_number
+-- is the first such line, line_count how many there are and line_ranges
+-- the lines themselves ("2-4180,4182,4190-5000"; NULL for a single line).
+--
+-- Line text is no longer copied onto every issue. It is stored once per
+-- line in file_validation_lines, and only for a bounded sample of lines.
+
+ALTER TABLE title_d_app_int.file_validation_issues
+ADD COLUMN IF NOT EXISTS line_count BIGINT NOT NULL DEFAULT 1;
+
+ALTER TABLE title_d_app_int.file_validation_issues
+ADD COLUMN IF NOT EXISTS line_ranges TEXT;
+
+CREATE TABLE IF NOT EXISTS title_d_app_int.file_validation_lines (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id UUID NOT NULL,
+    line_number BIGINT NOT NULL,
+    original_line TEXT,
+    corrected_line TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_validation_lines_batch_line UNIQUE (batch_id, line_number)
+);